@@ -0,0 +1,76 @@
+package org.robolectric.benchmarks;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.robolectric.internal.bytecode.ClassDetails;
+import org.robolectric.internal.bytecode.ClassInstrumentor;
+import org.robolectric.internal.bytecode.ClassNodeProvider;
+import org.robolectric.internal.bytecode.InstrumentationConfiguration;
+
+/** Measures instrumentation of individual classes of various sizes. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClassInstrumentorBenchmark {
+
+  @Param({
+    "org.robolectric.benchmarks.Dispatchee",
+    "com.google.common.collect.ImmutableList",
+    "org.objectweb.asm.MethodWriter"
+  })
+  public String className;
+
+  private ClassInstrumentor classInstrumentor;
+  private InstrumentationConfiguration config;
+  private ClassNodeProvider classNodeProvider;
+  private ClassDetails classDetails;
+
+  @Setup
+  public void setUp() throws Exception {
+    classInstrumentor = new ClassInstrumentor();
+    config = InstrumentationConfiguration.newBuilder().build();
+    // Shared across invocations, as it is within a sandbox, so superclass lookups are cached.
+    classNodeProvider =
+        new ClassNodeProvider() {
+          @Override
+          protected byte[] getClassBytes(String className) throws ClassNotFoundException {
+            return readClassBytes(className);
+          }
+        };
+    classDetails = new ClassDetails(readClassBytes(className));
+  }
+
+  @Benchmark
+  public byte[] instrument() {
+    return classInstrumentor.instrument(classDetails, config, classNodeProvider);
+  }
+
+  private static byte[] readClassBytes(String className) throws ClassNotFoundException {
+    String resourceName = className.replace('.', '/') + ".class";
+    try (InputStream in =
+        ClassInstrumentorBenchmark.class.getClassLoader().getResourceAsStream(resourceName)) {
+      if (in == null) {
+        throw new ClassNotFoundException(className);
+      }
+      return ByteStreams.toByteArray(in);
+    } catch (IOException e) {
+      throw new ClassNotFoundException(className, e);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package org.robolectric.benchmarks;
+
+/**
+ * Calls into sandboxed code on behalf of {@link ShadowDispatchBenchmark}.
+ *
+ * <p>This interface is loaded by the system class loader, while its implementation is loaded by the
+ * sandbox, so benchmarks can call sandboxed code directly rather than reflectively.
+ */
+public interface DispatchDriver {
+  int callShadowedMethod(int value);
+
+  int callUnshadowedMethod(int value);
+
+  int callShadowedStaticMethod(int value);
+
+  Object extractShadow();
+
+  /** Implementation of {@link DispatchDriver}, loaded in the sandbox. */
+  class Impl implements DispatchDriver {
+    private final Dispatchee dispatchee = new Dispatchee();
+
+    @Override
+    public int callShadowedMethod(int value) {
+      return dispatchee.shadowedMethod(value);
+    }
+
+    @Override
+    public int callUnshadowedMethod(int value) {
+      return dispatchee.unshadowedMethod(value);
+    }
+
+    @Override
+    public int callShadowedStaticMethod(int value) {
+      return Dispatchee.shadowedStaticMethod(value);
+    }
+
+    @Override
+    public Object extractShadow() {
+      return org.robolectric.shadow.api.Shadow.extract(dispatchee);
+    }
+  }
+}
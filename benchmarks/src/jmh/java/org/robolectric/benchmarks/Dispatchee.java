@@ -0,0 +1,19 @@
+package org.robolectric.benchmarks;
+
+import org.robolectric.annotation.internal.Instrument;
+
+/** An instrumented class whose methods are called from {@link ShadowDispatchBenchmark}. */
+@Instrument
+public class Dispatchee {
+  public int shadowedMethod(int value) {
+    return value;
+  }
+
+  public int unshadowedMethod(int value) {
+    return value + 1;
+  }
+
+  public static int shadowedStaticMethod(int value) {
+    return value;
+  }
+}
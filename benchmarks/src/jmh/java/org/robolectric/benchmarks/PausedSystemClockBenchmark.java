@@ -0,0 +1,182 @@
+package org.robolectric.benchmarks;
+
+import static org.robolectric.util.reflector.Reflector.reflector;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.robolectric.shadows.ShadowPausedSystemClock;
+import org.robolectric.util.reflector.ForType;
+import org.robolectric.util.reflector.Static;
+import org.robolectric.util.reflector.WithType;
+
+/**
+ * Measures reading and advancing the {@link ShadowPausedSystemClock} time from several threads at
+ * once, as the loopers of a test's background threads do.
+ *
+ * <p>The shadow is called directly, outside a sandbox. Each listener stands in for the message
+ * queue of a looper. The {@code synchronized} implementation is a copy of the clock the shadow
+ * replaced, which locked on every read, for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PausedSystemClockBenchmark {
+
+  private static final String LISTENER_CLASS_NAME =
+      "org.robolectric.shadows.ShadowPausedSystemClock$Listener";
+
+  @Param({"shadow", "synchronized"})
+  public String implementation;
+
+  @Param({"1", "16"})
+  public int listenerCount;
+
+  private Clock clock;
+
+  @Setup
+  public void setUp() throws ClassNotFoundException {
+    clock = implementation.equals("shadow") ? new ShadowClock() : new SynchronizedClock();
+    clock.reset();
+    for (int i = 0; i < listenerCount; i++) {
+      clock.addNoOpListener();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    clock.reset();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public long uptimeMillis() {
+    return clock.uptimeMillis();
+  }
+
+  @Benchmark
+  @Group("readWhileAdvancing")
+  @GroupThreads(3)
+  public long readWhileAdvancing_read() {
+    return clock.uptimeMillis();
+  }
+
+  @Benchmark
+  @Group("readWhileAdvancing")
+  @GroupThreads(1)
+  public void readWhileAdvancing_advance() {
+    clock.sleep(1);
+  }
+
+  interface Clock {
+    long uptimeMillis();
+
+    void sleep(long millis);
+
+    void addNoOpListener();
+
+    void reset();
+  }
+
+  private static final class ShadowClock implements Clock {
+    private final ClockReflector reflector = reflector(ClockReflector.class);
+    private final Class<?> listenerClass;
+
+    ShadowClock() throws ClassNotFoundException {
+      listenerClass = Class.forName(LISTENER_CLASS_NAME);
+    }
+
+    @Override
+    public long uptimeMillis() {
+      return reflector.uptimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) {
+      reflector.sleep(millis);
+    }
+
+    @Override
+    public void addNoOpListener() {
+      reflector.addListener(
+          Proxy.newProxyInstance(
+              listenerClass.getClassLoader(),
+              new Class<?>[] {listenerClass},
+              (proxy, method, args) -> null));
+    }
+
+    @Override
+    public void reset() {
+      reflector.reset();
+    }
+  }
+
+  /** The clock before reads became lock-free: a guarded field and copy-on-write listeners. */
+  private static final class SynchronizedClock implements Clock {
+    private static final long INITIAL_TIME = 100;
+
+    private long currentTimeMillis = INITIAL_TIME;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public synchronized long uptimeMillis() {
+      return currentTimeMillis;
+    }
+
+    @Override
+    public void sleep(long millis) {
+      synchronized (this) {
+        currentTimeMillis += millis;
+      }
+      for (Runnable listener : listeners) {
+        listener.run();
+      }
+    }
+
+    @Override
+    public void addNoOpListener() {
+      listeners.add(() -> {});
+    }
+
+    @Override
+    public synchronized void reset() {
+      currentTimeMillis = INITIAL_TIME;
+      listeners.clear();
+    }
+  }
+
+  /** Accessor for the static members of {@link ShadowPausedSystemClock}. */
+  @ForType(ShadowPausedSystemClock.class)
+  interface ClockReflector {
+    @Static
+    long uptimeMillis();
+
+    @Static
+    void sleep(long millis);
+
+    @Static
+    void addListener(@WithType(LISTENER_CLASS_NAME) Object listener);
+
+    @Static
+    void reset();
+  }
+}
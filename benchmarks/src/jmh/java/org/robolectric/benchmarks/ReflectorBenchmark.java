@@ -0,0 +1,88 @@
+package org.robolectric.benchmarks;
+
+import static org.robolectric.util.reflector.Reflector.reflector;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.robolectric.util.reflector.Accessor;
+import org.robolectric.util.reflector.ForType;
+import org.robolectric.util.reflector.Static;
+
+/** Measures creating {@code reflector()} proxies and calling through them. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReflectorBenchmark {
+
+  private Target target;
+  private TargetReflector targetReflector;
+
+  @Setup
+  public void setUp() {
+    target = new Target();
+    targetReflector = reflector(TargetReflector.class, target);
+  }
+
+  @Benchmark
+  public Object createReflector() {
+    return reflector(TargetReflector.class, target);
+  }
+
+  @Benchmark
+  public int invokeMethod() {
+    return targetReflector.addToValue(1);
+  }
+
+  @Benchmark
+  public int getField() {
+    return targetReflector.getValue();
+  }
+
+  @Benchmark
+  public int invokeStaticMethod() {
+    return reflector(TargetReflector.class).staticMethod(1);
+  }
+
+  @Benchmark
+  public int createReflectorAndInvokeMethod() {
+    return reflector(TargetReflector.class, target).addToValue(1);
+  }
+
+  /** A class with private members, accessed via {@link TargetReflector}. */
+  @SuppressWarnings("unused")
+  public static class Target {
+    private int value = 42;
+
+    private int addToValue(int addend) {
+      return value + addend;
+    }
+
+    private static int staticMethod(int value) {
+      return value;
+    }
+  }
+
+  /** Accessor for {@link Target}. */
+  @ForType(Target.class)
+  interface TargetReflector {
+    int addToValue(int addend);
+
+    @Accessor("value")
+    int getValue();
+
+    @Static
+    int staticMethod(int value);
+  }
+}
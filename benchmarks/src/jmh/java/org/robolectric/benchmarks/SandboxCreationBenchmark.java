@@ -0,0 +1,81 @@
+package org.robolectric.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.config.AndroidConfigurer;
+import org.robolectric.interceptors.AndroidInterceptors;
+import org.robolectric.internal.AndroidSandbox;
+import org.robolectric.internal.ResourcesMode;
+import org.robolectric.internal.SandboxManager.SandboxBuilder;
+import org.robolectric.internal.bytecode.InstrumentationConfiguration;
+import org.robolectric.internal.bytecode.Interceptors;
+import org.robolectric.pluginapi.Sdk;
+import org.robolectric.plugins.SdkCollection;
+import org.robolectric.util.inject.Injector;
+
+/**
+ * Measures creating a sandbox for an SDK and loading a representative framework class through it.
+ *
+ * <p>Each invocation uses a fresh sandbox class loader, so classes are loaded and instrumented from
+ * scratch (unless the instrumented class cache is enabled), while the JIT remains warm. The first
+ * run may download the android-all jars for the selected SDKs; this happens during setup and is not
+ * measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SandboxCreationBenchmark {
+
+  @Param({"28", "33"})
+  public int apiLevel;
+
+  private SandboxBuilder sandboxBuilder;
+  private Sdk sdk;
+  private InstrumentationConfiguration config;
+
+  @Setup
+  public void setUp() {
+    Injector injector =
+        new Injector.Builder().bind(Properties.class, System.getProperties()).build();
+    sandboxBuilder = injector.getInstance(SandboxBuilder.class);
+    sdk = injector.getInstance(SdkCollection.class).getSdk(apiLevel);
+    sdk.getJarPath(); // resolve (and possibly download) android-all outside the measurement
+
+    InstrumentationConfiguration.Builder builder =
+        InstrumentationConfiguration.newBuilder()
+            .doNotAcquirePackage("java.")
+            .doNotAcquirePackage("jdk.internal.")
+            .doNotAcquirePackage("sun.")
+            .doNotAcquirePackage("org.robolectric.annotation.")
+            .doNotAcquirePackage("org.robolectric.internal.")
+            .doNotAcquirePackage("org.robolectric.pluginapi.")
+            .doNotAcquirePackage("org.robolectric.util.")
+            .doNotAcquirePackage("org.openjdk.jmh.");
+    injector
+        .getInstance(AndroidConfigurer.class)
+        .configure(builder, new Interceptors(AndroidInterceptors.all()));
+    config = builder.build();
+  }
+
+  @Benchmark
+  public Class<?> createSandbox() throws ClassNotFoundException {
+    AndroidSandbox sandbox =
+        sandboxBuilder.build(config, sdk, sdk, ResourcesMode.BINARY, SQLiteMode.Mode.LEGACY);
+    return sandbox.getRobolectricClassLoader().loadClass("android.app.Activity");
+  }
+}
@@ -0,0 +1,87 @@
+package org.robolectric.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.robolectric.internal.bytecode.ClassInstrumentor;
+import org.robolectric.internal.bytecode.InstrumentationConfiguration;
+import org.robolectric.internal.bytecode.Interceptors;
+import org.robolectric.internal.bytecode.Sandbox;
+import org.robolectric.internal.bytecode.ShadowMap;
+import org.robolectric.internal.bytecode.ShadowWrangler;
+import org.robolectric.internal.bytecode.UrlResourceProvider;
+import org.robolectric.sandbox.ShadowMatcher;
+
+/**
+ * Measures the cost of calling instrumented methods, with and without shadows, and of {@code
+ * Shadow.extract()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ShadowDispatchBenchmark {
+
+  private DispatchDriver driver;
+  private int value;
+
+  @Setup
+  public void setUp() throws Exception {
+    InstrumentationConfiguration config =
+        InstrumentationConfiguration.newBuilder()
+            .doNotAcquirePackage("java.")
+            .doNotAcquirePackage("jdk.internal.")
+            .doNotAcquirePackage("sun.")
+            .doNotAcquirePackage("org.robolectric.annotation.")
+            .doNotAcquirePackage("org.robolectric.internal.")
+            .doNotAcquirePackage("org.robolectric.pluginapi.")
+            .doNotAcquirePackage("org.robolectric.util.")
+            .doNotAcquirePackage("org.openjdk.jmh.")
+            .doNotAcquireClass(DispatchDriver.class)
+            .build();
+    Sandbox sandbox = new Sandbox(config, new UrlResourceProvider(), new ClassInstrumentor());
+
+    ShadowMap shadowMap = new ShadowMap.Builder().addShadowClasses(ShadowDispatchee.class).build();
+    sandbox.replaceShadowMap(shadowMap);
+    Interceptors interceptors = new Interceptors();
+    sandbox.configure(
+        new ShadowWrangler(shadowMap, ShadowMatcher.MATCH_ALL, interceptors), interceptors);
+
+    driver =
+        sandbox
+            .<DispatchDriver>bootstrappedClass(DispatchDriver.Impl.class)
+            .getConstructor()
+            .newInstance();
+    value = 21;
+  }
+
+  @Benchmark
+  public int shadowedMethod() {
+    return driver.callShadowedMethod(value);
+  }
+
+  @Benchmark
+  public int unshadowedMethod() {
+    return driver.callUnshadowedMethod(value);
+  }
+
+  @Benchmark
+  public int shadowedStaticMethod() {
+    return driver.callShadowedStaticMethod(value);
+  }
+
+  @Benchmark
+  public Object extractShadow() {
+    return driver.extractShadow();
+  }
+}
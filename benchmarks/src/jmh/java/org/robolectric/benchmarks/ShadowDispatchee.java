@@ -0,0 +1,18 @@
+package org.robolectric.benchmarks;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+
+/** Shadow of {@link Dispatchee}. */
+@Implements(Dispatchee.class)
+public class ShadowDispatchee {
+  @Implementation
+  protected int shadowedMethod(int value) {
+    return value * 2;
+  }
+
+  @Implementation
+  protected static int shadowedStaticMethod(int value) {
+    return value * 2;
+  }
+}
@@ -1,5 +1,5 @@
 class AndroidSdk implements Comparable<AndroidSdk> {
-    static final PREINSTRUMENTED_VERSION = 4
+    static final PREINSTRUMENTED_VERSION = 5
 
     static final JELLY_BEAN = new AndroidSdk(16, "4.1.2_r1", "r1")
     static final JELLY_BEAN_MR1 = new AndroidSdk(17, "4.2.2_r1.2", "r1")
@@ -74,6 +74,15 @@ class AndroidSdk implements Comparable<AndroidSdk> {
         return "android-all-instrumented-${preinstrumentedVersion}.jar"
     }
 
+    String getClassDataSharingArchiveFileName() {
+        return classDataSharingArchiveFileName(apiLevel)
+    }
+
+    /** The name of the AppCDS archive written by AppCdsArchiveGenerator for an API level. */
+    static String classDataSharingArchiveFileName(int apiLevel) {
+        return "robolectric-sdk${apiLevel}.jsa"
+    }
+
     @Override
     int compareTo(AndroidSdk other) {
         return apiLevel - other.apiLevel
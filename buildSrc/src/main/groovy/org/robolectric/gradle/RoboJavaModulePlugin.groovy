@@ -72,6 +72,24 @@ class RoboJavaModulePlugin implements Plugin<Project> {
                     .collect { k,v -> "-D$k=$v" }
             jvmArgs = forwardedSystemProperties
 
+            // When running a single SDK, use the matching AppCDS archive if one has been generated
+            // (see AppCdsArchiveGenerator in :preinstrumented).
+            def cdsArchiveDir = System.properties["robolectric.classDataSharingArchiveDir"]
+            def enabledSdks = System.properties["robolectric.enabledSdks"]
+            if (cdsArchiveDir != null && enabledSdks != null && enabledSdks.trim().isInteger()) {
+                def cdsArchive = new File(cdsArchiveDir,
+                        AndroidSdk.classDataSharingArchiveFileName(enabledSdks.trim() as Integer))
+                if (cdsArchive.exists()) {
+                    jvmArgs "-XX:SharedArchiveFile=${cdsArchive.absolutePath}"
+                    // The archive was dumped with only the jars on the class path, so it only
+                    // matches forks whose class path starts with those jars.
+                    doFirst {
+                        def entries = classpath.files as List
+                        classpath = files(entries.findAll { it.isFile() } + entries.findAll { !it.isFile() })
+                    }
+                }
+            }
+
             doFirst {
                 if (!forwardedSystemProperties.isEmpty()) {
                     println "Running tests with ${forwardedSystemProperties}"
@@ -6,16 +6,16 @@ import static com.google.common.base.StandardSystemProperty.OS_NAME;
 import android.database.CursorWindow;
 import com.google.auto.service.AutoService;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.io.Files;
 import com.google.common.io.Resources;
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Priority;
 import org.robolectric.pluginapi.NativeRuntimeLoader;
+import org.robolectric.util.NativeLibraryCache;
 import org.robolectric.util.PerfStatsCollector;
 import org.robolectric.util.inject.Injector;
 
@@ -63,11 +63,9 @@ public class DefaultNativeRuntimeLoader implements NativeRuntimeLoader {
                 String libraryName = System.mapLibraryName("robolectric-nativeruntime");
                 System.setProperty(
                     "robolectric.nativeruntime.languageTag", Locale.getDefault().toLanguageTag());
-                File tmpLibraryFile = java.nio.file.Files.createTempFile("", libraryName).toFile();
-                tmpLibraryFile.deleteOnExit();
                 URL resource = Resources.getResource(nativeLibraryPath());
-                Resources.asByteSource(resource).copyTo(Files.asByteSink(tmpLibraryFile));
-                System.load(tmpLibraryFile.getAbsolutePath());
+                Path libraryFile = NativeLibraryCache.getLibraryFileToLoad(resource, libraryName);
+                System.load(libraryFile.toAbsolutePath().toString());
               });
     } catch (IOException e) {
       throw new AssertionError("Unable to load Robolectric native runtime library", e);
@@ -0,0 +1,33 @@
+package org.robolectric.nativeruntime;
+
+import static android.os.Build.VERSION_CODES.Q;
+import static android.os.Build.VERSION_CODES.R;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.database.CursorWindow;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Each SDK has its own sandbox, and so its own copy of the native runtime loader, which loads the
+ * library into the sandbox's class loader.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Q, R})
+public final class DefaultNativeRuntimeLoaderSandboxesTest {
+
+  @Test
+  public void nativeRuntime_loadsInEachSandbox() {
+    CursorWindow cursorWindow = new CursorWindow("test");
+    try {
+      assertThat(cursorWindow.setNumColumns(1)).isTrue();
+      assertThat(cursorWindow.allocRow()).isTrue();
+      assertThat(cursorWindow.putLong(42, 0, 0)).isTrue();
+      assertThat(cursorWindow.getLong(0, 0)).isEqualTo(42);
+    } finally {
+      cursorWindow.close();
+    }
+  }
+}
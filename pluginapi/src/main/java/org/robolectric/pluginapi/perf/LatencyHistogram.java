@@ -0,0 +1,66 @@
+package org.robolectric.pluginapi.perf;
+
+/**
+ * Fixed log-linear bucketing of nanosecond latencies, shared by {@link Metric} and the collectors
+ * that produce metrics.
+ *
+ * <p>Values below 8 have a bucket each; every power of two above that is divided into 8 equally
+ * sized buckets, so a value is never reported more than 12.5% above its true value. The full range
+ * of non-negative longs fits in {@link #BUCKET_COUNT} buckets.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** The number of buckets needed to cover every non-negative {@code long} value. */
+  public static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private LatencyHistogram() {}
+
+  /** Returns the index of the bucket containing {@code valueNs}. Negative values count as 0. */
+  public static int bucketFor(long valueNs) {
+    if (valueNs < SUB_BUCKET_COUNT) {
+      return valueNs < 0 ? 0 : (int) valueNs;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(valueNs);
+    int subBucket = (int) (valueNs >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /** Returns the largest value which falls into the given bucket. */
+  public static long bucketUpperBound(int bucket) {
+    if (bucket < SUB_BUCKET_COUNT) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKET_COUNT - 1;
+    long lowerBound = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+
+  /**
+   * Returns the value at the given percentile of a histogram, as the upper bound of the bucket
+   * containing it.
+   *
+   * @param bucketCounts counts indexed by {@link #bucketFor(long)}
+   * @param percentile a percentile between 0 and 100
+   * @return the value, or 0 if the histogram is empty
+   */
+  public static long valueAtPercentile(long[] bucketCounts, double percentile) {
+    long total = 0;
+    for (long count : bucketCounts) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+    long seen = 0;
+    for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+      seen += bucketCounts[bucket];
+      if (seen >= rank) {
+        return bucketUpperBound(bucket);
+      }
+    }
+    return bucketUpperBound(bucketCounts.length - 1);
+  }
+}
@@ -1,7 +1,12 @@
 package org.robolectric.pluginapi.perf;
 
+import javax.annotation.Nullable;
+
 /**
  * Metric for perf stats collection.
+ *
+ * <p>In addition to count, total, minimum and maximum, a metric keeps a {@link LatencyHistogram}
+ * of the recorded durations, from which percentiles may be obtained.
  */
 public class Metric {
   private final String name;
@@ -9,6 +14,7 @@ public class Metric {
   private long elapsedNs;
   private long minNs;
   private long maxNs;
+  @Nullable private long[] bucketCounts;
   private final boolean success;
 
   public Metric(String name, int count, int elapsedNs, boolean success) {
@@ -22,6 +28,29 @@ public class Metric {
     this(name, 0, 0, success);
   }
 
+  /**
+   * Creates a metric from a snapshot of collected values.
+   *
+   * @param bucketCounts histogram counts indexed by {@link LatencyHistogram#bucketFor(long)}, or
+   *     null if no durations were recorded
+   */
+  public Metric(
+      String name,
+      int count,
+      long elapsedNs,
+      long minNs,
+      long maxNs,
+      @Nullable long[] bucketCounts,
+      boolean success) {
+    this.name = name;
+    this.count = count;
+    this.elapsedNs = elapsedNs;
+    this.minNs = minNs;
+    this.maxNs = maxNs;
+    this.bucketCounts = bucketCounts == null ? null : bucketCounts.clone();
+    this.success = success;
+  }
+
   public String getName() {
     return name;
   }
@@ -42,6 +71,40 @@ public class Metric {
     return maxNs;
   }
 
+  /**
+   * Returns the duration at the given percentile (between 0 and 100) of recorded durations. The
+   * value is accurate to within 12.5%, and is always between {@link #getMinNs()} and {@link
+   * #getMaxNs()}. Returns 0 if no durations have been recorded.
+   */
+  public long getPercentileNs(double percentile) {
+    if (bucketCounts == null) {
+      return 0;
+    }
+    long value = LatencyHistogram.valueAtPercentile(bucketCounts, percentile);
+    return Math.max(minNs, Math.min(maxNs, value));
+  }
+
+  /**
+   * Returns a copy of the histogram counts, indexed by {@link LatencyHistogram#bucketFor(long)}, so
+   * that metrics may be merged; returns null if no durations have been recorded.
+   */
+  @Nullable
+  public long[] getBucketCounts() {
+    return bucketCounts == null ? null : bucketCounts.clone();
+  }
+
+  public long getP50Ns() {
+    return getPercentileNs(50);
+  }
+
+  public long getP95Ns() {
+    return getPercentileNs(95);
+  }
+
+  public long getP99Ns() {
+    return getPercentileNs(99);
+  }
+
   public boolean isSuccess() {
     return success;
   }
@@ -57,6 +120,11 @@ public class Metric {
 
     this.elapsedNs += elapsedNs;
 
+    if (bucketCounts == null) {
+      bucketCounts = new long[LatencyHistogram.BUCKET_COUNT];
+    }
+    bucketCounts[LatencyHistogram.bucketFor(elapsedNs)]++;
+
     count++;
   }
 
@@ -95,6 +163,9 @@ public class Metric {
         + ", count=" + count
         + ", minNs=" + minNs
         + ", maxNs=" + maxNs
+        + ", p50Ns=" + getP50Ns()
+        + ", p95Ns=" + getP95Ns()
+        + ", p99Ns=" + getP99Ns()
         + ", elapsedNs=" + elapsedNs
         + ", success=" + success
         + '}';
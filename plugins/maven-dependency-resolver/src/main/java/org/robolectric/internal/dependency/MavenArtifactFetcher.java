@@ -5,11 +5,16 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import com.google.common.base.Strings;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 import com.google.common.util.concurrent.AsyncCallable;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Striped;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -21,18 +26,30 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Lock;
 import org.robolectric.util.Logger;
 
 /**
- * Class responsible for fetching artifacts from Maven. This uses a thread pool of size two in order
- * to parallelize downloads. It uses the Sun JSSE provider for downloading due to its seamless
+ * Class responsible for fetching artifacts from Maven. This uses a thread pool in order to
+ * parallelize downloads. It uses the Sun JSSE provider for downloading due to its seamless
  * integration with HTTPUrlConnection.
  */
 @SuppressWarnings("UnstableApiUsage")
 public class MavenArtifactFetcher {
+  /** Keeps threads in this process from fetching the same artifact at the same time. */
+  private static final Striped<Lock> ARTIFACT_LOCKS = Striped.lock(64);
+
   private final String repositoryUrl;
   private final String repositoryUserName;
   private final String repositoryPassword;
@@ -40,7 +57,7 @@ public class MavenArtifactFetcher {
   private final int proxyPort;
   private final File localRepositoryDir;
   private final ExecutorService executorService;
-  private File stagingRepositoryDir;
+  private final boolean overridesCreateFetchToFileTask;
 
   public MavenArtifactFetcher(
       String repositoryUrl,
@@ -57,65 +74,173 @@ public class MavenArtifactFetcher {
     this.proxyPort = proxyPort;
     this.localRepositoryDir = localRepositoryDir;
     this.executorService = executorService;
+    this.overridesCreateFetchToFileTask = overridesCreateFetchToFileTask();
   }
 
   public void fetchArtifact(MavenJarArtifact artifact) {
-    // Assume that if the file exists in the local repository, it has been fetched successfully.
-    if (new File(localRepositoryDir, artifact.jarPath()).exists()) {
-      Logger.info(String.format("Found %s in local maven repository", artifact));
+    fetchArtifacts(Collections.singletonList(artifact));
+  }
+
+  /**
+   * Fetches any of the given artifacts which aren't in the local repository yet. They are
+   * downloaded concurrently, each into its own staging directory, and are moved into the local
+   * repository once their SHA-512 checksums have been validated.
+   *
+   * <p>While an artifact is fetched, a lock is held on a lock file next to it in the local
+   * repository, so other processes sharing the repository, such as parallel test forks, wait for
+   * it rather than downloading it again.
+   */
+  public void fetchArtifacts(List<MavenJarArtifact> artifacts) {
+    // Always lock artifacts in the same order, so that processes fetching overlapping sets of
+    // artifacts can't deadlock.
+    Map<String, MavenJarArtifact> missingArtifactsByPath = new TreeMap<>();
+    for (MavenJarArtifact artifact : artifacts) {
+      // Assume that if the file exists in the local repository, it has been fetched successfully.
+      if (isInstalled(artifact)) {
+        Logger.info(String.format("Found %s in local maven repository", artifact));
+      } else {
+        missingArtifactsByPath.put(artifact.jarPath(), artifact);
+      }
+    }
+    if (missingArtifactsByPath.isEmpty()) {
       return;
     }
-    this.stagingRepositoryDir = Files.createTempDir();
-    this.stagingRepositoryDir.deleteOnExit();
+
+    Collection<MavenJarArtifact> missingArtifacts = missingArtifactsByPath.values();
+    Iterable<Lock> threadLocks = ARTIFACT_LOCKS.bulkGet(missingArtifactsByPath.keySet());
+    for (Lock threadLock : threadLocks) {
+      threadLock.lock();
+    }
+    List<FileChannel> lockChannels = new ArrayList<>();
+    try {
+      for (MavenJarArtifact artifact : missingArtifacts) {
+        lockChannels.add(lockArtifact(artifact));
+      }
+      List<MavenJarArtifact> artifactsToFetch = new ArrayList<>();
+      for (MavenJarArtifact artifact : missingArtifacts) {
+        // Another process may have fetched the artifact while we waited for the lock.
+        if (!isInstalled(artifact)) {
+          artifactsToFetch.add(artifact);
+        }
+      }
+      fetchToLocalRepository(artifactsToFetch);
+    } finally {
+      for (FileChannel lockChannel : lockChannels) {
+        try {
+          lockChannel.close();
+        } catch (IOException e) {
+          Logger.error("Failed to release maven artifact lock", e);
+        }
+      }
+      for (Lock threadLock : threadLocks) {
+        threadLock.unlock();
+      }
+    }
+  }
+
+  private boolean isInstalled(MavenJarArtifact artifact) {
+    return new File(localRepositoryDir, artifact.jarPath()).exists();
+  }
+
+  /**
+   * Acquires the lock file for an artifact, blocking until no other process holds it. The lock is
+   * released when the returned channel is closed. Lock files are never deleted, since another
+   * process may be waiting to lock them.
+   */
+  private FileChannel lockArtifact(MavenJarArtifact artifact) {
+    File lockFile = new File(localRepositoryDir, artifact.jarPath() + ".lock");
+    FileChannel channel = null;
     try {
-      createArtifactSubdirectory(artifact, stagingRepositoryDir);
-      Futures.whenAllSucceed(
-              fetchToStagingRepository(artifact.pomSha512Path()),
-              fetchToStagingRepository(artifact.pomPath()),
-              fetchToStagingRepository(artifact.jarSha512Path()),
-              fetchToStagingRepository(artifact.jarPath()))
-          .callAsync(
-              () -> {
-                // double check that the artifact has not been installed
-                if (new File(localRepositoryDir, artifact.jarPath()).exists()) {
-                  removeArtifactFiles(stagingRepositoryDir, artifact);
-                  return Futures.immediateFuture(null);
-                }
-                createArtifactSubdirectory(artifact, localRepositoryDir);
-                boolean pomValid =
-                    validateStagedFiles(artifact.pomPath(), artifact.pomSha512Path());
-                if (!pomValid) {
-                  throw new AssertionError("SHA512 mismatch for POM file fetched in " + artifact);
-                }
-                boolean jarValid =
-                    validateStagedFiles(artifact.jarPath(), artifact.jarSha512Path());
-                if (!jarValid) {
-                  throw new AssertionError("SHA512 mismatch for JAR file fetched in " + artifact);
-                }
-                Logger.info(
-                    String.format(
-                        "Checksums validated, moving artifact %s to local maven directory",
-                        artifact));
-                commitFromStaging(artifact.pomSha512Path());
-                commitFromStaging(artifact.pomPath());
-                commitFromStaging(artifact.jarSha512Path());
-                commitFromStaging(artifact.jarPath());
-                removeArtifactFiles(stagingRepositoryDir, artifact);
-                return Futures.immediateFuture(null);
-              },
-              executorService)
-          .get();
-    } catch (InterruptedException | ExecutionException | IOException e) {
-      if (e instanceof InterruptedException) {
-        Thread.currentThread().interrupt(); // Restore the interrupted status
+      Files.createParentDirs(lockFile);
+      channel =
+          FileChannel.open(
+              lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      channel.lock();
+      return channel;
+    } catch (IOException e) {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+      throw new IllegalStateException("Couldn't lock " + lockFile, e);
+    }
+  }
+
+  private void fetchToLocalRepository(List<MavenJarArtifact> artifacts) {
+    List<File> stagingDirs = new ArrayList<>();
+    List<ListenableFuture<Void>> fetches = new ArrayList<>();
+    for (MavenJarArtifact artifact : artifacts) {
+      File stagingDir = Files.createTempDir();
+      stagingDirs.add(stagingDir);
+      fetches.add(fetchAndInstall(artifact, stagingDir));
+    }
+
+    AssertionError failure = null;
+    for (int i = 0; i < artifacts.size(); i++) {
+      MavenJarArtifact artifact = artifacts.get(i);
+      try {
+        fetches.get(i).get();
+      } catch (InterruptedException | ExecutionException e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt(); // Restore the interrupted status
+        }
+        removeArtifactFiles(localRepositoryDir, artifact);
+        Logger.error("Failed to fetch maven artifact " + artifact, e);
+        if (failure == null) {
+          failure = new AssertionError("Failed to fetch maven artifact " + artifact, e);
+        }
+      } finally {
+        removeStagingDir(stagingDirs.get(i));
       }
-      removeArtifactFiles(stagingRepositoryDir, artifact);
-      removeArtifactFiles(localRepositoryDir, artifact);
-      Logger.error("Failed to fetch maven artifact " + artifact, e);
-      throw new AssertionError("Failed to fetch maven artifact " + artifact, e);
+    }
+    if (failure != null) {
+      throw failure;
     }
   }
 
+  private ListenableFuture<Void> fetchAndInstall(MavenJarArtifact artifact, File stagingDir) {
+    try {
+      createArtifactSubdirectory(artifact, stagingDir);
+    } catch (IOException e) {
+      return Futures.immediateFailedFuture(e);
+    }
+    ListenableFuture<HashCode> pomSha512 =
+        fetchToStagingRepository(stagingDir, artifact.pomSha512Path());
+    ListenableFuture<HashCode> pom = fetchToStagingRepository(stagingDir, artifact.pomPath());
+    ListenableFuture<HashCode> jarSha512 =
+        fetchToStagingRepository(stagingDir, artifact.jarSha512Path());
+    ListenableFuture<HashCode> jar = fetchToStagingRepository(stagingDir, artifact.jarPath());
+    return Futures.whenAllSucceed(pomSha512, pom, jarSha512, jar)
+        .call(
+            () -> {
+              boolean pomValid =
+                  validateStagedFile(Futures.getDone(pom), stagingDir, artifact.pomSha512Path());
+              if (!pomValid) {
+                throw new AssertionError("SHA512 mismatch for POM file fetched in " + artifact);
+              }
+              boolean jarValid =
+                  validateStagedFile(Futures.getDone(jar), stagingDir, artifact.jarSha512Path());
+              if (!jarValid) {
+                throw new AssertionError("SHA512 mismatch for JAR file fetched in " + artifact);
+              }
+              Logger.info(
+                  String.format(
+                      "Checksums validated, moving artifact %s to local maven directory",
+                      artifact));
+              createArtifactSubdirectory(artifact, localRepositoryDir);
+              // The jar is moved last, since its presence marks the artifact as installed.
+              commitFromStaging(stagingDir, artifact.pomSha512Path());
+              commitFromStaging(stagingDir, artifact.pomPath());
+              commitFromStaging(stagingDir, artifact.jarSha512Path());
+              commitFromStaging(stagingDir, artifact.jarPath());
+              return null;
+            },
+            executorService);
+  }
+
   private void removeArtifactFiles(File repositoryDir, MavenJarArtifact artifact) {
     new File(repositoryDir, artifact.jarPath()).delete();
     new File(repositoryDir, artifact.jarSha512Path()).delete();
@@ -123,14 +248,24 @@ public class MavenArtifactFetcher {
     new File(repositoryDir, artifact.pomSha512Path()).delete();
   }
 
-  private boolean validateStagedFiles(String filePath, String sha512Path) throws IOException {
-    File tempFile = new File(this.stagingRepositoryDir, filePath);
-    File sha512File = new File(this.stagingRepositoryDir, sha512Path);
+  private void removeStagingDir(File stagingDir) {
+    try {
+      MoreFiles.deleteRecursively(stagingDir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (IOException e) {
+      Logger.error("Failed to remove staging directory " + stagingDir, e);
+    }
+  }
+
+  /**
+   * Compares the SHA-512 hash of a fetched file, which is computed while it is downloaded, with
+   * the one published alongside it.
+   */
+  private boolean validateStagedFile(HashCode actual, File stagingDir, String sha512Path)
+      throws IOException {
+    File sha512File = new File(stagingDir, sha512Path);
 
     HashCode expected =
         HashCode.fromString(new String(Files.asByteSource(sha512File).read(), UTF_8));
-
-    HashCode actual = Files.asByteSource(tempFile).hash(Hashing.sha512());
     return expected.equals(actual);
   }
 
@@ -152,26 +287,67 @@ public class MavenArtifactFetcher {
     }
   }
 
-  private ListenableFuture<Void> fetchToStagingRepository(String path) {
+  private ListenableFuture<HashCode> fetchToStagingRepository(File stagingDir, String path) {
     URL remoteUrl = getRemoteUrl(path);
-    File destination = new File(this.stagingRepositoryDir, path);
-    return createFetchToFileTask(remoteUrl, destination);
+    File destination = new File(stagingDir, path);
+    if (!overridesCreateFetchToFileTask) {
+      return createHashingFetchToFileTask(remoteUrl, destination);
+    }
+    // Honor subclasses which customize fetching through the deprecated method, at the cost of
+    // reading the fetched file again to hash it.
+    return Futures.transformAsync(
+        createFetchToFileTask(remoteUrl, destination),
+        unused ->
+            Futures.immediateFuture(Files.asByteSource(destination).hash(Hashing.sha512())),
+        executorService);
   }
 
-  protected ListenableFuture<Void> createFetchToFileTask(URL remoteUrl, File tempFile) {
+  /**
+   * Returns a future for the download of a file, which completes with the SHA-512 hash of its
+   * contents.
+   */
+  protected ListenableFuture<HashCode> createHashingFetchToFileTask(URL remoteUrl, File tempFile) {
     return Futures.submitAsync(
         new FetchToFileTask(
             remoteUrl, tempFile, repositoryUserName, repositoryPassword, proxyHost, proxyPort),
         this.executorService);
   }
 
-  private void commitFromStaging(String path) throws IOException {
-    File source = new File(this.stagingRepositoryDir, path);
+  /**
+   * Returns a future for the download of a file.
+   *
+   * @deprecated Override {@link #createHashingFetchToFileTask(URL, File)} instead, which hashes
+   *     files while they are downloaded rather than reading them again afterwards.
+   */
+  @Deprecated
+  protected ListenableFuture<Void> createFetchToFileTask(URL remoteUrl, File tempFile) {
+    return Futures.transform(
+        createHashingFetchToFileTask(remoteUrl, tempFile),
+        unused -> null,
+        MoreExecutors.directExecutor());
+  }
+
+  private boolean overridesCreateFetchToFileTask() {
+    for (Class<?> clazz = getClass();
+        clazz != MavenArtifactFetcher.class;
+        clazz = clazz.getSuperclass()) {
+      try {
+        clazz.getDeclaredMethod("createFetchToFileTask", URL.class, File.class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // Keep looking in the superclass.
+      }
+    }
+    return false;
+  }
+
+  private void commitFromStaging(File stagingDir, String path) throws IOException {
+    File source = new File(stagingDir, path);
     File destination = new File(this.localRepositoryDir, path);
     Files.move(source, destination);
   }
 
-  static class FetchToFileTask implements AsyncCallable<Void> {
+  static class FetchToFileTask implements AsyncCallable<HashCode> {
 
     private final URL remoteURL;
     private final File localFile;
@@ -195,8 +371,9 @@ public class MavenArtifactFetcher {
       this.proxyPort = proxyPort;
     }
 
+    /** Fetches the file, hashing its contents as they are written. */
     @Override
-    public ListenableFuture<Void> call() throws Exception {
+    public ListenableFuture<HashCode> call() throws Exception {
       URLConnection connection;
       if (this.proxyHost != null && !this.proxyHost.isEmpty() && this.proxyPort > 0) {
         Proxy proxy =
@@ -216,10 +393,11 @@ public class MavenArtifactFetcher {
 
       Logger.info("Transferring " + remoteURL);
       try (InputStream inputStream = connection.getInputStream();
-          FileOutputStream outputStream = new FileOutputStream(localFile)) {
+          HashingOutputStream outputStream =
+              new HashingOutputStream(Hashing.sha512(), new FileOutputStream(localFile))) {
         ByteStreams.copy(inputStream, outputStream);
+        return Futures.immediateFuture(outputStream.hash());
       }
-      return Futures.immediateFuture(null);
     }
   }
 }
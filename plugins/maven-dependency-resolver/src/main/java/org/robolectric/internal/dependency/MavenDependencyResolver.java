@@ -3,11 +3,8 @@ package org.robolectric.internal.dependency;
 import com.google.common.base.Strings;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -81,18 +78,16 @@ public class MavenDependencyResolver implements DependencyResolver {
   /**
    * Get an array of local artifact URLs for the given dependencies. The order of the URLs is guaranteed to be the
    * same as the input order of dependencies, i.e., urls[i] is the local artifact URL for dependencies[i].
+   *
+   * <p>Dependencies which aren't in the local repository yet are fetched concurrently, so callers
+   * which know all of the dependencies they need should ask for them in a single call.
    */
-  @SuppressWarnings("NewApi")
   public URL[] getLocalArtifactUrls(DependencyJar... dependencies) {
     List<MavenJarArtifact> artifacts = new ArrayList<>(dependencies.length);
-    whileLocked(
-        () -> {
-          for (DependencyJar dependencyJar : dependencies) {
-            MavenJarArtifact artifact = new MavenJarArtifact(dependencyJar);
-            artifacts.add(artifact);
-            mavenArtifactFetcher.fetchArtifact(artifact);
-          }
-        });
+    for (DependencyJar dependencyJar : dependencies) {
+      artifacts.add(new MavenJarArtifact(dependencyJar));
+    }
+    mavenArtifactFetcher.fetchArtifacts(artifacts);
     URL[] urls = new URL[dependencies.length];
     try {
       for (int i = 0; i < artifacts.size(); i++) {
@@ -105,21 +100,11 @@ public class MavenDependencyResolver implements DependencyResolver {
     return urls;
   }
 
-  private void whileLocked(Runnable runnable) {
-    File lockFile = createLockFile();
-    try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw")) {
-      try (FileChannel channel = raf.getChannel()) {
-        try (FileLock ignored = channel.lock()) {
-          runnable.run();
-        }
-      }
-    } catch (IOException e) {
-      throw new IllegalStateException("Couldn't create lock file " + lockFile, e);
-    } finally {
-      lockFile.delete();
-    }
-  }
-
+  /**
+   * @deprecated No longer used: artifacts are now locked individually, through lock files next to
+   *     them in the local repository, so downloads of different artifacts don't block each other.
+   */
+  @Deprecated
   protected File createLockFile() {
     return new File(System.getProperty("user.home"), ".robolectric-download-lock");
   }
@@ -191,6 +176,6 @@ public class MavenDependencyResolver implements DependencyResolver {
   }
 
   protected ExecutorService createExecutorService() {
-    return Executors.newFixedThreadPool(2);
+    return Executors.newFixedThreadPool(4);
   }
 }
@@ -3,6 +3,7 @@ package org.robolectric.internal.dependency;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
 
+import com.google.common.hash.HashCode;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
@@ -14,7 +15,13 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -164,6 +171,118 @@ public class MavenDependencyResolverTest {
         AssertionError.class, () -> mavenDependencyResolver.getLocalArtifactUrl(dependencyJar));
   }
 
+  @Test
+  public void getLocalArtifactUrls_fetchesConcurrently() throws Exception {
+    useExecutorService(Executors.newFixedThreadPool(4));
+
+    URL[] urls = mavenDependencyResolver.getLocalArtifactUrls(successCases);
+
+    assertThat(mavenArtifactFetcher.getNumRequests()).isEqualTo(4 * successCases.length);
+    for (int i = 0; i < successCases.length; i++) {
+      MavenJarArtifact artifact = new MavenJarArtifact(successCases[i]);
+      checkJarArtifact(artifact);
+      File jar = new File(localRepositoryDir, artifact.jarPath());
+      assertThat(urls[i]).isEqualTo(jar.toURI().toURL());
+    }
+  }
+
+  @Test
+  public void getLocalArtifactUrls_fetchesRepeatedDependencyOnce() throws Exception {
+    DependencyJar dependencyJar = successCases[1];
+
+    URL[] urls =
+        mavenDependencyResolver.getLocalArtifactUrls(
+            dependencyJar, new DependencyJar("org.group2", "artifact2-name", "2.4.5"));
+
+    assertThat(mavenArtifactFetcher.getNumRequests()).isEqualTo(4);
+    assertThat(urls[1]).isEqualTo(urls[0]);
+    checkJarArtifact(new MavenJarArtifact(dependencyJar));
+  }
+
+  @Test
+  public void getLocalArtifactUrl_fetchesArtifactOnceForConcurrentCallers() throws Exception {
+    useExecutorService(Executors.newFixedThreadPool(4));
+    DependencyJar dependencyJar = successCases[2];
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<URL>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(
+            callers.submit(() -> mavenDependencyResolver.getLocalArtifactUrl(dependencyJar)));
+      }
+      for (Future<URL> result : results) {
+        assertThat(result.get()).isNotNull();
+      }
+    } finally {
+      callers.shutdown();
+    }
+
+    assertThat(mavenArtifactFetcher.getNumRequests()).isEqualTo(4);
+    checkJarArtifact(new MavenJarArtifact(dependencyJar));
+  }
+
+  @Test
+  public void getLocalArtifactUrls_installsValidArtifactsWhenAnotherIsInvalid() throws Exception {
+    DependencyJar invalidJar = new DependencyJar("group", "artifact-invalid-sha512-batch", "1");
+    addTestArtifactInvalidSha512(invalidJar);
+
+    assertThrows(
+        AssertionError.class,
+        () -> mavenDependencyResolver.getLocalArtifactUrls(successCases[0], invalidJar));
+
+    checkJarArtifact(new MavenJarArtifact(successCases[0]));
+    assertThat(new File(localRepositoryDir, new MavenJarArtifact(invalidJar).jarPath()).exists())
+        .isFalse();
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void getLocalArtifactUrl_usesOverriddenDeprecatedCreateFetchToFileTask() throws Exception {
+    AtomicInteger numLegacyRequests = new AtomicInteger();
+    mavenArtifactFetcher =
+        new TestMavenArtifactFetcher(
+            REPOSITORY_URL,
+            REPOSITORY_USERNAME,
+            REPOSITORY_PASSWORD,
+            PROXY_HOST,
+            PROXY_PORT,
+            localRepositoryDir,
+            executorService) {
+          @Override
+          protected ListenableFuture<Void> createFetchToFileTask(URL remoteUrl, File tempFile) {
+            numLegacyRequests.incrementAndGet();
+            return super.createFetchToFileTask(remoteUrl, tempFile);
+          }
+        };
+    mavenDependencyResolver = new TestMavenDependencyResolver();
+    DependencyJar dependencyJar = successCases[0];
+
+    mavenDependencyResolver.getLocalArtifactUrl(dependencyJar);
+
+    assertThat(numLegacyRequests.get()).isEqualTo(4);
+    assertThat(mavenArtifactFetcher.getNumRequests()).isEqualTo(4);
+    checkJarArtifact(new MavenJarArtifact(dependencyJar));
+  }
+
+  private void useExecutorService(ExecutorService executorService) {
+    this.executorService = executorService;
+    mavenArtifactFetcher =
+        new TestMavenArtifactFetcher(
+            REPOSITORY_URL,
+            REPOSITORY_USERNAME,
+            REPOSITORY_PASSWORD,
+            PROXY_HOST,
+            PROXY_PORT,
+            localRepositoryDir,
+            executorService);
+    mavenDependencyResolver = new TestMavenDependencyResolver();
+  }
+
+  @After
+  public void tearDown() {
+    executorService.shutdown();
+  }
+
   class TestMavenDependencyResolver extends MavenDependencyResolver {
 
     @Override
@@ -187,20 +306,11 @@ public class MavenDependencyResolverTest {
     protected File getLocalRepositoryDir() {
       return localRepositoryDir;
     }
-
-    @Override
-    protected File createLockFile() {
-      try {
-        return File.createTempFile("MavenDependencyResolverTest", null);
-      } catch (IOException e) {
-        throw new AssertionError(e);
-      }
-    }
   }
 
   static class TestMavenArtifactFetcher extends MavenArtifactFetcher {
     private ExecutorService executorService;
-    private int numRequests;
+    private final AtomicInteger numRequests = new AtomicInteger();
 
     public TestMavenArtifactFetcher(
         String repositoryUrl,
@@ -222,12 +332,13 @@ public class MavenDependencyResolverTest {
     }
 
     @Override
-    protected ListenableFuture<Void> createFetchToFileTask(URL remoteUrl, File tempFile) {
+    protected ListenableFuture<HashCode> createHashingFetchToFileTask(
+        URL remoteUrl, File tempFile) {
       return Futures.submitAsync(
           new FetchToFileTask(remoteUrl, tempFile, null, null, null, 0) {
             @Override
-            public ListenableFuture<Void> call() throws Exception {
-              numRequests += 1;
+            public ListenableFuture<HashCode> call() throws Exception {
+              numRequests.incrementAndGet();
               return super.call();
             }
           },
@@ -235,7 +346,7 @@ public class MavenDependencyResolverTest {
     }
 
     public int getNumRequests() {
-      return numRequests;
+      return numRequests.get();
     }
   }
 
@@ -0,0 +1,161 @@
+package org.robolectric.preinstrumented;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.ToolProvider;
+import org.robolectric.util.Util;
+
+/**
+ * Generates a dynamic AppCDS (class data sharing) archive for a Robolectric test runtime.
+ *
+ * <p>A training suite is run in a child JVM started with {@code -XX:ArchiveClassesAtExit}, which
+ * records every class loaded from the class path into the archive file. Test forks started with
+ * {@code -XX:SharedArchiveFile} pointing at the archive then map those classes instead of loading
+ * and verifying them again. The class path of such forks must begin with the jars of the class path
+ * used for training, in the same order.
+ *
+ * <p>The JVM only archives classes loaded by its built-in class loaders: the Robolectric runtime,
+ * JUnit, Guava, ASM and so on. Classes defined by a {@code SandboxClassLoader}, including the
+ * android-all classes, are always loaded by Robolectric itself.
+ *
+ * <p>The archive is named by the build (see {@code AndroidSdk.classDataSharingArchiveFileName} in
+ * buildSrc), which also passes it to test forks run against a single SDK when {@code
+ * robolectric.classDataSharingArchiveDir} is set.
+ */
+public class AppCdsArchiveGenerator {
+
+  /** Dynamic archiving via {@code -XX:ArchiveClassesAtExit} was added in JDK 13. */
+  private static final int MIN_JAVA_VERSION = 13;
+
+  /** Runs the training classes; see {@code CdsTrainingLauncher.java.txt}. */
+  private static final String LAUNCHER_CLASS_NAME = "CdsTrainingLauncher";
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Path archive = null;
+    Integer apiLevel = null;
+    String classPath = System.getProperty("java.class.path");
+    List<String> trainingClasses = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--archive":
+          archive = Paths.get(args[++i]);
+          break;
+        case "--sdk":
+          apiLevel = Integer.parseInt(args[++i]);
+          break;
+        case "--classpath":
+          classPath = args[++i];
+          break;
+        default:
+          trainingClasses.add(args[i]);
+      }
+    }
+
+    if (archive == null || apiLevel == null || trainingClasses.isEmpty()) {
+      System.err.println(
+          "Usage: AppCdsArchiveGenerator --archive <file> --sdk <api level>"
+              + " [--classpath <training class path>] <test class> [<test class> ...]");
+      System.exit(1);
+    }
+
+    new AppCdsArchiveGenerator().generate(archive, apiLevel, classPath, trainingClasses);
+  }
+
+  /**
+   * Runs the given JUnit test classes against a single SDK, archiving the classes they load into
+   * {@code archive}, which is replaced if it exists.
+   *
+   * <p>The JVM refuses to archive classes when a non-empty directory is on the class path, so only
+   * the jars of {@code classPath}, in order, are put on the training JVM's class path. Its
+   * directories, such as those holding the compiled test classes, are loaded by a separate class
+   * loader, and their classes aren't archived. Test forks must have the same jars, in the same
+   * order, at the start of their class path.
+   *
+   * @return the absolute path to the archive
+   */
+  public Path generate(Path archive, int apiLevel, String classPath, List<String> trainingClasses)
+      throws IOException, InterruptedException {
+    if (Util.getJavaVersion() < MIN_JAVA_VERSION) {
+      throw new IllegalStateException(
+          "AppCDS archive generation requires Java "
+              + MIN_JAVA_VERSION
+              + " or later, but is running on "
+              + System.getProperty("java.version"));
+    }
+    if (ToolProvider.getSystemJavaCompiler() == null) {
+      throw new IllegalStateException(
+          "AppCDS archive generation requires a JDK, but is running on a JRE at "
+              + System.getProperty("java.home"));
+    }
+
+    archive = archive.toAbsolutePath();
+    if (archive.getParent() != null) {
+      Files.createDirectories(archive.getParent());
+    }
+    Files.deleteIfExists(archive);
+
+    List<String> jars = new ArrayList<>();
+    List<String> directories = new ArrayList<>();
+    for (String entry : classPath.split(File.pathSeparator)) {
+      if (entry.isEmpty()) {
+        continue;
+      }
+      Path path = Paths.get(entry);
+      if (Files.isDirectory(path)) {
+        directories.add(entry);
+      } else if (Files.isRegularFile(path)) {
+        jars.add(entry);
+      }
+    }
+
+    Path launcherDir = Files.createTempDirectory("robolectric-cds");
+    Path launcher = launcherDir.resolve(LAUNCHER_CLASS_NAME + ".java");
+    try (InputStream in =
+        AppCdsArchiveGenerator.class.getResourceAsStream(LAUNCHER_CLASS_NAME + ".java.txt")) {
+      Files.copy(in, launcher);
+    }
+
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("-XX:ArchiveClassesAtExit=" + archive);
+    command.add("-Drobolectric.enabledSdks=" + apiLevel);
+    command.add("-Drobolectric.cds.trainingDirs=" + String.join(File.pathSeparator, directories));
+    command.add("-cp");
+    command.add(String.join(File.pathSeparator, jars));
+    command.add(launcher.toString());
+    command.addAll(trainingClasses);
+
+    long startNs = System.nanoTime();
+    int exitCode;
+    try {
+      Process process = new ProcessBuilder(command).inheritIO().start();
+      exitCode = process.waitFor();
+    } finally {
+      Files.delete(launcher);
+      Files.delete(launcherDir);
+    }
+    if (exitCode != 0) {
+      // Failing tests still load (and thus archive) the classes of interest.
+      System.err.println("Training run exited with code " + exitCode);
+    }
+    if (!Files.exists(archive)) {
+      throw new IOException("JVM did not write an archive to " + archive);
+    }
+
+    System.out.println(
+        String.format(
+            Locale.getDefault(),
+            "Wrote %s (%d KB) in %1.2f seconds",
+            archive,
+            Files.size(archive) / 1024,
+            (System.nanoTime() - startNs) / 1000000000.0));
+    return archive;
+  }
+}
@@ -1,14 +1,20 @@
 package org.robolectric.preinstrumented;
 
+import com.google.common.base.Throwables;
 import com.google.common.io.ByteStreams;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -27,12 +33,24 @@ public class JarInstrumentor {
 
   private static final int ONE_MB = 1024 * 1024;
 
+  /** The maximum number of instrumented classes held in memory waiting to be written. */
+  private static final int MAX_PENDING_CLASSES = 4096;
+
+  /** Overrides the number of threads used to instrument classes. */
+  private static final String THREADS_PROPERTY = "robolectric.preinstrumented.threads";
+
   private static final Injector INJECTOR = new Injector.Builder().build();
 
   private final ClassInstrumentor classInstrumentor;
   private final InstrumentationConfiguration instrumentationConfiguration;
+  private final ForkJoinPool pool;
 
   public JarInstrumentor() {
+    this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+  }
+
+  public JarInstrumentor(int parallelism) {
+    pool = new ForkJoinPool(parallelism);
     AndroidConfigurer androidConfigurer = INJECTOR.getInstance(AndroidConfigurer.class);
     classInstrumentor = INJECTOR.getInstance(ClassInstrumentor.class);
 
@@ -43,17 +61,34 @@ public class JarInstrumentor {
   }
 
   public static void main(String[] args) throws IOException, ClassNotFoundException {
-    if (args.length != 2) {
-      System.err.println("Usage: JarInstrumentor <source jar> <dest jar>");
+    if (args.length < 2 || args.length % 2 != 0) {
+      System.err.println(
+          "Usage: JarInstrumentor <source jar> <dest jar> [<source jar> <dest jar> ...]");
       System.exit(1);
     }
-    new JarInstrumentor().instrumentJar(new File(args[0]), new File(args[1]));
+    JarInstrumentor jarInstrumentor = new JarInstrumentor();
+    try {
+      // Instrumenting several jars in one JVM shares the JIT-warmed instrumentor, the
+      // InstrumentationConfiguration and the thread pool between them.
+      for (int i = 0; i < args.length; i += 2) {
+        jarInstrumentor.instrumentJar(new File(args[i]), new File(args[i + 1]));
+      }
+    } finally {
+      jarInstrumentor.shutdown();
+    }
+  }
+
+  /** Stops the worker threads; this instance may not be used afterwards. */
+  public void shutdown() {
+    pool.shutdown();
   }
 
-  private void instrumentJar(File sourceFile, File destFile)
+  public void instrumentJar(File sourceFile, File destFile)
       throws IOException, ClassNotFoundException {
     long startNs = System.nanoTime();
     JarFile jarFile = new JarFile(sourceFile);
+    // Each jar needs its own provider, since class hierarchies differ between SDKs; within a jar
+    // the provider's ClassNode cache is shared by all worker threads.
     ClassNodeProvider classNodeProvider =
         new ClassNodeProvider() {
           @Override
@@ -72,6 +107,10 @@ public class JarInstrumentor {
       throw new AssertionError("Unable to get Android SDK version from Jar File", e);
     }
 
+    // Classes are instrumented concurrently, but entries are written in their original order so
+    // that the output jar is deterministic. At most MAX_PENDING_CLASSES instrumented classes are
+    // buffered ahead of the writer.
+    Deque<PendingClass> pendingClasses = new ArrayDeque<>();
     try (JarOutputStream jarOut =
         new JarOutputStream(new BufferedOutputStream(new FileOutputStream(destFile), ONE_MB))) {
       Enumeration<JarEntry> entries = jarFile.entries();
@@ -79,27 +118,24 @@ public class JarInstrumentor {
         JarEntry jarEntry = entries.nextElement();
 
         String name = jarEntry.getName();
-        if (name.endsWith("/")) {
-          jarOut.putNextEntry(createJarEntry(jarEntry));
-        } else if (name.endsWith(".class")) {
+        if (name.endsWith(".class")) {
           String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
-
-          try {
-            byte[] classBytes = getClassBytes(className, jarFile);
-            ClassDetails classDetails = new ClassDetails(classBytes);
-            byte[] outBytes = classBytes;
-            if (instrumentationConfiguration.shouldInstrument(classDetails)) {
-              outBytes =
-                  classInstrumentor.instrument(
-                      classDetails, instrumentationConfiguration, classNodeProvider);
-            }
-            jarOut.putNextEntry(createJarEntry(jarEntry));
-            jarOut.write(outBytes);
-            classCount++;
-          } catch (NegativeArraySizeException e) {
-            System.err.println(
-                "Skipping instrumenting due to NegativeArraySizeException for class: " + className);
+          pendingClasses.add(
+              new PendingClass(
+                  jarEntry,
+                  pool.submit(() -> instrumentClass(className, jarFile, classNodeProvider))));
+          if (pendingClasses.size() >= MAX_PENDING_CLASSES) {
+            classCount += writeClass(pendingClasses.remove(), jarOut);
           }
+          continue;
+        }
+
+        // Preserve ordering relative to class entries submitted earlier.
+        while (!pendingClasses.isEmpty()) {
+          classCount += writeClass(pendingClasses.remove(), jarOut);
+        }
+        if (name.endsWith("/")) {
+          jarOut.putNextEntry(createJarEntry(jarEntry));
         } else {
           // resources & stuff
           jarOut.putNextEntry(createJarEntry(jarEntry));
@@ -107,6 +143,13 @@ public class JarInstrumentor {
           nonClassCount++;
         }
       }
+      while (!pendingClasses.isEmpty()) {
+        classCount += writeClass(pendingClasses.remove(), jarOut);
+      }
+    } finally {
+      for (PendingClass pendingClass : pendingClasses) {
+        pendingClass.outBytes.cancel(true);
+      }
     }
     long elapsedNs = System.nanoTime() - startNs;
     System.out.println(
@@ -118,6 +161,47 @@ public class JarInstrumentor {
             elapsedNs / 1000000000.0));
   }
 
+  /** Returns the class's output bytes, or null if it should be skipped. */
+  private byte[] instrumentClass(
+      String className, JarFile jarFile, ClassNodeProvider classNodeProvider)
+      throws ClassNotFoundException {
+    try {
+      byte[] classBytes = getClassBytes(className, jarFile);
+      ClassDetails classDetails = new ClassDetails(classBytes);
+      if (instrumentationConfiguration.shouldInstrument(classDetails)) {
+        return classInstrumentor.instrument(
+            classDetails, instrumentationConfiguration, classNodeProvider);
+      }
+      return classBytes;
+    } catch (NegativeArraySizeException e) {
+      System.err.println(
+          "Skipping instrumenting due to NegativeArraySizeException for class: " + className);
+      return null;
+    }
+  }
+
+  /** Writes a class once it has been instrumented, returning the number of classes written. */
+  private static int writeClass(PendingClass pendingClass, JarOutputStream jarOut)
+      throws IOException, ClassNotFoundException {
+    byte[] outBytes;
+    try {
+      outBytes = pendingClass.outBytes.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while instrumenting " + pendingClass.jarEntry, e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), ClassNotFoundException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new AssertionError("Failed to instrument " + pendingClass.jarEntry, e.getCause());
+    }
+    if (outBytes == null) {
+      return 0;
+    }
+    jarOut.putNextEntry(createJarEntry(pendingClass.jarEntry));
+    jarOut.write(outBytes);
+    return 1;
+  }
+
   private static byte[] getClassBytes(String className, JarFile jarFile)
       throws ClassNotFoundException {
     String classFilename = className.replace('.', '/') + ".class";
@@ -145,6 +229,16 @@ public class JarInstrumentor {
     return entry;
   }
 
+  private static class PendingClass {
+    final JarEntry jarEntry;
+    final Future<byte[]> outBytes;
+
+    PendingClass(JarEntry jarEntry, Future<byte[]> outBytes) {
+      this.jarEntry = jarEntry;
+      this.outBytes = outBytes;
+    }
+  }
+
   private int getJarAndroidSDKVersion(JarFile jarFile) throws IOException {
     ZipEntry buildProp = jarFile.getEntry("build.prop");
     Properties buildProps = new Properties();
@@ -0,0 +1,65 @@
+package org.robolectric.preinstrumented;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.robolectric.util.Util;
+
+@RunWith(JUnit4.class)
+public class AppCdsArchiveGeneratorTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Before
+  public void setUp() {
+    assumeTrue(Util.getJavaVersion() >= 13);
+  }
+
+  @Test
+  public void generate_writesArchiveAtGivenPath() throws Exception {
+    Path archive = tempFolder.getRoot().toPath().resolve("cds/robolectric-sdk33.jsa");
+
+    // The test class path includes the directories holding this module's compiled classes.
+    Path generated =
+        new AppCdsArchiveGenerator()
+            .generate(
+                archive,
+                33,
+                System.getProperty("java.class.path"),
+                ImmutableList.of(TrainingTest.class.getName()));
+
+    assertThat(generated).isEqualTo(archive.toAbsolutePath());
+    assertThat(Files.size(archive)).isGreaterThan(0L);
+  }
+
+  @Test
+  public void generate_replacesExistingArchive() throws Exception {
+    Path archive = tempFolder.newFile("robolectric-sdk33.jsa").toPath();
+    Files.write(archive, new byte[] {1, 2, 3});
+
+    new AppCdsArchiveGenerator()
+        .generate(
+            archive,
+            33,
+            System.getProperty("java.class.path"),
+            ImmutableList.of(TrainingTest.class.getName()));
+
+    assertThat(Files.size(archive)).isGreaterThan(3L);
+  }
+
+  /** Run by the training JVM. */
+  public static class TrainingTest {
+    @Test
+    public void loadsClasses() {
+      assertThat(ImmutableList.of("a")).hasSize(1);
+    }
+  }
+}
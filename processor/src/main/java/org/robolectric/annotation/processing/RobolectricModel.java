@@ -250,7 +250,9 @@ public class RobolectricModel {
         }
       };
       shadowTypes.values().forEach(shadowInfo -> shadowInfo.prepare(referentResolver, helpers));
-      resetterMap.values().forEach(resetterInfo -> resetterInfo.prepare(referentResolver));
+      resetterMap
+          .values()
+          .forEach(resetterInfo -> resetterInfo.prepare(referentResolver, helpers, shadowTypes));
     }
 
     private void registerType(TypeElement type) {
@@ -444,6 +446,10 @@ public class RobolectricModel {
       return shadowType.getQualifiedName().toString();
     }
 
+    public TypeElement getShadowType() {
+      return shadowType;
+    }
+
     public String getShadowBinaryName() {
       return shadowBinaryName;
     }
@@ -474,14 +480,20 @@ public class RobolectricModel {
     private final TypeElement shadowType;
     private final ExecutableElement executableElement;
     private String shadowTypeReferent;
+    private String shadowBinaryName;
+    private String actualBinaryName;
 
     ResetterInfo(TypeElement shadowType, ExecutableElement executableElement) {
       this.shadowType = shadowType;
       this.executableElement = executableElement;
     }
 
-    void prepare(ReferentResolver referentResolver) {
+    void prepare(
+        ReferentResolver referentResolver, Helpers helpers, Map<String, ShadowInfo> shadowTypes) {
       shadowTypeReferent = referentResolver.getReferentFor(shadowType);
+      shadowBinaryName = helpers.getBinaryName(shadowType);
+      ShadowInfo shadowInfo = shadowTypes.get(shadowType.getQualifiedName().toString());
+      actualBinaryName = shadowInfo == null ? null : shadowInfo.getActualBinaryName();
     }
 
     private Implements getImplementsAnnotation() {
@@ -492,6 +504,15 @@ public class RobolectricModel {
       return shadowTypeReferent + "." + executableElement.getSimpleName() + "();";
     }
 
+    public String getShadowBinaryName() {
+      return shadowBinaryName;
+    }
+
+    /** Returns the binary name of the shadowed class, or null if it isn't known. */
+    public String getActualBinaryName() {
+      return actualBinaryName;
+    }
+
     public int getMinSdk() {
       return getImplementsAnnotation().minSdk();
     }
@@ -18,6 +18,7 @@ import javax.lang.model.element.TypeElement;
 import org.robolectric.annotation.processing.generator.Generator;
 import org.robolectric.annotation.processing.generator.JavadocJsonGenerator;
 import org.robolectric.annotation.processing.generator.ServiceLoaderGenerator;
+import org.robolectric.annotation.processing.generator.ShadowIndexGenerator;
 import org.robolectric.annotation.processing.generator.ShadowProviderGenerator;
 import org.robolectric.annotation.processing.validator.ImplementationValidator;
 import org.robolectric.annotation.processing.validator.ImplementsValidator;
@@ -107,6 +108,7 @@ public class RobolectricProcessor extends AbstractProcessor {
       generators.add(
           new ShadowProviderGenerator(
               model, processingEnv, shadowPackage, shouldInstrumentPackages, priority));
+      generators.add(new ShadowIndexGenerator(model, processingEnv, shadowPackage));
       generators.add(new ServiceLoaderGenerator(processingEnv, shadowPackage));
       if (jsonDocsEnabled) {
         generators.add(new JavadocJsonGenerator(model, processingEnv, jsonDocsDir));
@@ -0,0 +1,201 @@
+package org.robolectric.annotation.processing.generator;
+
+import com.google.auto.common.MoreTypes;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Implements.DefaultShadowPicker;
+import org.robolectric.annotation.processing.Helpers;
+import org.robolectric.annotation.processing.RobolectricModel;
+import org.robolectric.annotation.processing.RobolectricModel.ShadowInfo;
+import org.robolectric.internal.ShadowIndex;
+import org.robolectric.internal.ShadowIndex.MethodEntry;
+import org.robolectric.internal.ShadowIndex.ShadowEntry;
+
+/**
+ * Generator that writes the {@link ShadowIndex} for a shadow package, so that shadow classes don't
+ * need to be inspected reflectively at runtime.
+ */
+public class ShadowIndexGenerator extends Generator {
+  private final Filer filer;
+  private final Messager messager;
+  private final Elements elements;
+  private final Types types;
+  private final RobolectricModel model;
+  private final String shadowPackage;
+
+  public ShadowIndexGenerator(
+      RobolectricModel model, ProcessingEnvironment environment, String shadowPackage) {
+    this.filer = environment.getFiler();
+    this.messager = environment.getMessager();
+    this.elements = environment.getElementUtils();
+    this.types = environment.getTypeUtils();
+    this.model = model;
+    this.shadowPackage = shadowPackage;
+  }
+
+  @Override
+  public void generate() {
+    if (shadowPackage == null) {
+      return;
+    }
+
+    try {
+      FileObject file =
+          filer.createResource(
+              StandardLocation.CLASS_OUTPUT,
+              shadowPackage,
+              GEN_CLASS + ShadowIndex.RESOURCE_SUFFIX);
+      try (OutputStream out = file.openOutputStream()) {
+        buildIndex().writeTo(out);
+      }
+    } catch (IOException e) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write shadow index: " + e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  ShadowIndex buildIndex() {
+    Set<TypeElement> shadowTypes = new LinkedHashSet<>();
+    for (ShadowInfo shadowInfo : model.getAllShadowTypes()) {
+      shadowTypes.add(shadowInfo.getShadowType());
+    }
+    // Shadows which don't apply to the current SDK are only recorded by name.
+    for (String shadowClassName : model.getExtraShadowTypes().keySet()) {
+      TypeElement shadowType = elements.getTypeElement(shadowClassName.replace('$', '.'));
+      if (shadowType != null) {
+        shadowTypes.add(shadowType);
+      }
+    }
+
+    TypeElement implementsType = elements.getTypeElement(Implements.class.getCanonicalName());
+    List<ShadowEntry> shadows = new ArrayList<>();
+    for (TypeElement shadowType : shadowTypes) {
+      ShadowEntry shadow = buildEntry(shadowType, implementsType);
+      if (shadow != null) {
+        shadows.add(shadow);
+      }
+    }
+    return new ShadowIndex(shadows);
+  }
+
+  /**
+   * Returns the index entry for a shadow, or null if it refers to a type which can't be resolved;
+   * such shadows are inspected reflectively at runtime instead.
+   */
+  private ShadowEntry buildEntry(TypeElement shadowType, TypeElement implementsType) {
+    Implements annotation = shadowType.getAnnotation(Implements.class);
+    AnnotationMirror am = Helpers.getImplementsMirror(shadowType, types, implementsType);
+
+    // Mirror ShadowMap.obtainShadowInfo(), which prefers className over value.
+    String shadowedClassName = annotation.className();
+    if (shadowedClassName.isEmpty()) {
+      AnnotationValue valueAttr = Helpers.getAnnotationTypeMirrorValue(am, "value");
+      shadowedClassName =
+          valueAttr == null ? null : getClassName(Helpers.getAnnotationTypeMirrorValue(valueAttr));
+      if (shadowedClassName == null) {
+        return null;
+      }
+    }
+
+    String shadowPickerClassName = null;
+    AnnotationValue shadowPickerAttr = Helpers.getAnnotationTypeMirrorValue(am, "shadowPicker");
+    if (shadowPickerAttr != null) {
+      shadowPickerClassName =
+          getClassName(Helpers.getAnnotationTypeMirrorValue(shadowPickerAttr));
+      if (shadowPickerClassName == null) {
+        return null;
+      } else if (shadowPickerClassName.equals(DefaultShadowPicker.class.getName())) {
+        shadowPickerClassName = null;
+      }
+    }
+
+    List<MethodEntry> methods = new ArrayList<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(shadowType.getEnclosedElements())) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (!modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.PROTECTED)) {
+        continue;
+      }
+      List<? extends VariableElement> parameters = method.getParameters();
+      String[] parameterTypeNames = new String[parameters.size()];
+      for (int i = 0; i < parameterTypeNames.length; i++) {
+        parameterTypeNames[i] = getClassName(types.erasure(parameters.get(i).asType()));
+        if (parameterTypeNames[i] == null) {
+          return null;
+        }
+      }
+      methods.add(new MethodEntry(method.getSimpleName().toString(), parameterTypeNames));
+    }
+
+    return new ShadowEntry(
+        elements.getBinaryName(shadowType).toString(),
+        shadowedClassName,
+        shadowPickerClassName,
+        annotation.minSdk(),
+        annotation.maxSdk(),
+        annotation.callThroughByDefault(),
+        annotation.looseSignatures(),
+        methods);
+  }
+
+  /** Returns the name of an erased type as given by {@link Class#getName()}, or null. */
+  private String getClassName(TypeMirror type) {
+    switch (type.getKind()) {
+      case ARRAY:
+        String componentDescriptor = getDescriptor(MoreTypes.asArray(type).getComponentType());
+        return componentDescriptor == null ? null : "[" + componentDescriptor;
+      case DECLARED:
+        return elements.getBinaryName(MoreTypes.asTypeElement(type)).toString();
+      default:
+        return type.getKind().isPrimitive() ? type.getKind().name().toLowerCase(Locale.ROOT) : null;
+    }
+  }
+
+  private String getDescriptor(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return "Z";
+      case BYTE:
+        return "B";
+      case CHAR:
+        return "C";
+      case SHORT:
+        return "S";
+      case INT:
+        return "I";
+      case LONG:
+        return "J";
+      case FLOAT:
+        return "F";
+      case DOUBLE:
+        return "D";
+      case ARRAY:
+        return getClassName(type);
+      case DECLARED:
+        return "L" + getClassName(type) + ";";
+      default:
+        return null;
+    }
+  }
+}
@@ -162,23 +162,25 @@ public class ShadowProviderGenerator extends Generator {
     writer.println("  @Override");
     writer.println("  public void reset() {");
     for (RobolectricModel.ResetterInfo resetterInfo : model.getResetters()) {
-      int minSdk = resetterInfo.getMinSdk();
-      int maxSdk = resetterInfo.getMaxSdk();
-      String ifClause;
-      if (minSdk != -1 && maxSdk != -1) {
-        ifClause =
-            "if (org.robolectric.RuntimeEnvironment.getApiLevel() >= "
-                + minSdk
-                + " && org.robolectric.RuntimeEnvironment.getApiLevel() <= "
-                + maxSdk
-                + ") ";
-      } else if (maxSdk != -1) {
-        ifClause = "if (org.robolectric.RuntimeEnvironment.getApiLevel() <= " + maxSdk + ") ";
-      } else if (minSdk != -1) {
-        ifClause = "if (org.robolectric.RuntimeEnvironment.getApiLevel() >= " + minSdk + ") ";
-      } else {
-        ifClause = "";
+      String sdkCondition = sdkCondition(resetterInfo);
+      String ifClause = sdkCondition.isEmpty() ? "" : "if (" + sdkCondition + ") ";
+      writer.println("    " + ifClause + resetterInfo.getMethodCall());
+    }
+    writer.println("  }");
+    writer.println();
+
+    writer.println("  @Override");
+    writer.println("  public void reset(java.util.function.Predicate<String> wasTouched) {");
+    for (RobolectricModel.ResetterInfo resetterInfo : model.getResetters()) {
+      String touchedCondition = "wasTouched.test(\"" + resetterInfo.getShadowBinaryName() + "\")";
+      if (resetterInfo.getActualBinaryName() != null) {
+        touchedCondition += " || wasTouched.test(\"" + resetterInfo.getActualBinaryName() + "\")";
       }
+      String sdkCondition = sdkCondition(resetterInfo);
+      String ifClause =
+          sdkCondition.isEmpty()
+              ? "if (" + touchedCondition + ") "
+              : "if (" + sdkCondition + " && (" + touchedCondition + ")) ";
       writer.println("    " + ifClause + resetterInfo.getMethodCall());
     }
     writer.println("  }");
@@ -247,4 +249,21 @@ public class ShadowProviderGenerator extends Generator {
 
     writer.println('}');
   }
+
+  private static String sdkCondition(RobolectricModel.ResetterInfo resetterInfo) {
+    int minSdk = resetterInfo.getMinSdk();
+    int maxSdk = resetterInfo.getMaxSdk();
+    if (minSdk != -1 && maxSdk != -1) {
+      return "org.robolectric.RuntimeEnvironment.getApiLevel() >= "
+          + minSdk
+          + " && org.robolectric.RuntimeEnvironment.getApiLevel() <= "
+          + maxSdk;
+    } else if (maxSdk != -1) {
+      return "org.robolectric.RuntimeEnvironment.getApiLevel() <= " + maxSdk;
+    } else if (minSdk != -1) {
+      return "org.robolectric.RuntimeEnvironment.getApiLevel() >= " + minSdk;
+    } else {
+      return "";
+    }
+  }
 }
@@ -2,6 +2,8 @@ package org.robolectric.annotation.processing;
 
 import static com.google.common.truth.Truth.assertAbout;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.compilations;
+import static com.google.testing.compile.Compiler.javac;
 import static com.google.testing.compile.JavaFileObjects.forResource;
 import static com.google.testing.compile.JavaFileObjects.forSourceString;
 import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
@@ -16,15 +18,19 @@ import static org.robolectric.annotation.processing.Utils.SHADOW_PROVIDER_SOURCE
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Files;
+import com.google.testing.compile.Compilation;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.robolectric.internal.ShadowIndex;
 
 @RunWith(JUnit4.class)
 public class RobolectricProcessorTest {
@@ -167,6 +173,36 @@ public class RobolectricProcessorTest {
         .generatesFiles(forResource("META-INF/services/org.robolectric.internal.ShadowProvider"));
   }
 
+  @Test
+  public void shouldGenerateShadowIndex() throws Exception {
+    Compilation compilation =
+        javac()
+            .withProcessors(new RobolectricProcessor(DEFAULT_OPTS))
+            .compile(
+                SHADOW_PROVIDER_SOURCE,
+                SHADOW_EXTRACTOR_SOURCE,
+                forResource("org/robolectric/annotation/processing/shadows/ShadowDummy.java"));
+    assertAbout(compilations()).that(compilation).succeeded();
+
+    JavaFileObject indexFile =
+        compilation
+            .generatedFile(StandardLocation.CLASS_OUTPUT, "org.robolectric", "Shadows.shadowindex")
+            .get();
+    ShadowIndex index;
+    try (InputStream in = indexFile.openInputStream()) {
+      index = ShadowIndex.readFrom(in);
+    }
+
+    assertThat(index.getShadows()).hasSize(1);
+    ShadowIndex.ShadowEntry shadow = index.getShadows().get(0);
+    assertThat(shadow.shadowClassName)
+        .isEqualTo("org.robolectric.annotation.processing.shadows.ShadowDummy");
+    assertThat(shadow.shadowedClassName).isEqualTo("com.example.objects.Dummy");
+    assertThat(shadow.callThroughByDefault).isTrue();
+    assertThat(shadow.declaresMethod("resetter_method", new Class<?>[0])).isTrue();
+    assertThat(shadow.declaresMethod("resetter_method", new Class<?>[] {int.class})).isFalse();
+  }
+
   @Test
   public void shouldGracefullyHandleUnrecognisedAnnotation() {
     assertAbout(javaSources())
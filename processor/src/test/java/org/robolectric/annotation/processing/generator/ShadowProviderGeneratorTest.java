@@ -61,11 +61,40 @@ public class ShadowProviderGeneratorTest {
                 + " ShadowThing.resetMax18();");
   }
 
+  @Test
+  public void resettersAreOnlyCalledIfShadowOrShadowedClassWasTouched() throws Exception {
+    when(model.getVisibleShadowTypes()).thenReturn(Collections.emptyList());
+
+    List<ResetterInfo> resetterInfos = new ArrayList<>();
+    resetterInfos.add(resetterInfo("ShadowThing", -1, -1, "reset"));
+    resetterInfos.add(resetterInfo("ShadowOther", 21, -1, "resetMin21"));
+    when(resetterInfos.get(1).getActualBinaryName()).thenReturn(null);
+    when(model.getResetters()).thenReturn(resetterInfos);
+
+    generator.generate(new PrintWriter(writer));
+
+    assertThat(writer.toString())
+        .contains("public void reset(java.util.function.Predicate<String> wasTouched) {");
+    assertThat(writer.toString())
+        .contains(
+            "if (wasTouched.test(\"the.package.ShadowThing\")"
+                + " || wasTouched.test(\"android.Thing\"))"
+                + " ShadowThing.reset();");
+    assertThat(writer.toString())
+        .contains(
+            "if (org.robolectric.RuntimeEnvironment.getApiLevel() >= 21"
+                + " && (wasTouched.test(\"the.package.ShadowOther\")))"
+                + " ShadowOther.resetMin21();");
+  }
+
   private ResetterInfo resetterInfo(String shadowName, int minSdk, int maxSdk, String methodName) {
     ResetterInfo resetterInfo = mock(ResetterInfo.class);
     when(resetterInfo.getMinSdk()).thenReturn(minSdk);
     when(resetterInfo.getMaxSdk()).thenReturn(maxSdk);
     when(resetterInfo.getMethodCall()).thenReturn(shadowName + "." + methodName + "();");
+    when(resetterInfo.getShadowBinaryName()).thenReturn("the.package." + shadowName);
+    when(resetterInfo.getActualBinaryName())
+        .thenReturn("android." + shadowName.substring("Shadow".length()));
     return resetterInfo;
   }
 }
@@ -2,11 +2,16 @@ package org.robolectric.internal;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.function.Predicate;
 
 public interface ShadowProvider {
 
   void reset();
 
+  default void reset(Predicate<String> wasTouched) {
+    reset();
+  }
+
   String[] getProvidedPackageNames();
 
   Collection<Map.Entry<String, String>> getShadows();
@@ -40,6 +40,12 @@ public class Shadows implements ShadowProvider {
     ShadowDummy.resetter_method();
   }
 
+  @Override
+  public void reset(java.util.function.Predicate<String> wasTouched) {
+    if (wasTouched.test("org.robolectric.annotation.processing.shadows.ShadowClassNameOnly") || wasTouched.test("com.example.objects.AnyObject")) ShadowClassNameOnly.anotherResetter();
+    if (wasTouched.test("org.robolectric.annotation.processing.shadows.ShadowDummy") || wasTouched.test("com.example.objects.Dummy")) ShadowDummy.resetter_method();
+  }
+
   @Override
   public Collection<Map.Entry<String, String>> getShadows() {
     return SHADOWS;
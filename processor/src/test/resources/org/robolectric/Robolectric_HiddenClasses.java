@@ -47,6 +47,12 @@ public class Shadows implements ShadowProvider {
     ShadowPrivate.resetMethod();
   }
 
+  @Override
+  public void reset(java.util.function.Predicate<String> wasTouched) {
+    if (wasTouched.test("org.robolectric.annotation.processing.shadows.ShadowDummy") || wasTouched.test("com.example.objects.Dummy")) ShadowDummy.resetter_method();
+    if (wasTouched.test("org.robolectric.annotation.processing.shadows.ShadowPrivate") || wasTouched.test("com.example.objects.Private")) ShadowPrivate.resetMethod();
+  }
+
   @Override
   public Collection<Map.Entry<String, String>> getShadows() {
     return SHADOWS;
@@ -25,6 +25,10 @@ public class Shadows implements ShadowProvider {
   public void reset() {
   }
 
+  @Override
+  public void reset(java.util.function.Predicate<String> wasTouched) {
+  }
+
   @Override
   public Collection<Map.Entry<String, String>> getShadows() {
     return SHADOWS;
@@ -17,6 +17,10 @@ public class AttrData {
     return format;
   }
 
+  List<Pair> getPairs() {
+    return pairs;
+  }
+
   public String getName() {
     return name;
   }
@@ -71,5 +75,13 @@ public class AttrData {
       this.name = name;
       this.value = value;
     }
+
+    String getName() {
+      return name;
+    }
+
+    String getValue() {
+      return value;
+    }
   }
 }
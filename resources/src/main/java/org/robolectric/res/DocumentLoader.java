@@ -17,11 +17,11 @@ public abstract class DocumentLoader {
 
   public void load(String folderBaseName) throws IOException {
     for (Path dir : Fs.listFiles(resourceBase, new DirBaseNameFilter(folderBaseName))) {
-      loadFile(dir);
+      loadDirectory(dir);
     }
   }
 
-  private void loadFile(Path dir) throws IOException {
+  void loadDirectory(Path dir) throws IOException {
     if (!Files.exists(dir)) {
       throw new RuntimeException("no such directory " + dir);
     }
@@ -37,10 +37,14 @@ public abstract class DocumentLoader {
       return;
     }
 
-    for (Path file : Fs.listFiles(dir, path -> path.getFileName().toString().endsWith(".xml"))) {
+    for (Path file : listXmlFiles(dir)) {
       loadResourceXmlFile(new XmlContext(packageName, file, qualifiers));
     }
   }
 
+  static Path[] listXmlFiles(Path dir) throws IOException {
+    return Fs.listFiles(dir, path -> path.getFileName().toString().endsWith(".xml"));
+  }
+
   protected abstract void loadResourceXmlFile(XmlContext xmlContext);
 }
@@ -0,0 +1,373 @@
+package org.robolectric.res;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.robolectric.util.Logger;
+import org.robolectric.util.PerfStatsCollector;
+
+/**
+ * An on-disk cache of the resources parsed from the {@code values*} directories of a {@link
+ * ResourcePath}, so that unchanged framework and library resources aren't parsed again by every
+ * test JVM.
+ *
+ * <p>Entries are keyed by a digest of the package name and the names and contents of the parsed
+ * XML files. File paths are stored relative to the resource directory, so an entry may be shared by
+ * copies of the same resources in different locations. Entries are written to a temporary file and
+ * atomically moved into place, so concurrent JVMs never observe a partial entry.
+ *
+ * <p>The cache is disabled unless the {@code robolectric.legacyResourcesCacheDir} system property
+ * is set.
+ */
+@SuppressWarnings({"NewApi", "AndroidJdkLibsChecker", "UnstableApiUsage"})
+class ParsedResourceCache {
+  static final String CACHE_DIR_PROPERTY = "robolectric.legacyResourcesCacheDir";
+
+  /** Increment whenever the encoding, or the output of the resource loaders, changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String ENTRY_SUFFIX = ".res";
+
+  private static final byte KIND_STRING = 0;
+  private static final byte KIND_ARRAY = 1;
+  private static final byte KIND_ATTR = 2;
+  private static final byte KIND_PLURALS = 3;
+  private static final byte KIND_STYLE = 4;
+
+  private final Path cacheDir;
+
+  /** Returns the cache configured via system properties, or null if none is configured. */
+  @Nullable
+  static ParsedResourceCache getDefault() {
+    String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+    return Strings.isNullOrEmpty(cacheDir) ? null : new ParsedResourceCache(Paths.get(cacheDir));
+  }
+
+  ParsedResourceCache(Path cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /** Computes the key for the resources parsed from the given directories. */
+  String computeKey(String packageName, Path[] valuesDirs) throws IOException {
+    Hasher hasher =
+        Hashing.sha256().newHasher().putInt(FORMAT_VERSION).putString(packageName, UTF_8);
+    for (Path dir : valuesDirs) {
+      hasher.putString(dir.getFileName().toString(), UTF_8);
+      if (!Files.isDirectory(dir)) {
+        continue;
+      }
+      for (Path file : DocumentLoader.listXmlFiles(dir)) {
+        byte[] contents = Fs.getBytes(file);
+        hasher
+            .putString(file.getFileName().toString(), UTF_8)
+            .putInt(contents.length)
+            .putBytes(contents);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Returns the cached resources for the given key, or null if none are cached. */
+  @Nullable
+  List<ResourceRecorder.Entry> get(String key, String packageName, Path resourceBase) {
+    Path entry = cacheDir.resolve(key + ENTRY_SUFFIX);
+    try (InputStream in = Files.newInputStream(entry)) {
+      List<ResourceRecorder.Entry> entries =
+          read(new DataInputStream(new BufferedInputStream(in)), packageName, resourceBase);
+      PerfStatsCollector.getInstance().incrementCount("legacy resource cache hit");
+      return entries;
+    } catch (NoSuchFileException e) {
+      PerfStatsCollector.getInstance().incrementCount("legacy resource cache miss");
+      return null;
+    } catch (IOException | RuntimeException e) {
+      Logger.warn("failed to read legacy resource cache entry %s: %s", entry, e);
+      return null;
+    }
+  }
+
+  /**
+   * Stores resources for the given key. Failures, and resources which cannot be encoded, are logged
+   * and otherwise ignored.
+   */
+  void put(String key, Path resourceBase, List<ResourceRecorder.Entry> entries) {
+    Path entry = cacheDir.resolve(key + ENTRY_SUFFIX);
+    Path tempFile = null;
+    try {
+      Files.createDirectories(cacheDir);
+      tempFile = Files.createTempFile(cacheDir, key, ".tmp");
+      try (OutputStream out = Files.newOutputStream(tempFile)) {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        if (!write(dataOut, resourceBase, entries)) {
+          return;
+        }
+        dataOut.flush();
+      }
+      moveIntoPlace(tempFile, entry);
+      tempFile = null;
+    } catch (IOException e) {
+      Logger.warn("failed to write legacy resource cache entry %s: %s", entry, e);
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  private static void moveIntoPlace(Path tempFile, Path entry) throws IOException {
+    try {
+      Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      try {
+        Files.move(tempFile, entry);
+      } catch (FileAlreadyExistsException alreadyWritten) {
+        // Another process won the race; its entry has identical contents.
+        Files.delete(tempFile);
+      }
+    }
+  }
+
+  /** Returns false if any of the resources cannot be encoded. */
+  private static boolean write(
+      DataOutputStream out, Path resourceBase, List<ResourceRecorder.Entry> entries)
+      throws IOException {
+    Map<Path, Integer> fileIndices = new HashMap<>();
+    List<String> files = new ArrayList<>();
+    for (ResourceRecorder.Entry entry : entries) {
+      Path file = entry.value.getXmlContext().getXmlFile();
+      if (!fileIndices.containsKey(file)) {
+        fileIndices.put(file, files.size());
+        files.add(resourceBase.relativize(file).toString());
+      }
+    }
+
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(files.size());
+    for (String file : files) {
+      writeString(out, file);
+    }
+    out.writeInt(entries.size());
+    for (ResourceRecorder.Entry entry : entries) {
+      TypedResource<?> value = entry.value;
+      writeString(out, entry.type);
+      writeString(out, entry.name);
+      out.writeInt(fileIndices.get(value.getXmlContext().getXmlFile()));
+      writeResType(out, value.getResType());
+      if (!writeData(out, value)) {
+        Logger.debug("not caching %s: can't encode %s/%s", resourceBase, entry.type, entry.name);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean writeData(DataOutputStream out, TypedResource<?> value)
+      throws IOException {
+    Object data = value.getData();
+    if (value.getClass() == PluralRules.class) {
+      List<Plural> plurals = ((PluralRules) value).getData();
+      out.writeByte(KIND_PLURALS);
+      out.writeInt(plurals.size());
+      for (Plural plural : plurals) {
+        writeString(out, plural.quantity);
+        writeString(out, plural.string);
+      }
+      return true;
+    } else if (value.getClass() != TypedResource.class) {
+      return false;
+    } else if (data instanceof String) {
+      out.writeByte(KIND_STRING);
+      writeString(out, (String) data);
+      return true;
+    } else if (data instanceof List) {
+      List<?> items = (List<?>) data;
+      for (Object item : items) {
+        if (!(item instanceof TypedResource)
+            || item.getClass() != TypedResource.class
+            || !(((TypedResource<?>) item).getData() instanceof String)
+            || ((TypedResource<?>) item).getXmlContext() != value.getXmlContext()) {
+          return false;
+        }
+      }
+      out.writeByte(KIND_ARRAY);
+      out.writeInt(items.size());
+      for (Object item : items) {
+        TypedResource<?> typedItem = (TypedResource<?>) item;
+        writeResType(out, typedItem.getResType());
+        writeString(out, (String) typedItem.getData());
+      }
+      return true;
+    } else if (data instanceof AttrData) {
+      AttrData attrData = (AttrData) data;
+      out.writeByte(KIND_ATTR);
+      writeString(out, attrData.getName());
+      writeString(out, attrData.getFormat());
+      List<AttrData.Pair> pairs = attrData.getPairs();
+      out.writeInt(pairs == null ? -1 : pairs.size());
+      if (pairs != null) {
+        for (AttrData.Pair pair : pairs) {
+          writeString(out, pair.getName());
+          writeString(out, pair.getValue());
+        }
+      }
+      return true;
+    } else if (data instanceof StyleData) {
+      StyleData styleData = (StyleData) data;
+      List<AttributeResource> attributes = new ArrayList<>();
+      styleData.visit(attributes::add);
+      out.writeByte(KIND_STYLE);
+      writeString(out, styleData.getPackageName());
+      writeString(out, styleData.getName());
+      writeString(out, styleData.getParent());
+      out.writeInt(attributes.size());
+      for (AttributeResource attribute : attributes) {
+        writeString(out, attribute.resName.packageName);
+        writeString(out, attribute.resName.name);
+        writeString(out, attribute.value);
+        writeString(out, attribute.contextPackageName);
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  private static List<ResourceRecorder.Entry> read(
+      DataInputStream in, String packageName, Path resourceBase) throws IOException {
+    int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("unexpected format version " + version);
+    }
+    XmlContext[] xmlContexts = new XmlContext[in.readInt()];
+    for (int i = 0; i < xmlContexts.length; i++) {
+      Path file = resourceBase.resolve(readString(in));
+      xmlContexts[i] =
+          new XmlContext(packageName, file, Qualifiers.fromParentDir(file.getParent()));
+    }
+
+    int count = in.readInt();
+    List<ResourceRecorder.Entry> entries = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String type = readString(in);
+      String name = readString(in);
+      XmlContext xmlContext = xmlContexts[in.readInt()];
+      ResType resType = readResType(in);
+      entries.add(new ResourceRecorder.Entry(type, name, readData(in, resType, xmlContext)));
+    }
+    return entries;
+  }
+
+  private static TypedResource<?> readData(
+      DataInputStream in, ResType resType, XmlContext xmlContext) throws IOException {
+    byte kind = in.readByte();
+    switch (kind) {
+      case KIND_STRING:
+        return new TypedResource<>(readString(in), resType, xmlContext);
+      case KIND_ARRAY:
+        {
+          int count = in.readInt();
+          List<TypedResource> items = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            ResType itemType = readResType(in);
+            items.add(new TypedResource<>(readString(in), itemType, xmlContext));
+          }
+          return new TypedResource<>(items, resType, xmlContext);
+        }
+      case KIND_ATTR:
+        {
+          String name = readString(in);
+          String format = readString(in);
+          int count = in.readInt();
+          List<AttrData.Pair> pairs = null;
+          if (count >= 0) {
+            pairs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+              pairs.add(new AttrData.Pair(readString(in), readString(in)));
+            }
+          }
+          return new TypedResource<>(new AttrData(name, format, pairs), resType, xmlContext);
+        }
+      case KIND_PLURALS:
+        {
+          int count = in.readInt();
+          List<Plural> plurals = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            plurals.add(new Plural(readString(in), readString(in)));
+          }
+          return new PluralRules(plurals, resType, xmlContext);
+        }
+      case KIND_STYLE:
+        {
+          String stylePackageName = readString(in);
+          String name = readString(in);
+          String parent = readString(in);
+          int count = in.readInt();
+          List<AttributeResource> attributes = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            ResName attrName = new ResName(readString(in), "attr", readString(in));
+            attributes.add(new AttributeResource(attrName, readString(in), readString(in)));
+          }
+          return new TypedResource<>(
+              new StyleData(stylePackageName, name, parent, attributes), resType, xmlContext);
+        }
+      default:
+        throw new IOException("unexpected resource kind " + kind);
+    }
+  }
+
+  private static void writeResType(DataOutputStream out, @Nullable ResType resType)
+      throws IOException {
+    writeString(out, resType == null ? null : resType.name());
+  }
+
+  @Nullable
+  private static ResType readResType(DataInputStream in) throws IOException {
+    String name = readString(in);
+    return name == null ? null : ResType.valueOf(name);
+  }
+
+  private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length == -1) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,39 @@
+package org.robolectric.res;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link PackageResourceTable} which only records the resources added to it, so that resources
+ * parsed on several threads can be added to the real table in a deterministic order.
+ */
+class ResourceRecorder extends PackageResourceTable {
+
+  private final List<Entry> entries = new ArrayList<>();
+
+  ResourceRecorder(String packageName) {
+    super(packageName);
+  }
+
+  @Override
+  void addResource(String type, String name, TypedResource value) {
+    entries.add(new Entry(type, name, value));
+  }
+
+  List<Entry> getEntries() {
+    return entries;
+  }
+
+  /** The arguments of a call to {@link #addResource(String, String, TypedResource)}. */
+  static class Entry {
+    final String type;
+    final String name;
+    final TypedResource value;
+
+    Entry(String type, String name, TypedResource value) {
+      this.type = type;
+      this.name = name;
+      this.value = value;
+    }
+  }
+}
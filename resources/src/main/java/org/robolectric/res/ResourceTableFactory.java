@@ -1,8 +1,17 @@
 package org.robolectric.res;
 
+import com.google.common.base.Throwables;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.robolectric.util.Logger;
 import org.robolectric.util.PerfStatsCollector;
 
@@ -125,93 +134,7 @@ public class ResourceTableFactory {
         resourceTable.getPackageName(), resourcePath.getResourceBase());
 
     try {
-      new StaxDocumentLoader(
-              resourceTable.getPackageName(),
-              resourcePath.getResourceBase(),
-              new NodeHandler()
-                  .addHandler(
-                      "resources",
-                      new NodeHandler()
-                          .addHandler(
-                              "bool", new StaxValueLoader(resourceTable, "bool", ResType.BOOLEAN))
-                          .addHandler(
-                              "item[@type='bool']",
-                              new StaxValueLoader(resourceTable, "bool", ResType.BOOLEAN))
-                          .addHandler(
-                              "color", new StaxValueLoader(resourceTable, "color", ResType.COLOR))
-                          .addHandler(
-                              "item[@type='color']",
-                              new StaxValueLoader(resourceTable, "color", ResType.COLOR))
-                          .addHandler(
-                              "drawable",
-                              new StaxValueLoader(resourceTable, "drawable", ResType.DRAWABLE))
-                          .addHandler(
-                              "item[@type='drawable']",
-                              new StaxValueLoader(resourceTable, "drawable", ResType.DRAWABLE))
-                          .addHandler(
-                              "item[@type='mipmap']",
-                              new StaxValueLoader(resourceTable, "mipmap", ResType.DRAWABLE))
-                          .addHandler(
-                              "dimen", new StaxValueLoader(resourceTable, "dimen", ResType.DIMEN))
-                          .addHandler(
-                              "item[@type='dimen']",
-                              new StaxValueLoader(resourceTable, "dimen", ResType.DIMEN))
-                          .addHandler(
-                              "integer",
-                              new StaxValueLoader(resourceTable, "integer", ResType.INTEGER))
-                          .addHandler(
-                              "item[@type='integer']",
-                              new StaxValueLoader(resourceTable, "integer", ResType.INTEGER))
-                          .addHandler(
-                              "integer-array",
-                              new StaxArrayLoader(
-                                  resourceTable, "array", ResType.INTEGER_ARRAY, ResType.INTEGER))
-                          .addHandler(
-                              "fraction",
-                              new StaxValueLoader(resourceTable, "fraction", ResType.FRACTION))
-                          .addHandler(
-                              "item[@type='fraction']",
-                              new StaxValueLoader(resourceTable, "fraction", ResType.FRACTION))
-                          .addHandler(
-                              "item[@type='layout']",
-                              new StaxValueLoader(resourceTable, "layout", ResType.LAYOUT))
-                          .addHandler(
-                              "plurals",
-                              new StaxPluralsLoader(
-                                  resourceTable, "plurals", ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "string",
-                              new StaxValueLoader(resourceTable, "string", ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "item[@type='string']",
-                              new StaxValueLoader(resourceTable, "string", ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "string-array",
-                              new StaxArrayLoader(
-                                  resourceTable,
-                                  "array",
-                                  ResType.CHAR_SEQUENCE_ARRAY,
-                                  ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "array",
-                              new StaxArrayLoader(
-                                  resourceTable, "array", ResType.TYPED_ARRAY, null))
-                          .addHandler(
-                              "id", new StaxValueLoader(resourceTable, "id", ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "item[@type='id']",
-                              new StaxValueLoader(resourceTable, "id", ResType.CHAR_SEQUENCE))
-                          .addHandler(
-                              "attr", new StaxAttrLoader(resourceTable, "attr", ResType.ATTR_DATA))
-                          .addHandler(
-                              "declare-styleable",
-                              new NodeHandler()
-                                  .addHandler(
-                                      "attr",
-                                      new StaxAttrLoader(resourceTable, "attr", ResType.ATTR_DATA)))
-                          .addHandler(
-                              "style", new StaxStyleLoader(resourceTable, "style", ResType.STYLE))))
-          .load("values");
+      loadValues(resourcePath, resourceTable);
 
       loadOpaque(resourcePath, resourceTable, "layout", ResType.LAYOUT);
       loadOpaque(resourcePath, resourceTable, "menu", ResType.LAYOUT);
@@ -231,6 +154,155 @@ public class ResourceTableFactory {
     }
   }
 
+  private void loadValues(ResourcePath resourcePath, PackageResourceTable resourceTable)
+      throws IOException {
+    String packageName = resourceTable.getPackageName();
+    Path resourceBase = resourcePath.getResourceBase();
+    Path[] valuesDirs = Fs.listFiles(resourceBase, new DirBaseNameFilter("values"));
+
+    ParsedResourceCache cache = ParsedResourceCache.getDefault();
+    String cacheKey = cache == null ? null : cache.computeKey(packageName, valuesDirs);
+    List<ResourceRecorder.Entry> entries =
+        cacheKey == null ? null : cache.get(cacheKey, packageName, resourceBase);
+    if (entries == null) {
+      entries = parseValues(packageName, resourceBase, valuesDirs);
+      if (cacheKey != null) {
+        cache.put(cacheKey, resourceBase, entries);
+      }
+    }
+
+    for (ResourceRecorder.Entry entry : entries) {
+      resourceTable.addResource(entry.type, entry.name, entry.value);
+    }
+  }
+
+  /**
+   * Parses each values directory on its own thread. Resources are returned in the order a serial
+   * parse would have added them, since that order determines generated ids and value precedence.
+   */
+  private List<ResourceRecorder.Entry> parseValues(
+      String packageName, Path resourceBase, Path[] valuesDirs) throws IOException {
+    List<Future<List<ResourceRecorder.Entry>>> futures = new ArrayList<>(valuesDirs.length);
+    for (Path dir : valuesDirs) {
+      Callable<List<ResourceRecorder.Entry>> task =
+          () -> {
+            ResourceRecorder recorder = new ResourceRecorder(packageName);
+            new StaxDocumentLoader(packageName, resourceBase, valuesHandler(recorder))
+                .loadDirectory(dir);
+            return recorder.getEntries();
+          };
+      futures.add(
+          valuesDirs.length > 1 ? ForkJoinPool.commonPool().submit(task) : runInline(task));
+    }
+
+    List<ResourceRecorder.Entry> entries = new ArrayList<>();
+    for (Future<List<ResourceRecorder.Entry>> future : futures) {
+      try {
+        entries.addAll(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    return entries;
+  }
+
+  private static <T> Future<T> runInline(Callable<T> task) {
+    FutureTask<T> future = new FutureTask<>(task);
+    future.run();
+    return future;
+  }
+
+  private static NodeHandler valuesHandler(PackageResourceTable resourceTable) {
+    return new NodeHandler()
+        .addHandler(
+            "resources",
+            new NodeHandler()
+                .addHandler(
+                    "bool", new StaxValueLoader(resourceTable, "bool", ResType.BOOLEAN))
+                .addHandler(
+                    "item[@type='bool']",
+                    new StaxValueLoader(resourceTable, "bool", ResType.BOOLEAN))
+                .addHandler(
+                    "color", new StaxValueLoader(resourceTable, "color", ResType.COLOR))
+                .addHandler(
+                    "item[@type='color']",
+                    new StaxValueLoader(resourceTable, "color", ResType.COLOR))
+                .addHandler(
+                    "drawable",
+                    new StaxValueLoader(resourceTable, "drawable", ResType.DRAWABLE))
+                .addHandler(
+                    "item[@type='drawable']",
+                    new StaxValueLoader(resourceTable, "drawable", ResType.DRAWABLE))
+                .addHandler(
+                    "item[@type='mipmap']",
+                    new StaxValueLoader(resourceTable, "mipmap", ResType.DRAWABLE))
+                .addHandler(
+                    "dimen", new StaxValueLoader(resourceTable, "dimen", ResType.DIMEN))
+                .addHandler(
+                    "item[@type='dimen']",
+                    new StaxValueLoader(resourceTable, "dimen", ResType.DIMEN))
+                .addHandler(
+                    "integer",
+                    new StaxValueLoader(resourceTable, "integer", ResType.INTEGER))
+                .addHandler(
+                    "item[@type='integer']",
+                    new StaxValueLoader(resourceTable, "integer", ResType.INTEGER))
+                .addHandler(
+                    "integer-array",
+                    new StaxArrayLoader(
+                        resourceTable, "array", ResType.INTEGER_ARRAY, ResType.INTEGER))
+                .addHandler(
+                    "fraction",
+                    new StaxValueLoader(resourceTable, "fraction", ResType.FRACTION))
+                .addHandler(
+                    "item[@type='fraction']",
+                    new StaxValueLoader(resourceTable, "fraction", ResType.FRACTION))
+                .addHandler(
+                    "item[@type='layout']",
+                    new StaxValueLoader(resourceTable, "layout", ResType.LAYOUT))
+                .addHandler(
+                    "plurals",
+                    new StaxPluralsLoader(
+                        resourceTable, "plurals", ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "string",
+                    new StaxValueLoader(resourceTable, "string", ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "item[@type='string']",
+                    new StaxValueLoader(resourceTable, "string", ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "string-array",
+                    new StaxArrayLoader(
+                        resourceTable,
+                        "array",
+                        ResType.CHAR_SEQUENCE_ARRAY,
+                        ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "array",
+                    new StaxArrayLoader(
+                        resourceTable, "array", ResType.TYPED_ARRAY, null))
+                .addHandler(
+                    "id", new StaxValueLoader(resourceTable, "id", ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "item[@type='id']",
+                    new StaxValueLoader(resourceTable, "id", ResType.CHAR_SEQUENCE))
+                .addHandler(
+                    "attr", new StaxAttrLoader(resourceTable, "attr", ResType.ATTR_DATA))
+                .addHandler(
+                    "declare-styleable",
+                    new NodeHandler()
+                        .addHandler(
+                            "attr",
+                            new StaxAttrLoader(resourceTable, "attr", ResType.ATTR_DATA)))
+                .addHandler(
+                    "style", new StaxStyleLoader(resourceTable, "style", ResType.STYLE)));
+  }
+
   private void loadOpaque(
       ResourcePath resourcePath,
       final PackageResourceTable resourceTable,
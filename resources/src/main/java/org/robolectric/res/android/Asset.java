@@ -12,6 +12,7 @@ import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.zip.ZipEntry;
@@ -117,6 +118,14 @@ public abstract class Asset {
      */
   public abstract byte[] getBuffer(boolean wordAligned);
 
+  /**
+   * Returns the contents of the asset as a buffer. This may avoid copying the data if the asset is
+   * backed by a memory-mapped file.
+   */
+  public ByteBuffer getByteBuffer() {
+    return ByteBuffer.wrap(getBuffer(true));
+  }
+
   /*
    * Get the total amount of data that can be read.
    */
@@ -731,7 +740,7 @@ static Asset createFromCompressedMap(FileMap dataMap,
       mLength = dataMap.getDataLength();
       assert(mOffset == 0);
 
-      mBuf = dataMap.getDataPtr();
+      // The data is read from the map on demand.
 
       return NO_ERROR;
     }
@@ -770,7 +779,7 @@ static Asset createFromCompressedMap(FileMap dataMap,
           /* copy from mapped area */
         //printf("map read\n");
         // memcpy(buf, (String)mMap.getDataPtr() + mOffset, count);
-        System.arraycopy(mMap.getDataPtr(), toIntExact(mOffset), buf, bufOffset, count);
+        mMap.read(toIntExact(mOffset), buf, bufOffset, count);
         actual = count;
       } else if (mBuf != null) {
           /* copy from buffer */
@@ -945,6 +954,14 @@ static Asset createFromCompressedMap(FileMap dataMap,
       }
     }
 
+    @Override
+    public ByteBuffer getByteBuffer() {
+      if (mBuf == null && mMap != null) {
+        return mMap.getDataBuffer();
+      }
+      return super.getByteBuffer();
+    }
+
     /**
      * Return the file on disk representing this asset.
      *
@@ -9,7 +9,6 @@ import static org.robolectric.res.android.Util.CHECK;
 import static org.robolectric.res.android.ZipFileRO.OpenArchive;
 import static org.robolectric.res.android.ZipFileRO.kCompressDeflated;
 
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Enumeration;
 import java.util.HashSet;
@@ -56,7 +55,7 @@ public class CppApkAssets {
   public CppApkAssets(ZipArchiveHandle zip_handle_, String path_) {
     this.zip_handle_ = zip_handle_;
     this.path_ = path_;
-    this.zipFileRO = new ZipFileRO(zip_handle_, zip_handle_.zipFile.getName());
+    this.zipFileRO = new ZipFileRO(zip_handle_, zip_handle_.zipArchive.getName());
   }
 
   public String GetPath() { return path_; }
@@ -233,7 +232,7 @@ public class CppApkAssets {
 
     // Find the resource table.
     String entry_name = kResourcesArsc;
-    Ref<ZipEntry> entry = new Ref<>(null);
+    Ref<ZipArchive.Entry> entry = new Ref<>(null);
     // result = FindEntry(loaded_apk.zip_handle_.get(), entry_name, &entry);
     result = ZipFileRO.FindEntry(loaded_apk.zip_handle_, entry_name, entry);
     if (result != 0) {
@@ -256,11 +255,20 @@ public class CppApkAssets {
   //       reinterpret_cast<const char*>(loaded_apk.resources_asset_.getBuffer(true /*wordAligned*/)),
   //       loaded_apk.resources_asset_.getLength());
     StringPiece data = new StringPiece(
-        ByteBuffer.wrap(loaded_apk.resources_asset_.getBuffer(true /*wordAligned*/))
-            .order(ByteOrder.LITTLE_ENDIAN),
+        loaded_apk.resources_asset_.getByteBuffer().order(ByteOrder.LITTLE_ENDIAN),
         0 /*(int) loaded_apk.resources_asset_.getLength()*/);
-    loaded_apk.loaded_arsc_ =
-        LoadedArsc.Load(data, loaded_idmap, system, load_as_shared_library);
+    if (system && loaded_idmap == null) {
+      // Framework tables are immutable once parsed, so share them between sandboxes.
+      loaded_apk.loaded_arsc_ =
+          LoadedArscCache.getOrLoad(
+              path,
+              loaded_apk.resources_asset_,
+              load_as_shared_library,
+              () -> LoadedArsc.Load(data, null, true, load_as_shared_library));
+    } else {
+      loaded_apk.loaded_arsc_ =
+          LoadedArsc.Load(data, loaded_idmap, system, load_as_shared_library);
+    }
     if (loaded_apk.loaded_arsc_ == null) {
       System.err.println("Failed to load '" + kResourcesArsc + "' in APK '" + path + "'.");
       return null;
@@ -338,7 +346,7 @@ public class CppApkAssets {
     }
 
     String prefix = root_path_full;
-    Enumeration<? extends ZipEntry> entries = zip_handle_.zipFile.entries();
+    Enumeration<ZipArchive.Entry> entries = zip_handle_.zipArchive.entries();
     // if (StartIteration(zip_handle_.get(), &cookie, &prefix, null) != 0) {
     //   return false;
     // }
@@ -25,7 +25,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.zip.ZipEntry;
 import javax.annotation.Nullable;
 import org.robolectric.res.Fs;
 import org.robolectric.res.android.Asset.AccessMode;
@@ -1283,7 +1282,7 @@ public class CppAssetManager {
      * semantics.
      */
     int dirNameLen = dirName.length();
-    final Ref<Enumeration<? extends ZipEntry>> iterationCookie = new Ref<>(null);
+    final Ref<Enumeration<ZipArchive.Entry>> iterationCookie = new Ref<>(null);
     if (!pZip.startIteration(iterationCookie, dirName.string(), null)) {
       ALOGW("ZipFileRO.startIteration returned false");
       return false;
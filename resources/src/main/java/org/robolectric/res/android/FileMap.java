@@ -1,46 +1,20 @@
 package org.robolectric.res.android;
 
-import static java.nio.charset.StandardCharsets.ISO_8859_1;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.robolectric.res.android.Asset.toIntExact;
 import static org.robolectric.res.android.Util.ALOGV;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-import com.google.common.primitives.Shorts;
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
-import java.nio.charset.Charset;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
 
 public class FileMap {
 
-  /** ZIP archive central directory end header signature. */
-  private static final int ENDSIG = 0x6054b50;
-
-  private static final int EOCD_SIZE = 22;
-
-  private static final int ZIP64_EOCD_SIZE = 56;
-
-  private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
-
-  /** ZIP64 archive central directory end header signature. */
-  private static final int ENDSIG64 = 0x6064b50;
-
-  private static final int MAX_COMMENT_SIZE = 64 * 1024; // 64k
-
-  /** the maximum size of the end of central directory sections in bytes */
-  private static final int MAXIMUM_ZIP_EOCD_SIZE =
-      MAX_COMMENT_SIZE + EOCD_SIZE + ZIP64_EOCD_SIZE + ZIP64_EOCD_LOCATOR_SIZE;
-
-  private ZipFile zipFile;
-  private ZipEntry zipEntry;
+  private ZipArchive zipArchive;
+  private ZipArchive.Entry zipEntry;
 
   @SuppressWarnings("unused")
   private boolean readOnly;
@@ -156,13 +130,13 @@ public class FileMap {
 
   boolean createFromZip(
       String origFileName,
-      ZipFile zipFile,
-      ZipEntry entry,
+      ZipArchive zipArchive,
+      ZipArchive.Entry entry,
       long offset,
       int length,
       boolean readOnly) {
     isFromZip = true;
-    this.zipFile = zipFile;
+    this.zipArchive = zipArchive;
     this.zipEntry = entry;
 
     assert(fd >= 0);
@@ -209,162 +183,6 @@ public class FileMap {
     return true;
   }
 
-  static ImmutableMap<String, Long> guessDataOffsets(File zipFile, int length) {
-    ImmutableMap.Builder<String, Long> result = ImmutableMap.builder();
-
-    // Parse the zip file entry offsets from the central directory section.
-    // See https://en.wikipedia.org/wiki/Zip_(file_format)
-
-    try (RandomAccessFile randomAccessFile = new RandomAccessFile(zipFile, "r")) {
-
-      // First read the 'end of central directory record' in order to find the start of the central
-      // directory
-      int endOfCdSize = Math.min(MAXIMUM_ZIP_EOCD_SIZE, length);
-      int endofCdOffset = length - endOfCdSize;
-      randomAccessFile.seek(endofCdOffset);
-      byte[] buffer = new byte[endOfCdSize];
-      randomAccessFile.readFully(buffer);
-
-      int centralDirOffset = findCentralDir(buffer);
-      if (centralDirOffset == -1) {
-        // If the zip file contains > 2^16 entries, a Zip64 EOCD is written, and the central
-        // dir offset in the regular EOCD may be -1.
-        centralDirOffset = findCentralDir64(buffer);
-      }
-      int offset = centralDirOffset - endofCdOffset;
-      if (offset < 0) {
-        // read the entire central directory record into memory
-        // for the framework jars this max of 5MB for Q
-        // TODO: consider using a smaller buffer size and re-reading as necessary
-        offset = 0;
-        randomAccessFile.seek(centralDirOffset);
-        final int cdSize = length - centralDirOffset;
-        buffer = new byte[cdSize];
-        randomAccessFile.readFully(buffer);
-      } else {
-        // the central directory is already in the buffer, no need to reread
-      }
-
-      // now read the entries
-      while (true) {
-        // Instead of trusting numRecords, read until we find the
-        // end-of-central-directory signature.  numRecords may wrap
-        // around with >64K entries.
-        int sig = readInt(buffer, offset);
-        if (sig == ENDSIG || sig == ENDSIG64) {
-          break;
-        }
-
-        int bitFlag = readShort(buffer, offset + 8);
-        int fileNameLength = readShort(buffer, offset + 28);
-        int extraLength = readShort(buffer, offset + 30);
-        int fieldCommentLength = readShort(buffer, offset + 32);
-        int relativeOffsetOfLocalFileHeader = readInt(buffer, offset + 42);
-
-        byte[] nameBytes = copyBytes(buffer, offset + 46, fileNameLength);
-        Charset encoding = getEncoding(bitFlag);
-        String fileName = new String(nameBytes, encoding);
-        byte[] localHeaderBuffer = new byte[30];
-        randomAccessFile.seek(relativeOffsetOfLocalFileHeader);
-        randomAccessFile.readFully(localHeaderBuffer);
-        // There are two extra field lengths stored in the zip - one in the central directory,
-        // one in the local header. And we should use one in local header to calculate the
-        // correct file content offset, because they are different some times.
-        int localHeaderExtraLength = readShort(localHeaderBuffer, 28);
-        int fileOffset =
-            relativeOffsetOfLocalFileHeader + 30 + fileNameLength + localHeaderExtraLength;
-        result.put(fileName, (long) fileOffset);
-        offset += 46 + fileNameLength + extraLength + fieldCommentLength;
-      }
-
-      return result.build();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static byte[] copyBytes(byte[] buffer, int offset, int length) {
-    byte[] result = new byte[length];
-    System.arraycopy(buffer, offset, result, 0, length);
-    return result;
-  }
-
-  private static Charset getEncoding(int bitFlags) {
-    // UTF-8 now supported in name and comments: check general bit flag, bit
-    // 11, to determine if UTF-8 is being used or ISO-8859-1 is being used.
-    return (0 != ((bitFlags >>> 11) & 1)) ? UTF_8 : ISO_8859_1;
-  }
-
-  private static int findCentralDir(byte[] buffer) throws IOException {
-    // find start of central directory by scanning backwards
-    int scanOffset = buffer.length - EOCD_SIZE;
-
-    while (true) {
-      int val = readInt(buffer, scanOffset);
-      if (val == ENDSIG) {
-        break;
-      }
-
-      // Ok, keep backing up looking for the ZIP end central directory
-      // signature.
-      --scanOffset;
-      if (scanOffset < 0) {
-        throw new ZipException("ZIP directory not found, not a ZIP archive.");
-      }
-    }
-    // scanOffset is now start of end of central directory record
-    // the 'offset to central dir' data is at position 16 in the record
-    int offsetToCentralDir = readInt(buffer, scanOffset + 16);
-    return offsetToCentralDir;
-  }
-
-  private static int findCentralDir64(byte[] buffer) throws IOException {
-    // find start of central directory by scanning backwards
-    int scanOffset = buffer.length - EOCD_SIZE - ZIP64_EOCD_LOCATOR_SIZE - ZIP64_EOCD_SIZE;
-
-    while (true) {
-      int val = readInt(buffer, scanOffset);
-      if (val == ENDSIG64) {
-        break;
-      }
-
-      // Ok, keep backing up looking for the ZIP end central directory
-      // signature.
-      --scanOffset;
-      if (scanOffset < 0) {
-        throw new ZipException("ZIP directory not found, not a ZIP archive.");
-      }
-    }
-    // scanOffset is now start of end of central directory record
-    // the 'offset to central dir' data is at position 16 in the record
-    long offsetToCentralDir = readLong(buffer, scanOffset + 48);
-    return (int) offsetToCentralDir;
-  }
-
-  /** Read a 32-bit integer from a bytebuffer in little-endian order. */
-  private static int readInt(byte[] buffer, int offset) {
-    return Ints.fromBytes(
-        buffer[offset + 3], buffer[offset + 2], buffer[offset + 1], buffer[offset]);
-  }
-
-  /** Read a 64-bit integer from a bytebuffer in little-endian order. */
-  private static long readLong(byte[] buffer, int offset) {
-    return Longs.fromBytes(
-        buffer[offset + 7],
-        buffer[offset + 6],
-        buffer[offset + 5],
-        buffer[offset + 4],
-        buffer[offset + 3],
-        buffer[offset + 2],
-        buffer[offset + 1],
-        buffer[offset]);
-  }
-
-  /** Read a 16-bit short from a bytebuffer in little-endian order. */
-  private static short readShort(byte[] buffer, int offset) {
-    return Shorts.fromBytes(buffer[offset + 1], buffer[offset]);
-  }
-
   /*
    * This represents a memory-mapped file.  It might be the entire file or
    * only part of it.  This requires a little bookkeeping because the mapping
@@ -410,19 +228,14 @@ public class FileMap {
      */
   synchronized byte[] getDataPtr() {
     if (mDataPtr == null) {
-      mDataPtr = new byte[mDataLength];
-
-      InputStream is;
       try {
         if (isFromZip) {
-          is = zipFile.getInputStream(zipEntry);
+          mDataPtr = zipArchive.getData(zipEntry);
         } else {
-          is = new FileInputStream(getFileName());
-        }
-        try {
-          readFully(is, mDataPtr);
-        } finally {
-          is.close();
+          mDataPtr = new byte[mDataLength];
+          try (InputStream is = new FileInputStream(getFileName())) {
+            readFully(is, mDataPtr);
+          }
         }
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -431,6 +244,36 @@ public class FileMap {
     return mDataPtr;
   }
 
+  /**
+   * Returns the data as a little-endian buffer. For uncompressed zip entries, this is a slice of the
+   * memory-mapped archive, so no copy of the data is made.
+   */
+  synchronized ByteBuffer getDataBuffer() {
+    if (mDataPtr == null && isStoredZipEntry()) {
+      try {
+        return zipArchive.getStoredData(zipEntry);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return ByteBuffer.wrap(getDataPtr()).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** Copies {@code count} bytes of data, starting at {@code offset}, into {@code buf}. */
+  void read(int offset, byte[] buf, int bufOffset, int count) {
+    if (mDataPtr == null && isStoredZipEntry()) {
+      ByteBuffer data = getDataBuffer();
+      ((Buffer) data).position(offset);
+      data.get(buf, bufOffset, count);
+    } else {
+      System.arraycopy(getDataPtr(), offset, buf, bufOffset, count);
+    }
+  }
+
+  private boolean isStoredZipEntry() {
+    return isFromZip && zipEntry.getMethod() == ZipEntry.STORED;
+  }
+
   public static void readFully(InputStream is, byte[] bytes) throws IOException {
     int size = bytes.length;
     int remaining = size;
@@ -496,7 +339,7 @@ public class FileMap {
   public String toString() {
     if (isFromZip) {
       return "FileMap{" +
-          "zipFile=" + zipFile.getName() +
+          "zipFile=" + zipArchive.getName() +
           ", zipEntry=" + zipEntry +
           '}';
     } else {
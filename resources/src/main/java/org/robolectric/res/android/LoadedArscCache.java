@@ -0,0 +1,143 @@
+package org.robolectric.res.android;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.robolectric.util.PerfStatsCollector;
+
+/**
+ * Process-wide cache of parsed system resource tables.
+ *
+ * <p>{@code org.robolectric.res} is loaded outside of sandboxes, so the {@link LoadedArsc} for an
+ * SDK's framework APK can be parsed once and shared by every sandbox for that SDK, regardless of
+ * which class loader asks for it. {@link LoadedArsc} is not modified once loaded.
+ *
+ * <p>Tables are keyed by a SHA-256 digest of the {@code resources.arsc} contents, so copies of the
+ * same android-all jar (e.g. instrumented and non-instrumented) share a single table, while a jar
+ * that is replaced on disk is parsed again. Digests are remembered per file, keyed by path, size
+ * and modification time, so a table is only hashed the first time its file is seen.
+ */
+final class LoadedArscCache {
+
+  private static final ConcurrentHashMap<FileKey, TableKey> tableKeys = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<TableKey, Holder> tables = new ConcurrentHashMap<>();
+
+  private LoadedArscCache() {}
+
+  /**
+   * Returns the cached table for the given {@code resources.arsc} asset, calling {@code loader} to
+   * parse it if no sandbox has done so yet. Failures (null tables) are not cached.
+   */
+  static LoadedArsc getOrLoad(
+      String path,
+      Asset resourcesAsset,
+      boolean loadAsSharedLibrary,
+      Supplier<LoadedArsc> loader) {
+    File file = new File(path);
+    FileKey fileKey =
+        new FileKey(
+            file.getAbsolutePath(), file.length(), file.lastModified(), loadAsSharedLibrary);
+    TableKey tableKey = tableKeys.get(fileKey);
+    if (tableKey == null) {
+      tableKey = new TableKey(digest(resourcesAsset.getByteBuffer()), loadAsSharedLibrary);
+      tableKeys.put(fileKey, tableKey);
+    }
+
+    Holder holder = tables.computeIfAbsent(tableKey, k -> new Holder());
+    synchronized (holder) {
+      if (holder.loadedArsc == null) {
+        holder.loadedArsc = loader.get();
+      } else {
+        PerfStatsCollector.getInstance().incrementCount("reuse binary framework resources");
+      }
+      return holder.loadedArsc;
+    }
+  }
+
+  /** Drops all cached tables. */
+  static void clear() {
+    tableKeys.clear();
+    tables.clear();
+  }
+
+  private static byte[] digest(ByteBuffer buffer) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(buffer.duplicate());
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Holder {
+    private LoadedArsc loadedArsc;
+  }
+
+  private static class FileKey {
+    private final String path;
+    private final long length;
+    private final long lastModified;
+    private final boolean loadAsSharedLibrary;
+
+    FileKey(String path, long length, long lastModified, boolean loadAsSharedLibrary) {
+      this.path = path;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.loadAsSharedLibrary = loadAsSharedLibrary;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FileKey)) {
+        return false;
+      }
+      FileKey that = (FileKey) o;
+      return length == that.length
+          && lastModified == that.lastModified
+          && loadAsSharedLibrary == that.loadAsSharedLibrary
+          && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, length, lastModified, loadAsSharedLibrary);
+    }
+  }
+
+  private static class TableKey {
+    private final byte[] digest;
+    private final boolean loadAsSharedLibrary;
+
+    TableKey(byte[] digest, boolean loadAsSharedLibrary) {
+      this.digest = digest;
+      this.loadAsSharedLibrary = loadAsSharedLibrary;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TableKey)) {
+        return false;
+      }
+      TableKey that = (TableKey) o;
+      return loadAsSharedLibrary == that.loadAsSharedLibrary
+          && Arrays.equals(digest, that.digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Arrays.hashCode(digest) + (loadAsSharedLibrary ? 1 : 0);
+    }
+  }
+}
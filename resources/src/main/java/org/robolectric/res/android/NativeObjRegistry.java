@@ -2,16 +2,19 @@ package org.robolectric.res.android;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A unique id per object registry. Used to emulate android platform behavior of storing a long
  * which represents a pointer to an object.
+ *
+ * <p>Ids are kept in a primitive open-addressing table, so looking up an object by its id doesn't
+ * allocate. Objects are matched by identity, not by {@link Object#equals(Object)}.
  */
 public class NativeObjRegistry<T> {
 
@@ -19,7 +22,8 @@ public class NativeObjRegistry<T> {
 
   private final String name;
   private final boolean debug;
-  private final BiMap<Long, T> nativeObjToIdMap = HashBiMap.create();
+  private final IdTable<T> idToNativeObjMap = new IdTable<>();
+  private final IdentityHashMap<T, Long> nativeObjToIdMap = new IdentityHashMap<>();
   private final Map<Long, DebugInfo> idToDebugInfoMap;
 
   private long nextId = INITIAL_ID;
@@ -51,13 +55,13 @@ public class NativeObjRegistry<T> {
   @Deprecated
   public synchronized long getNativeObjectId(T o) {
     checkNotNull(o);
-    Long nativeId = nativeObjToIdMap.inverse().get(o);
+    Long nativeId = nativeObjToIdMap.get(o);
     if (nativeId == null) {
       nativeId = nextId;
       if (debug) {
         System.out.printf("NativeObjRegistry %s: register %d -> %s%n", name, nativeId, o);
       }
-      nativeObjToIdMap.put(nativeId, o);
+      put(nativeId, o);
       nextId++;
     }
     return nativeId;
@@ -70,7 +74,7 @@ public class NativeObjRegistry<T> {
    */
   public synchronized long register(T o) {
     checkNotNull(o);
-    Long nativeId = nativeObjToIdMap.inverse().get(o);
+    Long nativeId = nativeObjToIdMap.get(o);
     if (nativeId != null) {
       if (debug) {
         DebugInfo debugInfo = idToDebugInfoMap.get(nativeId);
@@ -88,7 +92,7 @@ public class NativeObjRegistry<T> {
       System.out.printf("NativeObjRegistry %s: register %d -> %s%n", name, nativeId, o);
       idToDebugInfoMap.put(nativeId, new DebugInfo(new Trace()));
     }
-    nativeObjToIdMap.put(nativeId, o);
+    put(nativeId, o);
     nextId++;
     return nativeId;
   }
@@ -101,7 +105,10 @@ public class NativeObjRegistry<T> {
    *     unregistered.
    */
   public synchronized T unregister(long nativeId) {
-    T o = nativeObjToIdMap.remove(nativeId);
+    T o = idToNativeObjMap.remove(nativeId);
+    if (o != null) {
+      nativeObjToIdMap.remove(o);
+    }
     if (debug) {
       System.out.printf("NativeObjRegistry %s: unregister %d -> %s%n", name, nativeId, o);
       new RuntimeException("unregister debug").printStackTrace(System.out);
@@ -128,19 +135,22 @@ public class NativeObjRegistry<T> {
    */
   @Deprecated
   public synchronized void unregister(T removed) {
-    nativeObjToIdMap.inverse().remove(removed);
+    Long nativeId = nativeObjToIdMap.remove(removed);
+    if (nativeId != null) {
+      idToNativeObjMap.remove(nativeId);
+    }
   }
 
   /** Retrieve the native object for given id. Throws if object with that id cannot be found */
   public synchronized T getNativeObject(long nativeId) {
-    T object = nativeObjToIdMap.get(nativeId);
+    T object = idToNativeObjMap.get(nativeId);
     if (object != null) {
       return object;
     } else {
       throw new NullPointerException(
           String.format(
               "Could not find object with nativeId: %d. Currently registered ids: %s",
-              nativeId, nativeObjToIdMap.keySet()));
+              nativeId, idToNativeObjMap.ids()));
     }
   }
 
@@ -150,15 +160,20 @@ public class NativeObjRegistry<T> {
    * @throws IllegalStateException if no object was registered with the given id before
    */
   public synchronized void update(long nativeId, T o) {
-    T previous = nativeObjToIdMap.get(nativeId);
+    T previous = idToNativeObjMap.get(nativeId);
     if (previous == null) {
       throw new IllegalStateException("Native id " + nativeId + " was never registered");
     }
+    Long existingId = nativeObjToIdMap.get(o);
+    if (existingId != null && existingId != nativeId) {
+      throw new IllegalArgumentException("Object is already registered with id " + existingId);
+    }
     if (debug) {
       System.out.printf("NativeObjRegistry %s: update %d -> %s%n", name, nativeId, o);
       idToDebugInfoMap.put(nativeId, new DebugInfo(new Trace()));
     }
-    nativeObjToIdMap.put(nativeId, o);
+    nativeObjToIdMap.remove(previous);
+    put(nativeId, o);
   }
 
   /**
@@ -166,15 +181,21 @@ public class NativeObjRegistry<T> {
    * found.
    */
   public synchronized T peekNativeObject(long nativeId) {
-    return nativeObjToIdMap.get(nativeId);
+    return idToNativeObjMap.get(nativeId);
   }
 
   /** WARNING -- dangerous! Call {@link #unregister(long)} instead! */
   public synchronized void clear() {
     nextId = INITIAL_ID;
+    idToNativeObjMap.clear();
     nativeObjToIdMap.clear();
   }
 
+  private void put(long nativeId, T o) {
+    idToNativeObjMap.put(nativeId, o);
+    nativeObjToIdMap.put(o, nativeId);
+  }
+
   private static class DebugInfo {
     final Trace registrationTrace;
     final List<Trace> unregistrationTraces = new ArrayList<>();
@@ -188,4 +209,106 @@ public class NativeObjRegistry<T> {
 
     private Trace() {}
   }
+
+  /**
+   * Open-addressing map from ids to objects, using linear probing and backward-shift deletion.
+   *
+   * <p>Ids are handed out sequentially, so masking the low bits of an id spreads live ids evenly
+   * across the table without further hashing.
+   */
+  private static class IdTable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    T get(long id) {
+      int mask = ids.length - 1;
+      for (int i = index(id, mask); objects[i] != null; i = (i + 1) & mask) {
+        if (ids[i] == id) {
+          return (T) objects[i];
+        }
+      }
+      return null;
+    }
+
+    void put(long id, T object) {
+      int mask = ids.length - 1;
+      int i = index(id, mask);
+      for (; objects[i] != null; i = (i + 1) & mask) {
+        if (ids[i] == id) {
+          objects[i] = object;
+          return;
+        }
+      }
+      ids[i] = id;
+      objects[i] = object;
+      // Keep the load factor at or below 1/2.
+      if (++size * 2 > ids.length) {
+        resize(ids.length * 2);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    T remove(long id) {
+      int mask = ids.length - 1;
+      int i = index(id, mask);
+      while (objects[i] != null && ids[i] != id) {
+        i = (i + 1) & mask;
+      }
+      if (objects[i] == null) {
+        return null;
+      }
+      T removed = (T) objects[i];
+      size--;
+
+      // Shift later entries of the probe sequence back, so lookups never need tombstones.
+      int hole = i;
+      for (int j = (i + 1) & mask; objects[j] != null; j = (j + 1) & mask) {
+        int home = index(ids[j], mask);
+        if (((j - home) & mask) >= ((j - hole) & mask)) {
+          ids[hole] = ids[j];
+          objects[hole] = objects[j];
+          hole = j;
+        }
+      }
+      objects[hole] = null;
+      return removed;
+    }
+
+    List<Long> ids() {
+      List<Long> result = new ArrayList<>(size);
+      for (int i = 0; i < ids.length; i++) {
+        if (objects[i] != null) {
+          result.add(ids[i]);
+        }
+      }
+      return result;
+    }
+
+    void clear() {
+      Arrays.fill(objects, null);
+      size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+      long[] oldIds = ids;
+      Object[] oldObjects = objects;
+      ids = new long[capacity];
+      objects = new Object[capacity];
+      size = 0;
+      for (int i = 0; i < oldIds.length; i++) {
+        if (oldObjects[i] != null) {
+          put(oldIds[i], (T) oldObjects[i]);
+        }
+      }
+    }
+
+    private static int index(long id, int mask) {
+      return (int) (id ^ (id >>> 32)) & mask;
+    }
+  }
 }
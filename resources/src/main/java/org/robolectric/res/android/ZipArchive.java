@@ -0,0 +1,352 @@
+package org.robolectric.res.android;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only zip archive backed by a memory-mapped file.
+ *
+ * <p>The central directory is parsed once, when the archive is opened; entries are materialized on
+ * demand, and their data offsets are read from the (mapped) local file headers when first needed.
+ * The contents of stored (uncompressed) entries are exposed as zero-copy slices of the mapping.
+ *
+ * <p>See https://en.wikipedia.org/wiki/Zip_(file_format) for the format.
+ */
+public class ZipArchive {
+
+  /** ZIP archive central directory end header signature. */
+  private static final int ENDSIG = 0x6054b50;
+
+  /** ZIP64 archive central directory end header signature. */
+  private static final int ENDSIG64 = 0x6064b50;
+
+  /** ZIP64 archive central directory end locator signature. */
+  private static final int LOCSIG64 = 0x7064b50;
+
+  /** ZIP archive central directory file header signature. */
+  private static final int CENSIG = 0x2014b50;
+
+  private static final int EOCD_SIZE = 22;
+
+  private static final int ZIP64_EOCD_LOCATOR_SIZE = 20;
+
+  private static final int MAX_COMMENT_SIZE = 64 * 1024; // 64k
+
+  private static final int CEN_HEADER_SIZE = 46;
+
+  private static final int LOC_HEADER_SIZE = 30;
+
+  /** Header ID of the ZIP64 extended information extra field. */
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private final String name;
+  private final ByteBuffer buffer;
+
+  /** Maps entry names to the offset of their central directory header, in archive order. */
+  private final Map<String, Integer> centralDirectoryOffsets;
+
+  private ZipArchive(String name, ByteBuffer buffer, Map<String, Integer> centralDirectoryOffsets) {
+    this.name = name;
+    this.buffer = buffer;
+    this.centralDirectoryOffsets = centralDirectoryOffsets;
+  }
+
+  /** Maps the given file and reads its central directory. */
+  public static ZipArchive open(File file) throws IOException {
+    MappedByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        FileChannel channel = randomAccessFile.getChannel()) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new ZipException("ZIP archive too large to map: " + file);
+      }
+      // The mapping remains valid after the channel is closed.
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return new ZipArchive(file.getPath(), buffer, readCentralDirectory(buffer));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int size() {
+    return centralDirectoryOffsets.size();
+  }
+
+  /** Returns the entry with the given name, or null if there is none. */
+  @Nullable
+  public Entry getEntry(String entryName) {
+    Integer offset = centralDirectoryOffsets.get(entryName);
+    return offset == null ? null : readEntry(entryName, offset);
+  }
+
+  /** Returns the archive's entries, in the order in which they appear in the central directory. */
+  public Enumeration<Entry> entries() {
+    Iterator<Map.Entry<String, Integer>> iterator =
+        centralDirectoryOffsets.entrySet().iterator();
+    return new Enumeration<Entry>() {
+      @Override
+      public boolean hasMoreElements() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Entry nextElement() {
+        Map.Entry<String, Integer> next = iterator.next();
+        return readEntry(next.getKey(), next.getValue());
+      }
+    };
+  }
+
+  /** Returns the offset of the entry's (possibly compressed) data within the archive. */
+  public long getDataOffset(Entry entry) {
+    if (entry.dataOffset == -1) {
+      int localHeaderOffset = toIntOffset(entry.localHeaderOffset);
+      checkLocalHeaderBounds(localHeaderOffset);
+      // The extra field in the local header may differ from the one in the central directory, so
+      // the local header must be consulted.
+      int nameLength = readUnsignedShort(localHeaderOffset + 26);
+      int extraLength = readUnsignedShort(localHeaderOffset + 28);
+      entry.dataOffset = localHeaderOffset + LOC_HEADER_SIZE + nameLength + extraLength;
+    }
+    return entry.dataOffset;
+  }
+
+  /**
+   * Returns the contents of a stored (uncompressed) entry, as a read-only slice of the mapped file
+   * in little-endian order.
+   */
+  public ByteBuffer getStoredData(Entry entry) throws ZipException {
+    if (entry.getMethod() != ZipEntry.STORED) {
+      throw new ZipException("entry " + entry.getName() + " is compressed");
+    }
+    return slice(toIntOffset(getDataOffset(entry)), toIntOffset(entry.getSize()));
+  }
+
+  /** Returns the uncompressed contents of an entry. */
+  public byte[] getData(Entry entry) throws ZipException {
+    int dataOffset = toIntOffset(getDataOffset(entry));
+    switch (entry.getMethod()) {
+      case ZipEntry.STORED:
+        {
+          byte[] data = new byte[toIntOffset(entry.getSize())];
+          ByteBuffer slice = slice(dataOffset, data.length);
+          slice.get(data);
+          return data;
+        }
+      case ZipEntry.DEFLATED:
+        {
+          int compressedSize = toIntOffset(entry.getCompressedSize());
+          // With nowrap, zlib may need an extra dummy byte of input to finish.
+          byte[] compressed = new byte[compressedSize + 1];
+          slice(dataOffset, compressedSize).get(compressed, 0, compressedSize);
+          return inflate(entry, compressed);
+        }
+      default:
+        throw new ZipException(
+            "unsupported compression method " + entry.getMethod() + " for " + entry.getName());
+    }
+  }
+
+  private static byte[] inflate(Entry entry, byte[] compressed) throws ZipException {
+    byte[] data = new byte[toIntOffset(entry.getSize())];
+    Inflater inflater = new Inflater(/* nowrap= */ true);
+    try {
+      inflater.setInput(compressed);
+      int total = 0;
+      while (total < data.length) {
+        int inflated = inflater.inflate(data, total, data.length - total);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        total += inflated;
+      }
+      if (total != data.length) {
+        throw new ZipException(
+            "inflated " + total + " of " + data.length + " bytes of " + entry.getName());
+      }
+      return data;
+    } catch (DataFormatException e) {
+      ZipException zipException = new ZipException("invalid data for " + entry.getName());
+      zipException.initCause(e);
+      throw zipException;
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private ByteBuffer slice(int offset, int length) throws ZipException {
+    if (offset < 0 || length < 0 || offset > buffer.capacity() - length) {
+      throw new ZipException("entry data out of bounds in " + name);
+    }
+    ByteBuffer duplicate = buffer.duplicate();
+    ((Buffer) duplicate).position(offset);
+    ((Buffer) duplicate).limit(offset + length);
+    return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private Entry readEntry(String entryName, int offset) {
+    int method = readUnsignedShort(offset + 10);
+    long crc = readUnsignedInt(offset + 16);
+    long compressedSize = readUnsignedInt(offset + 20);
+    long size = readUnsignedInt(offset + 24);
+    int nameLength = readUnsignedShort(offset + 28);
+    int extraLength = readUnsignedShort(offset + 30);
+    long localHeaderOffset = readUnsignedInt(offset + 42);
+
+    if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+      // The real values are in the ZIP64 extra field, in this order, when the 32-bit field is full.
+      int extraOffset = offset + CEN_HEADER_SIZE + nameLength;
+      int extraEnd = extraOffset + extraLength;
+      while (extraOffset + 4 <= extraEnd) {
+        int headerId = readUnsignedShort(extraOffset);
+        int dataSize = readUnsignedShort(extraOffset + 2);
+        if (headerId == ZIP64_EXTRA_ID) {
+          int fieldOffset = extraOffset + 4;
+          if (size == ZIP64_MAGIC) {
+            size = buffer.getLong(fieldOffset);
+            fieldOffset += 8;
+          }
+          if (compressedSize == ZIP64_MAGIC) {
+            compressedSize = buffer.getLong(fieldOffset);
+            fieldOffset += 8;
+          }
+          if (localHeaderOffset == ZIP64_MAGIC) {
+            localHeaderOffset = buffer.getLong(fieldOffset);
+          }
+          break;
+        }
+        extraOffset += 4 + dataSize;
+      }
+    }
+
+    Entry entry = new Entry(entryName, localHeaderOffset);
+    if (method == ZipEntry.STORED || method == ZipEntry.DEFLATED) {
+      entry.setMethod(method);
+    }
+    entry.setCrc(crc);
+    entry.setCompressedSize(compressedSize);
+    entry.setSize(size);
+    return entry;
+  }
+
+  private static Map<String, Integer> readCentralDirectory(ByteBuffer buffer) throws IOException {
+    int eocdOffset = findEndOfCentralDirectory(buffer);
+    long entryCount = readUnsignedShort(buffer, eocdOffset + 10);
+    long centralDirOffset = readUnsignedInt(buffer, eocdOffset + 16);
+
+    int locatorOffset = eocdOffset - ZIP64_EOCD_LOCATOR_SIZE;
+    if (locatorOffset >= 0 && buffer.getInt(locatorOffset) == LOCSIG64) {
+      // If the zip file contains > 2^16 entries, a Zip64 EOCD is written, and the values in the
+      // regular EOCD may be truncated or -1.
+      long zip64EocdOffset = buffer.getLong(locatorOffset + 8);
+      if (zip64EocdOffset >= 0
+          && zip64EocdOffset < locatorOffset
+          && buffer.getInt((int) zip64EocdOffset) == ENDSIG64) {
+        entryCount = buffer.getLong((int) zip64EocdOffset + 32);
+        centralDirOffset = buffer.getLong((int) zip64EocdOffset + 48);
+      }
+    }
+    if (centralDirOffset < 0 || centralDirOffset > eocdOffset) {
+      throw new ZipException("invalid central directory offset " + centralDirOffset);
+    }
+
+    Map<String, Integer> offsets =
+        new LinkedHashMap<>((int) Math.min(entryCount, 1 << 20) * 4 / 3 + 1);
+    int offset = (int) centralDirOffset;
+    // Instead of trusting entryCount, read until we run out of central directory headers.
+    // entryCount may wrap around with >64K entries.
+    while (offset + CEN_HEADER_SIZE <= eocdOffset && buffer.getInt(offset) == CENSIG) {
+      int bitFlag = readUnsignedShort(buffer, offset + 8);
+      int fileNameLength = readUnsignedShort(buffer, offset + 28);
+      int extraLength = readUnsignedShort(buffer, offset + 30);
+      int fieldCommentLength = readUnsignedShort(buffer, offset + 32);
+
+      byte[] nameBytes = new byte[fileNameLength];
+      ByteBuffer duplicate = buffer.duplicate();
+      ((Buffer) duplicate).position(offset + CEN_HEADER_SIZE);
+      duplicate.get(nameBytes);
+      offsets.putIfAbsent(new String(nameBytes, getEncoding(bitFlag)), offset);
+
+      offset += CEN_HEADER_SIZE + fileNameLength + extraLength + fieldCommentLength;
+    }
+    return offsets;
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer buffer) throws ZipException {
+    // find the end of central directory record by scanning backwards past any comment
+    int minOffset = Math.max(0, buffer.capacity() - EOCD_SIZE - MAX_COMMENT_SIZE);
+    for (int offset = buffer.capacity() - EOCD_SIZE; offset >= minOffset; offset--) {
+      if (buffer.getInt(offset) == ENDSIG) {
+        return offset;
+      }
+    }
+    throw new ZipException("ZIP directory not found, not a ZIP archive.");
+  }
+
+  private static Charset getEncoding(int bitFlags) {
+    // UTF-8 now supported in name and comments: check general bit flag, bit
+    // 11, to determine if UTF-8 is being used or ISO-8859-1 is being used.
+    return (0 != ((bitFlags >>> 11) & 1)) ? UTF_8 : ISO_8859_1;
+  }
+
+  private void checkLocalHeaderBounds(int offset) {
+    if (offset < 0 || offset > buffer.capacity() - LOC_HEADER_SIZE) {
+      throw new IllegalStateException("invalid local header offset " + offset + " in " + name);
+    }
+  }
+
+  private int readUnsignedShort(int offset) {
+    return readUnsignedShort(buffer, offset);
+  }
+
+  private long readUnsignedInt(int offset) {
+    return readUnsignedInt(buffer, offset);
+  }
+
+  private static int readUnsignedShort(ByteBuffer buffer, int offset) {
+    return buffer.getShort(offset) & 0xFFFF;
+  }
+
+  private static long readUnsignedInt(ByteBuffer buffer, int offset) {
+    return buffer.getInt(offset) & 0xFFFFFFFFL;
+  }
+
+  private static int toIntOffset(long value) {
+    return Asset.toIntExact(value);
+  }
+
+  /** An entry in a {@link ZipArchive}. */
+  public static class Entry extends ZipEntry {
+    private final long localHeaderOffset;
+    private long dataOffset = -1;
+
+    Entry(String name, long localHeaderOffset) {
+      super(name);
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+}
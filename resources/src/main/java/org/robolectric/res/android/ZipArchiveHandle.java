@@ -1,14 +1,9 @@
 package org.robolectric.res.android;
 
-import com.google.common.collect.ImmutableMap;
-import java.util.zip.ZipFile;
-
 public class ZipArchiveHandle {
-  final ZipFile zipFile;
-  final ImmutableMap<String, Long> dataOffsets;
+  final ZipArchive zipArchive;
 
-  public ZipArchiveHandle(ZipFile zipFile, ImmutableMap<String, Long> dataOffsets) {
-    this.zipFile = zipFile;
-    this.dataOffsets = dataOffsets;
+  public ZipArchiveHandle(ZipArchive zipArchive) {
+    this.zipArchive = zipArchive;
   }
 }
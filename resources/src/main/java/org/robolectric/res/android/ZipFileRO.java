@@ -10,7 +10,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 public class ZipFileRO {
 
@@ -26,7 +25,7 @@ public class ZipFileRO {
   }
 
   static class ZipEntryRO {
-        ZipEntry entry;
+    ZipArchive.Entry entry;
     String name;
     long dataOffset;
     Object cookie;
@@ -54,12 +53,7 @@ public class ZipFileRO {
 
   static int OpenArchive(String zipFileName, Ref<ZipArchiveHandle> mHandle) {
     try {
-      File file = new File(zipFileName);
-      // TODO: consider moving away from ZipFile. By using ZipFile and guessDataOffsets, the zip
-      // central directory is being read twice
-      ZipFile zipFile = new ZipFile(file);
-      mHandle.set(
-          new ZipArchiveHandle(zipFile, FileMap.guessDataOffsets(file, (int) file.length())));
+      mHandle.set(new ZipArchiveHandle(ZipArchive.open(new File(zipFileName))));
       return NO_ERROR;
     } catch (IOException e) {
       return NAME_NOT_FOUND;
@@ -74,8 +68,9 @@ public class ZipFileRO {
     return "error " + error;
   }
 
-  static int FindEntry(ZipArchiveHandle mHandle, String name, Ref<ZipEntry> zipEntryRef) {
-    ZipEntry entry = mHandle.zipFile.getEntry(name);
+  static int FindEntry(
+      ZipArchiveHandle mHandle, String name, Ref<ZipArchive.Entry> zipEntryRef) {
+    ZipArchive.Entry entry = mHandle.zipArchive.getEntry(name);
     zipEntryRef.set(entry);
     if (entry == null) {
       return NAME_NOT_FOUND;
@@ -120,18 +115,14 @@ public class ZipFileRO {
     ZipEntryRO data = new ZipEntryRO();
     data.name = String(entryName);
 
-    if (mHandle.dataOffsets.get(entryName) == null) {
-      return null;
-    }
-    data.dataOffset = mHandle.dataOffsets.get(entryName);
-
-    final Ref<ZipEntry> zipEntryRef = new Ref<>(data.entry);
+    final Ref<ZipArchive.Entry> zipEntryRef = new Ref<>(data.entry);
     final int error = FindEntry(mHandle, data.name, zipEntryRef);
     if (isTruthy(error)) {
       return null;
     }
 
     data.entry = zipEntryRef.get();
+    data.dataOffset = mHandle.zipArchive.getDataOffset(data.entry);
     return data;
   }
 
@@ -171,13 +162,13 @@ public class ZipFileRO {
     return true;
   }
 
-  boolean startIteration(Ref<Enumeration<? extends ZipEntry>> cookie) {
+  boolean startIteration(Ref<Enumeration<ZipArchive.Entry>> cookie) {
     return startIteration(cookie, null, null);
   }
 
-  boolean startIteration(/* void** */ Ref<Enumeration<? extends ZipEntry>> cookie, final String prefix, final String suffix)
+  boolean startIteration(/* void** */ Ref<Enumeration<ZipArchive.Entry>> cookie, final String prefix, final String suffix)
   {
-    cookie.set(this.mHandle.zipFile.entries());
+    cookie.set(this.mHandle.zipArchive.entries());
 //    ZipEntryRO* ze = new ZipEntryRO;
 //    String pe(prefix ? prefix : "");
 //    String se(suffix ? suffix : "");
@@ -194,7 +185,7 @@ public class ZipFileRO {
     return true;
   }
 
-  org.robolectric.res.android.ZipFileRO.ZipEntryRO nextEntry(/*void* */ Enumeration<? extends ZipEntry> cookie)
+  org.robolectric.res.android.ZipFileRO.ZipEntryRO nextEntry(/*void* */ Enumeration<ZipArchive.Entry> cookie)
   {
     if (!cookie.hasMoreElements()) {
       return null;
@@ -284,7 +275,7 @@ public class ZipFileRO {
     FileMap newMap = new FileMap();
     if (!newMap.createFromZip(
         mFileName,
-        mHandle.zipFile,
+        mHandle.zipArchive,
         entry.entry,
         entry.dataOffset,
         toIntExact(entry.entry.getCompressedSize()),
@@ -0,0 +1,144 @@
+package org.robolectric.res;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link ParsedResourceCache}. */
+@RunWith(JUnit4.class)
+@SuppressWarnings("NewApi")
+public final class ParsedResourceCacheTest {
+
+  private static final String VALUES =
+      "<resources>"
+          + "<string name=\"greeting\">Hello</string>"
+          + "<color name=\"red\">#f00</color>"
+          + "<item name=\"button\" type=\"id\"/>"
+          + "<string-array name=\"days\"><item>Mon</item><item>@string/greeting</item></string-array>"
+          + "<plurals name=\"apples\"><item quantity=\"one\">apple</item>"
+          + "<item quantity=\"other\">apples</item></plurals>"
+          + "<attr name=\"mode\"><enum name=\"on\" value=\"1\"/><enum name=\"off\" value=\"0\"/></attr>"
+          + "<declare-styleable name=\"Widget\"><attr name=\"size\" format=\"dimension\"/>"
+          + "</declare-styleable>"
+          + "<style name=\"Base\"><item name=\"android:textSize\">12sp</item></style>"
+          + "<style name=\"Base.Child\" parent=\"Base\"><item name=\"mode\">on</item></style>"
+          + "</resources>";
+
+  private static final String VALUES_DE =
+      "<resources><string name=\"greeting\">Hallo</string></resources>";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDir = tempFolder.newFolder("cache");
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ParsedResourceCache.CACHE_DIR_PROPERTY);
+  }
+
+  @Test
+  public void cachedResources_matchParsedResources() throws Exception {
+    Path resDir = writeResources("res1", VALUES);
+    List<String> expected = dump(load(resDir));
+
+    System.setProperty(ParsedResourceCache.CACHE_DIR_PROPERTY, cacheDir.getPath());
+    List<String> cold = dump(load(resDir));
+    List<String> warm = dump(load(resDir));
+
+    assertThat(cacheDir.list()).hasLength(1);
+    assertThat(cold).isEqualTo(expected);
+    assertThat(warm).isEqualTo(expected);
+  }
+
+  @Test
+  public void cachedResources_areSharedByCopiesInOtherDirectories() throws Exception {
+    Path resDir1 = writeResources("res1", VALUES);
+    Path resDir2 = writeResources("res2", VALUES);
+    List<String> expected = dump(load(resDir2));
+
+    System.setProperty(ParsedResourceCache.CACHE_DIR_PROPERTY, cacheDir.getPath());
+    load(resDir1);
+    List<String> fromCache = dump(load(resDir2));
+
+    assertThat(cacheDir.list()).hasLength(1);
+    assertThat(fromCache).isEqualTo(expected);
+  }
+
+  @Test
+  public void changedResources_areParsedAgain() throws Exception {
+    System.setProperty(ParsedResourceCache.CACHE_DIR_PROPERTY, cacheDir.getPath());
+    Path resDir = writeResources("res1", VALUES);
+    load(resDir);
+
+    Files.write(
+        resDir.resolve("values-de/strings.xml"),
+        "<resources><string name=\"greeting\">Guten Tag</string></resources>".getBytes(UTF_8));
+    PackageResourceTable table = load(resDir);
+
+    assertThat(cacheDir.list()).hasLength(2);
+    assertThat(dump(table).toString()).contains("Guten Tag");
+  }
+
+  private Path writeResources(String name, String values) throws IOException {
+    Path resDir = tempFolder.newFolder(name).toPath();
+    Files.createDirectories(resDir.resolve("values"));
+    Files.createDirectories(resDir.resolve("values-de"));
+    Files.write(resDir.resolve("values/values.xml"), values.getBytes(UTF_8));
+    Files.write(resDir.resolve("values-de/strings.xml"), VALUES_DE.getBytes(UTF_8));
+    return resDir;
+  }
+
+  private static PackageResourceTable load(Path resDir) {
+    return new ResourceTableFactory()
+        .newResourceTable("org.example", new ResourcePath(null, resDir, null));
+  }
+
+  /** Describes every value in the table, with file paths relative to the resource directory. */
+  private static List<String> dump(PackageResourceTable table) {
+    List<String> dump = new ArrayList<>();
+    table.receive(
+        (resName, values) -> {
+          for (TypedResource<?> value : values) {
+            XmlContext xmlContext = value.getXmlContext();
+            StringBuilder builder =
+                new StringBuilder()
+                    .append(resName.getFullyQualifiedName())
+                    .append(' ')
+                    .append(value.getResType())
+                    .append(' ')
+                    .append(value.getData())
+                    .append(' ')
+                    .append(xmlContext.getXmlFile().getParent().getFileName())
+                    .append('/')
+                    .append(xmlContext.getXmlFile().getFileName())
+                    .append(' ')
+                    .append(value.getConfig());
+            if (value.getData() instanceof StyleData) {
+              StyleData styleData = (StyleData) value.getData();
+              builder.append(" parent=").append(styleData.getParent());
+              styleData.visit(attribute -> builder.append(' ').append(attribute));
+            }
+            dump.add(builder.toString());
+          }
+        });
+    return dump;
+  }
+}
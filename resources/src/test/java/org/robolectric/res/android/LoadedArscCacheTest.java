@@ -0,0 +1,79 @@
+package org.robolectric.res.android;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link LoadedArscCache}. */
+@RunWith(JUnit4.class)
+public final class LoadedArscCacheTest {
+
+  // A single chunk of an unknown type, which LoadedArsc skips.
+  private static final byte[] TABLE = {0x77, 0x77, 8, 0, 8, 0, 0, 0};
+
+  @After
+  public void tearDown() {
+    LoadedArscCache.clear();
+  }
+
+  @Test
+  public void systemApks_withSameTable_shareLoadedArsc() throws Exception {
+    File apk1 = writeApk(TABLE);
+    File apk2 = writeApk(TABLE);
+
+    CppApkAssets assets1 = CppApkAssets.Load(apk1.getPath(), true);
+    CppApkAssets assets2 = CppApkAssets.Load(apk2.getPath(), true);
+    CppApkAssets assets3 = CppApkAssets.Load(apk1.getPath(), true);
+
+    assertThat(assets2).isNotSameInstanceAs(assets1);
+    assertThat(assets2.GetLoadedArsc()).isSameInstanceAs(assets1.GetLoadedArsc());
+    assertThat(assets3.GetLoadedArsc()).isSameInstanceAs(assets1.GetLoadedArsc());
+  }
+
+  @Test
+  public void systemApks_withDifferentTables_doNotShareLoadedArsc() throws Exception {
+    byte[] otherTable = TABLE.clone();
+    otherTable[0] = 0x78;
+
+    CppApkAssets assets1 = CppApkAssets.Load(writeApk(TABLE).getPath(), true);
+    CppApkAssets assets2 = CppApkAssets.Load(writeApk(otherTable).getPath(), true);
+
+    assertThat(assets2.GetLoadedArsc()).isNotSameInstanceAs(assets1.GetLoadedArsc());
+  }
+
+  @Test
+  public void appApks_areNotCached() throws Exception {
+    File apk = writeApk(TABLE);
+
+    CppApkAssets assets1 = CppApkAssets.Load(apk.getPath(), false);
+    CppApkAssets assets2 = CppApkAssets.Load(apk.getPath(), false);
+
+    assertThat(assets2.GetLoadedArsc()).isNotSameInstanceAs(assets1.GetLoadedArsc());
+  }
+
+  private static File writeApk(byte[] table) throws IOException {
+    File apk = File.createTempFile("framework", ".apk");
+    apk.deleteOnExit();
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(apk))) {
+      ZipEntry entry = new ZipEntry("resources.arsc");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(table.length);
+      CRC32 crc = new CRC32();
+      crc.update(table);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(table);
+      zip.closeEntry();
+    }
+    return apk;
+  }
+}
@@ -0,0 +1,99 @@
+package org.robolectric.res.android;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit test for {@link NativeObjRegistry}. */
+@RunWith(JUnit4.class)
+public final class NativeObjRegistryTest {
+
+  private final NativeObjRegistry<String> registry = new NativeObjRegistry<>(String.class);
+
+  @Test
+  public void register_assignsSequentialIds() {
+    assertThat(registry.register("a")).isEqualTo(1);
+    assertThat(registry.register("b")).isEqualTo(2);
+    assertThat(registry.getNativeObject(1)).isEqualTo("a");
+    assertThat(registry.getNativeObject(2)).isEqualTo("b");
+  }
+
+  @Test
+  public void register_twice_throws() {
+    String o = "a";
+    registry.register(o);
+
+    assertThrows(IllegalStateException.class, () -> registry.register(o));
+  }
+
+  @Test
+  public void register_equalButDistinctObjects_assignsDistinctIds() {
+    String a1 = new String("a");
+    String a2 = new String("a");
+
+    long id1 = registry.register(a1);
+    long id2 = registry.register(a2);
+
+    assertThat(id2).isNotEqualTo(id1);
+    assertThat(registry.getNativeObject(id1)).isSameInstanceAs(a1);
+    assertThat(registry.getNativeObject(id2)).isSameInstanceAs(a2);
+  }
+
+  @Test
+  public void unregister_removesObject() {
+    long id = registry.register("a");
+
+    assertThat(registry.unregister(id)).isEqualTo("a");
+    assertThat(registry.peekNativeObject(id)).isNull();
+    assertThrows(IllegalStateException.class, () -> registry.unregister(id));
+  }
+
+  @Test
+  public void getNativeObject_unknownId_throws() {
+    registry.register("a");
+
+    assertThrows(NullPointerException.class, () -> registry.getNativeObject(42));
+  }
+
+  @Test
+  public void update_replacesObject() {
+    long id = registry.register("a");
+
+    registry.update(id, "b");
+
+    assertThat(registry.getNativeObject(id)).isEqualTo("b");
+    assertThat(registry.getNativeObjectId("b")).isEqualTo(id);
+  }
+
+  @Test
+  public void churn_keepsAllLiveObjectsReachable() {
+    List<Long> live = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      live.add(registry.register("object" + i));
+      if (i % 3 == 0) {
+        long id = live.remove(live.size() / 2);
+        registry.unregister(id);
+      }
+    }
+
+    for (long id : live) {
+      assertThat(registry.getNativeObject(id)).isNotNull();
+    }
+  }
+
+  @Test
+  public void clear_resetsIds() {
+    registry.register("a");
+    registry.register("b");
+
+    registry.clear();
+
+    assertThat(registry.peekNativeObject(1)).isNull();
+    assertThat(registry.register("c")).isEqualTo(1);
+  }
+}
@@ -1,13 +1,17 @@
 package org.robolectric.res.android;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Strings;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.junit.Test;
@@ -67,6 +71,50 @@ public final class ZipFileROTest {
     assertThat(zipFile).isNotNull();
   }
 
+  @Test
+  public void createEntryFileMap_storedEntry_isMappedWithoutCopying() throws Exception {
+    byte[] contents = "stored contents".getBytes(UTF_8);
+    File blob = File.createTempFile("prefix", "zip");
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(blob))) {
+      ZipEntry entry = new ZipEntry("resources.arsc");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(contents.length);
+      CRC32 crc = new CRC32();
+      crc.update(contents);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(contents);
+      zip.closeEntry();
+    }
+
+    ZipFileRO zipFile = ZipFileRO.open(blob.toString());
+    FileMap fileMap = zipFile.createEntryFileMap(zipFile.findEntryByName("resources.arsc"));
+    ByteBuffer data = fileMap.getDataBuffer();
+
+    assertThat(data.isDirect()).isTrue();
+    byte[] actual = new byte[data.remaining()];
+    data.get(actual);
+    assertThat(actual).isEqualTo(contents);
+    assertThat(fileMap.getDataPtr()).isEqualTo(contents);
+  }
+
+  @Test
+  public void createEntryFileMap_deflatedEntry_isInflated() throws Exception {
+    byte[] contents = Strings.repeat("deflated contents ", 100).getBytes(UTF_8);
+    File blob = File.createTempFile("prefix", "zip");
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(blob))) {
+      zip.putNextEntry(new ZipEntry("assets/file.txt"));
+      zip.write(contents);
+      zip.closeEntry();
+    }
+
+    ZipFileRO zipFile = ZipFileRO.open(blob.toString());
+    FileMap fileMap = zipFile.createEntryFileMap(zipFile.findEntryByName("assets/file.txt"));
+
+    assertThat(fileMap.getDataPtr()).isEqualTo(contents);
+    assertThat(fileMap.getDataLength()).isEqualTo(contents.length);
+  }
+
   @Test
   public void testCreateJar() throws Exception {
     ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
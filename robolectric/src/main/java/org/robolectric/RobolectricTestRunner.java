@@ -19,6 +19,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Priority;
 import org.junit.AssumptionViolatedException;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.Statement;
@@ -90,6 +92,9 @@ public class RobolectricTestRunner extends SandboxTestRunner {
   private boolean alwaysIncludeVariantMarkersInName =
       Boolean.parseBoolean(
           System.getProperty("robolectric.alwaysIncludeVariantMarkersInTestName", "false"));
+  private final boolean prewarmSandboxes =
+      Boolean.parseBoolean(System.getProperty("robolectric.prewarmSandboxes", "false"));
+  private List<FrameworkMethod> computedChildren = Collections.emptyList();
 
   /**
    * Creates a runner to run {@code testClass}. Use the {@link Config} annotation to configure.
@@ -259,9 +264,64 @@ public class RobolectricTestRunner extends SandboxTestRunner {
             e);
       }
     }
+    computedChildren = children;
     return children;
   }
 
+  @Override
+  protected Statement classBlock(RunNotifier notifier) {
+    if (prewarmSandboxes) {
+      prewarmSandboxes();
+    }
+    return super.classBlock(notifier);
+  }
+
+  /**
+   * Starts building, in the background, the sandboxes needed by the tests which will be run, in the
+   * order they will be needed. The sandbox for the first test is typically built on the test thread
+   * while the others are prewarmed.
+   */
+  private void prewarmSandboxes() {
+    Map<Description, FrameworkMethod> methodsByDescription = new HashMap<>();
+    for (FrameworkMethod method : computedChildren) {
+      methodsByDescription.put(describeChild(method), method);
+    }
+
+    // The description's children reflect any filtering and sorting applied to the runner.
+    for (Description description : getDescription().getChildren()) {
+      RobolectricFrameworkMethod roboMethod =
+          (RobolectricFrameworkMethod) methodsByDescription.get(description);
+      if (roboMethod == null
+          || !roboMethod.getSdk().isSupported()
+          || isUnsupportedLegacyResourcesMode(roboMethod)) {
+        continue;
+      }
+      sandboxManager.prewarmAndroidSandbox(
+          createClassLoaderConfig(roboMethod),
+          roboMethod.getSdk(),
+          roboMethod.getResourcesMode(),
+          getLooperMode(roboMethod),
+          getSQLiteMode(roboMethod));
+    }
+  }
+
+  private static boolean isUnsupportedLegacyResourcesMode(RobolectricFrameworkMethod roboMethod) {
+    return roboMethod.getResourcesMode() == ResourcesMode.LEGACY
+        && roboMethod.getSdk().getApiLevel() > Build.VERSION_CODES.P;
+  }
+
+  private static LooperMode.Mode getLooperMode(RobolectricFrameworkMethod roboMethod) {
+    return roboMethod.configuration == null
+        ? Mode.LEGACY
+        : roboMethod.configuration.get(LooperMode.Mode.class);
+  }
+
+  private static SQLiteMode.Mode getSQLiteMode(RobolectricFrameworkMethod roboMethod) {
+    return roboMethod.configuration == null
+        ? SQLiteMode.Mode.LEGACY
+        : roboMethod.configuration.get(SQLiteMode.Mode.class);
+  }
+
   @Override
   @Nonnull
   protected AndroidSandbox getSandbox(FrameworkMethod method) {
@@ -271,7 +331,7 @@ public class RobolectricTestRunner extends SandboxTestRunner {
     InstrumentationConfiguration classLoaderConfig = createClassLoaderConfig(method);
     ResourcesMode resourcesMode = roboMethod.getResourcesMode();
 
-    if (resourcesMode == ResourcesMode.LEGACY && sdk.getApiLevel() > Build.VERSION_CODES.P) {
+    if (isUnsupportedLegacyResourcesMode(roboMethod)) {
       System.err.println(
           "Skip "
               + method.getName()
@@ -279,15 +339,8 @@ public class RobolectricTestRunner extends SandboxTestRunner {
       throw new AssumptionViolatedException(
           "Robolectric doesn't support legacy resources mode after P");
     }
-    LooperMode.Mode looperMode =
-        roboMethod.configuration == null
-            ? Mode.LEGACY
-            : roboMethod.configuration.get(LooperMode.Mode.class);
-
-    SQLiteMode.Mode sqliteMode =
-        roboMethod.configuration == null
-            ? SQLiteMode.Mode.LEGACY
-            : roboMethod.configuration.get(SQLiteMode.Mode.class);
+    LooperMode.Mode looperMode = getLooperMode(roboMethod);
+    SQLiteMode.Mode sqliteMode = getSQLiteMode(roboMethod);
 
     sdk.verifySupportedSdk(method.getDeclaringClass().getName());
     return sandboxManager.getAndroidSandbox(
@@ -38,6 +38,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.Security;
 import java.util.Locale;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.inject.Named;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -53,6 +54,8 @@ import org.robolectric.config.ConfigurationRegistry;
 import org.robolectric.internal.ResourcesMode;
 import org.robolectric.internal.ShadowProvider;
 import org.robolectric.internal.TestEnvironment;
+import org.robolectric.internal.bytecode.RobolectricInternals;
+import org.robolectric.internal.bytecode.ShadowConstants;
 import org.robolectric.manifest.AndroidManifest;
 import org.robolectric.manifest.BroadcastReceiverData;
 import org.robolectric.manifest.RoboNotFoundException;
@@ -104,6 +107,7 @@ public class AndroidTestEnvironment implements TestEnvironment {
   private final ShadowProvider[] shadowProviders;
   private final TestEnvironmentLifecyclePlugin[] testEnvironmentLifecyclePlugins;
   private final Locale initialLocale = Locale.getDefault();
+  private final Predicate<String> shouldReset;
 
   public AndroidTestEnvironment(
       @Named("runtimeSdk") Sdk runtimeSdk,
@@ -120,6 +124,7 @@ public class AndroidTestEnvironment implements TestEnvironment {
     sdkJarPath = runtimeSdk.getJarPath();
     this.shadowProviders = shadowProviders;
     this.testEnvironmentLifecyclePlugins = lifecyclePlugins;
+    this.shouldReset = createShouldResetPredicate();
 
     RuntimeEnvironment.setUseLegacyResources(resourcesMode == ResourcesMode.LEGACY);
     ReflectionHelpers.setStaticField(RuntimeEnvironment.class, "apiLevel", apiLevel);
@@ -637,8 +642,38 @@ public class AndroidTestEnvironment implements TestEnvironment {
   @Override
   public void resetState() {
     Locale.setDefault(initialLocale);
-    for (ShadowProvider provider : shadowProviders) {
-      provider.reset();
+    PerfStatsCollector.getInstance()
+        .measure(
+            "reset shadow state",
+            () -> {
+              for (ShadowProvider provider : shadowProviders) {
+                provider.reset(shouldReset);
+              }
+              // Anything touched by the resetters themselves has just been put back to its
+              // initial state.
+              RobolectricInternals.clearTouchedClasses();
+            });
+  }
+
+  /**
+   * Shadows whose classes (and shadowed classes) have not been touched since the last reset cannot
+   * have changed state, so their resetters are skipped unless {@code robolectric.resetAllShadows}
+   * is set, or the android classes were instrumented without touch tracking (e.g. by an older
+   * version of Robolectric).
+   */
+  private static Predicate<String> createShouldResetPredicate() {
+    if (Boolean.getBoolean("robolectric.resetAllShadows") || !isTouchTracked(Application.class)) {
+      return className -> true;
+    }
+    return RobolectricInternals::wasTouched;
+  }
+
+  private static boolean isTouchTracked(Class<?> instrumentedClass) {
+    try {
+      instrumentedClass.getDeclaredField(ShadowConstants.TOUCHED_EPOCH_FIELD_NAME);
+      return true;
+    } catch (NoSuchFieldException e) {
+      return false;
     }
   }
 
@@ -122,10 +122,42 @@ public class AndroidSandbox extends Sandbox {
 
   /** Adapter from Sdk to ResourceLoader. */
   public static class SdkSandboxClassLoader extends SandboxClassLoader {
+    private final Sdk runtimeSdk;
+    private final UrlResourceProvider sdkResourceProvider;
 
     public SdkSandboxClassLoader(InstrumentationConfiguration config,
         @Named("runtimeSdk") Sdk runtimeSdk, ClassInstrumentor classInstrumentor) {
-      super(config, new UrlResourceProvider(toUrl(runtimeSdk.getJarPath())), classInstrumentor);
+      this(
+          config,
+          runtimeSdk,
+          new UrlResourceProvider(toUrl(runtimeSdk.getJarPath())),
+          classInstrumentor);
+    }
+
+    private SdkSandboxClassLoader(
+        InstrumentationConfiguration config,
+        Sdk runtimeSdk,
+        UrlResourceProvider sdkResourceProvider,
+        ClassInstrumentor classInstrumentor) {
+      super(config, sdkResourceProvider, classInstrumentor);
+      this.runtimeSdk = runtimeSdk;
+      this.sdkResourceProvider = sdkResourceProvider;
+    }
+
+    /**
+     * Classes from the android-all jar are cached, since their superclasses are also found in the
+     * jar (or the JDK) and the jar is identified by its SDK, path, and size.
+     */
+    @Override
+    protected String[] getInstrumentedClassCacheKeyComponents(String className) {
+      String classFilename = className.replace('.', '/') + ".class";
+      if (sdkResourceProvider.findResource(classFilename) == null) {
+        return null;
+      }
+      Path jarPath = runtimeSdk.getJarPath();
+      return new String[] {
+        "sdk=" + runtimeSdk.getApiLevel(), "jar=" + jarPath, "size=" + jarPath.toFile().length()
+      };
     }
 
     private static URL toUrl(Path path) {
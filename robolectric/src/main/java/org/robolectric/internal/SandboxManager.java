@@ -4,6 +4,10 @@ import android.annotation.SuppressLint;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.robolectric.annotation.LooperMode;
@@ -11,9 +15,17 @@ import org.robolectric.annotation.SQLiteMode;
 import org.robolectric.internal.bytecode.InstrumentationConfiguration;
 import org.robolectric.pluginapi.Sdk;
 import org.robolectric.plugins.SdkCollection;
+import org.robolectric.util.Util;
 import org.robolectric.util.inject.AutoFactory;
 
-/** Manager of sandboxes. */
+/**
+ * Manager of sandboxes.
+ *
+ * <p>Sandboxes are built at most once per {@link SandboxKey}. Builds happen outside of the
+ * manager's lock, so requests for sandboxes which are already built never wait on a sandbox being
+ * built for another key. Sandboxes may also be built ahead of time on a background thread; see
+ * {@link #prewarmAndroidSandbox}.
+ */
 @SuppressLint("NewApi")
 public class SandboxManager {
 
@@ -26,7 +38,9 @@ public class SandboxManager {
   private final SdkCollection sdkCollection;
 
   // Simple LRU Cache. AndroidSandboxes are unique across InstrumentationConfiguration and Sdk
-  private final LinkedHashMap<SandboxKey, AndroidSandbox> sandboxesByKey;
+  private final LinkedHashMap<SandboxKey, FutureTask<AndroidSandbox>> sandboxesByKey;
+
+  private ExecutorService prewarmExecutor;
 
   @Inject
   public SandboxManager(SandboxBuilder sandboxBuilder, SdkCollection sdkCollection) {
@@ -36,31 +50,98 @@ public class SandboxManager {
     // We need to set the cache size of class loaders more than the number of supported APIs as
     // different tests may have different configurations.
     final int cacheSize = sdkCollection.getSupportedSdks().size() * CACHE_SIZE_FACTOR;
-    sandboxesByKey = new LinkedHashMap<SandboxKey, AndroidSandbox>() {
-      @Override
-      protected boolean removeEldestEntry(Map.Entry<SandboxKey, AndroidSandbox> eldest) {
-        return size() > cacheSize;
+    sandboxesByKey =
+        new LinkedHashMap<SandboxKey, FutureTask<AndroidSandbox>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(
+              Map.Entry<SandboxKey, FutureTask<AndroidSandbox>> eldest) {
+            return size() > cacheSize;
+          }
+        };
+  }
+
+  public AndroidSandbox getAndroidSandbox(
+      InstrumentationConfiguration instrumentationConfig,
+      Sdk sdk,
+      ResourcesMode resourcesMode,
+      LooperMode.Mode looperMode,
+      SQLiteMode.Mode sqliteMode) {
+    SandboxKey key = new SandboxKey(instrumentationConfig, sdk, resourcesMode, looperMode);
+    FutureTask<AndroidSandbox> sandboxFuture =
+        getSandboxFuture(key, instrumentationConfig, sdk, resourcesMode, sqliteMode);
+
+    // If the sandbox isn't already being built in the background, build it on this thread.
+    sandboxFuture.run();
+
+    AndroidSandbox androidSandbox;
+    try {
+      androidSandbox = sandboxFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("interrupted while building sandbox for " + sdk, e);
+    } catch (ExecutionException e) {
+      // Don't cache failures; a later request will try again.
+      synchronized (this) {
+        sandboxesByKey.remove(key, sandboxFuture);
       }
-    };
+      throw Util.sneakyThrow(e.getCause());
+    }
+
+    synchronized (androidSandbox) {
+      androidSandbox.updateModes(sqliteMode);
+    }
+    return androidSandbox;
   }
 
-  public synchronized AndroidSandbox getAndroidSandbox(
+  /**
+   * Starts building the sandbox for the given configuration on a background thread, if it hasn't
+   * been built already. A later call to {@link #getAndroidSandbox} for the same configuration will
+   * wait for the background build rather than starting another one.
+   */
+  public void prewarmAndroidSandbox(
       InstrumentationConfiguration instrumentationConfig,
       Sdk sdk,
       ResourcesMode resourcesMode,
       LooperMode.Mode looperMode,
       SQLiteMode.Mode sqliteMode) {
     SandboxKey key = new SandboxKey(instrumentationConfig, sdk, resourcesMode, looperMode);
+    FutureTask<AndroidSandbox> sandboxFuture =
+        getSandboxFuture(key, instrumentationConfig, sdk, resourcesMode, sqliteMode);
+    if (!sandboxFuture.isDone()) {
+      getPrewarmExecutor().execute(sandboxFuture);
+    }
+  }
 
-    AndroidSandbox androidSandbox = sandboxesByKey.get(key);
-    if (androidSandbox == null) {
+  private synchronized FutureTask<AndroidSandbox> getSandboxFuture(
+      SandboxKey key,
+      InstrumentationConfiguration instrumentationConfig,
+      Sdk sdk,
+      ResourcesMode resourcesMode,
+      SQLiteMode.Mode sqliteMode) {
+    FutureTask<AndroidSandbox> sandboxFuture = sandboxesByKey.get(key);
+    if (sandboxFuture == null) {
       Sdk compileSdk = sdkCollection.getMaxSupportedSdk();
-      androidSandbox =
-          sandboxBuilder.build(instrumentationConfig, sdk, compileSdk, resourcesMode, sqliteMode);
-      sandboxesByKey.put(key, androidSandbox);
+      sandboxFuture =
+          new FutureTask<>(
+              () ->
+                  sandboxBuilder.build(
+                      instrumentationConfig, sdk, compileSdk, resourcesMode, sqliteMode));
+      sandboxesByKey.put(key, sandboxFuture);
     }
-    androidSandbox.updateModes(sqliteMode);
-    return androidSandbox;
+    return sandboxFuture;
+  }
+
+  private synchronized ExecutorService getPrewarmExecutor() {
+    if (prewarmExecutor == null) {
+      prewarmExecutor =
+          Executors.newSingleThreadExecutor(
+              r -> {
+                Thread thread = new Thread(r, "Robolectric sandbox prewarming");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return prewarmExecutor;
   }
 
   /** Factory interface for AndroidSandbox. */
@@ -0,0 +1,100 @@
+package org.robolectric.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.internal.SandboxManager.SandboxBuilder;
+import org.robolectric.internal.bytecode.InstrumentationConfiguration;
+import org.robolectric.pluginapi.Sdk;
+import org.robolectric.plugins.SdkCollection;
+import org.robolectric.plugins.StubSdk;
+
+@RunWith(JUnit4.class)
+public class SandboxManagerTest {
+
+  private final Sdk sdk28 = new StubSdk(28, true);
+  private final Sdk sdk29 = new StubSdk(29, true);
+  private final InstrumentationConfiguration config =
+      InstrumentationConfiguration.newBuilder().build();
+  private final List<String> buildThreads = Collections.synchronizedList(new ArrayList<>());
+
+  private SandboxBuilder sandboxBuilder;
+  private SandboxManager sandboxManager;
+
+  @Before
+  public void setUp() throws Exception {
+    sandboxBuilder = mock(SandboxBuilder.class);
+    when(sandboxBuilder.build(any(), any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              buildThreads.add(Thread.currentThread().getName());
+              return mock(AndroidSandbox.class);
+            });
+    sandboxManager =
+        new SandboxManager(sandboxBuilder, new SdkCollection(() -> Arrays.asList(sdk28, sdk29)));
+  }
+
+  @Test
+  public void getAndroidSandbox_shouldReuseSandboxes() {
+    AndroidSandbox first = getSandbox(sdk28);
+
+    assertThat(getSandbox(sdk28)).isSameInstanceAs(first);
+    assertThat(getSandbox(sdk29)).isNotSameInstanceAs(first);
+    verify(sandboxBuilder, times(2)).build(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void prewarmAndroidSandbox_shouldBuildInBackground() throws Exception {
+    sandboxManager.prewarmAndroidSandbox(
+        config, sdk29, ResourcesMode.BINARY, LooperMode.Mode.PAUSED, SQLiteMode.Mode.LEGACY);
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (buildThreads.isEmpty() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(buildThreads).containsExactly("Robolectric sandbox prewarming");
+  }
+
+  @Test
+  public void getAndroidSandbox_shouldUsePrewarmedSandbox() {
+    sandboxManager.prewarmAndroidSandbox(
+        config, sdk29, ResourcesMode.BINARY, LooperMode.Mode.PAUSED, SQLiteMode.Mode.LEGACY);
+
+    AndroidSandbox sandbox = getSandbox(sdk29);
+
+    assertThat(getSandbox(sdk29)).isSameInstanceAs(sandbox);
+    verify(sandboxBuilder, times(1)).build(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void getAndroidSandbox_shouldNotCacheFailures() {
+    AndroidSandbox sandbox = mock(AndroidSandbox.class);
+    when(sandboxBuilder.build(any(), any(), any(), any(), any()))
+        .thenThrow(new IllegalStateException("boom"))
+        .thenReturn(sandbox);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> getSandbox(sdk28));
+    assertThat(e).hasMessageThat().isEqualTo("boom");
+    assertThat(getSandbox(sdk28)).isSameInstanceAs(sandbox);
+  }
+
+  private AndroidSandbox getSandbox(Sdk sdk) {
+    return sandboxManager.getAndroidSandbox(
+        config, sdk, ResourcesMode.BINARY, LooperMode.Mode.PAUSED, SQLiteMode.Mode.LEGACY);
+  }
+}
@@ -2,6 +2,8 @@ package org.robolectric.internal.bytecode;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.junit.Before;
@@ -112,6 +114,43 @@ public class ShadowWranglerUnitTest {
         .isSameInstanceAs(ShadowWrangler.NO_SHADOW);
   }
 
+  @Test
+  public void pickShadowMethod_shouldSearchShadowSuperclassesOfTheSameClass() throws Exception {
+    ShadowMap shadowMap =
+        new ShadowMap.Builder().addShadowClasses(ShadowDummyClassWithOverrides.class).build();
+
+    assertThat(
+            new ShadowWrangler(shadowMap, sdk20, interceptors)
+                .pickShadowMethod(DummyClass.class, "methodMin20", new Class<?>[0]))
+        .isEqualTo(ShadowDummyClass.class.getDeclaredMethod("methodMin20"));
+    assertThat(
+            new ShadowWrangler(shadowMap, sdk21, interceptors)
+                .pickShadowMethod(DummyClass.class, "methodMin20", new Class<?>[0]))
+        .isEqualTo(ShadowDummyClassWithOverrides.class.getDeclaredMethod("methodMin20"));
+    assertThat(
+            new ShadowWrangler(shadowMap, sdk21, interceptors)
+                .pickShadowMethod(DummyClass.class, "methodWithoutRange", new Class<?>[0]))
+        .isEqualTo(ShadowDummyClass.class.getDeclaredMethod("methodWithoutRange"));
+    assertThat(
+            new ShadowWrangler(shadowMap, sdk21, interceptors)
+                .pickShadowMethod(DummyClass.class, "methodFor20", new Class<?>[0]))
+        .isSameInstanceAs(ShadowWrangler.CALL_REAL_CODE);
+  }
+
+  @Test
+  public void findShadowMethodHandle_shouldReuseHandleForTheSameShadowMethod() throws Exception {
+    ShadowMap shadowMap = new ShadowMap.Builder().addShadowClasses(ShadowDummyClass.class).build();
+    ShadowWrangler wrangler = new ShadowWrangler(shadowMap, sdk20, interceptors);
+    MethodType methodType = MethodType.methodType(void.class, DummyClass.class);
+
+    MethodHandle methodHandle =
+        wrangler.findShadowMethodHandle(DummyClass.class, "methodFor20", methodType, false);
+
+    assertThat(methodHandle).isNotNull();
+    assertThat(wrangler.findShadowMethodHandle(DummyClass.class, "methodFor20", methodType, false))
+        .isSameInstanceAs(methodHandle);
+  }
+
   public static class DummyClass {}
 
   @Implements(value = DummyClass.class, minSdk = 19, maxSdk = 21)
@@ -132,6 +171,13 @@ public class ShadowWranglerUnitTest {
     protected void methodMax20() {}
   }
 
+  @Implements(value = DummyClass.class, minSdk = 19, maxSdk = 21)
+  public static class ShadowDummyClassWithOverrides extends ShadowDummyClass {
+    @Override
+    @Implementation(minSdk = 21)
+    protected void methodMin20() {}
+  }
+
   public static class ChildOfDummyClass extends DummyClass {}
 
   @Implements(value = ChildOfDummyClass.class, minSdk = 20, maxSdk = 21)
@@ -1,6 +1,7 @@
 package org.robolectric.shadows;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -10,6 +11,7 @@ import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteOpenHelper;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.io.File;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,6 +30,7 @@ public class SQLiteOpenHelperTest {
   @After
   public void tearDown() {
     helper.close();
+    ShadowSQLiteConnection.clearDatabaseSnapshots();
   }
 
   @Test
@@ -220,6 +223,45 @@ public class SQLiteOpenHelperTest {
     assertThat(db1.isOpen()).isTrue();
   }
 
+  @Test
+  public void restoreDatabaseSnapshot_opensWithoutOnCreate() {
+    SQLiteDatabase database = helper.getWritableDatabase();
+    setupTable(database, "seeded");
+    insertData(database, "seeded", new int[] {1, 2, 3});
+    ShadowSQLiteConnection.captureDatabaseSnapshot(database, "seeded");
+
+    File restoredPath = ApplicationProvider.getApplicationContext().getDatabasePath("restored");
+    assertThat(ShadowSQLiteConnection.restoreDatabaseSnapshot(restoredPath, "seeded", 1)).isTrue();
+    TestOpenHelper restoredHelper =
+        new TestOpenHelper(ApplicationProvider.getApplicationContext(), "restored", null, 1);
+    SQLiteDatabase restored = restoredHelper.getWritableDatabase();
+
+    assertSubsequentDB(restored, restoredHelper);
+    verifyData(restored, "seeded", 3);
+    restoredHelper.close();
+  }
+
+  @Test
+  public void restoreDatabaseSnapshot_otherSchemaVersion_returnsFalse() {
+    ShadowSQLiteConnection.captureDatabaseSnapshot(helper.getWritableDatabase(), "seeded");
+
+    File restoredPath = ApplicationProvider.getApplicationContext().getDatabasePath("restored");
+    assertThat(ShadowSQLiteConnection.restoreDatabaseSnapshot(restoredPath, "seeded", 2)).isFalse();
+    assertThat(ShadowSQLiteConnection.restoreDatabaseSnapshot(restoredPath, "other", 1)).isFalse();
+    assertThat(restoredPath.exists()).isFalse();
+  }
+
+  @Test
+  public void captureDatabaseSnapshot_inMemoryDatabase_throws() {
+    TestOpenHelper inMemoryHelper = new TestOpenHelper(null, null, null, 1);
+    SQLiteDatabase database = inMemoryHelper.getWritableDatabase();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ShadowSQLiteConnection.captureDatabaseSnapshot(database, "in-memory"));
+    inMemoryHelper.close();
+  }
+
   private static void assertInitialDB(SQLiteDatabase database, TestOpenHelper helper) {
     assertDatabaseOpened(database, helper);
     assertThat(helper.onCreateCalled).isTrue();
@@ -2,13 +2,16 @@ package org.robolectric.shadows;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
+import static org.robolectric.annotation.SQLiteMode.Mode.LEGACY;
 
+import android.database.Cursor;
 import android.database.CursorWindow;
 import android.database.DatabaseUtils;
 import android.database.MatrixCursor;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.robolectric.annotation.SQLiteMode;
 
 @RunWith(AndroidJUnit4.class)
 public class ShadowCursorWindowTest {
@@ -50,6 +53,49 @@ public class ShadowCursorWindowTest {
     window.close();
   }
 
+  @Test
+  @SQLiteMode(LEGACY)
+  public void shouldConvertValuesOfManyRows() {
+    CursorWindow window = new CursorWindow("name");
+    window.setNumColumns(3);
+    for (int row = 0; row < 1000; row++) {
+      assertThat(window.allocRow()).isTrue();
+      assertThat(window.putLong(row, row, 0)).isTrue();
+      assertThat(window.putString(row + ".5", row, 1)).isTrue();
+      assertThat(window.putDouble(row / 2.0, row, 2)).isTrue();
+    }
+
+    assertThat(window.getNumRows()).isEqualTo(1000);
+    assertThat(window.getLong(999, 0)).isEqualTo(999);
+    assertThat(window.getString(999, 0)).isEqualTo("999");
+    assertThat(window.getDouble(999, 1)).isEqualTo(999.5);
+    assertThat(window.getLong(999, 1)).isEqualTo(999);
+    assertThat(window.getString(999, 2)).isEqualTo("499.5");
+    assertThat(window.getBlob(1, 1)).isEqualTo(new byte[] {'1', '.', '5', 0});
+    window.close();
+  }
+
+  @Test
+  @SQLiteMode(LEGACY)
+  public void shouldReuseWindowAfterClear() {
+    CursorWindow window = new CursorWindow("name");
+    window.setNumColumns(2);
+    window.allocRow();
+    window.putString("first", 0, 0);
+    window.putBlob(new byte[] {1, 2}, 0, 1);
+
+    window.clear();
+    window.setNumColumns(2);
+    window.allocRow();
+    window.putBlob(new byte[] {3}, 0, 1);
+
+    assertThat(window.getNumRows()).isEqualTo(1);
+    assertThat(window.getType(0, 0)).isEqualTo(Cursor.FIELD_TYPE_NULL);
+    assertThat(window.getString(0, 0)).isNull();
+    assertThat(window.getBlob(0, 1)).isEqualTo(new byte[] {3});
+    window.close();
+  }
+
   /** Real Android will crash in native code if putBlob is called with a null value. */
   @Test
   public void putBlobNullValueThrowsNPE() {
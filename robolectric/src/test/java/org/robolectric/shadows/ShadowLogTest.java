@@ -13,6 +13,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.google.common.collect.Iterables;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -298,6 +299,119 @@ public class ShadowLogTest {
     assertThat(ShadowLog.getLogs()).isEmpty();
   }
 
+  @Test
+  public void setMaxItemsPerTag_keepsMostRecentItemsForEachTag() {
+    ShadowLog.setMaxItemsPerTag(2);
+
+    Log.d("tag1", "1");
+    Log.d("tag2", "2");
+    Log.d("tag1", "3");
+    Log.d("tag1", "4");
+    Log.d("tag2", "5");
+    Log.d("tag2", "6");
+
+    assertThat(messages(ShadowLog.getLogs())).containsExactly("3", "4", "5", "6").inOrder();
+    assertThat(messages(ShadowLog.getLogsForTag("tag1"))).containsExactly("3", "4").inOrder();
+  }
+
+  @Test
+  public void setCaptureLevel_dropsLowerLevels() {
+    ShadowLog.setCaptureLevel(Log.WARN);
+
+    Log.v("tag", "verbose");
+    Log.i("tag", "info");
+    Log.w("tag", "warn");
+    Log.e("tag", "error");
+
+    assertThat(messages(ShadowLog.getLogs())).containsExactly("warn", "error").inOrder();
+  }
+
+  @Test
+  public void addSink_receivesItemsWhichAreNotKept() {
+    List<LogItem> received = new ArrayList<>();
+    ShadowLog.setMaxItemsPerTag(0);
+    ShadowLog.setCaptureLevel(Log.INFO);
+    ShadowLog.addSink(received::add);
+
+    Log.d("tag", "debug");
+    Log.i("tag", "info");
+    Log.e("other", "error");
+
+    assertThat(ShadowLog.getLogs()).isEmpty();
+    assertThat(messages(received)).containsExactly("info", "error").inOrder();
+  }
+
+  @Test
+  public void removeSink_stopsReceivingItems() {
+    List<LogItem> received = new ArrayList<>();
+    ShadowLog.LogSink sink = received::add;
+    ShadowLog.addSink(sink);
+    Log.i("tag", "before");
+
+    ShadowLog.removeSink(sink);
+    Log.i("tag", "after");
+
+    assertThat(messages(received)).containsExactly("before");
+  }
+
+  @Test
+  public void clear_keepsSinksAndSettings() {
+    List<LogItem> received = new ArrayList<>();
+    ShadowLog.setMaxItemsPerTag(1);
+    ShadowLog.addSink(received::add);
+    Log.i("tag", "setup");
+
+    ShadowLog.clear();
+    Log.i("tag", "first");
+    Log.i("tag", "second");
+
+    assertThat(messages(ShadowLog.getLogs())).containsExactly("second");
+    assertThat(messages(received)).containsExactly("setup", "first", "second").inOrder();
+  }
+
+  @Test
+  public void clear_resetsLoggableAndWtfIsFatal() {
+    ShadowLog.setLoggable("Foo", Log.VERBOSE);
+    ShadowLog.setWtfIsFatal(true);
+
+    ShadowLog.clear();
+
+    assertFalse(Log.isLoggable("Foo", Log.DEBUG));
+    Log.wtf("tag", "not fatal");
+  }
+
+  @Test
+  public void setMaxItemsPerTag_unbounded_keepsItemsLoggedWhileBounded() {
+    ShadowLog.setMaxItemsPerTag(2);
+    Log.d("tag", "1");
+    Log.d("tag", "2");
+    Log.d("tag", "3");
+
+    ShadowLog.setMaxItemsPerTag(Integer.MAX_VALUE);
+    Log.d("tag", "4");
+
+    assertThat(messages(ShadowLog.getLogs())).containsExactly("2", "3", "4").inOrder();
+  }
+
+  @Test
+  public void setMaxItemsPerTag_dropsItemsAlreadyKeptBeyondNewLimit() {
+    Log.d("tag1", "1");
+    Log.d("tag2", "2");
+    Log.d("tag1", "3");
+
+    ShadowLog.setMaxItemsPerTag(1);
+
+    assertThat(messages(ShadowLog.getLogs())).containsExactly("2", "3").inOrder();
+  }
+
+  private static List<String> messages(List<LogItem> items) {
+    List<String> messages = new ArrayList<>();
+    for (LogItem item : items) {
+      messages.add(item.msg);
+    }
+    return messages;
+  }
+
   @Test
   public void shouldLogTimeWithTimeSupplier() {
     ShadowLog.setTimeSupplier(() -> "20 July 1969 20:17");
@@ -1507,6 +1507,105 @@ public class ShadowPackageManagerTest {
     assertThat(resolveInfo.activityInfo.name).isEqualTo("name");
   }
 
+  @Test
+  public void queryIntentActivities_matchesByActionSchemeAndType() throws Exception {
+    ComponentName viewHttp = new ComponentName("some.other.package", "ViewHttp");
+    ComponentName viewImages = new ComponentName("some.other.package", "ViewImages");
+    ComponentName viewAnything = new ComponentName("some.other.package", "ViewAnything");
+    ComponentName send = new ComponentName("some.other.package", "Send");
+    IntentFilter viewHttpFilter = new IntentFilter(Intent.ACTION_VIEW);
+    viewHttpFilter.addCategory(Intent.CATEGORY_DEFAULT);
+    viewHttpFilter.addDataScheme("http");
+    IntentFilter viewImagesFilter = new IntentFilter(Intent.ACTION_VIEW, "image/*");
+    viewImagesFilter.addCategory(Intent.CATEGORY_DEFAULT);
+    IntentFilter viewAnythingFilter = new IntentFilter(Intent.ACTION_VIEW, "*/*");
+    viewAnythingFilter.addCategory(Intent.CATEGORY_DEFAULT);
+    IntentFilter sendFilter = new IntentFilter(Intent.ACTION_SEND, "image/png");
+    sendFilter.addCategory(Intent.CATEGORY_DEFAULT);
+    for (ComponentName component : Arrays.asList(viewHttp, viewImages, viewAnything, send)) {
+      shadowOf(packageManager).addActivityIfNotPresent(component);
+    }
+    shadowOf(packageManager).addIntentFilterForActivity(viewHttp, viewHttpFilter);
+    shadowOf(packageManager).addIntentFilterForActivity(viewImages, viewImagesFilter);
+    shadowOf(packageManager).addIntentFilterForActivity(viewAnything, viewAnythingFilter);
+    shadowOf(packageManager).addIntentFilterForActivity(send, sendFilter);
+
+    assertThat(queryActivityNames(new Intent(Intent.ACTION_VIEW, Uri.parse("http://example.com"))))
+        .containsExactly("ViewHttp");
+    assertThat(queryActivityNames(new Intent(Intent.ACTION_VIEW).setType("image/jpeg")))
+        .containsExactly("ViewAnything", "ViewImages")
+        .inOrder();
+    assertThat(queryActivityNames(new Intent(Intent.ACTION_VIEW).setType("text/plain")))
+        .containsExactly("ViewAnything");
+    assertThat(queryActivityNames(new Intent(Intent.ACTION_SEND).setType("image/*")))
+        .containsExactly("Send");
+    assertThat(queryActivityNames(new Intent().setType("*/*")))
+        .containsExactly("Send", "ViewAnything", "ViewImages")
+        .inOrder();
+    assertThat(queryActivityNames(new Intent(Intent.ACTION_EDIT).setType("image/png"))).isEmpty();
+  }
+
+  @Test
+  public void queryIntentActivities_afterFiltersChange_usesNewFilters() throws Exception {
+    ComponentName component = new ComponentName("some.other.package", "name");
+    shadowOf(packageManager).addActivityIfNotPresent(component);
+    IntentFilter filter = new IntentFilter("ACTION");
+    filter.addCategory(Intent.CATEGORY_DEFAULT);
+    shadowOf(packageManager).addIntentFilterForActivity(component, filter);
+    assertThat(queryActivityNames(new Intent("ACTION"))).containsExactly("name");
+
+    shadowOf(packageManager).clearIntentFilterForActivity(component);
+    IntentFilter otherFilter = new IntentFilter("OTHER_ACTION");
+    otherFilter.addCategory(Intent.CATEGORY_DEFAULT);
+    shadowOf(packageManager).addIntentFilterForActivity(component, otherFilter);
+    assertThat(queryActivityNames(new Intent("ACTION"))).isEmpty();
+    assertThat(queryActivityNames(new Intent("OTHER_ACTION"))).containsExactly("name");
+
+    shadowOf(packageManager).removeActivity(component);
+    assertThat(queryActivityNames(new Intent("OTHER_ACTION"))).isEmpty();
+  }
+
+  @Test
+  public void addIntentFilterForActivity_copiesFilter() throws Exception {
+    ComponentName component = new ComponentName("some.other.package", "name");
+    shadowOf(packageManager).addActivityIfNotPresent(component);
+    IntentFilter filter = new IntentFilter("ACTION");
+    filter.addCategory(Intent.CATEGORY_DEFAULT);
+    shadowOf(packageManager).addIntentFilterForActivity(component, filter);
+
+    filter.addAction("OTHER_ACTION");
+    shadowOf(packageManager).getIntentFiltersForActivity(component).get(0).addAction("THIRD");
+
+    assertThat(queryActivityNames(new Intent("ACTION"))).containsExactly("name");
+    assertThat(queryActivityNames(new Intent("OTHER_ACTION"))).isEmpty();
+    assertThat(queryActivityNames(new Intent("THIRD"))).isEmpty();
+    assertThat(shadowOf(packageManager).getIntentFiltersForActivity(component).get(0).countActions())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void queryIntentActivities_afterPackageDeleted_doesNotMatch() throws Exception {
+    ComponentName component = new ComponentName("some.other.package", "name");
+    shadowOf(packageManager).addActivityIfNotPresent(component);
+    IntentFilter filter = new IntentFilter("ACTION");
+    filter.addCategory(Intent.CATEGORY_DEFAULT);
+    shadowOf(packageManager).addIntentFilterForActivity(component, filter);
+
+    shadowOf(packageManager).deletePackage("some.other.package");
+
+    assertThat(queryActivityNames(new Intent("ACTION"))).isEmpty();
+  }
+
+  /** Returns the names of the activities in some.other.package which match the intent. */
+  private List<String> queryActivityNames(Intent intent) {
+    intent.setPackage("some.other.package");
+    List<String> names = new ArrayList<>();
+    for (ResolveInfo resolveInfo : packageManager.queryIntentActivities(intent, 0)) {
+      names.add(resolveInfo.activityInfo.name);
+    }
+    return names;
+  }
+
   @Test
   public void queryIntentServices_EmptyResult() {
     Intent i = new Intent(Intent.ACTION_MAIN, null);
@@ -0,0 +1,200 @@
+package org.robolectric.shadows;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import android.content.Intent;
+import android.os.Binder;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.Parcel;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests for {@link ShadowParcel} with {@code robolectric.parcelMode} set to {@code binary}. */
+@RunWith(AndroidJUnit4.class)
+public class ShadowParcelBinaryModeTest {
+
+  private final List<Parcel> parcels = new ArrayList<>();
+  private Parcel parcel;
+
+  @Before
+  public void setUp() {
+    System.setProperty(ShadowParcel.PARCEL_MODE_PROPERTY, "binary");
+    parcel = obtain();
+  }
+
+  @After
+  public void tearDown() {
+    // Recycled parcels are pooled, so recycle them once their buffers are back in the default mode.
+    System.clearProperty(ShadowParcel.PARCEL_MODE_PROPERTY);
+    for (Parcel p : parcels) {
+      p.recycle();
+    }
+  }
+
+  @Test
+  public void primitives_roundTrip() {
+    parcel.writeInt(-7);
+    parcel.writeLong(Long.MAX_VALUE);
+    parcel.writeFloat(1.5f);
+    parcel.writeDouble(-2.25);
+    parcel.writeByte((byte) 3);
+    parcel.setDataPosition(0);
+
+    assertThat(parcel.readInt()).isEqualTo(-7);
+    assertThat(parcel.readLong()).isEqualTo(Long.MAX_VALUE);
+    assertThat(parcel.readFloat()).isEqualTo(1.5f);
+    assertThat(parcel.readDouble()).isEqualTo(-2.25);
+    assertThat(parcel.readByte()).isEqualTo((byte) 3);
+    assertThat(parcel.dataAvailable()).isEqualTo(0);
+  }
+
+  @Test
+  public void stringsAndByteArrays_roundTrip() {
+    parcel.writeString("héllo");
+    parcel.writeString(null);
+    parcel.writeString("");
+    parcel.writeByteArray(new byte[] {1, 2, 3, 4, 5}, 1, 3);
+    parcel.writeByteArray(null);
+    parcel.setDataPosition(0);
+
+    assertThat(parcel.readString()).isEqualTo("héllo");
+    assertThat(parcel.readString()).isNull();
+    assertThat(parcel.readString()).isEmpty();
+    assertThat(parcel.createByteArray()).isEqualTo(new byte[] {2, 3, 4});
+    assertThat(parcel.createByteArray()).isNull();
+  }
+
+  @Test
+  public void marshall_usesAndroidLayout() {
+    parcel.writeInt(1);
+    parcel.writeString("ab");
+
+    assertThat(parcel.dataSize()).isEqualTo(16);
+    assertThat(parcel.marshall())
+        .isEqualTo(new byte[] {1, 0, 0, 0, 2, 0, 0, 0, 'a', 0, 'b', 0, 0, 0, 0, 0});
+  }
+
+  @Test
+  public void readPastEnd_returnsDefaults() {
+    parcel.writeInt(1);
+
+    assertThat(parcel.readInt()).isEqualTo(0);
+    assertThat(parcel.readString()).isNull();
+    assertThat(parcel.dataPosition()).isEqualTo(4);
+  }
+
+  @Test
+  public void readAsDifferentType_reinterpretsBytes() {
+    parcel.writeLong(0x0000000200000001L);
+    parcel.setDataPosition(0);
+
+    assertThat(parcel.readInt()).isEqualTo(1);
+    assertThat(parcel.readInt()).isEqualTo(2);
+  }
+
+  @Test
+  public void unmarshall_copiesBytesAndPositionsAtEnd() {
+    parcel.writeInt(5);
+    parcel.writeString("five");
+    byte[] bytes = parcel.marshall();
+
+    Parcel other = obtain();
+    other.unmarshall(bytes, 0, bytes.length);
+    Arrays.fill(bytes, (byte) 0);
+
+    assertThat(other.dataPosition()).isEqualTo(other.dataSize());
+    other.setDataPosition(0);
+    assertThat(other.readInt()).isEqualTo(5);
+    assertThat(other.readString()).isEqualTo("five");
+  }
+
+  @Test
+  public void bundle_roundTripsThroughMarshall() {
+    Bundle bundle = new Bundle();
+    bundle.putString("string", "value");
+    bundle.putInt("int", 42);
+    bundle.putStringArrayList("list", new ArrayList<>(Arrays.asList("a", "b")));
+    parcel.writeBundle(bundle);
+    byte[] bytes = parcel.marshall();
+
+    Parcel other = obtain();
+    other.unmarshall(bytes, 0, bytes.length);
+    other.setDataPosition(0);
+    Bundle copy = other.readBundle(getClass().getClassLoader());
+
+    assertThat(copy.getString("string")).isEqualTo("value");
+    assertThat(copy.getInt("int")).isEqualTo(42);
+    assertThat(copy.getStringArrayList("list")).containsExactly("a", "b").inOrder();
+  }
+
+  @Test
+  public void intent_roundTrips() {
+    Intent intent = new Intent("action").putExtra("extra", 3L).setPackage("com.example");
+    intent.writeToParcel(parcel, 0);
+    parcel.setDataPosition(0);
+
+    Intent copy = Intent.CREATOR.createFromParcel(parcel);
+
+    assertThat(copy.getAction()).isEqualTo("action");
+    assertThat(copy.getPackage()).isEqualTo("com.example");
+    assertThat(copy.getLongExtra("extra", 0)).isEqualTo(3L);
+  }
+
+  @Test
+  public void binders_roundTripButCantBeMarshalled() {
+    IBinder binder = new Binder();
+    parcel.writeInt(1);
+    parcel.writeStrongBinder(binder);
+    parcel.setDataPosition(0);
+
+    assertThat(parcel.readInt()).isEqualTo(1);
+    assertThat(parcel.readStrongBinder()).isSameInstanceAs(binder);
+    assertThrows(RuntimeException.class, parcel::marshall);
+  }
+
+  @Test
+  public void appendFrom_copiesBytesAndBinders() {
+    IBinder binder = new Binder();
+    Parcel other = obtain();
+    other.writeInt(9);
+    other.writeStrongBinder(binder);
+    parcel.writeInt(1);
+
+    parcel.appendFrom(other, 0, other.dataSize());
+
+    parcel.setDataPosition(0);
+    assertThat(parcel.readInt()).isEqualTo(1);
+    assertThat(parcel.readInt()).isEqualTo(9);
+    assertThat(parcel.readStrongBinder()).isSameInstanceAs(binder);
+  }
+
+  @Test
+  public void setDataPositionPastEnd_zeroFillsOnWrite() {
+    parcel.setDataPosition(8);
+    parcel.writeInt(3);
+
+    assertThat(parcel.dataSize()).isEqualTo(12);
+    parcel.setDataPosition(0);
+    assertThat(parcel.readLong()).isEqualTo(0);
+    assertThat(parcel.readInt()).isEqualTo(3);
+  }
+
+  /**
+   * Obtains a parcel in binary mode. Parcels are pooled, so the buffer is reset in case this one
+   * was recycled before the parcel mode was set.
+   */
+  private Parcel obtain() {
+    Parcel parcel = Parcel.obtain();
+    parcel.unmarshall(new byte[0], 0, 0);
+    parcels.add(parcel);
+    return parcel;
+  }
+}
@@ -20,6 +20,9 @@ import android.os.MessageQueue.IdleHandler;
 import android.os.SystemClock;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -371,6 +374,42 @@ public class ShadowPausedLooperTest {
     verify(mockRunnable, times(1)).run();
   }
 
+  @Test
+  public void idleFor_backgroundLooper_runsTasksAtTheirTimesOnLooperThread() {
+    Handler handler = new Handler(handlerThread.getLooper());
+    long startTime = SystemClock.uptimeMillis();
+    List<Long> runTimes = Collections.synchronizedList(new ArrayList<>());
+    Ref<Thread> threadRef = new Ref<>(null);
+    for (int i = 1; i <= 3; i++) {
+      handler.postDelayed(
+          () -> {
+            runTimes.add(SystemClock.uptimeMillis() - startTime);
+            threadRef.set(Thread.currentThread());
+          },
+          i * 100);
+    }
+    handler.postDelayed(() -> runTimes.add(-1L), 1000);
+
+    shadowOf(handlerThread.getLooper()).idleFor(Duration.ofMillis(300));
+
+    assertThat(runTimes).containsExactly(100L, 200L, 300L).inOrder();
+    assertThat(threadRef.get()).isEqualTo(handlerThread.getLooper().getThread());
+    assertThat(SystemClock.uptimeMillis()).isEqualTo(startTime + 300);
+  }
+
+  @Test
+  public void idleFor_pausedBackgroundLooper_runsNestedDelayedTasks() {
+    ShadowLooper shadowLooper = shadowOf(handlerThread.getLooper());
+    shadowLooper.pause();
+    Handler handler = new Handler(handlerThread.getLooper());
+    Runnable mockRunnable = mock(Runnable.class);
+    handler.postDelayed(() -> handler.postDelayed(mockRunnable, 100), 100);
+
+    shadowLooper.idleFor(Duration.ofMillis(200));
+
+    verify(mockRunnable, times(1)).run();
+  }
+
   @Test
   public void idleExecutesPostedRunnables() {
     ShadowPausedLooper shadowLooper = Shadow.extract(getMainLooper());
@@ -17,6 +17,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
@@ -87,6 +88,42 @@ public class ShadowPausedSystemClockTest {
     assertThat(listenerCalled.get()).isTrue();
   }
 
+  @Test
+  public void sleepZero_notifiesListener() {
+    AtomicInteger listenerCalls = new AtomicInteger();
+    ShadowPausedSystemClock.addListener(listenerCalls::incrementAndGet);
+
+    SystemClock.sleep(0);
+
+    assertThat(listenerCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void setCurrentTimeMillis_unchangedTime_doesNotNotifyListener() {
+    AtomicInteger listenerCalls = new AtomicInteger();
+    ShadowPausedSystemClock.addListener(listenerCalls::incrementAndGet);
+
+    SystemClock.setCurrentTimeMillis(SystemClock.uptimeMillis());
+
+    assertThat(listenerCalls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void removeListener_stopsNotifyingListener() {
+    AtomicInteger firstListenerCalls = new AtomicInteger();
+    AtomicInteger secondListenerCalls = new AtomicInteger();
+    ShadowPausedSystemClock.Listener firstListener = firstListenerCalls::incrementAndGet;
+    ShadowPausedSystemClock.addListener(firstListener);
+    ShadowPausedSystemClock.addListener(secondListenerCalls::incrementAndGet);
+
+    SystemClock.sleep(10);
+    ShadowPausedSystemClock.removeListener(firstListener);
+    SystemClock.sleep(10);
+
+    assertThat(firstListenerCalls.get()).isEqualTo(1);
+    assertThat(secondListenerCalls.get()).isEqualTo(2);
+  }
+
   @SuppressWarnings("FutureReturnValueIgnored")
   @Test
   public void setCurrentTimeMillis_concurrentAccess() throws Exception {
@@ -213,6 +213,39 @@ public class ShadowSQLiteConnectionTest {
     statement2.execute();
   }
 
+  @Test
+  public void nativeOpen_sameDatabase_sharesWorker() {
+    assumeTrue(SQLiteLibraryLoader.isOsSupported());
+    final Map<String, ?> workersByDatabase =
+        ReflectionHelpers.getField(connections, "workersByDatabase");
+    int workerCount = workersByDatabase.size();
+    long firstPtr = ptr;
+
+    SQLiteConnection secondConn = getSQLiteConnection();
+    assertThat(workersByDatabase).hasSize(workerCount);
+
+    ShadowLegacySQLiteConnection.nativeClose(ptr);
+    assertWithMessage("open").that(secondConn.isOpen()).isFalse();
+    assertThat(workersByDatabase).hasSize(workerCount);
+    assertWithMessage("open").that(connections.getConnection(firstPtr).isOpen()).isTrue();
+  }
+
+  @Test
+  public void nativeClose_lastConnectionToDatabase_releasesWorker() {
+    assumeTrue(SQLiteLibraryLoader.isOsSupported());
+    final Map<String, ?> workersByDatabase =
+        ReflectionHelpers.getField(connections, "workersByDatabase");
+    int workerCount = workersByDatabase.size();
+
+    SQLiteDatabase otherDb = createDatabase("other.db");
+    otherDb.execSQL("CREATE TABLE other (id INTEGER PRIMARY KEY)");
+    assertThat(workersByDatabase).hasSize(workerCount + 1);
+
+    otherDb.close();
+    assertThat(workersByDatabase).hasSize(workerCount);
+    database.execSQL("insert into routine(name) values ('Hand press 1')");
+  }
+
   private SQLiteDatabase createDatabase(String filename) {
     databasePath = ApplicationProvider.getApplicationContext().getDatabasePath(filename);
     databasePath.getParentFile().mkdirs();
@@ -177,6 +177,8 @@ public class ClassInstrumentor {
 
         addRoboInitMethod(mutableClass);
 
+        TouchTracking.addTouchMethod(mutableClass.classNode, mutableClass.classType);
+
         removeFinalFromFields(mutableClass);
 
         decorator.decorate(mutableClass);
@@ -343,6 +345,16 @@ public class ClassInstrumentor {
         BOOTSTRAP_INIT);
   }
 
+  /**
+   * Reports the class to {@link RobolectricInternals#touched(Class)} the first time it's used in a
+   * test, so that resetters for shadows of untouched classes can be skipped.
+   */
+  private static void writeCallToTouch(
+      MutableClass mutableClass, RobolectricGeneratorAdapter generator) {
+    generator.invokeStatic(
+        mutableClass.classType, new Method(ShadowConstants.TOUCH_METHOD_NAME, "()V"));
+  }
+
   private static void removeFinalFromFields(MutableClass mutableClass) {
     for (FieldNode fieldNode : mutableClass.getFields()) {
       fieldNode.access &= ~Modifier.FINAL;
@@ -387,6 +399,7 @@ public class ClassInstrumentor {
     initMethodNode.instructions.add(callSuper);
     generator.loadThis();
     generator.invokeVirtual(mutableClass.classType, new Method(ROBO_INIT_METHOD_NAME, "()V"));
+    writeCallToTouch(mutableClass, generator);
     generateClassHandlerCall(
         mutableClass, method, ShadowConstants.CONSTRUCTOR_METHOD_NAME, generator);
 
@@ -517,6 +530,7 @@ public class ClassInstrumentor {
     makeMethodPrivate(method);
 
     RobolectricGeneratorAdapter generator = new RobolectricGeneratorAdapter(delegatorMethodNode);
+    writeCallToTouch(mutableClass, generator);
     generateClassHandlerCall(mutableClass, method, originalName, generator);
     generator.endMethod();
     mutableClass.addMethod(delegatorMethodNode);
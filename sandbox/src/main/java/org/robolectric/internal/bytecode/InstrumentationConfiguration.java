@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -49,6 +50,7 @@ public class InstrumentationConfiguration {
   private final Set<String> packagesToNotAcquire;
   private final Set<String> packagesToNotInstrument;
   private int cachedHashCode;
+  private String cachedFingerprint;
 
   private final TypeMapper typeMapper;
   private final Set<MethodRef> methodsToIntercept;
@@ -208,6 +210,38 @@ public class InstrumentationConfiguration {
     return result;
   }
 
+  /**
+   * Returns a string which is stable across JVMs and identifies all of the rules in this
+   * configuration, suitable for use as a cache key component.
+   */
+  public String fingerprint() {
+    if (cachedFingerprint != null) {
+      return cachedFingerprint;
+    }
+
+    StringBuilder fingerprint = new StringBuilder();
+    appendSorted(fingerprint, "instrumentedPackages", instrumentedPackages);
+    appendSorted(fingerprint, "instrumentedClasses", instrumentedClasses);
+    appendSorted(fingerprint, "classesToNotInstrument", classesToNotInstrument);
+    appendSorted(fingerprint, "packagesToNotInstrument", packagesToNotInstrument);
+    appendSorted(fingerprint, "classesToNotAcquire", classesToNotAcquire);
+    appendSorted(fingerprint, "packagesToNotAcquire", packagesToNotAcquire);
+    appendSorted(fingerprint, "classNameTranslations", classNameTranslations.entrySet());
+    appendSorted(fingerprint, "interceptedMethods", interceptedMethods);
+    fingerprint.append("classesToNotInstrumentRegex=").append(classesToNotInstrumentRegex);
+    cachedFingerprint = fingerprint.toString();
+    return cachedFingerprint;
+  }
+
+  private static void appendSorted(StringBuilder out, String name, Collection<?> values) {
+    List<String> sorted = new ArrayList<>();
+    for (Object value : values) {
+      sorted.add(String.valueOf(value));
+    }
+    Collections.sort(sorted);
+    out.append(name).append('=').append(sorted).append(';');
+  }
+
   public String remapParamType(String desc) {
     return typeMapper.remapParamType(desc);
   }
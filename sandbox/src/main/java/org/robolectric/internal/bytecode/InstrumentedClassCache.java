@@ -0,0 +1,357 @@
+package org.robolectric.internal.bytecode;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.robolectric.util.Logger;
+import org.robolectric.util.PerfStatsCollector;
+import org.robolectric.util.Util;
+
+/**
+ * A content-addressed, on-disk cache of instrumented class bytes.
+ *
+ * <p>Entries are keyed by a digest of the original class bytes, the {@link
+ * InstrumentationConfiguration} fingerprint, the Robolectric runtime, and any additional
+ * components supplied by the {@link SandboxClassLoader} (e.g. the SDK in use). Since keys fully
+ * describe their contents, the cache may be safely shared by any number of JVMs: entries are
+ * written to a temporary file and atomically moved into place, so readers never observe a partial
+ * entry.
+ *
+ * <p>The cache is disabled unless the {@code robolectric.instrumentedClassCacheDir} system
+ * property is set. Its size is capped by {@code robolectric.instrumentedClassCacheMaxMb}; when the
+ * cap is exceeded, the least recently used entries are evicted.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class InstrumentedClassCache {
+  static final String CACHE_DIR_PROPERTY = "robolectric.instrumentedClassCacheDir";
+  static final String MAX_SIZE_MB_PROPERTY = "robolectric.instrumentedClassCacheMaxMb";
+  private static final long DEFAULT_MAX_SIZE_MB = 512;
+  private static final String ENTRY_SUFFIX = ".class";
+
+  /**
+   * Entries are only marked as used when they were last marked longer ago than this, so that cache
+   * hits don't each cost a write. Eviction order is accurate to within this interval.
+   */
+  static final long TOUCH_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /** Once evicting, the cache is trimmed to this fraction of its maximum size. */
+  private static final double EVICTION_LOW_WATER_MARK = 0.9;
+
+  private static volatile InstrumentedClassCache defaultInstance;
+
+  private final Path cacheDir;
+  private final long maxSizeBytes;
+  private final String runtimeFingerprint;
+  private final AtomicLong approximateSize = new AtomicLong(-1);
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * Returns the cache configured via system properties, or null if no cache directory has been
+   * configured.
+   */
+  @Nullable
+  public static InstrumentedClassCache getDefault() {
+    String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (Strings.isNullOrEmpty(cacheDir)) {
+      return null;
+    }
+    InstrumentedClassCache instance = defaultInstance;
+    if (instance == null || !instance.cacheDir.equals(Paths.get(cacheDir))) {
+      synchronized (InstrumentedClassCache.class) {
+        instance = defaultInstance;
+        if (instance == null || !instance.cacheDir.equals(Paths.get(cacheDir))) {
+          long maxSizeMb = Long.getLong(MAX_SIZE_MB_PROPERTY, DEFAULT_MAX_SIZE_MB);
+          instance = new InstrumentedClassCache(Paths.get(cacheDir), maxSizeMb * 1024 * 1024);
+          defaultInstance = instance;
+        }
+      }
+    }
+    return instance;
+  }
+
+  public InstrumentedClassCache(Path cacheDir, long maxSizeBytes) {
+    this(cacheDir, maxSizeBytes, computeRuntimeFingerprint());
+  }
+
+  InstrumentedClassCache(Path cacheDir, long maxSizeBytes, String runtimeFingerprint) {
+    this.cacheDir = cacheDir;
+    this.maxSizeBytes = maxSizeBytes;
+    this.runtimeFingerprint = runtimeFingerprint;
+  }
+
+  /**
+   * Computes the cache key for a class.
+   *
+   * @param origClassBytes the uninstrumented class bytes
+   * @param config the configuration the class will be instrumented with
+   * @param extraKeyComponents any other inputs which affect the instrumented output
+   */
+  public String computeKey(
+      byte[] origClassBytes, InstrumentationConfiguration config, String... extraKeyComponents) {
+    Hasher hasher =
+        Hashing.sha256()
+            .newHasher()
+            .putBytes(origClassBytes)
+            .putString(config.fingerprint(), UTF_8)
+            .putString(runtimeFingerprint, UTF_8);
+    for (String component : extraKeyComponents) {
+      hasher.putInt(component.length()).putString(component, UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Returns the cached instrumented bytes for the given key, or null if none are cached. */
+  @Nullable
+  public byte[] get(String key) {
+    Path entry = entryPath(key);
+    try {
+      byte[] bytes = Files.readAllBytes(entry);
+      // Bump the modification time so that eviction is least-recently-used, not least-recently
+      // written.
+      long now = System.currentTimeMillis();
+      if (now - Files.getLastModifiedTime(entry).toMillis() > TOUCH_INTERVAL_MILLIS) {
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(now));
+      }
+      PerfStatsCollector.getInstance().incrementCount("instrumented class cache hit");
+      return bytes;
+    } catch (NoSuchFileException e) {
+      PerfStatsCollector.getInstance().incrementCount("instrumented class cache miss");
+      return null;
+    } catch (IOException e) {
+      Logger.warn("failed to read instrumented class cache entry %s: %s", entry, e);
+      return null;
+    }
+  }
+
+  /** Stores instrumented bytes for the given key. Failures are logged and otherwise ignored. */
+  public void put(String key, byte[] instrumentedBytes) {
+    if (approximateSize.get() == -1) {
+      approximateSize.compareAndSet(-1, computeSize());
+    }
+
+    Path entry = entryPath(key);
+    Path tempFile = null;
+    try {
+      Files.createDirectories(entry.getParent());
+      tempFile = Files.createTempFile(entry.getParent(), key, ".tmp");
+      Files.write(tempFile, instrumentedBytes);
+      moveIntoPlace(tempFile, entry);
+      tempFile = null;
+    } catch (IOException e) {
+      Logger.warn("failed to write instrumented class cache entry %s: %s", entry, e);
+      return;
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+
+    if (approximateSize.addAndGet(instrumentedBytes.length) > maxSizeBytes) {
+      evict();
+    }
+  }
+
+  private static void moveIntoPlace(Path tempFile, Path entry) throws IOException {
+    try {
+      Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      try {
+        Files.move(tempFile, entry);
+      } catch (FileAlreadyExistsException alreadyWritten) {
+        // Another process won the race; its entry has identical contents.
+        Files.delete(tempFile);
+      }
+    }
+  }
+
+  /** Deletes least recently used entries until the cache is comfortably under its maximum size. */
+  void evict() {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      PerfStatsCollector.getInstance()
+          .measure(
+              "instrumented class cache eviction",
+              () -> {
+                List<CacheEntry> entries = listEntries();
+                entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+                long size = 0;
+                for (CacheEntry entry : entries) {
+                  size += entry.size;
+                }
+                long target = (long) (maxSizeBytes * EVICTION_LOW_WATER_MARK);
+                for (CacheEntry entry : entries) {
+                  if (size <= target) {
+                    break;
+                  }
+                  try {
+                    Files.deleteIfExists(entry.path);
+                  } catch (IOException e) {
+                    // another process may be evicting concurrently
+                  }
+                  size -= entry.size;
+                }
+                approximateSize.set(size);
+              });
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private long computeSize() {
+    long size = 0;
+    for (CacheEntry entry : listEntries()) {
+      size += entry.size;
+    }
+    return size;
+  }
+
+  private List<CacheEntry> listEntries() {
+    if (!Files.isDirectory(cacheDir)) {
+      return new ArrayList<>();
+    }
+    try (Stream<Path> paths = Files.walk(cacheDir, 2)) {
+      return paths
+          .filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+          .map(CacheEntry::forPath)
+          .filter(entry -> entry != null)
+          .collect(Collectors.toCollection(ArrayList::new));
+    } catch (IOException e) {
+      Logger.warn("failed to list instrumented class cache %s: %s", cacheDir, e);
+      return new ArrayList<>();
+    }
+  }
+
+  private Path entryPath(String key) {
+    // Shard entries across subdirectories to keep directory listings small.
+    return cacheDir.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+  }
+
+  /**
+   * Identifies the Robolectric runtime performing instrumentation, so that upgrading or rebuilding
+   * Robolectric invalidates previously cached entries. A jar is identified by its size and
+   * modification time; a class output directory, which builds update in place, by the contents of
+   * every file in it.
+   */
+  private static String computeRuntimeFingerprint() {
+    StringBuilder fingerprint =
+        new StringBuilder(ClassInstrumentor.class.getName())
+            .append(':')
+            .append(System.getProperty("java.version"));
+    CodeSource codeSource = ClassInstrumentor.class.getProtectionDomain().getCodeSource();
+    if (codeSource != null && codeSource.getLocation() != null) {
+      try {
+        Path location = Paths.get(codeSource.getLocation().toURI());
+        fingerprint.append(':').append(location);
+        if (Files.isRegularFile(location)) {
+          fingerprint
+              .append(':')
+              .append(Files.size(location))
+              .append(':')
+              .append(Files.getLastModifiedTime(location).toMillis());
+        } else if (Files.isDirectory(location)) {
+          fingerprint.append(':').append(hashDirectory(location));
+        }
+      } catch (URISyntaxException | IOException | IllegalArgumentException e) {
+        fingerprint.append(':').append(codeSource.getLocation());
+      }
+    }
+    return fingerprint.toString();
+  }
+
+  static String hashDirectory(Path dir) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+        String relativePath = dir.relativize(path).toString();
+        byte[] bytes = Files.readAllBytes(path);
+        hasher
+            .putInt(relativePath.length())
+            .putString(relativePath, UTF_8)
+            .putInt(bytes.length)
+            .putBytes(bytes);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns a digest of the bytecode of the given classes and their superclasses, for use as a
+   * {@link #computeKey} component when instrumentation depends on classes which may not be part of
+   * the Robolectric runtime (e.g. a custom {@link ClassInstrumentor.Decorator}).
+   */
+  public static String fingerprintClasses(Class<?>... classes) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (Class<?> clazz : classes) {
+      for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+        String resourceName = c.getName().replace('.', '/') + ".class";
+        hasher.putInt(resourceName.length()).putString(resourceName, UTF_8);
+        ClassLoader classLoader = c.getClassLoader();
+        try (InputStream in =
+            classLoader == null
+                ? ClassLoader.getSystemResourceAsStream(resourceName)
+                : classLoader.getResourceAsStream(resourceName)) {
+          if (in != null) {
+            byte[] bytes = Util.readBytes(in);
+            hasher.putInt(bytes.length).putBytes(bytes);
+          }
+        } catch (IOException e) {
+          Logger.warn("failed to read %s for instrumented class cache key: %s", resourceName, e);
+          hasher.putLong(System.nanoTime());
+        }
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  private static class CacheEntry {
+    final Path path;
+    final long size;
+    final long lastModified;
+
+    CacheEntry(Path path, long size, long lastModified) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+
+    @Nullable
+    static CacheEntry forPath(Path path) {
+      try {
+        return new CacheEntry(
+            path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+      } catch (IOException e) {
+        // the entry was evicted by another process
+        return null;
+      }
+    }
+  }
+}
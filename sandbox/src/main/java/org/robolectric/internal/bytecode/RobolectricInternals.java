@@ -4,6 +4,8 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RobolectricInternals {
 
@@ -16,6 +18,14 @@ public class RobolectricInternals {
   @SuppressWarnings("UnusedDeclaration")
   private static ClassLoader classLoader;
 
+  /**
+   * Incremented by {@link #clearTouchedClasses()}. Each instrumented or shadow class keeps the
+   * epoch in which it last called {@link #touched(Class)} so it only does so once per test.
+   */
+  public static volatile int touchedEpoch = 1;
+
+  private static final Set<String> touchedClasses = ConcurrentHashMap.newKeySet();
+
   @SuppressWarnings("UnusedDeclaration")
   public static void classInitializing(Class clazz) throws Exception {
     classHandler.classInitializing(clazz);
@@ -61,6 +71,28 @@ public class RobolectricInternals {
     }
   }
 
+  /**
+   * Records that code in the given class, or state it owns, has been used since the last call to
+   * {@link #clearTouchedClasses()}. Superclasses are recorded too, since their static state may be
+   * modified through the subclass.
+   */
+  public static void touched(Class<?> clazz) {
+    for (Class<?> c = clazz; c != null && touchedClasses.add(c.getName()); ) {
+      c = c.getSuperclass();
+    }
+  }
+
+  /** Returns whether the class with the given binary name has been touched since the last clear. */
+  public static boolean wasTouched(String className) {
+    return touchedClasses.contains(className);
+  }
+
+  public static synchronized void clearTouchedClasses() {
+    // Clear before advancing the epoch, so a class touched concurrently is at worst reported twice.
+    touchedClasses.clear();
+    touchedEpoch++;
+  }
+
   public static ShadowInvalidator getShadowInvalidator() {
     return shadowInvalidator;
   }
@@ -6,6 +6,7 @@ import static com.google.common.base.StandardSystemProperty.PATH_SEPARATOR;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ObjectArrays;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,8 +16,12 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import org.robolectric.annotation.Implements;
 import org.robolectric.util.Logger;
 import org.robolectric.util.PerfStatsCollector;
 import org.robolectric.util.Util;
@@ -35,6 +40,9 @@ public class SandboxClassLoader extends URLClassLoader {
   private final ClassInstrumentor classInstrumentor;
   private final ClassNodeProvider classNodeProvider;
   private final String dumpClassesDirectory;
+  @Nullable private final InstrumentedClassCache instrumentedClassCache;
+  @Nullable private final String instrumentorFingerprint;
+  private final Set<String> shadowClassNames = ConcurrentHashMap.newKeySet();
 
   /** Constructor for use by tests. */
   SandboxClassLoader(InstrumentationConfiguration config) {
@@ -73,6 +81,12 @@ public class SandboxClassLoader extends URLClassLoader {
           }
         };
     this.dumpClassesDirectory = System.getProperty(DUMP_CLASSES_PROPERTY, "");
+    this.instrumentedClassCache = InstrumentedClassCache.getDefault();
+    this.instrumentorFingerprint =
+        instrumentedClassCache == null
+            ? null
+            : InstrumentedClassCache.fingerprintClasses(
+                classInstrumentor.getClass(), classInstrumentor.decorator.getClass());
   }
 
   private static URL[] getClassPathUrls(ClassLoader classloader) {
@@ -150,10 +164,11 @@ public class SandboxClassLoader extends URLClassLoader {
       final byte[] bytes;
       ClassDetails classDetails = new ClassDetails(origClassBytes);
       if (config.shouldInstrument(classDetails)) {
-        bytes = classInstrumentor.instrument(classDetails, config, classNodeProvider);
+        bytes = instrumentPossiblyCached(className, classDetails);
         maybeDumpClassBytes(classDetails, bytes);
       } else {
-        bytes = postProcessUninstrumentedClass(classDetails);
+        bytes =
+            addTouchTrackingToShadows(classDetails, postProcessUninstrumentedClass(classDetails));
       }
       ensurePackage(className);
       return defineClass(className, bytes, 0, bytes.length);
@@ -165,6 +180,39 @@ public class SandboxClassLoader extends URLClassLoader {
     }
   }
 
+  private byte[] instrumentPossiblyCached(String className, ClassDetails classDetails) {
+    String[] keyComponents =
+        instrumentedClassCache == null ? null : getInstrumentedClassCacheKeyComponents(className);
+    if (keyComponents == null) {
+      return classInstrumentor.instrument(classDetails, config, classNodeProvider);
+    }
+
+    String key =
+        instrumentedClassCache.computeKey(
+            classDetails.getClassBytes(),
+            config,
+            ObjectArrays.concat(instrumentorFingerprint, keyComponents));
+    byte[] bytes = instrumentedClassCache.get(key);
+    if (bytes == null) {
+      bytes = classInstrumentor.instrument(classDetails, config, classNodeProvider);
+      instrumentedClassCache.put(key, bytes);
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the inputs, other than the class's own bytes and the {@link
+   * InstrumentationConfiguration}, which determine how the given class is instrumented, or null if
+   * its instrumented bytes should not be stored in the {@link InstrumentedClassCache}.
+   *
+   * <p>Instrumentation consults the superclass hierarchy, so a class should only be cached if
+   * every class it may depend on is identified by the returned components.
+   */
+  @Nullable
+  protected String[] getInstrumentedClassCacheKeyComponents(String className) {
+    return null;
+  }
+
   private void maybeDumpClassBytes(ClassDetails classDetails, byte[] classBytes) {
     if (!Strings.isNullOrEmpty(dumpClassesDirectory)) {
       String outputClassName =
@@ -178,6 +226,27 @@ public class SandboxClassLoader extends URLClassLoader {
     }
   }
 
+  /**
+   * Makes shadow classes, and classes nested in them, report when they are used, so that the
+   * resetters of shadows which weren't used during a test can be skipped. See {@link
+   * RobolectricInternals#touched(Class)}.
+   */
+  private byte[] addTouchTrackingToShadows(ClassDetails classDetails, byte[] bytes) {
+    if (classDetails.isInterface()) {
+      return bytes;
+    }
+    String className = classDetails.getName();
+    if (classDetails.hasAnnotation(Implements.class)) {
+      shadowClassNames.add(className);
+      return TouchTracking.addTouchTracking(bytes, className);
+    }
+    int nestedIndex = className.indexOf('$');
+    if (nestedIndex != -1 && shadowClassNames.contains(className.substring(0, nestedIndex))) {
+      return TouchTracking.addTouchTracking(bytes, className.substring(0, nestedIndex));
+    }
+    return bytes;
+  }
+
   protected byte[] postProcessUninstrumentedClass(ClassDetails classDetails) {
     return classDetails.getClassBytes();
   }
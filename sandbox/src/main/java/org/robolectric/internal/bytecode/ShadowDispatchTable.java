@@ -0,0 +1,201 @@
+package org.robolectric.internal.bytecode;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.robolectric.sandbox.ShadowMatcher;
+
+/**
+ * The shadow methods which calls to an instrumented class may be dispatched to: the public and
+ * protected methods of its shadow class, followed by those of any shadow superclasses which shadow
+ * the same class.
+ *
+ * <p>The methods of each shadow class are read in bulk, with a single {@link
+ * Class#getDeclaredMethods()} call, the first time a lookup can't be answered from the shadow's
+ * {@link org.robolectric.internal.ShadowIndex} entry. After that, lookups are hash lookups by
+ * method name and don't use reflection.
+ */
+final class ShadowDispatchTable {
+  private final ShadowInfo shadowInfo;
+  private final List<ShadowClassMethods> shadowClasses = new ArrayList<>();
+
+  ShadowDispatchTable(
+      Class<?> definingClass,
+      ShadowInfo shadowInfo,
+      ShadowMap shadowMap,
+      ShadowMatcher shadowMatcher) {
+    this.shadowInfo = shadowInfo;
+    if (shadowInfo == null) {
+      return;
+    }
+
+    Class<?> shadowClass;
+    try {
+      shadowClass =
+          Class.forName(shadowInfo.shadowClassName, false, definingClass.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+    shadowClasses.add(new ShadowClassMethods(shadowClass, shadowInfo, shadowMatcher));
+
+    // if the shadow's superclass shadows the same class as this shadow, then its methods are
+    // searched too.
+    // Buffalo buffalo buffalo buffalo buffalo buffalo buffalo.
+    for (Class<?> shadowSuperclass = shadowClass.getSuperclass();
+        shadowSuperclass != null && !shadowSuperclass.equals(Object.class);
+        shadowSuperclass = shadowSuperclass.getSuperclass()) {
+      ShadowInfo shadowSuperclassInfo = shadowMap.getShadowInfoForShadowClass(shadowSuperclass);
+      if (shadowSuperclassInfo == null
+          || !shadowSuperclassInfo.isShadowOf(definingClass)
+          || !shadowMatcher.matches(shadowSuperclassInfo)) {
+        break;
+      }
+      shadowClasses.add(
+          new ShadowClassMethods(shadowSuperclass, shadowSuperclassInfo, shadowMatcher));
+    }
+  }
+
+  /** Returns the shadow for the instrumented class, or null if it isn't shadowed. */
+  ShadowInfo getShadowInfo() {
+    return shadowInfo;
+  }
+
+  /**
+   * Searches for an {@code @Implementation} method with the given signature, first on the shadow
+   * class and then on its shadow superclasses. If a shadow class allows loose signatures, a method
+   * taking the same number of {@code Object} parameters is accepted from it too.
+   *
+   * @return the shadow method, or null if there is none
+   */
+  Method findShadowMethod(String name, Class<?>[] paramTypes) {
+    for (ShadowClassMethods methods : shadowClasses) {
+      Method method = methods.find(name, paramTypes);
+      if (method == null && methods.looseSignatures) {
+        Class<?>[] genericTypes = MethodType.genericMethodType(paramTypes.length).parameterArray();
+        method = methods.find(name, genericTypes);
+      }
+      if (method != null) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  /** The candidate shadow methods declared by a single shadow class. */
+  private static class ShadowClassMethods {
+    private final Class<?> shadowClass;
+    private final ShadowInfo shadowInfo;
+    private final ShadowMatcher shadowMatcher;
+    final boolean looseSignatures;
+    private volatile Map<String, Candidate[]> candidatesByName;
+
+    ShadowClassMethods(Class<?> shadowClass, ShadowInfo shadowInfo, ShadowMatcher shadowMatcher) {
+      this.shadowClass = shadowClass;
+      this.shadowInfo = shadowInfo;
+      this.shadowMatcher = shadowMatcher;
+      this.looseSignatures = shadowInfo.looseSignatures;
+    }
+
+    Method find(String name, Class<?>[] paramTypes) {
+      if (!shadowInfo.mayDeclareMethod(name, paramTypes)) {
+        return null;
+      }
+      Candidate[] candidates = getCandidatesByName().get(name);
+      if (candidates == null) {
+        return null;
+      }
+      for (Candidate candidate : candidates) {
+        if (Arrays.equals(candidate.paramTypes, paramTypes)) {
+          return candidate.matches(shadowMatcher) ? candidate.method : null;
+        }
+      }
+      return null;
+    }
+
+    private Map<String, Candidate[]> getCandidatesByName() {
+      Map<String, Candidate[]> candidatesByName = this.candidatesByName;
+      if (candidatesByName == null) {
+        synchronized (this) {
+          candidatesByName = this.candidatesByName;
+          if (candidatesByName == null) {
+            candidatesByName = readCandidates(shadowClass);
+            this.candidatesByName = candidatesByName;
+          }
+        }
+      }
+      return candidatesByName;
+    }
+
+    @SuppressWarnings("AndroidJdkLibsChecker")
+    private static Map<String, Candidate[]> readCandidates(Class<?> shadowClass) {
+      Map<String, List<Candidate>> candidateLists = new HashMap<>();
+      for (Method method : shadowClass.getDeclaredMethods()) {
+        int modifiers = method.getModifiers();
+        if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)) {
+          continue;
+        }
+        List<Candidate> overloads =
+            candidateLists.computeIfAbsent(method.getName(), k -> new ArrayList<>(1));
+        addCandidate(overloads, new Candidate(method));
+      }
+
+      Map<String, Candidate[]> candidatesByName = new HashMap<>();
+      for (Map.Entry<String, List<Candidate>> entry : candidateLists.entrySet()) {
+        candidatesByName.put(entry.getKey(), entry.getValue().toArray(new Candidate[0]));
+      }
+      return candidatesByName;
+    }
+
+    /**
+     * Adds a candidate method, unless one with the same parameters is already present. As with
+     * {@link Class#getDeclaredMethod}, the method with the more specific return type wins; the
+     * other is a bridge method.
+     */
+    private static void addCandidate(List<Candidate> overloads, Candidate candidate) {
+      for (int i = 0; i < overloads.size(); i++) {
+        Candidate existing = overloads.get(i);
+        if (Arrays.equals(existing.paramTypes, candidate.paramTypes)) {
+          Class<?> existingReturnType = existing.method.getReturnType();
+          if (existingReturnType.isAssignableFrom(candidate.method.getReturnType())) {
+            overloads.set(i, candidate);
+          }
+          return;
+        }
+      }
+      overloads.add(candidate);
+    }
+  }
+
+  private static class Candidate {
+    final Method method;
+    final Class<?>[] paramTypes;
+
+    /**
+     * Whether the method is an {@code @Implementation} for the current SDK. Only checked once the
+     * method is looked up, since the {@link ShadowMatcher} warns about unannotated methods.
+     */
+    private volatile Boolean matches;
+
+    Candidate(Method method) {
+      this.method = method;
+      this.paramTypes = method.getParameterTypes();
+    }
+
+    boolean matches(ShadowMatcher shadowMatcher) {
+      Boolean matches = this.matches;
+      if (matches == null) {
+        matches = shadowMatcher.matches(method);
+        if (matches) {
+          method.setAccessible(true);
+        }
+        this.matches = matches;
+      }
+      return matches;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package org.robolectric.internal.bytecode;
 import java.util.Objects;
 import org.robolectric.annotation.Implements;
 import org.robolectric.annotation.Implements.DefaultShadowPicker;
+import org.robolectric.internal.ShadowIndex;
 import org.robolectric.shadow.api.ShadowPicker;
 
 @SuppressWarnings("NewApi")
@@ -15,6 +16,8 @@ public class ShadowInfo {
   private final int minSdk;
   private final int maxSdk;
   private final Class<? extends ShadowPicker<?>> shadowPickerClass;
+  private final String shadowPickerClassName;
+  private final ShadowIndex.ShadowEntry shadowEntry;
 
   ShadowInfo(
       String shadowedClassName,
@@ -24,16 +27,37 @@ public class ShadowInfo {
       int minSdk,
       int maxSdk,
       Class<? extends ShadowPicker<?>> shadowPickerClass) {
+    this(
+        shadowedClassName,
+        shadowClassName,
+        callThroughByDefault,
+        looseSignatures,
+        minSdk,
+        maxSdk,
+        nonDefault(shadowPickerClass),
+        nonDefault(shadowPickerClass) == null ? null : shadowPickerClass.getName(),
+        null);
+  }
+
+  private ShadowInfo(
+      String shadowedClassName,
+      String shadowClassName,
+      boolean callThroughByDefault,
+      boolean looseSignatures,
+      int minSdk,
+      int maxSdk,
+      Class<? extends ShadowPicker<?>> shadowPickerClass,
+      String shadowPickerClassName,
+      ShadowIndex.ShadowEntry shadowEntry) {
     this.shadowedClassName = shadowedClassName;
     this.shadowClassName = shadowClassName;
     this.callThroughByDefault = callThroughByDefault;
     this.looseSignatures = looseSignatures;
     this.minSdk = minSdk;
     this.maxSdk = maxSdk;
-    this.shadowPickerClass =
-        DefaultShadowPicker.class.equals(shadowPickerClass)
-            ? null
-            : shadowPickerClass;
+    this.shadowPickerClass = shadowPickerClass;
+    this.shadowPickerClassName = shadowPickerClassName;
+    this.shadowEntry = shadowEntry;
   }
 
   ShadowInfo(String shadowedClassName, String shadowClassName, Implements annotation) {
@@ -46,6 +70,25 @@ public class ShadowInfo {
         annotation.shadowPicker());
   }
 
+  /** Creates a ShadowInfo from a shadow's {@link ShadowIndex} entry, without loading classes. */
+  ShadowInfo(ShadowIndex.ShadowEntry shadowEntry) {
+    this(
+        shadowEntry.shadowedClassName,
+        shadowEntry.shadowClassName,
+        shadowEntry.callThroughByDefault,
+        shadowEntry.looseSignatures,
+        shadowEntry.minSdk,
+        shadowEntry.maxSdk,
+        null,
+        shadowEntry.shadowPickerClassName,
+        shadowEntry);
+  }
+
+  private static Class<? extends ShadowPicker<?>> nonDefault(
+      Class<? extends ShadowPicker<?>> shadowPickerClass) {
+    return DefaultShadowPicker.class.equals(shadowPickerClass) ? null : shadowPickerClass;
+  }
+
   public boolean supportsSdk(int sdkInt) {
     return minSdk <= sdkInt && (maxSdk == -1 || maxSdk >= sdkInt);
   }
@@ -54,14 +97,30 @@ public class ShadowInfo {
     return shadowedClassName.equals(clazz.getName());
   }
 
+  /**
+   * Returns false if the shadow class is known to declare no public or protected method with the
+   * given name and parameter types, so it needn't be searched reflectively.
+   */
+  boolean mayDeclareMethod(String name, Class<?>[] parameterTypes) {
+    return shadowEntry == null || shadowEntry.declaresMethod(name, parameterTypes);
+  }
+
   public boolean hasShadowPicker() {
-    return shadowPickerClass != null && !DefaultShadowPicker.class.equals(shadowPickerClass);
+    return shadowPickerClassName != null;
   }
 
+  /**
+   * Returns the shadow picker class, or null if there is none or if this ShadowInfo was read from a
+   * {@link ShadowIndex}, in which case use {@link #getShadowPickerClassName()}.
+   */
   public Class<? extends ShadowPicker<?>> getShadowPickerClass() {
     return shadowPickerClass;
   }
 
+  public String getShadowPickerClassName() {
+    return shadowPickerClassName;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -77,7 +136,7 @@ public class ShadowInfo {
         && maxSdk == that.maxSdk
         && Objects.equals(shadowedClassName, that.shadowedClassName)
         && Objects.equals(shadowClassName, that.shadowClassName)
-        && Objects.equals(shadowPickerClass, that.shadowPickerClass);
+        && Objects.equals(shadowPickerClassName, that.shadowPickerClassName);
   }
 
   @Override
@@ -89,6 +148,6 @@ public class ShadowInfo {
         looseSignatures,
         minSdk,
         maxSdk,
-        shadowPickerClass);
+        shadowPickerClassName);
   }
 }
@@ -4,6 +4,8 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.HashMap;
@@ -11,9 +13,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.robolectric.annotation.Implements;
+import org.robolectric.internal.ShadowIndex;
 import org.robolectric.internal.ShadowProvider;
 import org.robolectric.sandbox.ShadowMatcher;
 import org.robolectric.shadow.api.ShadowPicker;
+import org.robolectric.util.Logger;
+import org.robolectric.util.PerfStatsCollector;
 
 /**
  * Maps from instrumented class to shadow class.
@@ -33,10 +38,14 @@ public class ShadowMap {
   private final ImmutableMap<String, ShadowInfo> overriddenShadows;
   private final ImmutableMap<String, String> shadowPickers;
 
+  /** Shadows described by the providers' {@link ShadowIndex}es, keyed by shadow class name. */
+  private final ImmutableMap<String, ShadowInfo> indexedShadows;
+
   @SuppressWarnings("AndroidJdkLibsChecker")
   public static ShadowMap createFromShadowProviders(List<ShadowProvider> sortedProviders) {
     final ArrayListMultimap<String, String> shadowMap = ArrayListMultimap.create();
     final Map<String, String> shadowPickerMap = new HashMap<>();
+    final Map<String, ShadowInfo> indexedShadows = new HashMap<>();
 
     // These are sorted in descending order (higher priority providers are first).
     for (ShadowProvider provider : sortedProviders) {
@@ -44,26 +53,59 @@ public class ShadowMap {
         shadowMap.put(entry.getKey(), entry.getValue());
       }
       provider.getShadowPickerMap().forEach(shadowPickerMap::putIfAbsent);
+
+      ShadowIndex shadowIndex = loadShadowIndex(provider);
+      if (shadowIndex != null) {
+        for (ShadowIndex.ShadowEntry shadowEntry : shadowIndex.getShadows()) {
+          indexedShadows.putIfAbsent(shadowEntry.shadowClassName, new ShadowInfo(shadowEntry));
+        }
+      }
     }
     return new ShadowMap(
         ImmutableListMultimap.copyOf(shadowMap),
         Collections.emptyMap(),
-        ImmutableMap.copyOf(shadowPickerMap));
+        ImmutableMap.copyOf(shadowPickerMap),
+        indexedShadows);
+  }
+
+  /**
+   * Reads the {@link ShadowIndex} generated alongside a provider, or returns null if there is none,
+   * in which case its shadow classes are inspected reflectively.
+   */
+  private static ShadowIndex loadShadowIndex(ShadowProvider provider) {
+    if (Boolean.getBoolean("robolectric.disableShadowIndex")) {
+      return null;
+    }
+    Class<?> providerClass = provider.getClass();
+    String resourceName = providerClass.getSimpleName() + ShadowIndex.RESOURCE_SUFFIX;
+    return PerfStatsCollector.getInstance()
+        .measure(
+            "load shadow index",
+            () -> {
+              try (InputStream in = providerClass.getResourceAsStream(resourceName)) {
+                return in == null ? null : ShadowIndex.readFrom(in);
+              } catch (IOException e) {
+                Logger.warn("failed to read shadow index for %s: %s", providerClass.getName(), e);
+                return null;
+              }
+            });
   }
 
   ShadowMap(
       ImmutableListMultimap<String, String> defaultShadows,
       Map<String, ShadowInfo> overriddenShadows) {
-    this(defaultShadows, overriddenShadows, Collections.emptyMap());
+    this(defaultShadows, overriddenShadows, Collections.emptyMap(), Collections.emptyMap());
   }
 
   private ShadowMap(
       ImmutableListMultimap<String, String> defaultShadows,
       Map<String, ShadowInfo> overriddenShadows,
-      Map<String, String> shadowPickers) {
+      Map<String, String> shadowPickers,
+      Map<String, ShadowInfo> indexedShadows) {
     this.defaultShadows = ImmutableListMultimap.copyOf(defaultShadows);
     this.overriddenShadows = ImmutableMap.copyOf(overriddenShadows);
     this.shadowPickers = ImmutableMap.copyOf(shadowPickers);
+    this.indexedShadows = ImmutableMap.copyOf(indexedShadows);
   }
 
   public boolean hasShadowPicker(MutableClass mutableClass) {
@@ -85,8 +127,11 @@ public class ShadowMap {
         final ImmutableList<String> shadowNames = defaultShadows.get(clazz.getCanonicalName());
         for (String shadowName : shadowNames) {
           if (shadowName != null) {
-            Class<?> shadowClass = clazz.getClassLoader().loadClass(shadowName);
-            shadowInfo = obtainShadowInfo(shadowClass);
+            shadowInfo = indexedShadows.get(shadowName);
+            if (shadowInfo == null) {
+              Class<?> shadowClass = clazz.getClassLoader().loadClass(shadowName);
+              shadowInfo = obtainShadowInfo(shadowClass);
+            }
             if (!shadowInfo.shadowedClassName.equals(instrumentedClassName)) {
               // somehow we got the wrong shadow class?
               shadowInfo = null;
@@ -129,7 +174,10 @@ public class ShadowMap {
       if (selectedShadowClass == null) {
         return obtainShadowInfo(Object.class, true);
       }
-      ShadowInfo shadowInfo = obtainShadowInfo(selectedShadowClass);
+      ShadowInfo shadowInfo = indexedShadows.get(selectedShadowClass.getName());
+      if (shadowInfo == null) {
+        shadowInfo = obtainShadowInfo(selectedShadowClass);
+      }
 
       if (!shadowInfo.shadowedClassName.equals(instrumentedClassName)) {
         throw new IllegalArgumentException(
@@ -153,7 +201,16 @@ public class ShadowMap {
 
   private ShadowInfo pickShadow(
       String instrumentedClassName, Class<?> clazz, ShadowInfo shadowInfo) {
-    return pickShadow(instrumentedClassName, clazz, shadowInfo.getShadowPickerClass().getName());
+    return pickShadow(instrumentedClassName, clazz, shadowInfo.getShadowPickerClassName());
+  }
+
+  /**
+   * Returns the {@link ShadowInfo} for a shadow class, from the index if possible, or null if the
+   * class isn't annotated with {@link Implements}.
+   */
+  ShadowInfo getShadowInfoForShadowClass(Class<?> shadowClass) {
+    ShadowInfo shadowInfo = indexedShadows.get(shadowClass.getName());
+    return shadowInfo != null ? shadowInfo : obtainShadowInfo(shadowClass, true);
   }
 
   public static ShadowInfo obtainShadowInfo(Class<?> clazz) {
@@ -233,17 +290,20 @@ public class ShadowMap {
     private final ImmutableListMultimap<String, String> defaultShadows;
     private final Map<String, ShadowInfo> overriddenShadows;
     private final Map<String, String> shadowPickers;
+    private final ImmutableMap<String, ShadowInfo> indexedShadows;
 
     public Builder() {
       defaultShadows = ImmutableListMultimap.of();
       overriddenShadows = new HashMap<>();
       shadowPickers = new HashMap<>();
+      indexedShadows = ImmutableMap.of();
     }
 
     public Builder(ShadowMap shadowMap) {
       this.defaultShadows = shadowMap.defaultShadows;
       this.overriddenShadows = new HashMap<>(shadowMap.overriddenShadows);
       this.shadowPickers = new HashMap<>(shadowMap.shadowPickers);
+      this.indexedShadows = shadowMap.indexedShadows;
     }
 
     public Builder addShadowClasses(Class<?>... shadowClasses) {
@@ -273,12 +333,12 @@ public class ShadowMap {
       overriddenShadows.put(shadowInfo.shadowedClassName, shadowInfo);
       if (shadowInfo.hasShadowPicker()) {
         shadowPickers.put(
-            shadowInfo.shadowedClassName, shadowInfo.getShadowPickerClass().getName());
+            shadowInfo.shadowedClassName, shadowInfo.getShadowPickerClassName());
       }
     }
 
     public ShadowMap build() {
-      return new ShadowMap(defaultShadows, overriddenShadows, shadowPickers);
+      return new ShadowMap(defaultShadows, overriddenShadows, shadowPickers, indexedShadows);
     }
   }
 }
@@ -19,6 +19,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Priority;
 import org.robolectric.annotation.RealObject;
@@ -103,6 +105,18 @@ public class ShadowWrangler implements ClassHandler {
         }
       };
 
+  /** key is instrumented class */
+  private final ClassValueMap<ShadowDispatchTable> cachedDispatchTables =
+      new ClassValueMap<ShadowDispatchTable>() {
+        @Override
+        protected ShadowDispatchTable computeValue(Class<?> type) {
+          return new ShadowDispatchTable(type, getExactShadowInfo(type), shadowMap, shadowMatcher);
+        }
+      };
+
+  /** key is shadow method; shared by all of the call sites dispatching to it */
+  private final Map<Method, MethodHandle> cachedShadowMethodHandles = new ConcurrentHashMap<>();
+
   /** key is shadow class */
   private final ClassValueMap<ShadowMetadata> cachedShadowMetadata =
       new ClassValueMap<ShadowMetadata>() {
@@ -212,22 +226,10 @@ public class ShadowWrangler implements ClassHandler {
                 return DO_NOTHING;
               }
 
-              shadowMethod.setAccessible(true);
-
-              MethodHandle mh;
-              if (name.equals(ShadowConstants.CONSTRUCTOR_METHOD_NAME)) {
-                if (Modifier.isStatic(shadowMethod.getModifiers())) {
-                  throw new UnsupportedOperationException(
-                      "static __constructor__ shadow methods are not supported");
-                }
-                // Use invokespecial to call constructor shadow methods. If invokevirtual is used,
-                // the wrong constructor may be called in situations where constructors with
-                // identical signatures are shadowed in object hierarchies.
-                mh =
-                    privateLookupFor(shadowMethod.getDeclaringClass())
-                        .unreflectSpecial(shadowMethod, shadowMethod.getDeclaringClass());
-              } else {
-                mh = LOOKUP.unreflect(shadowMethod);
+              MethodHandle mh = cachedShadowMethodHandles.get(shadowMethod);
+              if (mh == null) {
+                mh = unreflectShadowMethod(shadowMethod);
+                cachedShadowMethodHandles.put(shadowMethod, mh);
               }
 
               // Robolectric doesn't actually look for static, this for example happens
@@ -240,6 +242,24 @@ public class ShadowWrangler implements ClassHandler {
             });
   }
 
+  private MethodHandle unreflectShadowMethod(Method shadowMethod) throws IllegalAccessException {
+    shadowMethod.setAccessible(true);
+
+    if (shadowMethod.getName().equals(ShadowConstants.CONSTRUCTOR_METHOD_NAME)) {
+      if (Modifier.isStatic(shadowMethod.getModifiers())) {
+        throw new UnsupportedOperationException(
+            "static __constructor__ shadow methods are not supported");
+      }
+      // Use invokespecial to call constructor shadow methods. If invokevirtual is used, the wrong
+      // constructor may be called in situations where constructors with identical signatures are
+      // shadowed in object hierarchies.
+      return privateLookupFor(shadowMethod.getDeclaringClass())
+          .unreflectSpecial(shadowMethod, shadowMethod.getDeclaringClass());
+    } else {
+      return LOOKUP.unreflect(shadowMethod);
+    }
+  }
+
   @SuppressWarnings({"AndroidJdkLibsChecker"})
   private MethodHandles.Lookup privateLookupFor(Class<?> lookupClass)
       throws IllegalAccessException {
@@ -254,19 +274,12 @@ public class ShadowWrangler implements ClassHandler {
   }
 
   protected Method pickShadowMethod(Class<?> definingClass, String name, Class<?>[] paramTypes) {
-    ShadowInfo shadowInfo = getExactShadowInfo(definingClass);
+    ShadowDispatchTable dispatchTable = cachedDispatchTables.get(definingClass);
+    ShadowInfo shadowInfo = dispatchTable.getShadowInfo();
     if (shadowInfo == null) {
       return CALL_REAL_CODE;
     } else {
-      ClassLoader classLoader = definingClass.getClassLoader();
-      Class<?> shadowClass;
-      try {
-        shadowClass = Class.forName(shadowInfo.shadowClassName, false, classLoader);
-      } catch (ClassNotFoundException e) {
-        throw new IllegalStateException(e);
-      }
-
-      Method method = findShadowMethod(definingClass, name, paramTypes, shadowInfo, shadowClass);
+      Method method = dispatchTable.findShadowMethod(name, paramTypes);
       if (method == null) {
         return shadowInfo.callThroughByDefault ? CALL_REAL_CODE : DO_NOTHING_METHOD;
       } else {
@@ -275,84 +288,6 @@ public class ShadowWrangler implements ClassHandler {
     }
   }
 
-  /**
-   * Searches for an {@code @Implementation} method on a given shadow class.
-   *
-   * <p>If the shadow class allows loose signatures, search for them.
-   *
-   * <p>If the shadow class doesn't have such a method, but does have a superclass which implements
-   * the same class as it, call ourself recursively with the shadow superclass.
-   */
-  private Method findShadowMethod(
-      Class<?> definingClass,
-      String name,
-      Class<?>[] types,
-      ShadowInfo shadowInfo,
-      Class<?> shadowClass) {
-    Method method = findShadowMethodDeclaredOnClass(shadowClass, name, types);
-
-    if (method == null && shadowInfo.looseSignatures) {
-      Class<?>[] genericTypes = MethodType.genericMethodType(types.length).parameterArray();
-      method = findShadowMethodDeclaredOnClass(shadowClass, name, genericTypes);
-    }
-
-    if (method != null) {
-      return method;
-    } else {
-      // if the shadow's superclass shadows the same class as this shadow, then recurse.
-      // Buffalo buffalo buffalo buffalo buffalo buffalo buffalo.
-      Class<?> shadowSuperclass = shadowClass.getSuperclass();
-      if (shadowSuperclass != null && !shadowSuperclass.equals(Object.class)) {
-        ShadowInfo shadowSuperclassInfo = ShadowMap.obtainShadowInfo(shadowSuperclass, true);
-        if (shadowSuperclassInfo != null
-            && shadowSuperclassInfo.isShadowOf(definingClass)
-            && shadowMatcher.matches(shadowSuperclassInfo)) {
-
-          method =
-              findShadowMethod(definingClass, name, types, shadowSuperclassInfo, shadowSuperclass);
-        }
-      }
-    }
-
-    return method;
-  }
-
-  private Method findShadowMethodDeclaredOnClass(
-      Class<?> shadowClass, String methodName, Class<?>[] paramClasses) {
-    try {
-      Method method = shadowClass.getDeclaredMethod(methodName, paramClasses);
-
-      // todo: allow per-version overloading
-      // if (method == null) {
-      //   String methodPrefix = name + "$$";
-      //   for (Method candidateMethod : shadowClass.getDeclaredMethods()) {
-      //     if (candidateMethod.getName().startsWith(methodPrefix)) {
-      //
-      //     }
-      //   }
-      // }
-
-      if (isValidShadowMethod(method)) {
-        method.setAccessible(true);
-        return method;
-      } else {
-        return null;
-      }
-
-    } catch (NoSuchMethodException e) {
-      return null;
-    }
-  }
-
-  private boolean isValidShadowMethod(Method method) {
-    int modifiers = method.getModifiers();
-    if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)) {
-      return false;
-    }
-
-    return shadowMatcher.matches(method);
-  }
-
   @Override
   public Object intercept(String signature, Object instance, Object[] params, Class theClass)
       throws Throwable {
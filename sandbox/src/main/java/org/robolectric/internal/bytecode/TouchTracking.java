@@ -0,0 +1,146 @@
+package org.robolectric.internal.bytecode;
+
+import java.lang.reflect.Modifier;
+import java.util.ListIterator;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Generates the bytecode through which classes report to {@link
+ * RobolectricInternals#touched(Class)} that they have been used during the current test, so that
+ * only the resetters of shadows which may hold state need to run afterwards.
+ *
+ * <p>A class which tracks touches gets a {@link ShadowConstants#TOUCH_METHOD_NAME} method like:
+ *
+ * <pre>
+ * private static void $$robo$touch() {
+ *   if (__robo_touched__ != RobolectricInternals.touchedEpoch) {
+ *     __robo_touched__ = RobolectricInternals.touchedEpoch;
+ *     RobolectricInternals.touched(ReportedClass.class);
+ *   }
+ * }
+ * </pre>
+ */
+final class TouchTracking {
+  private static final String INTERNALS = Type.getInternalName(RobolectricInternals.class);
+  private static final String TOUCHED_DESC = "(Ljava/lang/Class;)V";
+
+  private TouchTracking() {}
+
+  /**
+   * Adds the touch method and its epoch field to the given class, which must not be an interface.
+   *
+   * @param reportedClass the class to report as touched whenever the returned method is first
+   *     called in a test
+   */
+  static MethodInsnNode addTouchMethod(ClassNode classNode, Type reportedClass) {
+    classNode.fields.add(
+        new FieldNode(
+            Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC,
+            ShadowConstants.TOUCHED_EPOCH_FIELD_NAME,
+            "I",
+            null,
+            null));
+
+    MethodNode touch =
+        new MethodNode(
+            Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC,
+            ShadowConstants.TOUCH_METHOD_NAME,
+            "()V",
+            null,
+            null);
+    LabelNode alreadyTouched = new LabelNode();
+    touch.instructions.add(epochField(Opcodes.GETSTATIC, classNode.name));
+    touch.instructions.add(epochField(Opcodes.GETSTATIC, INTERNALS));
+    touch.instructions.add(new JumpInsnNode(Opcodes.IF_ICMPEQ, alreadyTouched));
+    touch.instructions.add(epochField(Opcodes.GETSTATIC, INTERNALS));
+    touch.instructions.add(epochField(Opcodes.PUTSTATIC, classNode.name));
+    touch.instructions.add(new LdcInsnNode(reportedClass));
+    touch.instructions.add(
+        new MethodInsnNode(Opcodes.INVOKESTATIC, INTERNALS, "touched", TOUCHED_DESC, false));
+    touch.instructions.add(alreadyTouched);
+    touch.instructions.add(new FrameNode(Opcodes.F_SAME, 0, null, 0, null));
+    touch.instructions.add(new InsnNode(Opcodes.RETURN));
+    touch.maxStack = 2;
+    classNode.methods.add(touch);
+
+    return touchCall(classNode);
+  }
+
+  static MethodInsnNode touchCall(ClassNode classNode) {
+    return new MethodInsnNode(
+        Opcodes.INVOKESTATIC, classNode.name, ShadowConstants.TOUCH_METHOD_NAME, "()V", false);
+  }
+
+  /**
+   * Makes a class which isn't otherwise instrumented report touches: every method reports {@code
+   * reportedClass}, and every access to a static field of another class in the same package
+   * reports that class, since shadows commonly share static state within their package.
+   *
+   * @param reportedClass the binary name of the class to report when methods of this class are
+   *     called
+   */
+  static byte[] addTouchTracking(byte[] classBytes, String reportedClass) {
+    ClassNode classNode = new ClassNode(Opcodes.ASM9);
+    new ClassReader(classBytes).accept(classNode, 0);
+    Type reportedType = Type.getObjectType(reportedClass.replace('.', '/'));
+    String packagePrefix = classNode.name.substring(0, classNode.name.lastIndexOf('/') + 1);
+
+    // Methods added below must not themselves be rewritten.
+    MethodNode[] methods = classNode.methods.toArray(new MethodNode[0]);
+    addTouchMethod(classNode, reportedType);
+    for (MethodNode method : methods) {
+      if (Modifier.isAbstract(method.access) || Modifier.isNative(method.access)) {
+        continue;
+      }
+      reportStaticFieldOwners(method, classNode.name, reportedType, packagePrefix);
+      if (!method.name.equals("<clinit>")) {
+        method.instructions.insert(touchCall(classNode));
+      }
+    }
+
+    ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    classNode.accept(writer);
+    return writer.toByteArray();
+  }
+
+  private static void reportStaticFieldOwners(
+      MethodNode method, String className, Type reportedType, String packagePrefix) {
+    ListIterator<AbstractInsnNode> instructions = method.instructions.iterator();
+    while (instructions.hasNext()) {
+      AbstractInsnNode node = instructions.next();
+      if (node.getOpcode() != Opcodes.GETSTATIC && node.getOpcode() != Opcodes.PUTSTATIC) {
+        continue;
+      }
+      String owner = ((FieldInsnNode) node).owner;
+      if (owner.equals(className)
+          || owner.equals(reportedType.getInternalName())
+          || !owner.startsWith(packagePrefix)
+          || owner.indexOf('/', packagePrefix.length()) != -1) {
+        continue;
+      }
+      method.instructions.insertBefore(node, new LdcInsnNode(Type.getObjectType(owner)));
+      method.instructions.insertBefore(
+          node, new MethodInsnNode(Opcodes.INVOKESTATIC, INTERNALS, "touched", TOUCHED_DESC, false));
+    }
+  }
+
+  private static FieldInsnNode epochField(int opcode, String owner) {
+    String name =
+        owner.equals(INTERNALS) ? "touchedEpoch" : ShadowConstants.TOUCHED_EPOCH_FIELD_NAME;
+    return new FieldInsnNode(opcode, owner, name, "I");
+  }
+}
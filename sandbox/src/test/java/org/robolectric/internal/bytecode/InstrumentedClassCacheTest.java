@@ -0,0 +1,177 @@
+package org.robolectric.internal.bytecode;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InstrumentedClassCacheTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path cacheDir;
+  private InstrumentationConfiguration config;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDir = tempFolder.newFolder("cache").toPath();
+    config = InstrumentationConfiguration.newBuilder().addInstrumentedPackage("a.b").build();
+  }
+
+  @Test
+  public void get_whenAbsent_returnsNull() {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    assertThat(cache.get(cache.computeKey(bytes("class"), config))).isNull();
+  }
+
+  @Test
+  public void put_thenGet_returnsStoredBytes() {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    String key = cache.computeKey(bytes("class"), config, "sdk=30");
+    cache.put(key, bytes("instrumented"));
+
+    assertThat(cache.get(key)).isEqualTo(bytes("instrumented"));
+  }
+
+  @Test
+  public void entriesAreSharedBetweenInstances() {
+    InstrumentedClassCache writer = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    InstrumentedClassCache reader = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    writer.put(writer.computeKey(bytes("class"), config), bytes("instrumented"));
+
+    assertThat(reader.get(reader.computeKey(bytes("class"), config)))
+        .isEqualTo(bytes("instrumented"));
+  }
+
+  @Test
+  public void computeKey_dependsOnAllInputs() {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    InstrumentedClassCache otherRuntimeCache =
+        new InstrumentedClassCache(cacheDir, 1024, "other runtime");
+    InstrumentationConfiguration otherConfig =
+        InstrumentationConfiguration.newBuilder().addInstrumentedPackage("a.c").build();
+
+    String key = cache.computeKey(bytes("class"), config, "sdk=30");
+    assertThat(cache.computeKey(bytes("class"), config, "sdk=30")).isEqualTo(key);
+    assertThat(cache.computeKey(bytes("other class"), config, "sdk=30")).isNotEqualTo(key);
+    assertThat(cache.computeKey(bytes("class"), otherConfig, "sdk=30")).isNotEqualTo(key);
+    assertThat(cache.computeKey(bytes("class"), config, "sdk=31")).isNotEqualTo(key);
+    assertThat(otherRuntimeCache.computeKey(bytes("class"), config, "sdk=30")).isNotEqualTo(key);
+  }
+
+  @Test
+  public void put_whenOverMaxSize_evictsLeastRecentlyUsedEntries() throws Exception {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 250, "runtime");
+    String first = cache.computeKey(bytes("first"), config);
+    String second = cache.computeKey(bytes("second"), config);
+    String third = cache.computeKey(bytes("third"), config);
+
+    cache.put(first, new byte[100]);
+    cache.put(second, new byte[100]);
+    backdateEntries(); // make both existing entries older than any later access
+    assertThat(cache.get(first)).isNotNull(); // first is now the most recently used
+    cache.put(third, new byte[100]);
+
+    assertThat(cache.get(first)).isNotNull();
+    assertThat(cache.get(second)).isNull();
+    assertThat(cache.get(third)).isNotNull();
+  }
+
+  @Test
+  public void get_recentlyUsedEntry_doesNotRewriteModificationTime() throws Exception {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    String key = cache.computeKey(bytes("class"), config);
+    cache.put(key, bytes("instrumented"));
+    Path entry;
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      entry = files.filter(Files::isRegularFile).findFirst().get();
+    }
+    FileTime recent = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+    Files.setLastModifiedTime(entry, recent);
+
+    assertThat(cache.get(key)).isNotNull();
+
+    assertThat(Files.getLastModifiedTime(entry)).isEqualTo(recent);
+  }
+
+  @Test
+  public void put_leavesNoTemporaryFiles() throws Exception {
+    InstrumentedClassCache cache = new InstrumentedClassCache(cacheDir, 1024, "runtime");
+    cache.put(cache.computeKey(bytes("class"), config), bytes("instrumented"));
+
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      assertThat(files.filter(Files::isRegularFile).allMatch(p -> p.toString().endsWith(".class")))
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void fingerprint_isIndependentOfInsertionOrder() {
+    InstrumentationConfiguration a =
+        InstrumentationConfiguration.newBuilder()
+            .addInstrumentedPackage("x")
+            .addInstrumentedPackage("y")
+            .build();
+    InstrumentationConfiguration b =
+        InstrumentationConfiguration.newBuilder()
+            .addInstrumentedPackage("y")
+            .addInstrumentedPackage("x")
+            .build();
+
+    assertThat(a.fingerprint()).isEqualTo(b.fingerprint());
+  }
+
+  @Test
+  public void hashDirectory_changesWhenAnyFileChanges() throws Exception {
+    Path classesDir = tempFolder.newFolder("classes").toPath();
+    Path nested = Files.createDirectories(classesDir.resolve("org/example"));
+    Files.write(nested.resolve("Instrumentor.class"), bytes("v1"));
+    Files.write(classesDir.resolve("Other.class"), bytes("other"));
+    FileTime lastModified = Files.getLastModifiedTime(nested.resolve("Instrumentor.class"));
+    String hash = InstrumentedClassCache.hashDirectory(classesDir);
+
+    assertThat(InstrumentedClassCache.hashDirectory(classesDir)).isEqualTo(hash);
+    Files.write(nested.resolve("Instrumentor.class"), bytes("v2"));
+    Files.setLastModifiedTime(nested.resolve("Instrumentor.class"), lastModified);
+    assertThat(InstrumentedClassCache.hashDirectory(classesDir)).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void fingerprintClasses_dependsOnClassBytes() {
+    String fingerprint =
+        InstrumentedClassCache.fingerprintClasses(ClassInstrumentor.class, ShadowDecorator.class);
+
+    assertThat(
+            InstrumentedClassCache.fingerprintClasses(
+                ClassInstrumentor.class, ShadowDecorator.class))
+        .isEqualTo(fingerprint);
+    assertThat(
+            InstrumentedClassCache.fingerprintClasses(
+                InvokeDynamicClassInstrumentor.class, ShadowDecorator.class))
+        .isNotEqualTo(fingerprint);
+  }
+
+  private void backdateEntries() throws Exception {
+    try (Stream<Path> files = Files.walk(cacheDir)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        Files.setLastModifiedTime(
+            file,
+            FileTime.fromMillis(
+                System.currentTimeMillis() - 2 * InstrumentedClassCache.TOUCH_INTERVAL_MILLIS));
+      }
+    }
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(UTF_8);
+  }
+}
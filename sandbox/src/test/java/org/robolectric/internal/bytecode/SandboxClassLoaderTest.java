@@ -66,7 +66,10 @@ import org.robolectric.testing.AnExampleClass;
 import org.robolectric.testing.AnInstrumentedChild;
 import org.robolectric.testing.AnUninstrumentedClass;
 import org.robolectric.testing.AnUninstrumentedParent;
+import org.robolectric.testing.ShadowFoo;
+import org.robolectric.testing.ShadowFooParent;
 import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
 import org.robolectric.util.Util;
 
 @RunWith(JUnit4.class)
@@ -514,6 +517,31 @@ public class SandboxClassLoaderTest {
     assertEquals("yess? forget this: null", output);
   }
 
+  @Test
+  public void shouldReportTouchedShadowAndInstrumentedClassesUntilCleared() throws Exception {
+    Class<?> instrumentedClass = loadClass(AClassWithStaticMethod.class);
+    Class<?> shadowClass = loadClass(ShadowFoo.class);
+    Class<?> robolectricInternals = classLoader.loadClass(RobolectricInternals.class.getName());
+    assertThat(wasTouched(robolectricInternals, AClassWithStaticMethod.class)).isFalse();
+    assertThat(wasTouched(robolectricInternals, ShadowFoo.class)).isFalse();
+
+    instrumentedClass.getMethod("staticMethod", String.class).invoke(null, "value");
+    shadowClass.getConstructor().newInstance();
+    assertThat(wasTouched(robolectricInternals, AClassWithStaticMethod.class)).isTrue();
+    assertThat(wasTouched(robolectricInternals, ShadowFoo.class)).isTrue();
+    assertThat(wasTouched(robolectricInternals, ShadowFooParent.class)).isTrue();
+
+    ReflectionHelpers.callStaticMethod(robolectricInternals, "clearTouchedClasses");
+    instrumentedClass.getMethod("staticMethod", String.class).invoke(null, "value");
+    assertThat(wasTouched(robolectricInternals, AClassWithStaticMethod.class)).isTrue();
+    assertThat(wasTouched(robolectricInternals, ShadowFoo.class)).isFalse();
+  }
+
+  private static boolean wasTouched(Class<?> robolectricInternals, Class<?> clazz) {
+    return ReflectionHelpers.callStaticMethod(
+        robolectricInternals, "wasTouched", ClassParameter.from(String.class, clazz.getName()));
+  }
+
   @Nonnull
   private InstrumentationConfiguration.Builder configureBuilder() {
     InstrumentationConfiguration.Builder builder = InstrumentationConfiguration.newBuilder();
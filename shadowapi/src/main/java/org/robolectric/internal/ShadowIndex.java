@@ -0,0 +1,245 @@
+package org.robolectric.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A compact description of the shadows provided by a {@link ShadowProvider}, generated by the
+ * Robolectric annotation processor.
+ *
+ * <p>The index holds what would otherwise be read reflectively from each shadow class: its
+ * {@link org.robolectric.annotation.Implements} attributes, and the public and protected methods
+ * it declares. It is stored as a resource named {@code <provider simple name>}{@link
+ * #RESOURCE_SUFFIX} in the provider's package.
+ */
+public final class ShadowIndex {
+
+  public static final String RESOURCE_SUFFIX = ".shadowindex";
+
+  private static final int MAGIC = 0x53484458; // "SHDX"
+  private static final int VERSION = 1;
+
+  private final List<ShadowEntry> shadows;
+
+  public ShadowIndex(List<ShadowEntry> shadows) {
+    this.shadows = Collections.unmodifiableList(new ArrayList<>(shadows));
+  }
+
+  public List<ShadowEntry> getShadows() {
+    return shadows;
+  }
+
+  /** Writes this index. Class and type names are stored once, in a string table. */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    for (ShadowEntry shadow : shadows) {
+      intern(strings, shadow.shadowClassName);
+      intern(strings, shadow.shadowedClassName);
+      if (shadow.shadowPickerClassName != null) {
+        intern(strings, shadow.shadowPickerClassName);
+      }
+      for (MethodEntry method : shadow.methods) {
+        intern(strings, method.name);
+        for (String parameterTypeName : method.parameterTypeNames) {
+          intern(strings, parameterTypeName);
+        }
+      }
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(strings.size());
+    for (String string : strings.keySet()) {
+      out.writeUTF(string);
+    }
+    out.writeInt(shadows.size());
+    for (ShadowEntry shadow : shadows) {
+      out.writeInt(strings.get(shadow.shadowClassName));
+      out.writeInt(strings.get(shadow.shadowedClassName));
+      out.writeInt(
+          shadow.shadowPickerClassName == null ? -1 : strings.get(shadow.shadowPickerClassName));
+      out.writeInt(shadow.minSdk);
+      out.writeInt(shadow.maxSdk);
+      out.writeBoolean(shadow.callThroughByDefault);
+      out.writeBoolean(shadow.looseSignatures);
+      out.writeInt(shadow.methods.size());
+      for (MethodEntry method : shadow.methods) {
+        out.writeInt(strings.get(method.name));
+        out.writeByte(method.parameterTypeNames.length);
+        for (String parameterTypeName : method.parameterTypeNames) {
+          out.writeInt(strings.get(parameterTypeName));
+        }
+      }
+    }
+    out.flush();
+  }
+
+  /** Reads an index written by {@link #writeTo(OutputStream)}. */
+  public static ShadowIndex readFrom(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != MAGIC) {
+      throw new IOException("not a shadow index");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported shadow index version " + version);
+    }
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    int shadowCount = in.readInt();
+    List<ShadowEntry> shadows = new ArrayList<>(shadowCount);
+    for (int i = 0; i < shadowCount; i++) {
+      String shadowClassName = strings[in.readInt()];
+      String shadowedClassName = strings[in.readInt()];
+      int shadowPickerIndex = in.readInt();
+      int minSdk = in.readInt();
+      int maxSdk = in.readInt();
+      boolean callThroughByDefault = in.readBoolean();
+      boolean looseSignatures = in.readBoolean();
+      int methodCount = in.readInt();
+      List<MethodEntry> methods = new ArrayList<>(methodCount);
+      for (int j = 0; j < methodCount; j++) {
+        String name = strings[in.readInt()];
+        String[] parameterTypeNames = new String[in.readUnsignedByte()];
+        for (int k = 0; k < parameterTypeNames.length; k++) {
+          parameterTypeNames[k] = strings[in.readInt()];
+        }
+        methods.add(new MethodEntry(name, parameterTypeNames));
+      }
+      shadows.add(
+          new ShadowEntry(
+              shadowClassName,
+              shadowedClassName,
+              shadowPickerIndex == -1 ? null : strings[shadowPickerIndex],
+              minSdk,
+              maxSdk,
+              callThroughByDefault,
+              looseSignatures,
+              methods));
+    }
+    return new ShadowIndex(shadows);
+  }
+
+  private static void intern(Map<String, Integer> strings, String string) {
+    if (!strings.containsKey(string)) {
+      strings.put(string, strings.size());
+    }
+  }
+
+  /** The attributes of a single shadow class. */
+  public static final class ShadowEntry {
+    public final String shadowClassName;
+    public final String shadowedClassName;
+    @Nullable public final String shadowPickerClassName;
+    public final int minSdk;
+    public final int maxSdk;
+    public final boolean callThroughByDefault;
+    public final boolean looseSignatures;
+    private final List<MethodEntry> methods;
+    private final Map<String, List<String[]>> methodsByName = new HashMap<>();
+
+    /**
+     * @param shadowClassName the binary name of the shadow class
+     * @param shadowedClassName the name of the shadowed class, as it would be read from the
+     *     shadow's {@code @Implements} annotation at runtime
+     * @param methods the public and protected methods declared by the shadow class
+     */
+    public ShadowEntry(
+        String shadowClassName,
+        String shadowedClassName,
+        @Nullable String shadowPickerClassName,
+        int minSdk,
+        int maxSdk,
+        boolean callThroughByDefault,
+        boolean looseSignatures,
+        List<MethodEntry> methods) {
+      this.shadowClassName = shadowClassName;
+      this.shadowedClassName = shadowedClassName;
+      this.shadowPickerClassName = shadowPickerClassName;
+      this.minSdk = minSdk;
+      this.maxSdk = maxSdk;
+      this.callThroughByDefault = callThroughByDefault;
+      this.looseSignatures = looseSignatures;
+      this.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+      for (MethodEntry method : methods) {
+        List<String[]> overloads = methodsByName.get(method.name);
+        if (overloads == null) {
+          overloads = new ArrayList<>(1);
+          methodsByName.put(method.name, overloads);
+        }
+        overloads.add(method.parameterTypeNames);
+      }
+    }
+
+    public List<MethodEntry> getMethods() {
+      return methods;
+    }
+
+    /**
+     * Returns true if the shadow class declares a public or protected method with the given name
+     * and parameter types.
+     */
+    public boolean declaresMethod(String name, Class<?>[] parameterTypes) {
+      List<String[]> candidates = methodsByName.get(name);
+      if (candidates == null) {
+        return false;
+      }
+      for (String[] parameterTypeNames : candidates) {
+        if (parameterTypeNames.length == parameterTypes.length
+            && parameterTypesMatch(parameterTypeNames, parameterTypes)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean parameterTypesMatch(
+        String[] parameterTypeNames, Class<?>[] parameterTypes) {
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (!parameterTypeNames[i].equals(parameterTypes[i].getName())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** A method declared by a shadow class. */
+  public static final class MethodEntry {
+    public final String name;
+    private final String[] parameterTypeNames;
+
+    /**
+     * @param parameterTypeNames the erased parameter types, named as by {@link Class#getName()}
+     */
+    public MethodEntry(String name, String[] parameterTypeNames) {
+      this.name = name;
+      this.parameterTypeNames = parameterTypeNames.clone();
+    }
+
+    public String[] getParameterTypeNames() {
+      return parameterTypeNames.clone();
+    }
+
+    @Override
+    public String toString() {
+      return name + Arrays.toString(parameterTypeNames);
+    }
+  }
+}
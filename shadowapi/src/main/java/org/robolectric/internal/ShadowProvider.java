@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Predicate;
 
 /**
  * Interface implemented by packages that provide shadows to Robolectric.
@@ -16,6 +17,20 @@ public interface ShadowProvider {
    */
   void reset();
 
+  /**
+   * Reset the static state of shadows provided by this package, skipping shadows whose state
+   * cannot have changed: those for which neither the shadow class nor the shadowed class has been
+   * touched since the last reset.
+   *
+   * <p>The default implementation resets every shadow.
+   *
+   * @param wasTouched returns whether the class with the given binary name has been touched in the
+   *     current sandbox since the last reset
+   */
+  default void reset(Predicate<String> wasTouched) {
+    reset();
+  }
+
   /**
    * Array of Java package names that are shadowed by this package.
    *
@@ -0,0 +1,114 @@
+package org.robolectric.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.robolectric.internal.ShadowIndex.MethodEntry;
+import org.robolectric.internal.ShadowIndex.ShadowEntry;
+
+@RunWith(JUnit4.class)
+public class ShadowIndexTest {
+
+  @Test
+  public void writeTo_readFrom_roundTrips() throws Exception {
+    ShadowIndex index =
+        new ShadowIndex(
+            Arrays.asList(
+                new ShadowEntry(
+                    "org.example.ShadowThing",
+                    "com.example.Thing",
+                    null,
+                    21,
+                    -1,
+                    true,
+                    false,
+                    Arrays.asList(
+                        new MethodEntry("__constructor__", new String[0]),
+                        new MethodEntry("get", new String[] {"int", "java.lang.String"}))),
+                new ShadowEntry(
+                    "org.example.ShadowOther$ShadowInner",
+                    "com.example.Other$Inner",
+                    "org.example.ShadowOther$Picker",
+                    -1,
+                    28,
+                    false,
+                    true,
+                    Collections.emptyList())));
+
+    ShadowIndex copy = roundTrip(index);
+
+    assertThat(copy.getShadows()).hasSize(2);
+    ShadowEntry thing = copy.getShadows().get(0);
+    assertThat(thing.shadowClassName).isEqualTo("org.example.ShadowThing");
+    assertThat(thing.shadowedClassName).isEqualTo("com.example.Thing");
+    assertThat(thing.shadowPickerClassName).isNull();
+    assertThat(thing.minSdk).isEqualTo(21);
+    assertThat(thing.maxSdk).isEqualTo(-1);
+    assertThat(thing.callThroughByDefault).isTrue();
+    assertThat(thing.looseSignatures).isFalse();
+    assertThat(thing.getMethods()).hasSize(2);
+    assertThat(thing.getMethods().get(1).name).isEqualTo("get");
+    assertThat(thing.getMethods().get(1).getParameterTypeNames())
+        .asList()
+        .containsExactly("int", "java.lang.String")
+        .inOrder();
+
+    ShadowEntry inner = copy.getShadows().get(1);
+    assertThat(inner.shadowClassName).isEqualTo("org.example.ShadowOther$ShadowInner");
+    assertThat(inner.shadowPickerClassName).isEqualTo("org.example.ShadowOther$Picker");
+    assertThat(inner.maxSdk).isEqualTo(28);
+    assertThat(inner.callThroughByDefault).isFalse();
+    assertThat(inner.looseSignatures).isTrue();
+    assertThat(inner.getMethods()).isEmpty();
+  }
+
+  @Test
+  public void declaresMethod_matchesParameterTypesByClassName() {
+    ShadowEntry shadow =
+        new ShadowEntry(
+            "org.example.ShadowThing",
+            "com.example.Thing",
+            null,
+            -1,
+            -1,
+            true,
+            false,
+            Arrays.asList(
+                new MethodEntry("set", new String[] {"int", "[J", "[[Ljava.lang.String;"}),
+                new MethodEntry("set", new String[] {"java.util.Map$Entry"}),
+                new MethodEntry("reset", new String[0])));
+
+    assertThat(
+            shadow.declaresMethod(
+                "set", new Class<?>[] {int.class, long[].class, String[][].class}))
+        .isTrue();
+    assertThat(shadow.declaresMethod("set", new Class<?>[] {Map.Entry.class})).isTrue();
+    assertThat(shadow.declaresMethod("reset", new Class<?>[0])).isTrue();
+
+    assertThat(shadow.declaresMethod("set", new Class<?>[] {Map.class})).isFalse();
+    assertThat(shadow.declaresMethod("set", new Class<?>[0])).isFalse();
+    assertThat(shadow.declaresMethod("get", new Class<?>[0])).isFalse();
+  }
+
+  @Test
+  public void readFrom_rejectsOtherData() {
+    assertThrows(
+        IOException.class,
+        () -> ShadowIndex.readFrom(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})));
+  }
+
+  private static ShadowIndex roundTrip(ShadowIndex index) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.writeTo(out);
+    return ShadowIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+  }
+}
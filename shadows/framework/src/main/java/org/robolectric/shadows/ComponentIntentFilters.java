@@ -0,0 +1,298 @@
+package org.robolectric.shadows;
+
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.IntentFilter;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * The intent filters registered for one kind of component (activities, services, receivers or
+ * providers), keyed by component.
+ *
+ * <p>Like the platform's {@code IntentResolver}, the filters are indexed by action, data scheme and
+ * MIME type, so that resolving an intent only matches the filters of components which could
+ * possibly handle it. The index is updated as components and filters are added and removed, but
+ * not when a filter is modified, so filters must not be modified once they have been added. {@link
+ * ShadowPackageManager} copies the filters it is given and hands out, so that its callers can't.
+ *
+ * <p>A component which exists but has no filters has an entry with an empty list.
+ */
+final class ComponentIntentFilters {
+
+  private final SortedMap<ComponentName, List<IntentFilter>> filters = new TreeMap<>();
+
+  // Components by the keys of their filters. A component is indexed under a key if any of its
+  // filters has it.
+  private final SetMultimap<String, ComponentName> byAction = HashMultimap.create();
+  private final SetMultimap<String, ComponentName> byScheme = HashMultimap.create();
+  private final Set<ComponentName> withoutScheme = new HashSet<>();
+  private final SetMultimap<String, ComponentName> byBaseType = HashMultimap.create();
+  private final Set<ComponentName> withType = new HashSet<>();
+  private final Set<ComponentName> withoutType = new HashSet<>();
+
+  /** The keys each component was indexed under, so that it can be removed from the index. */
+  private final Map<ComponentName, IndexKeys> indexedKeys = new HashMap<>();
+
+  /** Returns the filters of the given component, or null if the component doesn't exist. */
+  @Nullable
+  List<IntentFilter> getFilters(ComponentName componentName) {
+    List<IntentFilter> componentFilters = filters.get(componentName);
+    return componentFilters == null ? null : Collections.unmodifiableList(componentFilters);
+  }
+
+  /** Adds a component without filters, replacing any existing filters. */
+  void putComponent(ComponentName componentName) {
+    unindex(componentName);
+    filters.put(componentName, new ArrayList<>());
+    index(componentName);
+  }
+
+  /** Adds filters to a component, adding the component if it doesn't exist. */
+  void addComponentFilters(ComponentName componentName, Collection<IntentFilter> newFilters) {
+    unindex(componentName);
+    List<IntentFilter> componentFilters = filters.get(componentName);
+    if (componentFilters == null) {
+      componentFilters = new ArrayList<>();
+      filters.put(componentName, componentFilters);
+    }
+    componentFilters.addAll(newFilters);
+    index(componentName);
+  }
+
+  /**
+   * Adds a filter to an existing component.
+   *
+   * @return false if the component doesn't exist
+   */
+  boolean addFilter(ComponentName componentName, IntentFilter filter) {
+    if (!filters.containsKey(componentName)) {
+      return false;
+    }
+    addComponentFilters(componentName, Collections.singletonList(filter));
+    return true;
+  }
+
+  /**
+   * Removes the filters of an existing component.
+   *
+   * @return false if the component doesn't exist
+   */
+  boolean clearFilters(ComponentName componentName) {
+    List<IntentFilter> componentFilters = filters.get(componentName);
+    if (componentFilters == null) {
+      return false;
+    }
+    unindex(componentName);
+    componentFilters.clear();
+    index(componentName);
+    return true;
+  }
+
+  void removeComponent(ComponentName componentName) {
+    unindex(componentName);
+    filters.remove(componentName);
+  }
+
+  void removePackage(String packageName) {
+    Iterator<ComponentName> iterator = forPackage(packageName).keySet().iterator();
+    while (iterator.hasNext()) {
+      unindex(iterator.next());
+      iterator.remove();
+    }
+  }
+
+  void clear() {
+    filters.clear();
+    byAction.clear();
+    byScheme.clear();
+    withoutScheme.clear();
+    byBaseType.clear();
+    withType.clear();
+    withoutType.clear();
+    indexedKeys.clear();
+  }
+
+  /**
+   * Returns the components which might have a filter matching the intent, with their filters, in
+   * component name order. If the intent specifies a package, only components in that package are
+   * returned.
+   *
+   * <p>Every component with a matching filter is returned, but the filters still need to be
+   * matched against the intent.
+   */
+  List<Map.Entry<ComponentName, List<IntentFilter>>> getCandidates(Intent intent) {
+    SortedMap<ComponentName, List<IntentFilter>> packageFilters = forPackage(intent.getPackage());
+    Collection<ComponentName> packageComponents = packageFilters.keySet();
+    Collection<ComponentName> candidates = smallest(packageComponents, actionCandidates(intent));
+    candidates = smallest(candidates, schemeCandidates(intent));
+    candidates = smallest(candidates, typeCandidates(intent));
+
+    List<ComponentName> componentNames;
+    if (candidates == packageComponents) {
+      componentNames = new ArrayList<>(packageComponents);
+    } else {
+      componentNames = new ArrayList<>(candidates.size());
+      for (ComponentName componentName : candidates) {
+        if (packageFilters.containsKey(componentName)) {
+          componentNames.add(componentName);
+        }
+      }
+      Collections.sort(componentNames);
+    }
+
+    List<Map.Entry<ComponentName, List<IntentFilter>>> result =
+        new ArrayList<>(componentNames.size());
+    for (ComponentName componentName : componentNames) {
+      result.add(
+          new SimpleImmutableEntry<>(
+              componentName, Collections.unmodifiableList(filters.get(componentName))));
+    }
+    return result;
+  }
+
+  @Nullable
+  private Collection<ComponentName> actionCandidates(Intent intent) {
+    // Filters without actions never match an intent with one, and any filter can match an intent
+    // without one.
+    String action = intent.getAction();
+    return action == null ? null : byAction.get(action);
+  }
+
+  private Collection<ComponentName> schemeCandidates(Intent intent) {
+    // Mirrors IntentFilter.matchData(): a filter with schemes requires the intent's scheme, or ""
+    // if there is none, while one without only accepts intents without a scheme, or with a
+    // content: or file: URI.
+    String scheme = intent.getScheme();
+    Set<ComponentName> withScheme = byScheme.get(scheme == null ? "" : scheme);
+    if (scheme == null || scheme.isEmpty() || scheme.equals("content") || scheme.equals("file")) {
+      return union(withScheme, withoutScheme);
+    }
+    return withScheme;
+  }
+
+  private Collection<ComponentName> typeCandidates(Intent intent) {
+    // Mirrors IntentFilter.findMimeType(): a filter with types only matches intents with a type,
+    // of the same base type unless either is a wildcard.
+    String type = intent.getType();
+    if (type == null) {
+      return withoutType;
+    } else if (type.equals("*/*")) {
+      return withType;
+    }
+    return union(byBaseType.get(baseType(type)), byBaseType.get("*"));
+  }
+
+  private SortedMap<ComponentName, List<IntentFilter>> forPackage(@Nullable String packageName) {
+    return ShadowPackageManager.mapForPackage(filters, packageName);
+  }
+
+  private void index(ComponentName componentName) {
+    IndexKeys keys = new IndexKeys();
+    for (IntentFilter filter : filters.get(componentName)) {
+      for (int i = 0; i < filter.countActions(); i++) {
+        keys.actions.add(filter.getAction(i));
+      }
+      if (filter.countDataSchemes() == 0) {
+        keys.withoutScheme = true;
+      }
+      for (int i = 0; i < filter.countDataSchemes(); i++) {
+        keys.schemes.add(filter.getDataScheme(i));
+      }
+      if (filter.countDataTypes() == 0) {
+        keys.withoutType = true;
+      }
+      for (Iterator<String> types = filter.typesIterator();
+          types != null && types.hasNext(); ) {
+        keys.baseTypes.add(baseType(types.next()));
+      }
+    }
+
+    for (String action : keys.actions) {
+      byAction.put(action, componentName);
+    }
+    for (String scheme : keys.schemes) {
+      byScheme.put(scheme, componentName);
+    }
+    for (String baseType : keys.baseTypes) {
+      byBaseType.put(baseType, componentName);
+    }
+    if (keys.withoutScheme) {
+      withoutScheme.add(componentName);
+    }
+    if (!keys.baseTypes.isEmpty()) {
+      withType.add(componentName);
+    }
+    if (keys.withoutType) {
+      withoutType.add(componentName);
+    }
+    indexedKeys.put(componentName, keys);
+  }
+
+  private void unindex(ComponentName componentName) {
+    IndexKeys keys = indexedKeys.remove(componentName);
+    if (keys == null) {
+      return;
+    }
+    for (String action : keys.actions) {
+      byAction.remove(action, componentName);
+    }
+    for (String scheme : keys.schemes) {
+      byScheme.remove(scheme, componentName);
+    }
+    for (String baseType : keys.baseTypes) {
+      byBaseType.remove(baseType, componentName);
+    }
+    withoutScheme.remove(componentName);
+    withType.remove(componentName);
+    withoutType.remove(componentName);
+  }
+
+  /**
+   * Returns the part of a MIME type before the slash. IntentFilter stores partial types such as
+   * {@code image/*} as just their base type, and {@code *}{@code /*} as {@code *}.
+   */
+  private static String baseType(String type) {
+    int slash = type.indexOf('/');
+    return slash > 0 ? type.substring(0, slash) : type;
+  }
+
+  /** Returns the smaller of two candidate sets, where null means all components. */
+  private static Collection<ComponentName> smallest(
+      Collection<ComponentName> candidates, @Nullable Collection<ComponentName> others) {
+    return others != null && others.size() < candidates.size() ? others : candidates;
+  }
+
+  private static Collection<ComponentName> union(
+      Set<ComponentName> first, Set<ComponentName> second) {
+    if (first.isEmpty()) {
+      return second;
+    } else if (second.isEmpty()) {
+      return first;
+    }
+    Set<ComponentName> union = new HashSet<>(first);
+    union.addAll(second);
+    return union;
+  }
+
+  private static final class IndexKeys {
+    final Set<String> actions = new HashSet<>();
+    final Set<String> schemes = new HashSet<>();
+    final Set<String> baseTypes = new HashSet<>();
+    boolean withoutScheme;
+    boolean withoutType;
+  }
+}
@@ -0,0 +1,92 @@
+package org.robolectric.shadows;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.robolectric.util.PerfStatsCollector;
+
+/**
+ * Images of set up databases, for {@link ShadowSQLiteConnection#captureDatabaseSnapshot} and
+ * {@link ShadowSQLiteConnection#restoreDatabaseSnapshot}.
+ *
+ * <p>An image is the contents of the database file, which is the same as what SQLite's serialize
+ * API produces. The images are never reset, so they are shared by all tests run in the same
+ * sandbox.
+ */
+final class SQLiteDatabaseSnapshots {
+
+  private static final String IN_MEMORY_PATH = ":memory:";
+
+  private static final Map<String, byte[]> images = new ConcurrentHashMap<>();
+
+  private SQLiteDatabaseSnapshots() {}
+
+  static void capture(SQLiteDatabase database, String fixtureId) {
+    String path = database.getPath();
+    if (!database.isOpen()) {
+      throw new IllegalStateException("database " + path + " is closed");
+    }
+    if (IN_MEMORY_PATH.equals(path) || ShadowSQLiteConnection.useInMemoryDatabase.get()) {
+      throw new IllegalArgumentException("in-memory database " + path + " can't be captured");
+    }
+    if (database.inTransaction()) {
+      throw new IllegalStateException("database " + path + " is in a transaction");
+    }
+
+    if (database.isWriteAheadLoggingEnabled()) {
+      // Move committed pages out of the log, so that the database file is complete.
+      try (Cursor cursor = database.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null)) {
+        if (cursor.moveToFirst() && cursor.getInt(0) != 0) {
+          throw new IllegalStateException("database " + path + " is in use by another connection");
+        }
+      }
+    }
+
+    byte[] image;
+    try {
+      image =
+          PerfStatsCollector.getInstance()
+              .measure("sqlite snapshot capture", () -> Files.toByteArray(new File(path)));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    images.put(key(fixtureId, database.getVersion()), image);
+  }
+
+  static boolean restore(File databasePath, String fixtureId, int schemaVersion) {
+    byte[] image = images.get(key(fixtureId, schemaVersion));
+    if (image == null) {
+      return false;
+    }
+
+    try {
+      PerfStatsCollector.getInstance()
+          .measure(
+              "sqlite snapshot restore",
+              () -> {
+                // Also removes any journal or log left by an earlier database.
+                SQLiteDatabase.deleteDatabase(databasePath);
+                File parent = databasePath.getAbsoluteFile().getParentFile();
+                if (parent != null) {
+                  parent.mkdirs();
+                }
+                Files.write(image, databasePath);
+              });
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return true;
+  }
+
+  static void clear() {
+    images.clear();
+  }
+
+  private static String key(String fixtureId, int schemaVersion) {
+    return schemaVersion + ":" + fixtureId;
+  }
+}
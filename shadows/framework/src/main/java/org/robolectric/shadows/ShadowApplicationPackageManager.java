@@ -589,7 +589,7 @@ public class ShadowApplicationPackageManager extends ShadowPackageManager {
       Intent intent,
       int flags,
       Function<PackageInfo, I[]> componentsInPackage,
-      SortedMap<ComponentName, List<IntentFilter>> filters,
+      ComponentIntentFilters filters,
       BiConsumer<ResolveInfo, I> componentSetter,
       Function<ResolveInfo, I> componentInResolveInfo,
       Function<I, I> copyConstructor) {
@@ -674,7 +674,7 @@ public class ShadowApplicationPackageManager extends ShadowPackageManager {
   private <I extends ComponentInfo> List<ResolveInfo> queryComponentsInManifest(
       Intent intent,
       Function<PackageInfo, I[]> componentsInPackage,
-      SortedMap<ComponentName, List<IntentFilter>> filters,
+      ComponentIntentFilters filters,
       BiConsumer<ResolveInfo, I> componentSetter) {
     synchronized (lock) {
       if (isExplicitIntent(intent)) {
@@ -685,7 +685,7 @@ public class ShadowApplicationPackageManager extends ShadowPackageManager {
         }
         I componentInfo = findMatchingComponent(component, componentsInPackage.apply(appPackage));
         if (componentInfo != null) {
-          List<IntentFilter> componentFilters = filters.get(component);
+          List<IntentFilter> componentFilters = filters.getFilters(component);
           PackageInfo targetPackage = packageInfos.get(component.getPackageName());
           if (RuntimeEnvironment.getApiLevel() >= TIRAMISU
               && (intent.getAction() != null
@@ -720,11 +720,9 @@ public class ShadowApplicationPackageManager extends ShadowPackageManager {
         return Collections.emptyList();
       } else {
         List<ResolveInfo> resolveInfoList = new ArrayList<>();
-        Map<ComponentName, List<IntentFilter>> filtersForPackage =
-            mapForPackage(filters, intent.getPackage());
         components:
         for (Map.Entry<ComponentName, List<IntentFilter>> componentEntry :
-            filtersForPackage.entrySet()) {
+            filters.getCandidates(intent)) {
           ComponentName componentName = componentEntry.getKey();
           for (IntentFilter filter : componentEntry.getValue()) {
             int match = matchIntentFilter(intent, filter);
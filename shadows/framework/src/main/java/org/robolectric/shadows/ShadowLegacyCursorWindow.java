@@ -11,9 +11,7 @@ import com.almworks.sqlite4java.SQLiteConstants;
 import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
 import com.google.common.base.Preconditions;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -47,18 +45,17 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static byte[] nativeGetBlob(long windowPtr, int row, int column) {
-    Value value = WINDOW_DATA.get(windowPtr).value(row, column);
+    Data data = WINDOW_DATA.get(windowPtr);
 
-    switch (value.type) {
+    switch (data.type(row, column)) {
       case Cursor.FIELD_TYPE_NULL:
         return null;
       case Cursor.FIELD_TYPE_BLOB:
         // This matches Android's behavior, which does not match the SQLite spec
-        byte[] blob = (byte[])value.value;
-        return blob == null ? new byte[]{} : blob;
+        return data.getBlob(row, column);
       case Cursor.FIELD_TYPE_STRING:
         // Matches the Android behavior to contain a zero-byte at the end
-        byte[] stringBytes = ((String) value.value).getBytes(UTF_8);
+        byte[] stringBytes = data.getString(row, column).getBytes(UTF_8);
         return Arrays.copyOf(stringBytes, stringBytes.length + 1);
       default:
         throw new android.database.sqlite.SQLiteException(
@@ -73,13 +70,20 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static String nativeGetString(long windowPtr, int row, int column) {
-    Value val = WINDOW_DATA.get(windowPtr).value(row, column);
-    if (val.type == Cursor.FIELD_TYPE_BLOB) {
-      throw new android.database.sqlite.SQLiteException(
-          "Getting string when column is blob. Row " + row + ", col " + column);
+    Data data = WINDOW_DATA.get(windowPtr);
+    switch (data.type(row, column)) {
+      case Cursor.FIELD_TYPE_NULL:
+        return null;
+      case Cursor.FIELD_TYPE_INTEGER:
+        return Long.toString(data.getLong(row, column));
+      case Cursor.FIELD_TYPE_FLOAT:
+        return Double.toString(data.getDouble(row, column));
+      case Cursor.FIELD_TYPE_STRING:
+        return data.getString(row, column);
+      default:
+        throw new android.database.sqlite.SQLiteException(
+            "Getting string when column is blob. Row " + row + ", col " + column);
     }
-    Object value = val.value;
-    return value == null ? null : String.valueOf(value);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -89,7 +93,17 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static long nativeGetLong(long windowPtr, int row, int column) {
-    return nativeGetNumber(windowPtr, row, column).longValue();
+    Data data = WINDOW_DATA.get(windowPtr);
+    switch (data.type(row, column)) {
+      case Cursor.FIELD_TYPE_NULL:
+        return 0;
+      case Cursor.FIELD_TYPE_INTEGER:
+        return data.getLong(row, column);
+      case Cursor.FIELD_TYPE_FLOAT:
+        return (long) data.getDouble(row, column);
+      default:
+        return (long) nonNumericValue(data, row, column);
+    }
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -99,7 +113,17 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static double nativeGetDouble(long windowPtr, int row, int column) {
-    return nativeGetNumber(windowPtr, row, column).doubleValue();
+    Data data = WINDOW_DATA.get(windowPtr);
+    switch (data.type(row, column)) {
+      case Cursor.FIELD_TYPE_NULL:
+        return 0;
+      case Cursor.FIELD_TYPE_INTEGER:
+        return data.getLong(row, column);
+      case Cursor.FIELD_TYPE_FLOAT:
+        return data.getDouble(row, column);
+      default:
+        return nonNumericValue(data, row, column);
+    }
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -109,7 +133,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static int nativeGetType(long windowPtr, int row, int column) {
-    return WINDOW_DATA.get(windowPtr).value(row, column).type;
+    return WINDOW_DATA.get(windowPtr).type(row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -141,7 +165,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
   protected static boolean nativePutBlob(long windowPtr, byte[] value, int row, int column) {
     // Real Android will crash in native code if putString is called with a null value.
     Preconditions.checkNotNull(value);
-    return WINDOW_DATA.get(windowPtr).putValue(new Value(value, Cursor.FIELD_TYPE_BLOB), row, column);
+    return WINDOW_DATA.get(windowPtr).putBlob(value, row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -153,7 +177,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
   protected static boolean nativePutString(long windowPtr, String value, int row, int column) {
     // Real Android will crash in native code if putString is called with a null value.
     Preconditions.checkNotNull(value);
-    return WINDOW_DATA.get(windowPtr).putValue(new Value(value, Cursor.FIELD_TYPE_STRING), row, column);
+    return WINDOW_DATA.get(windowPtr).putString(value, row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -163,7 +187,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static boolean nativePutLong(long windowPtr, long value, int row, int column) {
-    return WINDOW_DATA.get(windowPtr).putValue(new Value(value, Cursor.FIELD_TYPE_INTEGER), row, column);
+    return WINDOW_DATA.get(windowPtr).putLong(value, row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -173,7 +197,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static boolean nativePutDouble(long windowPtr, double value, int row, int column) {
-    return WINDOW_DATA.get(windowPtr).putValue(new Value(value, Cursor.FIELD_TYPE_FLOAT), row, column);
+    return WINDOW_DATA.get(windowPtr).putDouble(value, row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -183,7 +207,7 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
 
   @Implementation(minSdk = LOLLIPOP)
   protected static boolean nativePutNull(long windowPtr, int row, int column) {
-    return WINDOW_DATA.get(windowPtr).putValue(new Value(null, Cursor.FIELD_TYPE_NULL), row, column);
+    return WINDOW_DATA.get(windowPtr).putNull(row, column);
   }
 
   @Implementation(maxSdk = KITKAT_WATCH)
@@ -220,95 +244,169 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
     return WINDOW_DATA.setData(windowPtr, stmt);
   }
 
-  private static Number nativeGetNumber(long windowPtr, int row, int column) {
-    Value value = WINDOW_DATA.get(windowPtr).value(row, column);
-    switch (value.type) {
-      case Cursor.FIELD_TYPE_NULL:
-      case SQLiteConstants.SQLITE_NULL:
-        return 0;
-      case Cursor.FIELD_TYPE_INTEGER:
-      case Cursor.FIELD_TYPE_FLOAT:
-        return (Number) value.value;
-      case Cursor.FIELD_TYPE_STRING: {
-        try {
-          return Double.parseDouble((String) value.value);
-        } catch (NumberFormatException e) {
-          return 0;
-        }
-      }
-      case Cursor.FIELD_TYPE_BLOB:
-        throw new android.database.sqlite.SQLiteException("could not convert "+value);
-      default:
-        throw new android.database.sqlite.SQLiteException("unknown type: "+value.type);
+  /** Converts a string to a number as SQLite does, or throws for a blob. */
+  private static double nonNumericValue(Data data, int row, int column) {
+    if (data.type(row, column) == Cursor.FIELD_TYPE_BLOB) {
+      throw new android.database.sqlite.SQLiteException(
+          "could not convert blob. Row " + row + ", col " + column);
+    }
+    try {
+      return Double.parseDouble(data.getString(row, column));
+    } catch (NumberFormatException e) {
+      return 0;
     }
   }
 
+  /**
+   * The contents of a window, stored by column in primitive arrays rather than as an object per
+   * value, so that filling a window with many rows allocates little more than the arrays.
+   *
+   * <p>Each column has the {@link Cursor} field type of each of its cells, and a long per cell
+   * holding an integer value, the bits of a float value, or the offset of a blob in a byte arena
+   * shared by the columns. Strings are kept as they are, since sqlite4java returns them as strings
+   * and reading them back as bytes would mean decoding them on every call.
+   */
   private static class Data {
-    private final List<Row> rows;
+    private static final int INITIAL_ROW_CAPACITY = 16;
+
     private final String name;
     private int numColumns;
+    private int numRows;
+    private int rowCapacity;
+    private Column[] columns = new Column[0];
+    private byte[] blobArena = new byte[0];
+    private int blobArenaSize;
 
     public Data(String name, int cursorWindowSize) {
       this.name = name;
-      this.rows = new ArrayList<Row>();
     }
 
-    public Value value(int rowN, int colN) {
-      Row row = rows.get(rowN);
-      if (row == null) {
-        throw new IllegalArgumentException("Bad row number: " + rowN + ", count: " + rows.size());
-      }
-      return row.get(colN);
+    public int numRows() {
+      return numRows;
     }
 
-    public int numRows() {
-      return rows.size();
+    public int type(int row, int column) {
+      return column(row, column).types[row];
+    }
+
+    public long getLong(int row, int column) {
+      return column(row, column).values[row];
+    }
+
+    public double getDouble(int row, int column) {
+      return Double.longBitsToDouble(column(row, column).values[row]);
+    }
+
+    public String getString(int row, int column) {
+      return column(row, column).strings[row];
+    }
+
+    public byte[] getBlob(int row, int column) {
+      Column col = column(row, column);
+      int offset = (int) col.values[row];
+      return Arrays.copyOfRange(blobArena, offset, offset + col.lengths[row]);
+    }
+
+    public boolean putNull(int row, int column) {
+      column(row, column).set(row, Cursor.FIELD_TYPE_NULL, 0);
+      return true;
     }
 
-    public boolean putValue(Value value, int rowN, int colN) {
-      return rows.get(rowN).set(colN, value);
+    public boolean putLong(long value, int row, int column) {
+      column(row, column).set(row, Cursor.FIELD_TYPE_INTEGER, value);
+      return true;
+    }
+
+    public boolean putDouble(double value, int row, int column) {
+      column(row, column).set(row, Cursor.FIELD_TYPE_FLOAT, Double.doubleToRawLongBits(value));
+      return true;
+    }
+
+    public boolean putString(String value, int row, int column) {
+      column(row, column).setString(row, value);
+      return true;
+    }
+
+    public boolean putBlob(byte[] value, int row, int column) {
+      column(row, column).setBlob(row, appendBlob(value), value.length);
+      return true;
     }
 
     public void fillWith(SQLiteStatement stmt) throws SQLiteException {
       //Android caches results in the WindowedCursor to allow moveToPrevious() to function.
-      //Robolectric will have to cache the results too. In the rows list.
+      //Robolectric will have to cache the results too. In the columns.
       while (stmt.step()) {
-        rows.add(fillRowValues(stmt));
+        int columnCount = stmt.columnCount();
+        if (columnCount != numColumns) {
+          setNumColumns(columnCount);
+        }
+        int row = numRows;
+        allocRow();
+        for (int index = 0; index < columnCount; index++) {
+          fillValue(stmt, row, index);
+        }
       }
     }
 
-    private static int cursorValueType(final int sqliteType) {
+    private void fillValue(SQLiteStatement stmt, int row, int index) throws SQLiteException {
+      Column column = columns[index];
+      int sqliteType = stmt.columnType(index);
       switch (sqliteType) {
-        case SQLiteConstants.SQLITE_NULL:    return Cursor.FIELD_TYPE_NULL;
-        case SQLiteConstants.SQLITE_INTEGER: return Cursor.FIELD_TYPE_INTEGER;
-        case SQLiteConstants.SQLITE_FLOAT:   return Cursor.FIELD_TYPE_FLOAT;
-        case SQLiteConstants.SQLITE_TEXT:    return Cursor.FIELD_TYPE_STRING;
-        case SQLiteConstants.SQLITE_BLOB:    return Cursor.FIELD_TYPE_BLOB;
+        case SQLiteConstants.SQLITE_NULL:
+          column.set(row, Cursor.FIELD_TYPE_NULL, 0);
+          break;
+        case SQLiteConstants.SQLITE_INTEGER:
+          column.set(row, Cursor.FIELD_TYPE_INTEGER, stmt.columnLong(index));
+          break;
+        case SQLiteConstants.SQLITE_FLOAT:
+          column.set(
+              row, Cursor.FIELD_TYPE_FLOAT, Double.doubleToRawLongBits(stmt.columnDouble(index)));
+          break;
+        case SQLiteConstants.SQLITE_TEXT:
+          column.setString(row, stmt.columnString(index));
+          break;
+        case SQLiteConstants.SQLITE_BLOB:
+          byte[] blob = stmt.columnBlob(index);
+          if (blob == null) {
+            column.setBlob(row, 0, 0);
+          } else {
+            column.setBlob(row, appendBlob(blob), blob.length);
+          }
+          break;
         default:
           throw new IllegalArgumentException(
               "Bad SQLite type " + sqliteType + ". See possible values in SQLiteConstants.");
       }
     }
 
-    private static Row fillRowValues(SQLiteStatement stmt) throws SQLiteException {
-      final int columnCount = stmt.columnCount();
-      Row row = new Row(columnCount);
-      for (int index = 0; index < columnCount; index++) {
-        row.set(index, new Value(stmt.columnValue(index), cursorValueType(stmt.columnType(index))));
-      }
-      return row;
-    }
-
     public void clear() {
-      rows.clear();
+      for (Column column : columns) {
+        column.clearStrings(numRows);
+      }
+      numRows = 0;
+      blobArenaSize = 0;
     }
 
     public boolean allocRow() {
-      rows.add(new Row(numColumns));
+      if (numRows == rowCapacity) {
+        rowCapacity = Math.max(INITIAL_ROW_CAPACITY, rowCapacity * 2);
+        for (Column column : columns) {
+          column.grow(rowCapacity);
+        }
+      }
+      for (Column column : columns) {
+        column.set(numRows, Cursor.FIELD_TYPE_NULL, 0);
+      }
+      numRows++;
       return true;
     }
 
     public boolean setNumColumns(int numColumns) {
+      Column[] newColumns = Arrays.copyOf(columns, numColumns);
+      for (int i = columns.length; i < numColumns; i++) {
+        newColumns[i] = new Column(rowCapacity);
+      }
+      columns = newColumns;
       this.numColumns = numColumns;
       return true;
     }
@@ -316,41 +414,95 @@ public class ShadowLegacyCursorWindow extends ShadowCursorWindow {
     public String getName() {
       return name;
     }
+
+    private Column column(int row, int column) {
+      if (row < 0 || row >= numRows) {
+        throw new IndexOutOfBoundsException("Bad row number: " + row + ", count: " + numRows);
+      }
+      if (column < 0 || column >= numColumns) {
+        throw new IndexOutOfBoundsException(
+            "Bad column number: " + column + ", count: " + numColumns);
+      }
+      return columns[column];
+    }
+
+    /** Copies a blob into the arena, and returns its offset. */
+    private int appendBlob(byte[] blob) {
+      int offset = blobArenaSize;
+      if (blobArena.length - offset < blob.length) {
+        blobArena =
+            Arrays.copyOf(blobArena, Math.max(blobArena.length * 2, offset + blob.length));
+      }
+      System.arraycopy(blob, 0, blobArena, offset, blob.length);
+      blobArenaSize += blob.length;
+      return offset;
+    }
   }
 
-  private static class Row {
-    private final List<Value> values;
+  /** The cells of one column of a {@link Data}, indexed by row. */
+  private static class Column {
+    private byte[] types;
+    /** Integer values, the raw bits of float values, or the arena offsets of blobs. */
+    private long[] values;
+    /** Blob lengths, allocated once the column has a blob. */
+    private int[] lengths;
+    /** String values, allocated once the column has a string. */
+    private String[] strings;
 
-    public Row(int length) {
-      values = new ArrayList<Value>(length);
-      for (int i=0; i<length; i++) {
-        values.add(new Value(null, Cursor.FIELD_TYPE_NULL));
+    Column(int rowCapacity) {
+      types = new byte[rowCapacity];
+      values = new long[rowCapacity];
+    }
+
+    void grow(int rowCapacity) {
+      types = Arrays.copyOf(types, rowCapacity);
+      values = Arrays.copyOf(values, rowCapacity);
+      if (lengths != null) {
+        lengths = Arrays.copyOf(lengths, rowCapacity);
+      }
+      if (strings != null) {
+        strings = Arrays.copyOf(strings, rowCapacity);
       }
     }
 
-    public Value get(int n) {
-      return values.get(n);
+    void set(int row, int type, long value) {
+      types[row] = (byte) type;
+      values[row] = value;
+      if (strings != null) {
+        strings[row] = null;
+      }
     }
 
-    public boolean set(int colN, Value value) {
-      values.set(colN, value);
-      return true;
+    void setString(int row, String value) {
+      if (strings == null) {
+        strings = new String[types.length];
+      }
+      types[row] = Cursor.FIELD_TYPE_STRING;
+      strings[row] = value;
     }
-  }
 
-  private static class Value {
-    private final Object value;
-    private final int type;
+    void clearStrings(int rowCount) {
+      if (strings != null) {
+        Arrays.fill(strings, 0, rowCount, null);
+      }
+    }
 
-    public Value(final Object value, final int type) {
-      this.value = value;
-      this.type = type;
+    void setBlob(int row, int offset, int length) {
+      if (lengths == null) {
+        lengths = new int[types.length];
+      }
+      set(row, Cursor.FIELD_TYPE_BLOB, offset);
+      lengths[row] = length;
     }
   }
 
+  /**
+   * The windows, by pointer. Cells are read from any thread, so lookups go through a {@link
+   * ConcurrentHashMap} rather than a lock.
+   */
   private static class WindowData {
     private final AtomicLong windowPtrCounter = new AtomicLong(0);
-    private final Map<Number, Data> dataMap = new ConcurrentHashMap<>();
+    private final Map<Long, Data> dataMap = new ConcurrentHashMap<>();
 
     public Data get(long ptr) {
       Data data = dataMap.get(ptr);
@@ -32,16 +32,21 @@ import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
 import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -388,13 +393,12 @@ public class ShadowLegacySQLiteConnection extends ShadowSQLiteConnection {
 // VisibleForTesting
 static class Connections {
 
+  /** Guards {@link #workersByDatabase} and the connection counts of workers. */
   private final Object lock = new Object();
   private final AtomicLong pointerCounter = new AtomicLong(0);
-  private final Map<Long, SQLiteStatement> statementsMap = new HashMap<>();
-  private final Map<Long, SQLiteConnection> connectionsMap = new HashMap<>();
-  private final Map<Long, List<Long>> statementPtrsForConnection = new HashMap<>();
-
-    private ExecutorService dbExecutor = Executors.newSingleThreadExecutor(threadFactory());
+  private final Map<Long, SQLiteStatement> statementsMap = new ConcurrentHashMap<>();
+  private final Map<Long, OpenConnection> connectionsMap = new ConcurrentHashMap<>();
+  private final Map<String, DatabaseWorker> workersByDatabase = new HashMap<>();
 
     static ThreadFactory threadFactory() {
       ThreadFactory delegate = Executors.defaultThreadFactory();
@@ -405,10 +409,42 @@ static class Connections {
       };
     }
 
+  /**
+   * The thread which runs all work for the connections to one database, as sqlite4java connections
+   * may only be used from the thread which opened them. Connections to the same database file
+   * share a worker, so their statements are serialized as before, while different databases are
+   * used in parallel.
+   */
+  private static final class DatabaseWorker {
+    /** The database file, or null for an in-memory database, which has only one connection. */
+    final String databasePath;
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor(threadFactory());
+    int connectionCount;
+
+    DatabaseWorker(String databasePath) {
+      this.databasePath = databasePath;
+    }
+  }
+
+  private static final class OpenConnection {
+    final SQLiteConnection connection;
+    final DatabaseWorker worker;
+    final Set<Long> statementPtrs = ConcurrentHashMap.newKeySet();
+
+    OpenConnection(SQLiteConnection connection, DatabaseWorker worker) {
+      this.connection = connection;
+      this.worker = worker;
+    }
+  }
+
   SQLiteConnection getConnection(final long connectionPtr) {
-    synchronized (lock) {
-      final SQLiteConnection connection = connectionsMap.get(connectionPtr);
-      if (connection == null) {
+    return getOpenConnection(connectionPtr).connection;
+  }
+
+  private OpenConnection getOpenConnection(final long connectionPtr) {
+    final OpenConnection connection = connectionsMap.get(connectionPtr);
+    if (connection == null) {
           throw new IllegalStateException(
               "Illegal connection pointer "
                   + connectionPtr
@@ -416,128 +452,172 @@ static class Connections {
                   + Thread.currentThread()
                   + " "
                   + connectionsMap.keySet());
-      }
-      return connection;
     }
+    return connection;
   }
 
   SQLiteStatement getStatement(final long connectionPtr, final long statementPtr) {
-    synchronized (lock) {
-      // ensure connection is ok
-      getConnection(connectionPtr);
+    // ensure connection is ok
+    getConnection(connectionPtr);
 
-      final SQLiteStatement statement = statementsMap.get(statementPtr);
-      if (statement == null) {
+    final SQLiteStatement statement = statementsMap.get(statementPtr);
+    if (statement == null) {
           throw new IllegalArgumentException(
               "Invalid prepared statement pointer: "
                   + statementPtr
                   + ". Current pointers: "
                   + statementsMap.keySet());
-      }
-      if (statement.isDisposed()) {
+    }
+    if (statement.isDisposed()) {
           throw new IllegalStateException(
               "Statement " + statementPtr + " " + statement + " is disposed");
-      }
-      return statement;
     }
+    return statement;
   }
 
   long open(final String path) {
-    synchronized (lock) {
-        final SQLiteConnection dbConnection =
+    final boolean inMemory = useInMemoryDatabase.get() || IN_MEMORY_PATH.equals(path);
+    final DatabaseWorker worker = acquireWorker(inMemory ? null : databaseKey(path));
+    final SQLiteConnection dbConnection;
+    try {
+        dbConnection =
             execute(
+                worker,
                 "open SQLite connection",
                 new Callable<SQLiteConnection>() {
                   @Override
                   public SQLiteConnection call() throws Exception {
                     SQLiteConnection connection =
-                        useInMemoryDatabase.get() || IN_MEMORY_PATH.equals(path)
-                            ? new SQLiteConnection()
-                            : new SQLiteConnection(new File(path));
+                        inMemory ? new SQLiteConnection() : new SQLiteConnection(new File(path));
 
                     connection.open();
                     return connection;
                   }
                 });
+    } catch (RuntimeException e) {
+      releaseWorker(worker);
+      throw e;
+    }
+
+    final long connectionPtr = pointerCounter.incrementAndGet();
+    connectionsMap.put(connectionPtr, new OpenConnection(dbConnection, worker));
+    return connectionPtr;
+  }
 
-      final long connectionPtr = pointerCounter.incrementAndGet();
-      connectionsMap.put(connectionPtr, dbConnection);
-      statementPtrsForConnection.put(connectionPtr, new ArrayList<>());
-      return connectionPtr;
+  /**
+   * Returns the path which identifies a database file, so that connections opened through
+   * different paths to the same file, such as through symbolic links, share a worker.
+   */
+  private static String databaseKey(String path) {
+    File file = new File(path);
+    try {
+      return file.getCanonicalPath();
+    } catch (IOException e) {
+      return file.getAbsolutePath();
     }
   }
 
+  private DatabaseWorker acquireWorker(String databasePath) {
+    synchronized (lock) {
+      DatabaseWorker worker = databasePath == null ? null : workersByDatabase.get(databasePath);
+      if (worker == null) {
+        worker = new DatabaseWorker(databasePath);
+        if (databasePath != null) {
+          workersByDatabase.put(databasePath, worker);
+        }
+      }
+      worker.connectionCount++;
+      return worker;
+    }
+  }
+
+  private void releaseWorker(DatabaseWorker worker) {
+    synchronized (lock) {
+      if (--worker.connectionCount > 0) {
+        return;
+      }
+      if (worker.databasePath != null) {
+        workersByDatabase.remove(worker.databasePath);
+      }
+    }
+    worker.executor.shutdown();
+  }
+
   long prepareStatement(final long connectionPtr, final String sql) {
     // TODO: find a way to create collators
     if ("REINDEX LOCALIZED".equals(sql)) {
       return IGNORED_REINDEX_STMT;
     }
 
-    synchronized (lock) {
-      final SQLiteConnection connection = getConnection(connectionPtr);
+    final OpenConnection connection = getOpenConnection(connectionPtr);
         final SQLiteStatement statement =
             execute(
+                connection.worker,
                 "prepare statement",
                 new Callable<SQLiteStatement>() {
                   @Override
                   public SQLiteStatement call() throws Exception {
-                    return connection.prepare(sql);
+                    return connection.connection.prepare(sql);
                   }
                 });
 
-      final long statementPtr = pointerCounter.incrementAndGet();
-      statementsMap.put(statementPtr, statement);
-      statementPtrsForConnection.get(connectionPtr).add(statementPtr);
-      return statementPtr;
-    }
+    final long statementPtr = pointerCounter.incrementAndGet();
+    statementsMap.put(statementPtr, statement);
+    connection.statementPtrs.add(statementPtr);
+    return statementPtr;
   }
 
   void close(final long connectionPtr) {
-    synchronized (lock) {
-      final SQLiteConnection connection = getConnection(connectionPtr);
-        execute("close connection", new Callable<Void>() {
+    final OpenConnection connection = getOpenConnection(connectionPtr);
+        execute(connection.worker, "close connection", new Callable<Void>() {
         @Override
         public Void call() throws Exception {
-          connection.dispose();
+          connection.connection.dispose();
           return null;
         }
       });
-      connectionsMap.remove(connectionPtr);
-      statementPtrsForConnection.remove(connectionPtr);
+    if (connectionsMap.remove(connectionPtr) != null) {
+      statementsMap.keySet().removeAll(connection.statementPtrs);
+      releaseWorker(connection.worker);
     }
   }
 
   void reset() {
-    ExecutorService oldDbExecutor;
-    Collection<SQLiteConnection> openConnections;
+    Collection<OpenConnection> openConnections;
+    Set<DatabaseWorker> workers = Collections.newSetFromMap(new IdentityHashMap<>());
 
     synchronized (lock) {
-      oldDbExecutor = dbExecutor;
       openConnections = new ArrayList<>(connectionsMap.values());
-
-        dbExecutor = Executors.newSingleThreadExecutor(threadFactory());
+      for (OpenConnection connection : openConnections) {
+        workers.add(connection.worker);
+      }
       connectionsMap.clear();
       statementsMap.clear();
-      statementPtrsForConnection.clear();
+      workersByDatabase.clear();
     }
 
-    shutdownDbExecutor(oldDbExecutor, openConnections);
+    shutdownWorkers(workers, openConnections);
   }
 
-  private static void shutdownDbExecutor(ExecutorService executorService, Collection<SQLiteConnection> connections) {
-    for (final SQLiteConnection connection : connections) {
-      getFuture("close connection on reset", executorService.submit(new Callable<Void>() {
+  private static void shutdownWorkers(
+      Collection<DatabaseWorker> workers, Collection<OpenConnection> connections) {
+    for (final OpenConnection connection : connections) {
+      getFuture("close connection on reset", connection.worker.executor.submit(new Callable<Void>() {
         @Override
         public Void call() throws Exception {
-          connection.dispose();
+          connection.connection.dispose();
           return null;
         }
       }));
     }
 
-    executorService.shutdown();
+    for (DatabaseWorker worker : workers) {
+      worker.executor.shutdown();
+    }
     try {
-      executorService.awaitTermination(30, TimeUnit.SECONDS);
+      for (DatabaseWorker worker : workers) {
+        worker.executor.awaitTermination(30, TimeUnit.SECONDS);
+      }
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
@@ -548,35 +628,33 @@ static class Connections {
       return;
     }
 
-    synchronized (lock) {
-      final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
-      statementsMap.remove(statementPtr);
+    final OpenConnection connection = getOpenConnection(connectionPtr);
+    final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
+    statementsMap.remove(statementPtr);
+    connection.statementPtrs.remove(statementPtr);
 
-        execute("finalize statement", new Callable<Void>() {
+        execute(connection.worker, "finalize statement", new Callable<Void>() {
         @Override
         public Void call() throws Exception {
           statement.dispose();
           return null;
         }
       });
-    }
   }
 
   void cancel(final long connectionPtr) {
-    synchronized (lock) {
-      getConnection(connectionPtr); // check connection
+    final OpenConnection connection = getOpenConnection(connectionPtr);
 
-      for (Long statementPtr : statementPtrsForConnection.get(connectionPtr)) {
-        final SQLiteStatement statement = statementsMap.get(statementPtr);
-        if (statement != null) {
-            execute("cancel", new Callable<Void>() {
+    for (Long statementPtr : connection.statementPtrs) {
+      final SQLiteStatement statement = statementsMap.get(statementPtr);
+      if (statement != null) {
+            execute(connection.worker, "cancel", new Callable<Void>() {
             @Override
             public Void call() throws Exception {
               statement.cancel();
               return null;
             }
           });
-        }
       }
     }
   }
@@ -764,11 +842,11 @@ static class Connections {
   }
 
   int executeForChangedRowCount(final long connectionPtr, final long statementPtr) {
-    synchronized (lock) {
-      final SQLiteConnection connection = getConnection(connectionPtr);
-      final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
+    final OpenConnection connection = getOpenConnection(connectionPtr);
+    final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
 
         return execute(
+            connection.worker,
             "execute for changed row count",
             new Callable<Integer>() {
               @Override
@@ -778,27 +856,27 @@ static class Connections {
                       "Queries can be performed using SQLiteDatabase query or rawQuery methods"
                           + " only.");
                 }
-                return connection.getChanges();
+                return connection.connection.getChanges();
               }
             });
-    }
   }
 
   long executeForLastInsertedRowId(final long connectionPtr, final long statementPtr) {
-    synchronized (lock) {
-      final SQLiteConnection connection = getConnection(connectionPtr);
-      final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
+    final OpenConnection connection = getOpenConnection(connectionPtr);
+    final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
 
         return execute(
+            connection.worker,
             "execute for last inserted row ID",
             new Callable<Long>() {
               @Override
               public Long call() throws Exception {
                 statement.stepThrough();
-                return connection.getChanges() > 0 ? connection.getLastInsertId() : -1L;
+                return connection.connection.getChanges() > 0
+                    ? connection.connection.getLastInsertId()
+                    : -1L;
               }
             });
-    }
   }
 
   long executeForCursorWindow(final long connectionPtr, final long statementPtr, final long windowPtr) {
@@ -836,25 +914,29 @@ static class Connections {
                                           final long statementPtr,
                                           final String comment,
                                           final StatementOperation<T> statementOperation) {
-    synchronized (lock) {
-      final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
-      return execute(comment, new Callable<T>() {
-        @Override
-        public T call() throws Exception {
-          return statementOperation.call(statement);
-        }
-      });
-    }
+    final OpenConnection connection = getOpenConnection(connectionPtr);
+    final SQLiteStatement statement = getStatement(connectionPtr, statementPtr);
+    return execute(connection.worker, comment, new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        return statementOperation.call(statement);
+      }
+    });
   }
 
   /**
-   * Any Callable passed in to execute must not synchronize on lock, as this will result in a deadlock
+   * Runs work on the worker thread of a database. Any Callable passed in to execute must not
+   * synchronize on lock, as this will result in a deadlock.
    */
-  private <T> T execute(final String comment, final Callable<T> work) {
-    synchronized (lock) {
-        return PerfStatsCollector.getInstance()
-            .measure("sqlite", () -> getFuture(comment, dbExecutor.submit(work)));
+  private static <T> T execute(
+      final DatabaseWorker worker, final String comment, final Callable<T> work) {
+    final Future<T> future;
+    try {
+      future = worker.executor.submit(work);
+    } catch (RejectedExecutionException e) {
+      throw new IllegalStateException("Cannot " + comment + ": the connection is closed", e);
     }
+    return PerfStatsCollector.getInstance().measure("sqlite", () -> getFuture(comment, future));
   }
 
   private static <T> T getFuture(final String comment, final Future<T> future) {
@@ -9,24 +9,46 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
 import org.robolectric.annotation.Resetter;
 
-/** Controls the behavior of {@link android.util.Log} and provides access to log messages. */
+/**
+ * Controls the behavior of {@link android.util.Log} and provides access to log messages.
+ *
+ * <p>By default every log item is kept until the next test. Tests which log a lot can bound what is
+ * kept instead:
+ *
+ * <ul>
+ *   <li>{@code robolectric.logging.maxItemsPerTag} (or {@link #setMaxItemsPerTag}) keeps only the
+ *       most recent items for each tag. With 0, no items are kept at all.
+ *   <li>{@code robolectric.logging.captureLevel} (or {@link #setCaptureLevel}) drops items below a
+ *       level, such as {@code I} or {@code INFO}, before they are created.
+ * </ul>
+ *
+ * <p>A {@link LogSink} added with {@link #addSink} is passed every captured item as it is logged,
+ * whether or not it is kept.
+ */
 @Implements(Log.class)
 public class ShadowLog {
   public static PrintStream stream;
 
+  static final String MAX_ITEMS_PER_TAG_PROPERTY = "robolectric.logging.maxItemsPerTag";
+  static final String CAPTURE_LEVEL_PROPERTY = "robolectric.logging.captureLevel";
+
   private static final int EXTRA_LOG_LENGTH = "l/: \n".length();
 
-  private static final Map<String, Queue<LogItem>> logsByTag = Collections.synchronizedMap(new
-      HashMap<String, Queue<LogItem>>());
-  private static final Queue<LogItem> logs = new ConcurrentLinkedQueue<>();
+  private static final Map<String, TagLogs> logsByTag =
+      Collections.synchronizedMap(new HashMap<String, TagLogs>());
+  /** Orders log items across tags. */
+  private static final AtomicLong sequence = new AtomicLong();
+  private static final List<LogSink> sinks = new CopyOnWriteArrayList<>();
   private static final Map<String, Integer> tagToLevel = Collections.synchronizedMap(new
       HashMap<String, Integer>());
 
@@ -40,6 +62,9 @@ public class ShadowLog {
   /** Provides string that will be used as time in logs. */
   private static Supplier<String> timeSupplier;
 
+  private static volatile int maxItemsPerTag = getMaxItemsPerTagProperty();
+  private static volatile int captureLevel = getCaptureLevelProperty();
+
   @Implementation
   protected static int e(String tag, String msg) {
     return e(tag, msg, null);
@@ -146,6 +171,46 @@ public class ShadowLog {
     tagToLevel.put(tag, level);
   }
 
+  /**
+   * Sets how many of the most recent log items are kept for each tag, overriding {@code
+   * robolectric.logging.maxItemsPerTag} until the next test. Older items, including those already
+   * kept beyond the new limit, are dropped, and {@link #getLogs()} only returns the items which are
+   * still kept. With 0, items are only passed to sinks.
+   *
+   * @param maxItems the number of items to keep, or {@link Integer#MAX_VALUE} to keep all of them
+   */
+  public static void setMaxItemsPerTag(int maxItems) {
+    if (maxItems < 0) {
+      throw new IllegalArgumentException("maxItems must not be negative: " + maxItems);
+    }
+    maxItemsPerTag = maxItems;
+    synchronized (logsByTag) {
+      for (TagLogs tagLogs : logsByTag.values()) {
+        tagLogs.trimTo(maxItems);
+      }
+    }
+  }
+
+  /**
+   * Sets the lowest level of log items which are captured, overriding {@code
+   * robolectric.logging.captureLevel} until the next test. Items below it are still written to
+   * {@link #stream}, but aren't kept or passed to sinks.
+   *
+   * @param level A log level, from {@link android.util.Log}
+   */
+  public static void setCaptureLevel(int level) {
+    captureLevel = level;
+  }
+
+  /** Adds a sink which is passed each captured log item as it is logged, until the next test. */
+  public static void addSink(LogSink sink) {
+    sinks.add(sink);
+  }
+
+  public static void removeSink(LogSink sink) {
+    sinks.remove(sink);
+  }
+
   private static int addLog(int level, String tag, String msg, Throwable throwable) {
     String timeString = null;
     if (timeSupplier != null) {
@@ -156,20 +221,28 @@ public class ShadowLog {
       logToStream(stream, timeString, level, tag, msg, throwable);
     }
 
+    int maxItems = maxItemsPerTag;
+    if (level < captureLevel || (maxItems == 0 && sinks.isEmpty())) {
+      return 0;
+    }
+
     LogItem item = new LogItem(timeString, level, tag, msg, throwable);
-    Queue<LogItem> itemList;
 
-    synchronized (logsByTag) {
-      if (!logsByTag.containsKey(tag)) {
-        itemList = new ConcurrentLinkedQueue<>();
-        logsByTag.put(tag, itemList);
-      } else {
-        itemList = logsByTag.get(tag);
+    if (maxItems > 0) {
+      TagLogs tagLogs;
+      synchronized (logsByTag) {
+        tagLogs = logsByTag.get(tag);
+        if (tagLogs == null) {
+          tagLogs = new TagLogs();
+          logsByTag.put(tag, tagLogs);
+        }
       }
+      tagLogs.add(item, sequence.getAndIncrement(), maxItems);
     }
 
-    itemList.add(item);
-    logs.add(item);
+    for (LogSink sink : sinks) {
+      sink.onLog(item);
+    }
 
     return 0;
   }
@@ -210,7 +283,28 @@ public class ShadowLog {
    * @return List of log items
    */
   public static ImmutableList<LogItem> getLogs() {
-    return ImmutableList.copyOf(logs);
+    // Merge the items kept for each tag by the order they were logged in.
+    PriorityQueue<TagSnapshot> snapshots =
+        new PriorityQueue<>((a, b) -> Long.compare(a.nextSequence(), b.nextSequence()));
+    int size = 0;
+    synchronized (logsByTag) {
+      for (TagLogs tagLogs : logsByTag.values()) {
+        TagSnapshot snapshot = tagLogs.snapshot();
+        if (snapshot.hasNext()) {
+          snapshots.add(snapshot);
+          size += snapshot.items.length;
+        }
+      }
+    }
+    ImmutableList.Builder<LogItem> result = ImmutableList.builderWithExpectedSize(size);
+    while (!snapshots.isEmpty()) {
+      TagSnapshot snapshot = snapshots.poll();
+      result.add(snapshot.next());
+      if (snapshot.hasNext()) {
+        snapshots.add(snapshot);
+      }
+    }
+    return result.build();
   }
 
   /**
@@ -220,21 +314,74 @@ public class ShadowLog {
    * @return The list of log items for the tag or an empty list if no logs for that tag exist.
    */
   public static ImmutableList<LogItem> getLogsForTag(String tag) {
-    Queue<LogItem> logs = logsByTag.get(tag);
-    return logs == null ? ImmutableList.of() : ImmutableList.copyOf(logs);
+    TagLogs logs = logsByTag.get(tag);
+    return logs == null ? ImmutableList.of() : ImmutableList.copyOf(logs.snapshot().items);
   }
 
-  /** Clear all accumulated logs. */
+  /**
+   * Clear all accumulated logs, and undo {@link #setLoggable} and {@link #setWtfIsFatal}. Sinks, and
+   * the settings of {@link #setMaxItemsPerTag} and {@link #setCaptureLevel}, are kept until the next
+   * test.
+   */
   public static void clear() {
-    reset();
+    logsByTag.clear();
+    sequence.set(0);
+    tagToLevel.clear();
+    wtfIsFatal = false;
   }
 
   @Resetter
   public static void reset() {
-    logs.clear();
-    logsByTag.clear();
-    tagToLevel.clear();
-    wtfIsFatal = false;
+    clear();
+    sinks.clear();
+    maxItemsPerTag = getMaxItemsPerTagProperty();
+    captureLevel = getCaptureLevelProperty();
+  }
+
+  private static int getMaxItemsPerTagProperty() {
+    String maxItems = System.getProperty(MAX_ITEMS_PER_TAG_PROPERTY);
+    if (maxItems == null) {
+      return Integer.MAX_VALUE;
+    }
+    try {
+      int value = Integer.parseInt(maxItems.trim());
+      if (value >= 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Fall through to the exception below.
+    }
+    throw new IllegalArgumentException(
+        "Invalid " + MAX_ITEMS_PER_TAG_PROPERTY + ": " + maxItems);
+  }
+
+  private static int getCaptureLevelProperty() {
+    String level = System.getProperty(CAPTURE_LEVEL_PROPERTY);
+    if (level == null) {
+      return Log.VERBOSE;
+    }
+    switch (Ascii.toUpperCase(level.trim())) {
+      case "V":
+      case "VERBOSE":
+        return Log.VERBOSE;
+      case "D":
+      case "DEBUG":
+        return Log.DEBUG;
+      case "I":
+      case "INFO":
+        return Log.INFO;
+      case "W":
+      case "WARN":
+        return Log.WARN;
+      case "E":
+      case "ERROR":
+        return Log.ERROR;
+      case "A":
+      case "ASSERT":
+        return Log.ASSERT;
+      default:
+        throw new IllegalArgumentException("Invalid " + CAPTURE_LEVEL_PROPERTY + ": " + level);
+    }
   }
 
   @SuppressWarnings("CatchAndPrintStackTrace")
@@ -338,6 +485,82 @@ public class ShadowLog {
     }
   }
 
+  /** Receives log items as they are logged. */
+  public interface LogSink {
+    /** Called on the logging thread for each captured log item. */
+    void onLog(LogItem item);
+  }
+
+  /** The most recent log items for a tag, in a ring buffer which grows up to the item limit. */
+  private static final class TagLogs {
+    private LogItem[] items = new LogItem[8];
+    private long[] sequences = new long[8];
+    private int first;
+    private int size;
+
+    synchronized void add(LogItem item, long sequence, int maxItems) {
+      trimTo(maxItems - 1);
+      if (size == items.length) {
+        int capacity = (int) Math.min(2L * items.length, maxItems);
+        LogItem[] newItems = new LogItem[capacity];
+        long[] newSequences = new long[capacity];
+        for (int i = 0; i < size; i++) {
+          newItems[i] = items[(first + i) % items.length];
+          newSequences[i] = sequences[(first + i) % items.length];
+        }
+        items = newItems;
+        sequences = newSequences;
+        first = 0;
+      }
+      int index = (first + size) % items.length;
+      items[index] = item;
+      sequences[index] = sequence;
+      size++;
+    }
+
+    synchronized void trimTo(int maxItems) {
+      while (size > maxItems) {
+        items[first] = null;
+        first = (first + 1) % items.length;
+        size--;
+      }
+    }
+
+    synchronized TagSnapshot snapshot() {
+      LogItem[] itemsCopy = new LogItem[size];
+      long[] sequencesCopy = new long[size];
+      int firstLength = Math.min(size, items.length - first);
+      System.arraycopy(items, first, itemsCopy, 0, firstLength);
+      System.arraycopy(items, 0, itemsCopy, firstLength, size - firstLength);
+      System.arraycopy(sequences, first, sequencesCopy, 0, firstLength);
+      System.arraycopy(sequences, 0, sequencesCopy, firstLength, size - firstLength);
+      return new TagSnapshot(itemsCopy, sequencesCopy);
+    }
+  }
+
+  private static final class TagSnapshot {
+    final LogItem[] items;
+    final long[] sequences;
+    private int next;
+
+    TagSnapshot(LogItem[] items, long[] sequences) {
+      this.items = items;
+      this.sequences = sequences;
+    }
+
+    boolean hasNext() {
+      return next < items.length;
+    }
+
+    long nextSequence() {
+      return sequences[next];
+    }
+
+    LogItem next() {
+      return items[next++];
+    }
+  }
+
   /**
    * Failure thrown when wtf_is_fatal is true and Log.wtf is called. This is a parallel
    * implementation of framework's hidden API {@link android.util.Log#TerribleFailure}, to allow
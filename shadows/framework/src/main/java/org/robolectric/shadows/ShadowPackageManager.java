@@ -128,12 +128,12 @@ public class ShadowPackageManager {
 
   static final Set<Object> permissionListeners = new CopyOnWriteArraySet<>();
 
-  // Those maps contain filter for components. If component exists but doesn't have filters,
-  // it will have an entry in the map with an empty list.
-  static final SortedMap<ComponentName, List<IntentFilter>> activityFilters = new TreeMap<>();
-  static final SortedMap<ComponentName, List<IntentFilter>> serviceFilters = new TreeMap<>();
-  static final SortedMap<ComponentName, List<IntentFilter>> providerFilters = new TreeMap<>();
-  static final SortedMap<ComponentName, List<IntentFilter>> receiverFilters = new TreeMap<>();
+  // Those contain filters for components. If component exists but doesn't have filters,
+  // it will have an entry with an empty list.
+  static final ComponentIntentFilters activityFilters = new ComponentIntentFilters();
+  static final ComponentIntentFilters serviceFilters = new ComponentIntentFilters();
+  static final ComponentIntentFilters providerFilters = new ComponentIntentFilters();
+  static final ComponentIntentFilters receiverFilters = new ComponentIntentFilters();
 
   private static Map<String, PackageInfo> packageArchiveInfo = new HashMap<>();
   static final Map<String, PackageStats> packageStatsMap = new HashMap<>();
@@ -379,7 +379,7 @@ public class ShadowPackageManager {
   }
 
   private <C extends ComponentInfo> C addComponent(
-      SortedMap<ComponentName, List<IntentFilter>> filtersMap,
+      ComponentIntentFilters filtersMap,
       Function<PackageInfo, C[]> componentArrayInPackage,
       BiConsumer<PackageInfo, C[]> componentsSetter,
       C newComponent,
@@ -423,8 +423,7 @@ public class ShadowPackageManager {
       componentsSetter.accept(packageInfo, components);
       components[components.length - 1] = newComponent;
 
-      filtersMap.put(
-          new ComponentName(newComponent.packageName, newComponent.name), new ArrayList<>());
+      filtersMap.putComponent(new ComponentName(newComponent.packageName, newComponent.name));
       return newComponent;
     }
   }
@@ -432,11 +431,11 @@ public class ShadowPackageManager {
   @Nullable
   private <C extends ComponentInfo> C removeComponent(
       ComponentName componentName,
-      SortedMap<ComponentName, List<IntentFilter>> filtersMap,
+      ComponentIntentFilters filtersMap,
       Function<PackageInfo, C[]> componentArrayInPackage,
       BiConsumer<PackageInfo, C[]> componentsSetter) {
     synchronized (lock) {
-      filtersMap.remove(componentName);
+      filtersMap.removeComponent(componentName);
       String packageName = componentName.getPackageName();
       PackageInfo packageInfo = packageInfos.get(packageName);
       if (packageInfo == null) {
@@ -1126,10 +1125,10 @@ public class ShadowPackageManager {
     synchronized (lock) {
       deletedPackages.add(packageName);
       packageInfos.remove(packageName);
-      mapForPackage(activityFilters, packageName).clear();
-      mapForPackage(serviceFilters, packageName).clear();
-      mapForPackage(providerFilters, packageName).clear();
-      mapForPackage(receiverFilters, packageName).clear();
+      activityFilters.removePackage(packageName);
+      serviceFilters.removePackage(packageName);
+      providerFilters.removePackage(packageName);
+      receiverFilters.removePackage(packageName);
       moduleInfos.remove(packageName);
     }
   }
@@ -1262,21 +1261,17 @@ public class ShadowPackageManager {
   }
 
   private void addFilters(
-      Map<ComponentName, List<IntentFilter>> componentMap,
+      ComponentIntentFilters componentFilters,
       List<? extends PackageParser.Component<?>> components) {
     if (components == null) {
       return;
     }
     for (Component<?> component : components) {
-      ComponentName componentName = component.getComponentName();
-      List<IntentFilter> registeredFilters = componentMap.get(componentName);
-      if (registeredFilters == null) {
-        registeredFilters = new ArrayList<>();
-        componentMap.put(componentName, registeredFilters);
-      }
+      List<IntentFilter> registeredFilters = new ArrayList<>(component.intents.size());
       for (IntentInfo intentInfo : component.intents) {
         registeredFilters.add(new IntentFilter(intentInfo));
       }
+      componentFilters.addComponentFilters(component.getComponentName(), registeredFilters);
     }
   }
 
@@ -1388,6 +1383,9 @@ public class ShadowPackageManager {
   /**
    * Get list of intent filters defined for given activity.
    *
+   * <p>The filters are copies, so changing them doesn't change how intents are resolved. Use
+   * {@link #addIntentFilterForActivity} or {@link #clearIntentFilterForActivity} instead.
+   *
    * @param componentName Name of the activity whose intent filters are to be retrieved
    * @return the activity's intent filters
    * @throws IllegalArgumentException if component with given name doesn't exist.
@@ -1399,6 +1397,9 @@ public class ShadowPackageManager {
   /**
    * Get list of intent filters defined for given service.
    *
+   * <p>The filters are copies, so changing them doesn't change how intents are resolved. Use
+   * {@link #addIntentFilterForService} or {@link #clearIntentFilterForService} instead.
+   *
    * @param componentName Name of the service whose intent filters are to be retrieved
    * @return the service's intent filters
    * @throws IllegalArgumentException if component with given name doesn't exist.
@@ -1410,6 +1411,9 @@ public class ShadowPackageManager {
   /**
    * Get list of intent filters defined for given receiver.
    *
+   * <p>The filters are copies, so changing them doesn't change how intents are resolved. Use
+   * {@link #addIntentFilterForReceiver} or {@link #clearIntentFilterForReceiver} instead.
+   *
    * @param componentName Name of the receiver whose intent filters are to be retrieved
    * @return the receiver's intent filters
    * @throws IllegalArgumentException if component with given name doesn't exist.
@@ -1421,6 +1425,9 @@ public class ShadowPackageManager {
   /**
    * Get list of intent filters defined for given provider.
    *
+   * <p>The filters are copies, so changing them doesn't change how intents are resolved. Use
+   * {@link #addIntentFilterForProvider} or {@link #clearIntentFilterForProvider} instead.
+   *
    * @param componentName Name of the provider whose intent filters are to be retrieved
    * @return the provider's intent filters
    * @throws IllegalArgumentException if component with given name doesn't exist.
@@ -1432,6 +1439,9 @@ public class ShadowPackageManager {
   /**
    * Add intent filter for given activity.
    *
+   * <p>The filter is copied, so changing it afterwards doesn't change how intents are resolved.
+   * Clear the component's filters and add the changed filter again instead.
+   *
    * @throws IllegalArgumentException if component with given name doesn't exist.
    */
   public void addIntentFilterForActivity(ComponentName componentName, IntentFilter filter) {
@@ -1441,6 +1451,9 @@ public class ShadowPackageManager {
   /**
    * Add intent filter for given service.
    *
+   * <p>The filter is copied, so changing it afterwards doesn't change how intents are resolved.
+   * Clear the component's filters and add the changed filter again instead.
+   *
    * @throws IllegalArgumentException if component with given name doesn't exist.
    */
   public void addIntentFilterForService(ComponentName componentName, IntentFilter filter) {
@@ -1450,6 +1463,9 @@ public class ShadowPackageManager {
   /**
    * Add intent filter for given receiver.
    *
+   * <p>The filter is copied, so changing it afterwards doesn't change how intents are resolved.
+   * Clear the component's filters and add the changed filter again instead.
+   *
    * @throws IllegalArgumentException if component with given name doesn't exist.
    */
   public void addIntentFilterForReceiver(ComponentName componentName, IntentFilter filter) {
@@ -1459,6 +1475,9 @@ public class ShadowPackageManager {
   /**
    * Add intent filter for given provider.
    *
+   * <p>The filter is copied, so changing it afterwards doesn't change how intents are resolved.
+   * Clear the component's filters and add the changed filter again instead.
+   *
    * @throws IllegalArgumentException if component with given name doesn't exist.
    */
   public void addIntentFilterForProvider(ComponentName componentName, IntentFilter filter) {
@@ -1504,33 +1523,37 @@ public class ShadowPackageManager {
   private void addIntentFilterForComponent(
       ComponentName componentName,
       IntentFilter filter,
-      Map<ComponentName, List<IntentFilter>> filterMap) {
+      ComponentIntentFilters filterMap) {
     // Existing components should have an entry in respective filterMap.
     // It is OK to search over all filter maps, as it is impossible to have the same component name
     // being of two comopnent types (like activity and service at the same time).
-    List<IntentFilter> filters = filterMap.get(componentName);
-    if (filters != null) {
-      filters.add(filter);
-      return;
+    synchronized (lock) {
+      if (filterMap.addFilter(componentName, new IntentFilter(filter))) {
+        return;
+      }
     }
     throw new IllegalArgumentException(componentName + " doesn't exist");
   }
 
   private void clearIntentFilterForComponent(
-      ComponentName componentName, Map<ComponentName, List<IntentFilter>> filterMap) {
-    List<IntentFilter> filters = filterMap.get(componentName);
-    if (filters != null) {
-      filters.clear();
-      return;
+      ComponentName componentName, ComponentIntentFilters filterMap) {
+    synchronized (lock) {
+      if (filterMap.clearFilters(componentName)) {
+        return;
+      }
     }
     throw new IllegalArgumentException(componentName + " doesn't exist");
   }
 
   private List<IntentFilter> getIntentFiltersForComponent(
-      ComponentName componentName, Map<ComponentName, List<IntentFilter>> filterMap) {
-    List<IntentFilter> filters = filterMap.get(componentName);
+      ComponentName componentName, ComponentIntentFilters filterMap) {
+    List<IntentFilter> filters = filterMap.getFilters(componentName);
     if (filters != null) {
-      return new ArrayList<>(filters);
+      List<IntentFilter> copies = new ArrayList<>(filters.size());
+      for (IntentFilter filter : filters) {
+        copies.add(new IntentFilter(filter));
+      }
+      return copies;
     }
     throw new IllegalArgumentException(componentName + " doesn't exist");
   }
@@ -36,7 +36,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import org.robolectric.annotation.HiddenApi;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
@@ -52,11 +54,23 @@ import org.robolectric.util.ReflectionHelpers.ClassParameter;
  * is strongly typed, to detect non-portable code and common testing mistakes. It may throw {@link
  * IllegalArgumentException} or {@link IllegalStateException} for error-prone behavior normal {@link
  * Parcel} tolerates.
+ *
+ * <p>Alternatively, setting the {@code robolectric.parcelMode} system property to {@code binary}
+ * backs each Parcel with a plain byte array laid out the way Android's native Parcel lays it out.
+ * This is much faster and uses much less memory when parceling large Bundles or Intents, but
+ * tolerates everything a real Parcel does, so it doesn't catch the test bugs the default mode
+ * does.
  */
 @Implements(value = Parcel.class, looseSignatures = true)
 public class ShadowParcel {
   protected static final String TAG = "Parcel";
 
+  /**
+   * System property selecting how parcels are stored: {@code binary} for {@link BinaryByteBuffer},
+   * otherwise {@link TypedByteBuffer}.
+   */
+  static final String PARCEL_MODE_PROPERTY = "robolectric.parcelMode";
+
   @RealObject private Parcel realObject;
 
   private static final NativeObjRegistry<ByteBuffer> NATIVE_BYTE_BUFFER_REGISTRY =
@@ -566,7 +580,7 @@ public class ShadowParcel {
   @Implementation
   @HiddenApi
   public static Number nativeCreate() {
-    return castNativePtr(NATIVE_BYTE_BUFFER_REGISTRY.register(new ByteBuffer()));
+    return castNativePtr(NATIVE_BYTE_BUFFER_REGISTRY.register(ByteBuffer.create()));
   }
 
   @HiddenApi
@@ -578,7 +592,8 @@ public class ShadowParcel {
   @Implementation(minSdk = LOLLIPOP)
   @SuppressWarnings("robolectric.ShadowReturnTypeMismatch")
   protected static void nativeFreeBuffer(long nativePtr) {
-    NATIVE_BYTE_BUFFER_REGISTRY.getNativeObject(nativePtr).clear();
+    // Parcels are pooled, so pick up any change to the parcel mode when they are recycled.
+    NATIVE_BYTE_BUFFER_REGISTRY.update(nativePtr, ByteBuffer.create());
   }
 
   @HiddenApi
@@ -681,7 +696,7 @@ public class ShadowParcel {
     }
 
     UnreliableBehaviorError(
-        Class<?> clazz, int position, ByteBuffer.FakeEncodedItem item, String extraMessage) {
+        Class<?> clazz, int position, TypedByteBuffer.FakeEncodedItem item, String extraMessage) {
       super(
           String.format(
               Locale.US,
@@ -695,8 +710,129 @@ public class ShadowParcel {
     }
   }
 
+  /** ByteBuffer pretends to be the underlying Parcel implementation. */
+  private abstract static class ByteBuffer {
+    /** Number of bytes in Parcel used by an int, length, or anything smaller. */
+    static final int INT_SIZE_BYTES = 4;
+    /** Number of bytes in Parcel used by a long or double. */
+    static final int LONG_OR_DOUBLE_SIZE_BYTES = 8;
+    /** Immutable empty byte array. */
+    static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    /** Creates an empty byte buffer of the kind selected by {@link #PARCEL_MODE_PROPERTY}. */
+    static ByteBuffer create() {
+      return useBinaryMode() ? new BinaryByteBuffer() : new TypedByteBuffer();
+    }
+
+    /**
+     * Creates a byte buffer of the kind selected by {@link #PARCEL_MODE_PROPERTY} from a raw byte
+     * array produced by {@link #toByteArray()}.
+     */
+    static ByteBuffer fromByteArray(byte[] array, int offset, int length) {
+      return useBinaryMode()
+          ? BinaryByteBuffer.fromByteArray(array, offset, length)
+          : TypedByteBuffer.fromByteArray(array, offset, length);
+    }
+
+    private static boolean useBinaryMode() {
+      return "binary".equals(System.getProperty(PARCEL_MODE_PROPERTY));
+    }
+
+    /** Rounds to next 4-byte bounder similar to native Parcel. */
+    static int alignToInt(int unpaddedSizeBytes) {
+      return ((unpaddedSizeBytes + 3) / 4) * 4;
+    }
+
+    /** Removes all elements from the byte buffer */
+    abstract void clear();
+
+    /** Reads a byte array from the byte buffer based on the current data position */
+    abstract byte[] createByteArray();
+
+    /** Reads a byte array from the byte buffer based on the current data position */
+    abstract boolean readByteArray(byte[] dest, int destLen);
+
+    /**
+     * Writes a byte array starting at offset for length bytes to the byte buffer at the current
+     * data position
+     */
+    abstract void writeByteArray(byte[] b, int offset, int length);
+
+    /** Writes an int to the byte buffer at the current data position */
+    abstract void writeInt(int i);
+
+    /** Reads a int from the byte buffer based on the current data position */
+    abstract int readInt();
+
+    /** Writes a long to the byte buffer at the current data position */
+    abstract void writeLong(long l);
+
+    /** Reads a long from the byte buffer based on the current data position */
+    abstract long readLong();
+
+    /** Writes a float to the byte buffer at the current data position */
+    abstract void writeFloat(float f);
+
+    /** Reads a float from the byte buffer based on the current data position */
+    abstract float readFloat();
+
+    /** Writes a double to the byte buffer at the current data position */
+    abstract void writeDouble(double d);
+
+    /** Reads a double from the byte buffer based on the current data position */
+    abstract double readDouble();
+
+    /** Writes a String to the byte buffer at the current data position */
+    abstract void writeString(String s);
+
+    /** Reads a String from the byte buffer based on the current data position */
+    abstract String readString();
+
+    /** Writes an IBinder to the byte buffer at the current data position */
+    abstract void writeStrongBinder(IBinder b);
+
+    /** Reads an IBinder from the byte buffer based on the current data position */
+    abstract IBinder readStrongBinder();
+
+    /**
+     * Appends the contents of the other byte buffer to this byte buffer starting at offset and
+     * ending at length.
+     *
+     * @param other ByteBuffer to append to this one
+     * @param offset number of bytes from beginning of byte buffer to start copy from
+     * @param length number of bytes to copy
+     */
+    abstract void appendFrom(ByteBuffer other, int offset, int length);
+
+    /** Converts a ByteBuffer to a raw byte array. */
+    abstract byte[] toByteArray();
+
+    /** Number of unused bytes in this byte buffer. */
+    abstract int dataAvailable();
+
+    /** Total buffer size in bytes of byte buffer included unused space. */
+    abstract int dataCapacity();
+
+    /** Current data position of byte buffer in bytes. Reads / writes are from this position. */
+    abstract int dataPosition();
+
+    /** Current amount of bytes currently written for ByteBuffer. */
+    abstract int dataSize();
+
+    /**
+     * Sets the current data position.
+     *
+     * @param pos Desired position in bytes
+     */
+    abstract void setDataPosition(int pos);
+
+    abstract void setDataSize(int size);
+
+    abstract void setDataCapacityAtLeast(int newCapacity);
+  }
+
   /**
-   * ByteBuffer pretends to be the underlying Parcel implementation.
+   * TypedByteBuffer is the default ByteBuffer.
    *
    * <p>It faithfully simulates Parcel's handling of position, size, and capacity, but is strongly
    * typed internally. It was debated whether this should instead faithfully represent Android's
@@ -740,14 +876,7 @@ public class ShadowParcel {
    *       only at most one allocation for every 4 byte positions.
    * </ul>
    */
-  private static class ByteBuffer {
-    /** Number of bytes in Parcel used by an int, length, or anything smaller. */
-    private static final int INT_SIZE_BYTES = 4;
-    /** Number of bytes in Parcel used by a long or double. */
-    private static final int LONG_OR_DOUBLE_SIZE_BYTES = 8;
-    /** Immutable empty byte array. */
-    private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
-
+  private static class TypedByteBuffer extends ByteBuffer {
     /** Representation for an item that has been serialized in a parcel. */
     private static class FakeEncodedItem implements Serializable {
       /** Number of consecutive bytes consumed by this object. */
@@ -801,11 +930,12 @@ public class ShadowParcel {
      */
     private boolean failNextReadIfPastEnd;
 
-    ByteBuffer() {
+    TypedByteBuffer() {
       clear();
     }
 
     /** Removes all elements from the byte buffer */
+    @Override
     public void clear() {
       data = new FakeEncodedItem[0];
       dataPosition = 0;
@@ -814,6 +944,7 @@ public class ShadowParcel {
     }
 
     /** Reads a byte array from the byte buffer based on the current data position */
+    @Override
     public byte[] createByteArray() {
       // It would be simpler just to store the byte array without a separate length.  However, the
       // "non-native" code in Parcel short-circuits null to -1, so this must consistently write a
@@ -857,6 +988,7 @@ public class ShadowParcel {
     }
 
     /** Reads a byte array from the byte buffer based on the current data position */
+    @Override
     public boolean readByteArray(byte[] dest, int destLen) {
       byte[] result = createByteArray();
       if (result == null || destLen != result.length) {
@@ -873,6 +1005,7 @@ public class ShadowParcel {
      * Writes a byte array starting at offset for length bytes to the byte buffer at the current
      * data position
      */
+    @Override
     public void writeByteArray(byte[] b, int offset, int length) {
       writeInt(length);
       // Native parcel writes a byte array as length plus the individual bytes.  But we can't write
@@ -884,46 +1017,55 @@ public class ShadowParcel {
     }
 
     /** Writes an int to the byte buffer at the current data position */
+    @Override
     public void writeInt(int i) {
       writeValue(INT_SIZE_BYTES, i);
     }
 
     /** Reads a int from the byte buffer based on the current data position */
+    @Override
     public int readInt() {
       return readPrimitive(INT_SIZE_BYTES, 0, Integer.class);
     }
 
     /** Writes a long to the byte buffer at the current data position */
+    @Override
     public void writeLong(long l) {
       writeValue(LONG_OR_DOUBLE_SIZE_BYTES, l);
     }
 
     /** Reads a long from the byte buffer based on the current data position */
+    @Override
     public long readLong() {
       return readPrimitive(LONG_OR_DOUBLE_SIZE_BYTES, 0L, Long.class);
     }
 
     /** Writes a float to the byte buffer at the current data position */
+    @Override
     public void writeFloat(float f) {
       writeValue(INT_SIZE_BYTES, f);
     }
 
     /** Reads a float from the byte buffer based on the current data position */
+    @Override
     public float readFloat() {
       return readPrimitive(INT_SIZE_BYTES, 0f, Float.class);
     }
 
     /** Writes a double to the byte buffer at the current data position */
+    @Override
     public void writeDouble(double d) {
       writeValue(LONG_OR_DOUBLE_SIZE_BYTES, d);
     }
 
     /** Reads a double from the byte buffer based on the current data position */
+    @Override
     public double readDouble() {
       return readPrimitive(LONG_OR_DOUBLE_SIZE_BYTES, 0d, Double.class);
     }
 
     /** Writes a String to the byte buffer at the current data position */
+    @Override
     public void writeString(String s) {
       int nullTerminatedChars = (s != null) ? (s.length() + 1) : 0;
       // Android encodes strings as length plus a null-terminated array of 2-byte characters.
@@ -933,6 +1075,7 @@ public class ShadowParcel {
     }
 
     /** Reads a String from the byte buffer based on the current data position */
+    @Override
     public String readString() {
       if (readZeroes(INT_SIZE_BYTES * 2)) {
         // Empty string is 4 bytes for length of 0, and 4 bytes for null terminator and padding.
@@ -942,6 +1085,7 @@ public class ShadowParcel {
     }
 
     /** Writes an IBinder to the byte buffer at the current data position */
+    @Override
     public void writeStrongBinder(IBinder b) {
       // Size of struct flat_binder_object in android/binder.h used to encode binders in the real
       // parceling code.
@@ -950,6 +1094,7 @@ public class ShadowParcel {
     }
 
     /** Reads an IBinder from the byte buffer based on the current data position */
+    @Override
     public IBinder readStrongBinder() {
       return readValue(null, IBinder.class, /* allowNull= */ true);
     }
@@ -962,7 +1107,11 @@ public class ShadowParcel {
      * @param offset number of bytes from beginning of byte buffer to start copy from
      * @param length number of bytes to copy
      */
+    @Override
     public void appendFrom(ByteBuffer other, int offset, int length) {
+      if (!(other instanceof TypedByteBuffer)) {
+        throw new UnreliableBehaviorError("Can't append a parcel created in another parcel mode");
+      }
       int oldSize = dataSize;
       if (dataPosition != dataSize) {
         // Parcel.cpp will always expand the buffer by length even if it is overwriting existing
@@ -976,7 +1125,7 @@ public class ShadowParcel {
       setDataSize(oldSize + length);
       // Just blindly copy whatever happens to be in the buffer.  Reads will validate whether any
       // of the objects were only incompletely copied.
-      System.arraycopy(other.data, offset, data, dataPosition, length);
+      System.arraycopy(((TypedByteBuffer) other).data, offset, data, dataPosition, length);
       dataPosition += length;
       failNextReadIfPastEnd = true;
     }
@@ -1017,8 +1166,8 @@ public class ShadowParcel {
      * @param length number of bytes to read from array
      */
     @SuppressWarnings("BanSerializableRead")
-    public static ByteBuffer fromByteArray(byte[] array, int offset, int length) {
-      ByteBuffer byteBuffer = new ByteBuffer();
+    public static TypedByteBuffer fromByteArray(byte[] array, int offset, int length) {
+      TypedByteBuffer byteBuffer = new TypedByteBuffer();
 
       if (isAllZeroes(array, offset, length)) {
         // Special case: for all zeroes, it's definitely not an ObjectInputStream, because it has a
@@ -1050,6 +1199,7 @@ public class ShadowParcel {
      * Converts a ByteBuffer to a raw byte array. This method should be symmetrical with
      * fromByteArray.
      */
+    @Override
     public byte[] toByteArray() {
       int oldDataPosition = dataPosition;
       try {
@@ -1079,21 +1229,25 @@ public class ShadowParcel {
     }
 
     /** Number of unused bytes in this byte buffer. */
+    @Override
     public int dataAvailable() {
       return dataSize() - dataPosition();
     }
 
     /** Total buffer size in bytes of byte buffer included unused space. */
+    @Override
     public int dataCapacity() {
       return data.length;
     }
 
     /** Current data position of byte buffer in bytes. Reads / writes are from this position. */
+    @Override
     public int dataPosition() {
       return dataPosition;
     }
 
     /** Current amount of bytes currently written for ByteBuffer. */
+    @Override
     public int dataSize() {
       return dataSize;
     }
@@ -1103,6 +1257,7 @@ public class ShadowParcel {
      *
      * @param pos Desired position in bytes
      */
+    @Override
     public void setDataPosition(int pos) {
       if (pos > dataSize) {
         // NOTE: Real parcel ignores this until a write occurs.
@@ -1112,6 +1267,7 @@ public class ShadowParcel {
       failNextReadIfPastEnd = false;
     }
 
+    @Override
     public void setDataSize(int size) {
       if (size < dataSize) {
         // Clear all the inaccessible bytes when shrinking, to allow garbage collection, and so
@@ -1126,6 +1282,7 @@ public class ShadowParcel {
       }
     }
 
+    @Override
     public void setDataCapacityAtLeast(int newCapacity) {
       // NOTE: Oddly, Parcel only every increases data capacity, and never decreases it, so this
       // really should have never been named setDataCapacity.
@@ -1138,11 +1295,6 @@ public class ShadowParcel {
       }
     }
 
-    /** Rounds to next 4-byte bounder similar to native Parcel. */
-    private int alignToInt(int unpaddedSizeBytes) {
-      return ((unpaddedSizeBytes + 3) / 4) * 4;
-    }
-
     /**
      * Ensures that the next sizeBytes are all the initial value we read.
      *
@@ -1304,6 +1456,346 @@ public class ShadowParcel {
     }
   }
 
+  /**
+   * BinaryByteBuffer encodes data into a plain byte array, using the same little-endian, 4-byte
+   * aligned layout as Android's native Parcel.
+   *
+   * <p>Unlike {@link TypedByteBuffer}, it doesn't remember what was written where, so it is much
+   * cheaper, and marshalling and unmarshalling are plain array copies. In exchange it tolerates
+   * everything real parcels do: values may be read back as a different type than they were written
+   * as, and reads past the end return zero or null.
+   *
+   * <p>Binders can't be represented as bytes, so as in native Parcel they are kept alongside the
+   * data, keyed by the position of their {@code flat_binder_object}. Like a real Parcel, a
+   * BinaryByteBuffer holding binders can't be marshalled.
+   */
+  private static class BinaryByteBuffer extends ByteBuffer {
+    /** Number of bytes used by a {@code flat_binder_object} on 64-bit devices. */
+    private static final int FLAT_BINDER_OBJECT_SIZE_BYTES = 24;
+    /** {@code BINDER_TYPE_BINDER}, the type of a local binder's {@code flat_binder_object}. */
+    private static final int BINDER_TYPE_BINDER = 0x73622a85;
+
+    private byte[] data;
+    private int dataSize;
+    private int dataPosition;
+    /** Binders written to this buffer by position, or null if there are none. */
+    private TreeMap<Integer, IBinder> binders;
+
+    BinaryByteBuffer() {
+      clear();
+    }
+
+    @Override
+    public void clear() {
+      data = EMPTY_BYTE_ARRAY;
+      dataSize = 0;
+      dataPosition = 0;
+      binders = null;
+    }
+
+    @Override
+    public byte[] createByteArray() {
+      int length = readInt();
+      if (length < 0 || alignToInt(length) > dataAvailable()) {
+        return null;
+      }
+      byte[] result = new byte[length];
+      System.arraycopy(data, dataPosition, result, 0, length);
+      dataPosition += alignToInt(length);
+      return result;
+    }
+
+    @Override
+    public boolean readByteArray(byte[] dest, int destLen) {
+      int length = readInt();
+      if (length != destLen || alignToInt(length) > dataAvailable()) {
+        return false;
+      }
+      System.arraycopy(data, dataPosition, dest, 0, length);
+      dataPosition += alignToInt(length);
+      return true;
+    }
+
+    @Override
+    public void writeByteArray(byte[] b, int offset, int length) {
+      writeInt(length);
+      int position = prepareWrite(alignToInt(length));
+      System.arraycopy(b, offset, data, position, length);
+      Arrays.fill(data, position + length, dataPosition, (byte) 0);
+    }
+
+    @Override
+    public void writeInt(int i) {
+      putInt(prepareWrite(INT_SIZE_BYTES), i);
+    }
+
+    @Override
+    public int readInt() {
+      if (dataAvailable() < INT_SIZE_BYTES) {
+        return 0;
+      }
+      int i = getInt(dataPosition);
+      dataPosition += INT_SIZE_BYTES;
+      return i;
+    }
+
+    @Override
+    public void writeLong(long l) {
+      int position = prepareWrite(LONG_OR_DOUBLE_SIZE_BYTES);
+      putInt(position, (int) l);
+      putInt(position + INT_SIZE_BYTES, (int) (l >>> 32));
+    }
+
+    @Override
+    public long readLong() {
+      if (dataAvailable() < LONG_OR_DOUBLE_SIZE_BYTES) {
+        return 0;
+      }
+      long low = getInt(dataPosition) & 0xffffffffL;
+      long high = getInt(dataPosition + INT_SIZE_BYTES);
+      dataPosition += LONG_OR_DOUBLE_SIZE_BYTES;
+      return (high << 32) | low;
+    }
+
+    @Override
+    public void writeFloat(float f) {
+      writeInt(Float.floatToRawIntBits(f));
+    }
+
+    @Override
+    public float readFloat() {
+      return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public void writeDouble(double d) {
+      writeLong(Double.doubleToRawLongBits(d));
+    }
+
+    @Override
+    public double readDouble() {
+      return Double.longBitsToDouble(readLong());
+    }
+
+    /** Writes a String as UTF-16 with a null terminator, as Parcel's writeString16 does. */
+    @Override
+    public void writeString(String s) {
+      if (s == null) {
+        writeInt(-1);
+        return;
+      }
+      int length = s.length();
+      writeInt(length);
+      int position = prepareWrite(alignToInt((length + 1) * 2));
+      for (int i = 0; i < length; i++) {
+        char c = s.charAt(i);
+        data[position + i * 2] = (byte) c;
+        data[position + i * 2 + 1] = (byte) (c >> 8);
+      }
+      Arrays.fill(data, position + length * 2, dataPosition, (byte) 0);
+    }
+
+    @Override
+    public String readString() {
+      int length = readInt();
+      if (length < 0 || length >= Integer.MAX_VALUE / 2) {
+        return null;
+      }
+      int sizeBytes = alignToInt((length + 1) * 2);
+      int terminator = dataPosition + length * 2;
+      if (sizeBytes > dataAvailable() || data[terminator] != 0 || data[terminator + 1] != 0) {
+        return null;
+      }
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        int position = dataPosition + i * 2;
+        chars[i] = (char) ((data[position] & 0xff) | (data[position + 1] << 8));
+      }
+      dataPosition += sizeBytes;
+      return new String(chars);
+    }
+
+    @Override
+    public void writeStrongBinder(IBinder b) {
+      int position = prepareWrite(FLAT_BINDER_OBJECT_SIZE_BYTES);
+      putInt(position, BINDER_TYPE_BINDER);
+      Arrays.fill(data, position + INT_SIZE_BYTES, dataPosition, (byte) 0);
+      if (b != null) {
+        if (binders == null) {
+          binders = new TreeMap<>();
+        }
+        binders.put(position, b);
+      }
+    }
+
+    @Override
+    public IBinder readStrongBinder() {
+      if (dataAvailable() < FLAT_BINDER_OBJECT_SIZE_BYTES) {
+        return null;
+      }
+      IBinder b = binders == null ? null : binders.get(dataPosition);
+      dataPosition += FLAT_BINDER_OBJECT_SIZE_BYTES;
+      return b;
+    }
+
+    /**
+     * Appends length bytes of the other byte buffer, starting at offset, at the current position.
+     *
+     * <p>As in Parcel.cpp, the data size always grows by length, even when the copied bytes
+     * overwrite existing data.
+     */
+    @Override
+    public void appendFrom(ByteBuffer other, int offset, int length) {
+      if (!(other instanceof BinaryByteBuffer)) {
+        throw new UnreliableBehaviorError("Can't append a parcel created in another parcel mode");
+      }
+      BinaryByteBuffer source = (BinaryByteBuffer) other;
+      if (length == 0) {
+        return;
+      }
+      if (offset < 0 || length < 0 || offset > source.dataSize - length) {
+        throw new IllegalArgumentException(
+            "Can't append " + length + " bytes at " + offset + " from " + source.dataSize);
+      }
+      // Collect the source's binders first, since the source may be this buffer.
+      Map<Integer, IBinder> copiedBinders =
+          source.binders == null || length < FLAT_BINDER_OBJECT_SIZE_BYTES
+              ? null
+              : new HashMap<>(
+                  source.binders.subMap(
+                      offset, true, offset + length - FLAT_BINDER_OBJECT_SIZE_BYTES, true));
+      int position = dataPosition;
+      setDataCapacityAtLeast(Math.max(position, dataSize) + length);
+      System.arraycopy(source.data, offset, data, position, length);
+      removeBinders(position, position + length);
+      if (copiedBinders != null && !copiedBinders.isEmpty()) {
+        if (binders == null) {
+          binders = new TreeMap<>();
+        }
+        for (Map.Entry<Integer, IBinder> entry : copiedBinders.entrySet()) {
+          binders.put(entry.getKey() - offset + position, entry.getValue());
+        }
+      }
+      dataPosition += length;
+      dataSize = Math.max(dataSize + length, dataPosition);
+    }
+
+    /**
+     * Creates a byte buffer holding a copy of a raw byte array, positioned at its end as Android
+     * does.
+     */
+    public static BinaryByteBuffer fromByteArray(byte[] array, int offset, int length) {
+      BinaryByteBuffer byteBuffer = new BinaryByteBuffer();
+      byteBuffer.data = Arrays.copyOfRange(array, offset, offset + length);
+      byteBuffer.dataSize = length;
+      byteBuffer.dataPosition = length;
+      return byteBuffer;
+    }
+
+    /** Returns a copy of the written bytes. */
+    @Override
+    public byte[] toByteArray() {
+      if (binders != null && !binders.isEmpty()) {
+        throw new RuntimeException("Tried to marshall a Parcel that contained Binder objects.");
+      }
+      return Arrays.copyOf(data, dataSize);
+    }
+
+    @Override
+    public int dataAvailable() {
+      return Math.max(0, dataSize - dataPosition);
+    }
+
+    @Override
+    public int dataCapacity() {
+      return data.length;
+    }
+
+    @Override
+    public int dataPosition() {
+      return dataPosition;
+    }
+
+    @Override
+    public int dataSize() {
+      return dataSize;
+    }
+
+    /**
+     * Sets the current data position. As in Android, this may be past the end of the data; the
+     * gap is filled with zeroes by the next write.
+     */
+    @Override
+    public void setDataPosition(int pos) {
+      if (pos < 0) {
+        throw new IllegalArgumentException("Negative data position " + pos);
+      }
+      dataPosition = pos;
+    }
+
+    @Override
+    public void setDataSize(int size) {
+      if (size < dataSize) {
+        // Clear the inaccessible bytes, so they read as zeroes if the data grows again.
+        Arrays.fill(data, size, dataSize, (byte) 0);
+        removeBinders(size, dataSize);
+      }
+      setDataCapacityAtLeast(size);
+      dataSize = size;
+      if (dataPosition >= dataSize) {
+        dataPosition = dataSize;
+      }
+    }
+
+    @Override
+    public void setDataCapacityAtLeast(int newCapacity) {
+      if (newCapacity > data.length) {
+        data = Arrays.copyOf(data, newCapacity);
+      }
+    }
+
+    /**
+     * Makes room for a write of sizeBytes at the current position and advances past it.
+     *
+     * @return the position to write at
+     */
+    private int prepareWrite(int sizeBytes) {
+      int position = dataPosition;
+      int endPosition = position + sizeBytes;
+      if (endPosition > data.length) {
+        // Parcel grows by 3/2 of the new size.
+        setDataCapacityAtLeast(endPosition * 3 / 2);
+      }
+      removeBinders(position, endPosition);
+      dataPosition = endPosition;
+      if (endPosition > dataSize) {
+        dataSize = endPosition;
+      }
+      return position;
+    }
+
+    /** Forgets binders whose objects overlap the given range, since they are being overwritten. */
+    private void removeBinders(int start, int end) {
+      if (binders != null && end > start) {
+        binders.subMap(start - FLAT_BINDER_OBJECT_SIZE_BYTES, false, end, false).clear();
+      }
+    }
+
+    private void putInt(int position, int i) {
+      data[position] = (byte) i;
+      data[position + 1] = (byte) (i >> 8);
+      data[position + 2] = (byte) (i >> 16);
+      data[position + 3] = (byte) (i >> 24);
+    }
+
+    private int getInt(int position) {
+      return (data[position] & 0xff)
+          | (data[position + 1] & 0xff) << 8
+          | (data[position + 2] & 0xff) << 16
+          | data[position + 3] << 24;
+    }
+  }
+
   @Implementation(maxSdk = P)
   protected static FileDescriptor openFileDescriptor(String file, int mode) throws IOException {
     RandomAccessFile randomAccessFile =
@@ -93,19 +93,16 @@ public final class ShadowPausedLooper extends ShadowLooper {
     executeOnLooper(new IdlingRunnable());
   }
 
+  /**
+   * Advances the clock to each scheduled message time in turn, running all messages due at each.
+   *
+   * <p>The whole loop runs in a single task on the looper's thread, rather than handing the looper
+   * a separate idle task for every time step.
+   */
   @Override
   public void idleFor(long time, TimeUnit timeUnit) {
     long endingTimeMs = SystemClock.uptimeMillis() + timeUnit.toMillis(time);
-    long nextScheduledTimeMs = getNextScheduledTaskTime().toMillis();
-    while (nextScheduledTimeMs != 0 && nextScheduledTimeMs <= endingTimeMs) {
-      SystemClock.setCurrentTimeMillis(nextScheduledTimeMs);
-      idle();
-      nextScheduledTimeMs = getNextScheduledTaskTime().toMillis();
-    }
-    SystemClock.setCurrentTimeMillis(endingTimeMs);
-    // the last SystemClock update might have added new tasks to the main looper via Choreographer
-    // so idle once more.
-    idle();
+    executeOnLooper(new IdlingForRunnable(endingTimeMs));
   }
 
   @Override
@@ -355,20 +352,51 @@ public final class ShadowPausedLooper extends ShadowLooper {
     }
   }
 
+  /** Runs messages until the queue is idle. Must be called on the looper's thread. */
+  private void runExecutableMessages() {
+    while (true) {
+      Message msg = getNextExecutableMessage();
+      if (msg == null) {
+        break;
+      }
+      msg.getTarget().dispatchMessage(msg);
+      shadowMsg(msg).recycleUnchecked();
+      triggerIdleHandlersIfNeeded(msg);
+    }
+  }
+
   private class IdlingRunnable extends ControlRunnable {
 
     @Override
     public void run() {
       try {
-        while (true) {
-          Message msg = getNextExecutableMessage();
-          if (msg == null) {
-            break;
-          }
-          msg.getTarget().dispatchMessage(msg);
-          shadowMsg(msg).recycleUnchecked();
-          triggerIdleHandlersIfNeeded(msg);
+        runExecutableMessages();
+      } finally {
+        runLatch.countDown();
+      }
+    }
+  }
+
+  private class IdlingForRunnable extends ControlRunnable {
+    private final long endingTimeMs;
+
+    private IdlingForRunnable(long endingTimeMs) {
+      this.endingTimeMs = endingTimeMs;
+    }
+
+    @Override
+    public void run() {
+      try {
+        long nextScheduledTimeMs = getNextScheduledTaskTime().toMillis();
+        while (nextScheduledTimeMs != 0 && nextScheduledTimeMs <= endingTimeMs) {
+          SystemClock.setCurrentTimeMillis(nextScheduledTimeMs);
+          runExecutableMessages();
+          nextScheduledTimeMs = getNextScheduledTaskTime().toMillis();
         }
+        SystemClock.setCurrentTimeMillis(endingTimeMs);
+        // the last SystemClock update might have added new tasks to the main looper via
+        // Choreographer so idle once more.
+        runExecutableMessages();
       } finally {
         runLatch.countDown();
       }
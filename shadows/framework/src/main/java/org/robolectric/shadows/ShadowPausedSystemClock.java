@@ -5,9 +5,8 @@ import static android.os.Build.VERSION_CODES.P;
 
 import android.os.SystemClock;
 import java.time.DateTimeException;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import javax.annotation.concurrent.GuardedBy;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 import org.robolectric.annotation.HiddenApi;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
@@ -24,6 +23,9 @@ import org.robolectric.annotation.Resetter;
  * <p>{@link SystemClock#uptimeMillis()} and {@link SystemClock#currentThreadTimeMillis()} are
  * identical.
  *
+ * <p>The time is read without locking, as loopers on many threads read it constantly. Listeners are
+ * notified on the thread which sleeps or moves the time forward.
+ *
  * <p>This class should not be referenced directly. Use ShadowSystemClock instead.
  */
 @Implements(
@@ -34,10 +36,17 @@ public class ShadowPausedSystemClock extends ShadowSystemClock {
   private static final long INITIAL_TIME = 100;
   private static final int MILLIS_PER_NANO = 1000000;
 
-  @GuardedBy("ShadowPausedSystemClock.class")
-  private static long currentTimeMillis = INITIAL_TIME;
+  private static final AtomicLong currentTimeMillis = new AtomicLong(INITIAL_TIME);
+
+  private static final Listener[] NO_LISTENERS = new Listener[0];
+
+  private static final Object listenersLock = new Object();
 
-  private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  /**
+   * Replaced while holding {@link #listenersLock} on every change, so that notifying listeners
+   * doesn't lock or allocate.
+   */
+  private static volatile Listener[] listeners = NO_LISTENERS;
 
   /**
    * Callback for clock updates
@@ -47,24 +56,41 @@ public class ShadowPausedSystemClock extends ShadowSystemClock {
   }
 
   static void addListener(Listener listener) {
-    listeners.add(listener);
+    synchronized (listenersLock) {
+      Listener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+      newListeners[listeners.length] = listener;
+      listeners = newListeners;
+    }
   }
 
   static void removeListener(Listener listener) {
-    listeners.remove(listener);
+    synchronized (listenersLock) {
+      Listener[] oldListeners = listeners;
+      for (int i = 0; i < oldListeners.length; i++) {
+        if (oldListeners[i].equals(listener)) {
+          Listener[] newListeners = new Listener[oldListeners.length - 1];
+          System.arraycopy(oldListeners, 0, newListeners, 0, i);
+          System.arraycopy(oldListeners, i + 1, newListeners, i, newListeners.length - i);
+          listeners = newListeners;
+          return;
+        }
+      }
+    }
   }
 
-  /** Advances the current time by given millis, without sleeping the current thread/ */
-  @Implementation
-  protected static void sleep(long millis) {
-    synchronized (ShadowPausedSystemClock.class) {
-      currentTimeMillis += millis;
-    }
+  private static void notifyListeners() {
     for (Listener listener : listeners) {
       listener.onClockAdvanced();
     }
   }
 
+  /** Advances the current time by given millis, without sleeping the current thread/ */
+  @Implementation
+  protected static void sleep(long millis) {
+    currentTimeMillis.addAndGet(millis);
+    notifyListeners();
+  }
+
   /**
    * Sets the current wall time.
    *
@@ -74,24 +100,23 @@ public class ShadowPausedSystemClock extends ShadowSystemClock {
    */
   @Implementation
   protected static boolean setCurrentTimeMillis(long millis) {
-    synchronized (ShadowPausedSystemClock.class) {
-      if (currentTimeMillis > millis) {
+    while (true) {
+      long current = currentTimeMillis.get();
+      if (current > millis) {
         return false;
-      } else if (currentTimeMillis == millis) {
+      } else if (current == millis) {
         return true;
-      } else {
-        currentTimeMillis = millis;
+      } else if (currentTimeMillis.compareAndSet(current, millis)) {
+        break;
       }
     }
-    for (Listener listener : listeners) {
-      listener.onClockAdvanced();
-    }
+    notifyListeners();
     return true;
   }
 
   @Implementation
-  protected static synchronized long uptimeMillis() {
-    return currentTimeMillis;
+  protected static long uptimeMillis() {
+    return currentTimeMillis.get();
   }
 
   @Implementation
@@ -123,18 +148,20 @@ public class ShadowPausedSystemClock extends ShadowSystemClock {
 
   @Implementation(minSdk = P)
   @HiddenApi
-  protected static synchronized long currentNetworkTimeMillis() {
+  protected static long currentNetworkTimeMillis() {
     if (networkTimeAvailable) {
-      return currentTimeMillis;
+      return currentTimeMillis.get();
     } else {
       throw new DateTimeException("Network time not available");
     }
   }
 
   @Resetter
-  public static synchronized void reset() {
-    currentTimeMillis = INITIAL_TIME;
+  public static void reset() {
+    currentTimeMillis.set(INITIAL_TIME);
     ShadowSystemClock.reset();
-    listeners.clear();
+    synchronized (listenersLock) {
+      listeners = NO_LISTENERS;
+    }
   }
 }
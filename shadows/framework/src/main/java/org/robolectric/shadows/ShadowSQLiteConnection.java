@@ -1,7 +1,9 @@
 package org.robolectric.shadows;
 
 import android.database.sqlite.SQLiteConnection;
+import android.database.sqlite.SQLiteDatabase;
 import android.os.SystemProperties;
+import java.io.File;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
@@ -96,6 +98,45 @@ public class ShadowSQLiteConnection {
     SystemProperties.set("debug.sqlite.journalmode", value);
   }
 
+  /**
+   * Saves an image of a database which has been set up, such as by a {@link
+   * android.database.sqlite.SQLiteOpenHelper} creating its schema and inserting seed data, so that
+   * later tests can start from a copy with {@link #restoreDatabaseSnapshot} instead of repeating
+   * the setup.
+   *
+   * <p>The image is stored under the fixture id and the database's schema version, replacing any
+   * earlier image with the same key. Images are kept for as long as the sandbox is in use, so they
+   * are shared by all tests run in it, until {@link #clearDatabaseSnapshots} is called.
+   *
+   * <p>The database must be file-backed, and must not be in a transaction. In WAL mode, it must not
+   * be in use by other connections either.
+   */
+  public static void captureDatabaseSnapshot(SQLiteDatabase database, String fixtureId) {
+    SQLiteDatabaseSnapshots.capture(database, fixtureId);
+  }
+
+  /**
+   * Replaces the database file at {@code databasePath} with the image captured by {@link
+   * #captureDatabaseSnapshot} for the same fixture id and schema version, if there is one. The
+   * database must not be open.
+   *
+   * <p>A typical fixture restores the snapshot, and only if that fails, creates and seeds the
+   * database and captures it. Opening the restored file with a {@link
+   * android.database.sqlite.SQLiteOpenHelper} for the same schema version then won't call {@code
+   * onCreate} or {@code onUpgrade}.
+   *
+   * @return false if there is no snapshot, in which case the file is left alone
+   */
+  public static boolean restoreDatabaseSnapshot(
+      File databasePath, String fixtureId, int schemaVersion) {
+    return SQLiteDatabaseSnapshots.restore(databasePath, fixtureId, schemaVersion);
+  }
+
+  /** Discards all the images saved by {@link #captureDatabaseSnapshot} in this sandbox. */
+  public static void clearDatabaseSnapshots() {
+    SQLiteDatabaseSnapshots.clear();
+  }
+
   @Resetter
   public static void reset() {
     useInMemoryDatabase.set(false);
@@ -3,15 +3,14 @@ package org.robolectric.shadows.util;
 import com.almworks.sqlite4java.SQLite;
 import com.almworks.sqlite4java.SQLiteException;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.io.ByteSource;
-import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.robolectric.util.NativeLibraryCache;
 
 /** Initializes sqlite native libraries. */
 public class SQLiteLibraryLoader {
@@ -47,15 +46,16 @@ public class SQLiteLibraryLoader {
       return;
     }
     final long startTime = System.currentTimeMillis();
-    File tempDir = Files.createTempDir();
-    tempDir.deleteOnExit();
-    File extractedLibraryPath = new File(tempDir, getLibName());
-    try (FileOutputStream outputStream = new FileOutputStream(extractedLibraryPath)) {
-      getLibraryByteSource().copyTo(outputStream);
+    Path libraryFile;
+    try {
+      libraryFile =
+          NativeLibraryCache.getLibraryFile(
+              Resources.getResource(getLibClasspathResourceName()), getLibName());
     } catch (IOException e) {
-      throw new RuntimeException("Cannot extract SQLite library into " + extractedLibraryPath, e);
+      throw new RuntimeException("Cannot extract SQLite library " + getLibName(), e);
     }
-    loadFromDirectory(tempDir);
+    // sqlite4java loads the library from a directory, which only holds this library.
+    loadFromDirectory(libraryFile.getParent().toFile());
     logWithTime("SQLite natives prepared in", startTime);
   }
 
@@ -63,10 +63,6 @@ public class SQLiteLibraryLoader {
     return "sqlite4java/" + getNativesResourcesPathPart() + "/" + getLibName();
   }
 
-  private ByteSource getLibraryByteSource() {
-    return Resources.asByteSource(Resources.getResource(getLibClasspathResourceName()));
-  }
-
   private void logWithTime(final String message, final long startTime) {
     log(message + " " + (System.currentTimeMillis() - startTime));
   }
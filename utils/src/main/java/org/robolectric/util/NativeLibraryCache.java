@@ -0,0 +1,218 @@
+package org.robolectric.util;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extracts native libraries from the classpath into a directory shared by all JVMs, so that each
+ * library is written to disk once rather than once per test process.
+ *
+ * <p>Each library is stored under its own file name, in a subdirectory named by the SHA-256 digest
+ * of its contents, so different versions never collide. The digest of a resource is computed once
+ * per process. Libraries are extracted to a temp file which is then moved into place, while holding
+ * a file lock, so that processes starting at the same time wait for the first one instead of
+ * writing copies of their own, and a cached file is never incomplete.
+ *
+ * <p>The cache is in {@code ~/.robolectric/native-libraries}, unless the {@code
+ * robolectric.nativeLibraryCacheDir} system property is set. Since the libraries are loaded into
+ * the JVM, the cache directory must be owned by the current user and, where the file system has
+ * POSIX permissions, must not be writable by anyone else; it is created accessible only to its
+ * owner. Since no one else can replace a cached library, a cached file of the expected size is
+ * used without being read again. If the cache can't be used, libraries are extracted to a new temp
+ * directory instead.
+ */
+@SuppressWarnings({"NewApi", "AndroidJdkLibsChecker", "UnstableApiUsage"})
+public final class NativeLibraryCache {
+  static final String CACHE_DIR_PROPERTY = "robolectric.nativeLibraryCacheDir";
+
+  /** The files returned by {@link #getLibraryFile}, by resource and file name. */
+  private static final Map<String, Path> libraryFiles = new ConcurrentHashMap<>();
+
+  /** The files returned by {@link #getLibraryFileToLoad}. */
+  private static final Set<Path> filesToLoad = ConcurrentHashMap.newKeySet();
+
+  private NativeLibraryCache() {}
+
+  /**
+   * Returns a file with the contents of a native library resource, named {@code fileName}, which
+   * is alone in its directory. The resource is only read the first time a process asks for it.
+   */
+  public static Path getLibraryFile(URL resource, String fileName) throws IOException {
+    String key = resource + "!" + fileName;
+    Path libraryFile = libraryFiles.get(key);
+    if (libraryFile == null) {
+      libraryFile = extractResource(resource, fileName);
+      Path existing = libraryFiles.putIfAbsent(key, libraryFile);
+      if (existing != null) {
+        libraryFile = existing;
+      }
+    }
+    return libraryFile;
+  }
+
+  /**
+   * Returns a file with the contents of a native library resource, named {@code fileName}, for
+   * {@link System#load}. The JVM refuses to load a file into a second class loader, so this returns
+   * a different file on every call: the cached file the first time, and then a hard link to it, or
+   * a copy where links aren't supported, in a new directory which is deleted on exit.
+   */
+  public static Path getLibraryFileToLoad(URL resource, String fileName) throws IOException {
+    Path libraryFile = getLibraryFile(resource, fileName);
+    if (filesToLoad.add(libraryFile)) {
+      return libraryFile;
+    }
+
+    // Next to the cache directory's subdirectories, so that the link is on the same file system.
+    Path linkDir = Files.createTempDirectory(libraryFile.getParent().getParent(), "load");
+    linkDir.toFile().deleteOnExit();
+    Path link = linkDir.resolve(fileName);
+    try {
+      Files.createLink(link, libraryFile);
+    } catch (IOException | UnsupportedOperationException e) {
+      Files.copy(libraryFile, link);
+    }
+    link.toFile().deleteOnExit();
+    return link;
+  }
+
+  private static Path extractResource(URL resource, String fileName) throws IOException {
+    byte[] library = Resources.toByteArray(resource);
+    try {
+      return extract(getCacheDir(), library, fileName);
+    } catch (IOException e) {
+      Logger.warn("failed to use native library cache for %s: %s", fileName, e);
+      Path tempDir = Files.createTempDirectory("robolectric-native");
+      tempDir.toFile().deleteOnExit();
+      Path libraryFile = tempDir.resolve(fileName);
+      Files.write(libraryFile, library);
+      libraryFile.toFile().deleteOnExit();
+      return libraryFile;
+    }
+  }
+
+  /**
+   * Extracts a library into the cache, unless it is already there, and returns the cached file.
+   * Synchronized since file locks are held by the whole JVM, and can't be taken twice.
+   */
+  static synchronized Path extract(Path cacheDir, byte[] library, String fileName)
+      throws IOException {
+    checkCacheDir(cacheDir);
+    String digest = Hashing.sha256().hashBytes(library).toString();
+    Path libraryFile = cacheDir.resolve(digest).resolve(fileName);
+    if (isExtracted(libraryFile, library.length)) {
+      PerfStatsCollector.getInstance().incrementCount("native library cache hit");
+      return libraryFile;
+    }
+
+    Files.createDirectories(libraryFile.getParent());
+    Path lockFile = cacheDir.resolve(digest + ".lock");
+    try (FileChannel lockChannel =
+            FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.lock()) {
+      // Another process may have extracted the library while we waited for the lock.
+      if (isExtracted(libraryFile, library.length)) {
+        PerfStatsCollector.getInstance().incrementCount("native library cache hit");
+        return libraryFile;
+      }
+      PerfStatsCollector.getInstance().incrementCount("native library cache miss");
+      Path tempFile = Files.createTempFile(libraryFile.getParent(), fileName, ".tmp");
+      try {
+        Files.write(tempFile, library);
+        moveIntoPlace(tempFile, libraryFile);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    }
+    return libraryFile;
+  }
+
+  /**
+   * Returns whether the library has been extracted. Cached files are moved into place once they are
+   * complete, in a directory only the current user can write to, so the size is only checked in
+   * case the file has been truncated since.
+   */
+  private static boolean isExtracted(Path libraryFile, int length) throws IOException {
+    return Files.isRegularFile(libraryFile, LinkOption.NOFOLLOW_LINKS)
+        && Files.size(libraryFile) == length;
+  }
+
+  /**
+   * Creates the cache directory if needed, so that only its owner can access it, and checks that
+   * no one but the current user can write to it.
+   */
+  private static void checkCacheDir(Path cacheDir) throws IOException {
+    boolean posix = cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix");
+    if (!Files.isDirectory(cacheDir, LinkOption.NOFOLLOW_LINKS)) {
+      if (posix) {
+        Files.createDirectories(
+            cacheDir,
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      } else {
+        Files.createDirectories(cacheDir);
+      }
+    }
+
+    UserPrincipal owner = Files.getOwner(cacheDir, LinkOption.NOFOLLOW_LINKS);
+    if (!owner.equals(currentUser())) {
+      throw new IOException(cacheDir + " is owned by " + owner.getName());
+    }
+    if (posix) {
+      Set<PosixFilePermission> permissions =
+          Files.getPosixFilePermissions(cacheDir, LinkOption.NOFOLLOW_LINKS);
+      if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+          || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+        throw new IOException(cacheDir + " is writable by other users");
+      }
+    }
+  }
+
+  /** Returns the user this JVM creates files as. */
+  private static UserPrincipal currentUser() throws IOException {
+    Path probe = Files.createTempFile("robolectric-native", ".tmp");
+    try {
+      return Files.getOwner(probe);
+    } finally {
+      Files.delete(probe);
+    }
+  }
+
+  private static void moveIntoPlace(Path tempFile, Path libraryFile) throws IOException {
+    try {
+      Files.move(tempFile, libraryFile, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, libraryFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static Path getCacheDir() throws IOException {
+    String cacheDir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (!Strings.isNullOrEmpty(cacheDir)) {
+      return Paths.get(cacheDir);
+    }
+    // The user's home directory, rather than the shared temp directory, where other users could
+    // create the cache directory first.
+    String userHome = System.getProperty("user.home");
+    if (Strings.isNullOrEmpty(userHome)) {
+      throw new IOException("user.home is not set");
+    }
+    return Paths.get(userHome, ".robolectric", "native-libraries");
+  }
+}
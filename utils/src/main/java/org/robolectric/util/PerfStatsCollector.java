@@ -4,6 +4,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.robolectric.pluginapi.perf.LatencyHistogram;
 import org.robolectric.pluginapi.perf.Metadata;
 import org.robolectric.pluginapi.perf.Metric;
 import org.robolectric.pluginapi.perf.PerfStatsReporter;
@@ -11,16 +16,22 @@ import org.robolectric.pluginapi.perf.PerfStatsReporter;
 /**
  * Collects performance statistics for later reporting via {@link PerfStatsReporter}.
  *
+ * <p>Recording is lock-free and allocation-free once a metric has been seen: each metric
+ * accumulates into striped counters and a {@link LatencyHistogram}, so collection is cheap enough
+ * to leave enabled on multithreaded runs.
+ *
  * @since 3.6
  */
+@SuppressWarnings({"AndroidJdkLibsChecker", "NewApi"})
 public class PerfStatsCollector {
 
   private static final PerfStatsCollector INSTANCE = new PerfStatsCollector();
 
   private final Clock clock;
   private final Map<Class<?>, Object> metadata = new HashMap<>();
-  private final Map<MetricKey, Metric> metricMap = new HashMap<>();
-  private boolean enabled = true;
+  private final ConcurrentHashMap<String, Accumulator> successMetrics = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Accumulator> failureMetrics = new ConcurrentHashMap<>();
+  private volatile boolean enabled = true;
 
   public PerfStatsCollector() {
     this(System::nanoTime);
@@ -60,14 +71,7 @@ public class PerfStatsCollector {
   }
 
   public void incrementCount(String eventName) {
-    synchronized (PerfStatsCollector.this) {
-      MetricKey key = new MetricKey(eventName, true);
-      Metric metric = metricMap.get(key);
-      if (metric == null) {
-        metricMap.put(key, metric = new Metric(key.name, key.success));
-      }
-      metric.incrementCount();
-    }
+    accumulator(eventName, true).count.increment();
   }
 
   /**
@@ -100,8 +104,12 @@ public class PerfStatsCollector {
     void run() throws F;
   }
 
-  public synchronized Collection<Metric> getMetrics() {
-    return new ArrayList<>(metricMap.values());
+  /** Returns a snapshot of the metrics collected so far. */
+  public Collection<Metric> getMetrics() {
+    Collection<Metric> metrics = new ArrayList<>(successMetrics.size() + failureMetrics.size());
+    successMetrics.forEach((name, accumulator) -> metrics.add(accumulator.toMetric(name, true)));
+    failureMetrics.forEach((name, accumulator) -> metrics.add(accumulator.toMetric(name, false)));
+    return metrics;
   }
 
   public synchronized <T> void putMetadata(Class<T> metadataClass, T metadata) {
@@ -116,9 +124,20 @@ public class PerfStatsCollector {
     return new Metadata(metadata);
   }
 
-  public void reset() {
+  public synchronized void reset() {
     metadata.clear();
-    metricMap.clear();
+    successMetrics.clear();
+    failureMetrics.clear();
+  }
+
+  private Accumulator accumulator(String name, boolean success) {
+    ConcurrentHashMap<String, Accumulator> metrics = success ? successMetrics : failureMetrics;
+    // get() first, since computeIfAbsent() may lock even when the key is present.
+    Accumulator accumulator = metrics.get(name);
+    if (accumulator == null) {
+      accumulator = metrics.computeIfAbsent(name, k -> new Accumulator());
+    }
+    return accumulator;
   }
 
   /**
@@ -142,51 +161,46 @@ public class PerfStatsCollector {
         return;
       }
 
-      synchronized (PerfStatsCollector.this) {
-        MetricKey key = new MetricKey(name, success);
-        Metric metric = metricMap.get(key);
-        if (metric == null) {
-          metricMap.put(key, metric = new Metric(key.name, key.success));
-        }
-        metric.record(clock.nanoTime() - startTimeNs);
-      }
+      accumulator(name, success).record(clock.nanoTime() - startTimeNs);
     }
   }
 
-  /**
-   * Metric key for perf stats collection.
-   */
-  private static class MetricKey {
-    private final String name;
-    private final boolean success;
+  /** Thread-safe accumulator for the values of a single metric. */
+  private static class Accumulator {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder elapsedNs = new LongAdder();
+    private final AtomicLong minNs = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxNs = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
 
-    MetricKey(String name, boolean success) {
-      this.name = name;
-      this.success = success;
-    }
+    void record(long durationNs) {
+      count.increment();
+      elapsedNs.add(durationNs);
+      bucketCounts.incrementAndGet(LatencyHistogram.bucketFor(durationNs));
 
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (!(o instanceof MetricKey)) {
-        return false;
+      // Only contend on min and max while they're still changing.
+      long min = minNs.get();
+      while (durationNs < min && !minNs.compareAndSet(min, durationNs)) {
+        min = minNs.get();
       }
-
-      MetricKey metricKey = (MetricKey) o;
-
-      if (success != metricKey.success) {
-        return false;
+      long max = maxNs.get();
+      while (durationNs > max && !maxNs.compareAndSet(max, durationNs)) {
+        max = maxNs.get();
       }
-      return name != null ? name.equals(metricKey.name) : metricKey.name == null;
     }
 
-    @Override
-    public int hashCode() {
-      int result = name != null ? name.hashCode() : 0;
-      result = 31 * result + (success ? 1 : 0);
-      return result;
+    Metric toMetric(String name, boolean success) {
+      long min = minNs.get();
+      if (min == Long.MAX_VALUE) {
+        // counted, but no durations recorded
+        return new Metric(name, (int) count.sum(), 0, 0, 0, null, success);
+      }
+      long[] buckets = new long[LatencyHistogram.BUCKET_COUNT];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = bucketCounts.get(i);
+      }
+      return new Metric(
+          name, (int) count.sum(), elapsedNs.sum(), min, maxNs.get(), buckets, success);
     }
   }
 }
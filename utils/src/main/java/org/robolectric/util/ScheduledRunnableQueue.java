@@ -0,0 +1,284 @@
+package org.robolectric.util;
+
+import java.util.Arrays;
+
+/**
+ * The queue of runnables posted to a {@link Scheduler}, ordered by scheduled time and then by a
+ * sequence number which keeps runnables posted for the same time in FIFO order.
+ *
+ * <p>Entries are stored in parallel primitive arrays rather than as objects, and ordered by a
+ * binary heap of entry indices. An identity index from each runnable to its entries makes removal
+ * O(log n). Posting and running runnables doesn't allocate once the arrays have grown to fit the
+ * queue.
+ *
+ * <p>This class is not thread safe; {@link Scheduler} guards it with its own lock.
+ */
+final class ScheduledRunnableQueue {
+  private static final int NONE = -1;
+  private static final int INITIAL_CAPACITY = 16;
+  /** Stands in for null runnables in the index, where null marks an empty bucket. */
+  private static final Object NULL_KEY = new Object();
+
+  // Entries, indexed by slot. Free slots are chained through nextSameRunnable.
+  private long[] times = new long[INITIAL_CAPACITY];
+  private long[] sequences = new long[INITIAL_CAPACITY];
+  private Runnable[] runnables = new Runnable[INITIAL_CAPACITY];
+  /** The position of each entry's slot in the heap. */
+  private int[] heapPositions = new int[INITIAL_CAPACITY];
+  /** The next and previous slots holding the same runnable, or {@link #NONE}. */
+  private int[] nextSameRunnable = new int[INITIAL_CAPACITY];
+  private int[] previousSameRunnable = new int[INITIAL_CAPACITY];
+  private int slotCount;
+  private int freeSlot = NONE;
+
+  /** Slots ordered as a binary min-heap by time and sequence. */
+  private int[] heap = new int[INITIAL_CAPACITY];
+  private int size;
+
+  // Open-addressed identity map from each queued runnable to the first slot holding it.
+  private Object[] indexKeys = new Object[INITIAL_CAPACITY * 2];
+  private int[] indexSlots = new int[INITIAL_CAPACITY * 2];
+  private int indexSize;
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the scheduled time of the first runnable. The queue must not be empty. */
+  long peekTime() {
+    return times[heap[0]];
+  }
+
+  /** Returns the sequence number of the first runnable. The queue must not be empty. */
+  long peekSequence() {
+    return sequences[heap[0]];
+  }
+
+  /** Returns the latest scheduled time of any runnable, or {@code Long.MIN_VALUE} if empty. */
+  long maxTime() {
+    long maxTime = Long.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      maxTime = Math.max(maxTime, times[heap[i]]);
+    }
+    return maxTime;
+  }
+
+  void add(Runnable runnable, long time, long sequence) {
+    int slot = allocateSlot();
+    times[slot] = time;
+    sequences[slot] = sequence;
+    runnables[slot] = runnable;
+
+    Object key = indexKey(runnable);
+    int firstSlot = getIndex(key);
+    previousSameRunnable[slot] = NONE;
+    nextSameRunnable[slot] = firstSlot;
+    if (firstSlot != NONE) {
+      previousSameRunnable[firstSlot] = slot;
+    }
+    putIndex(key, slot);
+
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    heap[size] = slot;
+    heapPositions[slot] = size;
+    siftUp(size++);
+  }
+
+  /**
+   * Removes the first runnable, and returns it. Its time and sequence should be read first with
+   * {@link #peekTime()} and {@link #peekSequence()}. The queue must not be empty.
+   */
+  Runnable poll() {
+    int slot = heap[0];
+    Runnable runnable = runnables[slot];
+    removeSlot(slot);
+    return runnable;
+  }
+
+  /** Removes every entry for the given runnable. */
+  void removeAll(Runnable runnable) {
+    int slot = getIndex(indexKey(runnable));
+    while (slot != NONE) {
+      int next = nextSameRunnable[slot];
+      removeSlot(slot);
+      slot = next;
+    }
+  }
+
+  void clear() {
+    Arrays.fill(runnables, 0, slotCount, null);
+    Arrays.fill(indexKeys, null);
+    slotCount = 0;
+    freeSlot = NONE;
+    size = 0;
+    indexSize = 0;
+  }
+
+  private int allocateSlot() {
+    if (freeSlot != NONE) {
+      int slot = freeSlot;
+      freeSlot = nextSameRunnable[slot];
+      return slot;
+    }
+    if (slotCount == times.length) {
+      int capacity = slotCount * 2;
+      times = Arrays.copyOf(times, capacity);
+      sequences = Arrays.copyOf(sequences, capacity);
+      runnables = Arrays.copyOf(runnables, capacity);
+      heapPositions = Arrays.copyOf(heapPositions, capacity);
+      nextSameRunnable = Arrays.copyOf(nextSameRunnable, capacity);
+      previousSameRunnable = Arrays.copyOf(previousSameRunnable, capacity);
+    }
+    return slotCount++;
+  }
+
+  private void removeSlot(int slot) {
+    // Unlink the entry from its runnable's chain.
+    int previous = previousSameRunnable[slot];
+    int next = nextSameRunnable[slot];
+    if (next != NONE) {
+      previousSameRunnable[next] = previous;
+    }
+    if (previous != NONE) {
+      nextSameRunnable[previous] = next;
+    } else if (next != NONE) {
+      putIndex(indexKey(runnables[slot]), next);
+    } else {
+      removeIndex(indexKey(runnables[slot]));
+    }
+
+    // Replace it in the heap with the last entry.
+    int position = heapPositions[slot];
+    int last = heap[--size];
+    if (position != size) {
+      heap[position] = last;
+      heapPositions[last] = position;
+      siftDown(position);
+      if (heap[position] == last) {
+        siftUp(position);
+      }
+    }
+
+    runnables[slot] = null;
+    nextSameRunnable[slot] = freeSlot;
+    freeSlot = slot;
+  }
+
+  private boolean isBefore(int slot, int otherSlot) {
+    return times[slot] < times[otherSlot]
+        || (times[slot] == times[otherSlot] && sequences[slot] < sequences[otherSlot]);
+  }
+
+  private void siftUp(int position) {
+    int slot = heap[position];
+    while (position > 0) {
+      int parentPosition = (position - 1) >>> 1;
+      int parent = heap[parentPosition];
+      if (!isBefore(slot, parent)) {
+        break;
+      }
+      heap[position] = parent;
+      heapPositions[parent] = position;
+      position = parentPosition;
+    }
+    heap[position] = slot;
+    heapPositions[slot] = position;
+  }
+
+  private void siftDown(int position) {
+    int slot = heap[position];
+    int half = size >>> 1;
+    while (position < half) {
+      int childPosition = 2 * position + 1;
+      int child = heap[childPosition];
+      int rightPosition = childPosition + 1;
+      if (rightPosition < size && isBefore(heap[rightPosition], child)) {
+        childPosition = rightPosition;
+        child = heap[childPosition];
+      }
+      if (!isBefore(child, slot)) {
+        break;
+      }
+      heap[position] = child;
+      heapPositions[child] = position;
+      position = childPosition;
+    }
+    heap[position] = slot;
+    heapPositions[slot] = position;
+  }
+
+  private static Object indexKey(Runnable runnable) {
+    return runnable == null ? NULL_KEY : runnable;
+  }
+
+  private int indexPosition(Object key) {
+    // Spread the identity hash, since the table is a power of two in size.
+    int hash = System.identityHashCode(key) * 0x9E3779B9;
+    return (hash ^ (hash >>> 16)) & (indexKeys.length - 1);
+  }
+
+  private int getIndex(Object key) {
+    int mask = indexKeys.length - 1;
+    for (int i = indexPosition(key); indexKeys[i] != null; i = (i + 1) & mask) {
+      if (indexKeys[i] == key) {
+        return indexSlots[i];
+      }
+    }
+    return NONE;
+  }
+
+  private void putIndex(Object key, int slot) {
+    int mask = indexKeys.length - 1;
+    int i = indexPosition(key);
+    while (indexKeys[i] != null) {
+      if (indexKeys[i] == key) {
+        indexSlots[i] = slot;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    indexKeys[i] = key;
+    indexSlots[i] = slot;
+    if (++indexSize * 2 > indexKeys.length) {
+      resizeIndex();
+    }
+  }
+
+  private void removeIndex(Object key) {
+    int mask = indexKeys.length - 1;
+    int i = indexPosition(key);
+    while (indexKeys[i] != key) {
+      i = (i + 1) & mask;
+    }
+    // Shift back any following entries which would no longer be found past the gap.
+    for (int j = (i + 1) & mask; indexKeys[j] != null; j = (j + 1) & mask) {
+      int home = indexPosition(indexKeys[j]);
+      if (((j - home) & mask) >= ((j - i) & mask)) {
+        indexKeys[i] = indexKeys[j];
+        indexSlots[i] = indexSlots[j];
+        i = j;
+      }
+    }
+    indexKeys[i] = null;
+    indexSize--;
+  }
+
+  private void resizeIndex() {
+    Object[] oldKeys = indexKeys;
+    int[] oldSlots = indexSlots;
+    indexKeys = new Object[oldKeys.length * 2];
+    indexSlots = new int[oldKeys.length * 2];
+    indexSize = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        putIndex(oldKeys[i], oldSlots[i]);
+      }
+    }
+  }
+}
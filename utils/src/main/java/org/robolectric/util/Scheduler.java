@@ -7,8 +7,6 @@ import static org.robolectric.util.Scheduler.IdleState.UNPAUSED;
 
 import com.google.errorprone.annotations.InlineMe;
 import java.time.Duration;
-import java.util.Iterator;
-import java.util.PriorityQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -53,14 +51,14 @@ public class Scheduler {
   private static final long START_TIME = 100;
   private volatile long currentTime = START_TIME;
   /**
-   * PriorityQueue doesn't maintain ordering based on insertion; track that ourselves to preserve
-   * FIFO order for posted runnables with the same scheduled time.
+   * Sequence numbers for posted runnables, which preserve FIFO order for runnables with the same
+   * scheduled time.
    */
   private long nextTimeDisambiguator = 0;
 
   private boolean isExecutingRunnable = false;
   private final Thread associatedThread = Thread.currentThread();
-  private final PriorityQueue<ScheduledRunnable> runnables = new PriorityQueue<>();
+  private final ScheduledRunnableQueue runnables = new ScheduledRunnableQueue();
   private volatile IdleState idleState = UNPAUSED;
 
   /**
@@ -160,7 +158,7 @@ public class Scheduler {
   public synchronized void postDelayed(Runnable runnable, long delay, TimeUnit unit) {
     long delayMillis = unit.toMillis(delay);
     if ((idleState != CONSTANT_IDLE && (isPaused() || delayMillis > 0)) || Thread.currentThread() != associatedThread) {
-      runnables.add(new ScheduledRunnable(runnable, currentTime + delayMillis));
+      runnables.add(runnable, currentTime + delayMillis, nextTimeDisambiguator++);
     } else {
       runOrQueueRunnable(runnable, currentTime + delayMillis);
     }
@@ -177,9 +175,9 @@ public class Scheduler {
       if (runnables.isEmpty()) {
         timeDisambiguator = nextTimeDisambiguator++;
       } else {
-        timeDisambiguator = runnables.peek().timeDisambiguator - 1;
+        timeDisambiguator = runnables.peekSequence() - 1;
       }
-      runnables.add(new ScheduledRunnable(runnable, 0, timeDisambiguator));
+      runnables.add(runnable, 0, timeDisambiguator);
     } else {
       runOrQueueRunnable(runnable, currentTime);
     }
@@ -191,12 +189,7 @@ public class Scheduler {
    * @param runnable  Runnable to remove.
    */
   public synchronized void remove(Runnable runnable) {
-    Iterator<ScheduledRunnable> iterator = runnables.iterator();
-    while (iterator.hasNext()) {
-      if (iterator.next().runnable == runnable) {
-        iterator.remove();
-      }
-    }
+    runnables.removeAll(runnable);
   }
 
   /**
@@ -206,13 +199,7 @@ public class Scheduler {
    * @return True if a runnable was executed.
    */
   public synchronized boolean advanceToLastPostedRunnable() {
-    long currentMaxTime = currentTime;
-    for (ScheduledRunnable scheduled : runnables) {
-      if (currentMaxTime < scheduled.scheduledTime) {
-        currentMaxTime = scheduled.scheduledTime;
-      }
-    }
-    return advanceTo(currentMaxTime);
+    return advanceTo(Math.max(currentTime, runnables.maxTime()));
   }
 
   /**
@@ -221,7 +208,7 @@ public class Scheduler {
    * @return  True if a runnable was executed.
    */
   public synchronized boolean advanceToNextPostedRunnable() {
-    return !runnables.isEmpty() && advanceTo(runnables.peek().scheduledTime);
+    return !runnables.isEmpty() && advanceTo(runnables.peekTime());
   }
 
   /**
@@ -263,7 +250,7 @@ public class Scheduler {
 
     int runCount = 0;
     while (nextTaskIsScheduledBefore(endTime)) {
-      runOneTask();
+      runNextTask();
       ++runCount;
     }
     currentTime = endTime;
@@ -276,15 +263,11 @@ public class Scheduler {
    * @return  True if a runnable was executed.
    */
   public synchronized boolean runOneTask() {
-    ScheduledRunnable postedRunnable = runnables.poll();
-    if (postedRunnable != null) {
-      if (postedRunnable.scheduledTime > currentTime) {
-        currentTime = postedRunnable.scheduledTime;
-      }
-      postedRunnable.run();
-      return true;
+    if (runnables.isEmpty()) {
+      return false;
     }
-    return false;
+    runNextTask();
+    return true;
   }
 
   /**
@@ -317,7 +300,7 @@ public class Scheduler {
 
   @SuppressWarnings({"AndroidJdkLibsChecker", "NewApi"})
   public synchronized Duration getNextScheduledTaskTime() {
-    return runnables.isEmpty() ? Duration.ZERO : Duration.ofMillis(runnables.peek().scheduledTime);
+    return runnables.isEmpty() ? Duration.ZERO : Duration.ofMillis(runnables.peekTime());
   }
 
   @SuppressWarnings({"AndroidJdkLibsChecker", "NewApi"})
@@ -325,14 +308,7 @@ public class Scheduler {
     if (runnables.isEmpty()) {
       return Duration.ZERO;
     }
-    long currentMaxTime = currentTime;
-    for (ScheduledRunnable scheduled : runnables) {
-      if (currentMaxTime < scheduled.scheduledTime) {
-        currentMaxTime = scheduled.scheduledTime;
-      }
-
-    }
-    return Duration.ofMillis(currentMaxTime);
+    return Duration.ofMillis(Math.max(currentTime, runnables.maxTime()));
   }
 
   /**
@@ -351,12 +327,27 @@ public class Scheduler {
   }
 
   private boolean nextTaskIsScheduledBefore(long endingTime) {
-    return !runnables.isEmpty() && runnables.peek().scheduledTime <= endingTime;
+    return !runnables.isEmpty() && runnables.peekTime() <= endingTime;
+  }
+
+  /** Runs the first runnable in the queue, which must not be empty. */
+  private void runNextTask() {
+    long scheduledTime = runnables.peekTime();
+    Runnable runnable = runnables.poll();
+    if (scheduledTime > currentTime) {
+      currentTime = scheduledTime;
+    }
+    isExecutingRunnable = true;
+    try {
+      runnable.run();
+    } finally {
+      isExecutingRunnable = false;
+    }
   }
 
   private void runOrQueueRunnable(Runnable runnable, long scheduledTime) {
     if (isExecutingRunnable) {
-      runnables.add(new ScheduledRunnable(runnable, scheduledTime));
+      runnables.add(runnable, scheduledTime, nextTimeDisambiguator++);
       return;
     }
     isExecutingRunnable = true;
@@ -381,38 +372,4 @@ public class Scheduler {
       default:
     }
   }
-
-  private class ScheduledRunnable implements Comparable<ScheduledRunnable> {
-    private final Runnable runnable;
-    private final long scheduledTime;
-    private final long timeDisambiguator;
-
-    private ScheduledRunnable(Runnable runnable, long scheduledTime) {
-      this(runnable, scheduledTime, nextTimeDisambiguator++);
-    }
-
-    private ScheduledRunnable(Runnable runnable, long scheduledTime, long timeDisambiguator) {
-      this.runnable = runnable;
-      this.scheduledTime = scheduledTime;
-      this.timeDisambiguator = timeDisambiguator;
-    }
-
-    @Override
-    public int compareTo(ScheduledRunnable runnable) {
-      int timeCompare = Long.compare(scheduledTime, runnable.scheduledTime);
-      if (timeCompare == 0) {
-        return Long.compare(timeDisambiguator, runnable.timeDisambiguator);
-      }
-      return timeCompare;
-    }
-
-    public void run() {
-      isExecutingRunnable = true;
-      try {
-        runnable.run();
-      } finally {
-        isExecutingRunnable = false;
-      }
-    }
-  }
 }
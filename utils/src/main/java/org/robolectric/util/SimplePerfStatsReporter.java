@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import org.robolectric.AndroidMetadata;
+import org.robolectric.pluginapi.perf.LatencyHistogram;
 import org.robolectric.pluginapi.perf.Metadata;
 import org.robolectric.pluginapi.perf.Metric;
 import org.robolectric.pluginapi.perf.PerfStatsReporter;
@@ -46,14 +47,16 @@ public class SimplePerfStatsReporter implements PerfStatsReporter {
       }
     }
 
-    System.out.println("Name\tSDK\tResources\tSuccess\tCount\tMin ms\tMax ms\tAvg ms\tTotal ms");
+    System.out.println(
+        "Name\tSDK\tResources\tSuccess\tCount\tMin ms\tMax ms\tAvg ms\tP50 ms\tP95 ms\tP99 ms"
+            + "\tTotal ms");
     for (Entry<MetricKey, MetricValue> entry : mergedMetrics.entrySet()) {
       MetricKey key = entry.getKey();
       MetricValue value = entry.getValue();
 
       System.out.println(
           MessageFormat
-              .format("{0}\t{1}\t{2}\t{3}\t{4}\t{5}\t{6}\t{7}\t{8}",
+              .format("{0}\t{1}\t{2}\t{3}\t{4}\t{5}\t{6}\t{7}\t{8}\t{9}\t{10}\t{11}",
                   key.name,
                   key.sdkLevel,
                   key.resourcesMode,
@@ -62,6 +65,9 @@ public class SimplePerfStatsReporter implements PerfStatsReporter {
                   (int) (value.minNs / 1000000),
                   (int) (value.maxNs / 1000000),
                   (int) (value.elapsedNs / 1000000 / value.count),
+                  (int) (value.percentileNs(50) / 1000000),
+                  (int) (value.percentileNs(95) / 1000000),
+                  (int) (value.percentileNs(99) / 1000000),
                   (int) (value.elapsedNs / 1000000)));
     }
   }
@@ -149,6 +155,7 @@ public class SimplePerfStatsReporter implements PerfStatsReporter {
     private long minNs;
     private long maxNs;
     private long elapsedNs;
+    private final long[] bucketCounts = new long[LatencyHistogram.BUCKET_COUNT];
 
     public void report(Metric metric) {
       if (count == 0) {
@@ -162,6 +169,18 @@ public class SimplePerfStatsReporter implements PerfStatsReporter {
         maxNs = Math.max(maxNs, metric.getMaxNs());
         elapsedNs += metric.getElapsedNs();
       }
+
+      long[] metricBucketCounts = metric.getBucketCounts();
+      if (metricBucketCounts != null) {
+        for (int i = 0; i < bucketCounts.length; i++) {
+          bucketCounts[i] += metricBucketCounts[i];
+        }
+      }
+    }
+
+    long percentileNs(double percentile) {
+      long value = LatencyHistogram.valueAtPercentile(bucketCounts, percentile);
+      return Math.max(minNs, Math.min(maxNs, value));
     }
   }
 }
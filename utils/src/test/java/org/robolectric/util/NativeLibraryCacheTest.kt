@@ -0,0 +1,135 @@
+package org.robolectric.util
+
+import com.google.common.truth.Truth.assertThat
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.nio.file.attribute.PosixFilePermissions
+import org.junit.Assert.assertThrows
+import org.junit.Assume.assumeTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class NativeLibraryCacheTest {
+  @get:Rule val tempFolder = TemporaryFolder()
+
+  @Test
+  fun extract_writesLibraryAloneInItsDirectory() {
+    val cacheDir = tempFolder.newFolder().toPath()
+
+    val libraryFile = NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+
+    assertThat(libraryFile.fileName.toString()).isEqualTo("libfoo.so")
+    assertThat(Files.readAllBytes(libraryFile)).isEqualTo(byteArrayOf(1, 2, 3))
+    assertThat(Files.list(libraryFile.parent).use { it.count() }).isEqualTo(1)
+  }
+
+  @Test
+  fun extract_sameLibrary_reusesExtractedFile() {
+    val cacheDir = tempFolder.newFolder().toPath()
+    val libraryFile = NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+    val modifiedTime = FileTime.fromMillis(1000)
+    Files.setLastModifiedTime(libraryFile, modifiedTime)
+
+    val cachedFile = NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+
+    assertThat(cachedFile).isEqualTo(libraryFile)
+    assertThat(Files.getLastModifiedTime(cachedFile)).isEqualTo(modifiedTime)
+  }
+
+  @Test
+  fun extract_differentLibrary_usesDifferentDirectory() {
+    val cacheDir = tempFolder.newFolder().toPath()
+
+    val first = NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+    val second = NativeLibraryCache.extract(cacheDir, byteArrayOf(4, 5, 6), "libfoo.so")
+
+    assertThat(second.parent).isNotEqualTo(first.parent)
+    assertThat(Files.readAllBytes(first)).isEqualTo(byteArrayOf(1, 2, 3))
+    assertThat(Files.readAllBytes(second)).isEqualTo(byteArrayOf(4, 5, 6))
+  }
+
+  @Test
+  fun extract_truncatedFile_isReplaced() {
+    val cacheDir = tempFolder.newFolder().toPath()
+    val libraryFile = NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+    Files.write(libraryFile, byteArrayOf(1))
+
+    NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+
+    assertThat(Files.readAllBytes(libraryFile)).isEqualTo(byteArrayOf(1, 2, 3))
+  }
+
+  @Test
+  fun getLibraryFile_readsResourceOncePerProcess() {
+    val resource = tempFolder.newFile().toPath()
+    Files.write(resource, byteArrayOf(1, 2, 3))
+    val url = resource.toUri().toURL()
+    val libraryFile = withCacheDir { NativeLibraryCache.getLibraryFile(url, "libonce.so") }
+    Files.write(resource, byteArrayOf(4, 5, 6))
+
+    val cachedFile = withCacheDir { NativeLibraryCache.getLibraryFile(url, "libonce.so") }
+
+    assertThat(cachedFile).isEqualTo(libraryFile)
+    assertThat(Files.readAllBytes(cachedFile)).isEqualTo(byteArrayOf(1, 2, 3))
+  }
+
+  @Test
+  fun getLibraryFileToLoad_returnsDifferentFileForEachCall() {
+    val resource = tempFolder.newFile().toPath()
+    Files.write(resource, byteArrayOf(1, 2, 3))
+    val url = resource.toUri().toURL()
+
+    val first = withCacheDir { NativeLibraryCache.getLibraryFileToLoad(url, "libload.so") }
+    val second = withCacheDir { NativeLibraryCache.getLibraryFileToLoad(url, "libload.so") }
+
+    assertThat(first)
+      .isEqualTo(withCacheDir { NativeLibraryCache.getLibraryFile(url, "libload.so") })
+    assertThat(second).isNotEqualTo(first)
+    assertThat(second.fileName.toString()).isEqualTo("libload.so")
+    assertThat(Files.readAllBytes(second)).isEqualTo(byteArrayOf(1, 2, 3))
+  }
+
+  @Test
+  fun extract_createsCacheDirAccessibleOnlyToOwner() {
+    assumeTrue(isPosix())
+    val cacheDir = tempFolder.root.toPath().resolve("cache")
+
+    NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+
+    assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(cacheDir)))
+      .isEqualTo("rwx------")
+  }
+
+  @Test
+  fun extract_cacheDirWritableByOthers_throws() {
+    assumeTrue(isPosix())
+    val cacheDir = tempFolder.newFolder().toPath()
+    Files.setPosixFilePermissions(cacheDir, PosixFilePermissions.fromString("rwxrwxrwx"))
+
+    assertThrows(IOException::class.java) {
+      NativeLibraryCache.extract(cacheDir, byteArrayOf(1, 2, 3), "libfoo.so")
+    }
+  }
+
+  private fun <T> withCacheDir(block: () -> T): T {
+    val cacheDir = tempFolder.root.toPath().resolve("cache").toString()
+    val previous = System.setProperty(NativeLibraryCache.CACHE_DIR_PROPERTY, cacheDir)
+    try {
+      return block()
+    } finally {
+      if (previous == null) {
+        System.clearProperty(NativeLibraryCache.CACHE_DIR_PROPERTY)
+      } else {
+        System.setProperty(NativeLibraryCache.CACHE_DIR_PROPERTY, previous)
+      }
+    }
+  }
+
+  private fun isPosix() =
+    tempFolder.root.toPath().fileSystem.supportedFileAttributeViews().contains("posix")
+}
@@ -1,5 +1,6 @@
 package org.robolectric.util
 
+import com.google.common.collect.Range
 import com.google.common.truth.Truth.assertThat
 import java.io.IOException
 import org.junit.Assert
@@ -107,6 +108,59 @@ class PerfStatsCollectorTest {
     assertThat(collector.metrics).isEmpty()
   }
 
+  @Test
+  fun shouldReportPercentiles() {
+    for (i in 1..100) {
+      val event = collector.startEvent("event")
+      fakeClock.delay(i * 1000)
+      event.finished()
+    }
+    val metric = collector.metrics.single()
+    assertThat(metric.minNs).isEqualTo(1000L)
+    assertThat(metric.maxNs).isEqualTo(100000L)
+    // Percentiles are accurate to within one histogram bucket (12.5%).
+    assertThat(metric.p50Ns).isIn(Range.closed(50000L, 56250L))
+    assertThat(metric.p95Ns).isIn(Range.closed(95000L, 106875L))
+    assertThat(metric.p99Ns).isIn(Range.closed(99000L, 100000L))
+  }
+
+  @Test
+  fun countsOnlyMetric_shouldHaveNoDurations() {
+    collector.incrementCount("counter")
+    collector.incrementCount("counter")
+    val metric = collector.metrics.single()
+    assertThat(metric.count).isEqualTo(2)
+    assertThat(metric.elapsedNs).isEqualTo(0L)
+    assertThat(metric.p99Ns).isEqualTo(0L)
+  }
+
+  @Test
+  fun shouldCollectFromManyThreads() {
+    val threads =
+      (1..8).map {
+        Thread {
+          for (i in 1..1000) {
+            collector.startEvent("event").finished()
+            collector.incrementCount("counter")
+          }
+        }
+      }
+    threads.forEach { it.start() }
+    threads.forEach { it.join() }
+    val counts = collector.metrics.associate { it.name to it.count }
+    assertThat(counts).containsExactly("event", 8000, "counter", 8000)
+  }
+
+  @Test
+  fun metric_shouldComputePercentilesForRecordedValues() {
+    val metric = Metric("metric", true)
+    for (i in 1..10) {
+      metric.record(i.toLong())
+    }
+    assertThat(metric.p50Ns).isEqualTo(5L)
+    assertThat(metric.p99Ns).isEqualTo(10L)
+  }
+
   private class FakeClock : Clock {
     private var timeNs = 0
     override fun nanoTime(): Long {
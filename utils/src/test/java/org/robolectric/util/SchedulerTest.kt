@@ -425,6 +425,42 @@ class SchedulerTest {
     assertThat(actualOrder).isEqualTo(ImmutableList.copyOf(Iterables.concat(orderCheck.values)))
   }
 
+  /** Tests for quadratic behavior in removal, and that it keeps the remaining runnables in order */
+  @Test(timeout = 1000)
+  fun remove_withManyRunnables_keepsOrderOfRemainingRunnables() {
+    val random = Random(0)
+    val orderCheck: MutableMap<Int, MutableList<Int>> = TreeMap()
+    val actualOrder: MutableList<Int> = ArrayList()
+    val runnables: MutableList<Runnable> = ArrayList()
+    for (i in 0..19999) {
+      val delay = random.nextInt(10)
+      if (i % 3 != 0) {
+        orderCheck.getOrPut(delay) { ArrayList() }.add(i)
+      }
+      val runnable = Runnable { actualOrder.add(i) }
+      runnables.add(runnable)
+      scheduler.postDelayed(runnable, delay.toLong())
+    }
+    for (i in 0..19999 step 3) {
+      scheduler.remove(runnables[i])
+    }
+    assertThat(scheduler.size()).isEqualTo(13333)
+    scheduler.advanceToLastPostedRunnable()
+    assertThat(actualOrder).isEqualTo(ImmutableList.copyOf(Iterables.concat(orderCheck.values)))
+  }
+
+  @Test
+  fun remove_fromRunningRunnable_removesLaterRunnables() {
+    val later = AddToTranscript("later")
+    scheduler.post { scheduler.remove(later) }
+    scheduler.post(later)
+    scheduler.post(AddToTranscript("other"))
+    scheduler.postDelayed(later, 100)
+    scheduler.advanceToLastPostedRunnable()
+    assertThat(transcript).containsExactly("other")
+    assertThat(scheduler.size()).isEqualTo(0)
+  }
+
   @Test(timeout = 1000)
   @Throws(InterruptedException::class)
   fun schedulerAllowsConcurrentTimeRead_whileLockIsHeld() {